@@ -1,18 +1,25 @@
 package ru.averkiev.socialmediaapi.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.averkiev.socialmediaapi.models.FeedPageDTO;
 import ru.averkiev.socialmediaapi.models.PostDTO;
 import ru.averkiev.socialmediaapi.services.impl.ActivityFeedServiceImpl;
+import ru.averkiev.socialmediaapi.utils.JsonStreamWriter;
 
 import java.util.List;
 
@@ -34,6 +41,9 @@ public class ActivityFeedController {
     /** Сервис для взаимодействия с лентой активности. */
     private final ActivityFeedServiceImpl activityFeedService;
 
+    /** Объект для сериализации элементов потокового ответа. */
+    private final ObjectMapper objectMapper;
+
     /**
      * API-endpoint для отображения ленты активности для пользователя.
      * @param page номер отображаемой страницы.
@@ -55,4 +65,43 @@ public class ActivityFeedController {
         }
         return ResponseEntity.status(HttpStatus.OK).body(activityFeedService.getActivityFeedForUser(page, pageSize));
     }
+
+    /**
+     * API-endpoint для постраничного отображения ленты активности по курсору.
+     * В отличие от пагинации по номеру страницы, стоимость получения страницы не зависит от глубины прокрутки,
+     * а новые посты не сдвигают границы уже полученных страниц.
+     * @param cursor курсор, полученный вместе с предыдущей страницей.
+     * @param limit количество отображаемых постов на странице.
+     * @return страница ленты, содержащая посты и курсор следующей страницы.
+     */
+    @GetMapping("/cursor")
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Отображает ленту активности для пользователя по курсору",
+            description = "Позволяет вывести страницу постов в соответствии с подписками пользователя, начиная с позиции курсора"
+    )
+    public ResponseEntity<FeedPageDTO> getActivityFeedPageForUser(
+            @Parameter(name = "cursor", description = "Курсор следующей страницы из предыдущего ответа") @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(name = "limit", description = "Количество отображаемых элементов на странице") @RequestParam(value = "limit", defaultValue = "20") Integer limit
+    ) {
+        return ResponseEntity.status(HttpStatus.OK).body(activityFeedService.getActivityFeedPageForUser(cursor, limit));
+    }
+
+    /**
+     * API-endpoint для потоковой выгрузки всей ленты активности пользователя.
+     * Данные постов читаются из базы данных частями и записываются в ответ по мере чтения, не накапливаясь в памяти.
+     * @param accept формат ответа: NDJSON или JSON-массив.
+     * @return потоковое тело ответа.
+     */
+    @GetMapping(params = "stream=true", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Потоковая выгрузка ленты активности",
+            description = "Позволяет получить все посты ленты активности пользователя в формате NDJSON или JSON-массива без пагинации"
+    )
+    public ResponseEntity<StreamingResponseBody> streamActivityFeedForUser(
+            @Parameter(name = "Accept", description = "application/x-ndjson - по одному объекту на строку, иначе JSON-массив") @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        return JsonStreamWriter.response(activityFeedService.streamActivityFeedForUser(), JsonStreamWriter.isNdjson(accept), objectMapper);
+    }
 }
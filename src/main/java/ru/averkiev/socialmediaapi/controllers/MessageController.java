@@ -1,12 +1,18 @@
 package ru.averkiev.socialmediaapi.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.averkiev.socialmediaapi.models.MessageDTO;
 import ru.averkiev.socialmediaapi.models.MessageEditDTO;
 import ru.averkiev.socialmediaapi.models.User;
@@ -14,6 +20,7 @@ import ru.averkiev.socialmediaapi.models.UserDTO;
 import ru.averkiev.socialmediaapi.services.impl.MessageServiceImpl;
 import ru.averkiev.socialmediaapi.services.impl.UserFriendServiceImpl;
 import ru.averkiev.socialmediaapi.services.impl.UserServiceImpl;
+import ru.averkiev.socialmediaapi.utils.JsonStreamWriter;
 
 import java.util.List;
 
@@ -41,6 +48,9 @@ public class MessageController {
     /** Сервис для взаимодействия с пользователями. */
     private final UserServiceImpl userService;
 
+    /** Объект для сериализации элементов потокового ответа. */
+    private final ObjectMapper objectMapper;
+
     /**
      * API-endpoint для создания сообщения.
      * @param messageDTO DTO содержащий данные сообщения.
@@ -74,10 +84,10 @@ public class MessageController {
     @SecurityRequirement(name = "JWT")
     @Operation(
             summary = "Редактирование сообщения",
-            description = "Позволяет отредактировать сообщение отправленное пользователю"
+            description = "Позволяет отредактировать сообщение отправленное пользователю. Если сообщение изменено после получения переданной версии, возвращается 409"
     )
     public ResponseEntity<MessageDTO> editMessage(@PathVariable Long id, @RequestBody MessageEditDTO messageEditDTO) {
-        return ResponseEntity.status(HttpStatus.OK).body(messageService.editMessage(id, messageEditDTO.getContent()));
+        return ResponseEntity.status(HttpStatus.OK).body(messageService.editMessage(id, messageEditDTO.getContent(), messageEditDTO.getVersion()));
     }
 
     /**
@@ -124,4 +134,48 @@ public class MessageController {
     public ResponseEntity<List<MessageDTO>> getMessages(@PathVariable Long id) {
             return ResponseEntity.status(HttpStatus.OK).body(messageService.getMessagesBetweenUsers(id));
     }
+
+    /**
+     * API-endpoint для полнотекстового поиска сообщений текущего пользователя.
+     * Поиск выполняется только по перепискам, в которых участвует пользователь.
+     * @param query текст запроса.
+     * @param interlocutorId идентификатор собеседника для поиска в одной переписке.
+     * @param page номер отображаемой страницы.
+     * @param pageSize количество отображаемых сообщений на странице.
+     * @return список объектов MessageDTO, отсортированных по релевантности.
+     */
+    @GetMapping("/search")
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Поиск сообщений",
+            description = "Позволяет найти сообщения в переписках текущего пользователя, в том числе в переписке с указанным собеседником"
+    )
+    public ResponseEntity<List<MessageDTO>> searchMessages(
+            @Parameter(name = "q", description = "Текст запроса") @RequestParam("q") String query,
+            @Parameter(name = "interlocutorId", description = "Идентификатор собеседника") @RequestParam(value = "interlocutorId", required = false) Long interlocutorId,
+            @Parameter(name = "page", description = "Номер отображаемой страницы") @RequestParam(value = "page", defaultValue = "0") int page,
+            @Parameter(name = "pageSize", description = "Количество отображаемых элементов на странице") @RequestParam(value = "pageSize", defaultValue = "20") int pageSize
+    ) {
+        return ResponseEntity.status(HttpStatus.OK).body(messageService.searchMessages(query, interlocutorId, PageRequest.of(page, pageSize)));
+    }
+
+    /**
+     * API-endpoint для потоковой выгрузки переписки между пользователями.
+     * Сообщения читаются из базы данных и записываются в ответ по мере чтения, не накапливаясь в памяти.
+     * @param id идентификатор собеседника.
+     * @param accept формат ответа: NDJSON или JSON-массив.
+     * @return потоковое тело ответа.
+     */
+    @GetMapping(value = "/conversations/{id}", params = "stream=true", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Потоковая выгрузка переписки",
+            description = "Позволяет получить переписку текущего пользователя с указанным собеседником в формате NDJSON или JSON-массива"
+    )
+    public ResponseEntity<StreamingResponseBody> streamMessages(
+            @PathVariable Long id,
+            @Parameter(name = "Accept", description = "application/x-ndjson - по одному объекту на строку, иначе JSON-массив") @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        return JsonStreamWriter.response(messageService.streamMessagesBetweenUsers(id), JsonStreamWriter.isNdjson(accept), objectMapper);
+    }
 }
@@ -1,18 +1,33 @@
 package ru.averkiev.socialmediaapi.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.averkiev.socialmediaapi.models.Image;
 import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.ImageDerivative;
+import ru.averkiev.socialmediaapi.models.PostDTO;
+import ru.averkiev.socialmediaapi.services.impl.ImageDerivativeServiceImpl;
+import ru.averkiev.socialmediaapi.services.impl.ImageStorageServiceImpl;
+import ru.averkiev.socialmediaapi.services.impl.PostImportServiceImpl;
 import ru.averkiev.socialmediaapi.services.impl.PostServiceImpl;
+import ru.averkiev.socialmediaapi.utils.ImageResponseWriter;
+import ru.averkiev.socialmediaapi.utils.JsonStreamWriter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -33,6 +48,18 @@ public class PostController {
     /** Сервис для взаимодействия с постами. */
     private final PostServiceImpl postService;
 
+    /** Сервис для выдачи содержимого изображений из хранилища. */
+    private final ImageStorageServiceImpl imageStorageService;
+
+    /** Сервис для выбора уменьшенных копий изображений. */
+    private final ImageDerivativeServiceImpl imageDerivativeService;
+
+    /** Сервис для массового импорта постов. */
+    private final PostImportServiceImpl postImportService;
+
+    /** Объект для сериализации элементов потокового ответа. */
+    private final ObjectMapper objectMapper;
+
     /**
      * API-endpoint для создания нового поста.
      * @param post объект Post содержащий данные для создания поста
@@ -58,7 +85,7 @@ public class PostController {
     @SecurityRequirement(name = "JWT")
     @Operation(
             summary = "Обновление существующего поста",
-            description = "Позволяет обновить существующий пост в базе данных"
+            description = "Позволяет обновить существующий пост в базе данных. Если пост изменён после получения переданной версии, возвращается 409"
     )
     public ResponseEntity<Post> updatePost(@PathVariable Long postId, @RequestBody Post updatePost) {
         return ResponseEntity.ok(postService.updatePost(postId, updatePost));
@@ -90,13 +117,87 @@ public class PostController {
     @SecurityRequirement(name = "JWT")
     @Operation(
             summary = "Прикрепление изображения к посту",
-            description = "Позволяет прикрепить изображение к посту, сохраняя массив байт в базе данных"
+            description = "Позволяет прикрепить изображение к посту, передавая его содержимое массивом байт в JSON"
     )
     public ResponseEntity<?> addImageToPost(@PathVariable Long postId, @RequestBody Image image) {
         postService.addImage(postId, image);
         return ResponseEntity.status(HttpStatus.OK).build();
     }
 
+    /**
+     * API-endpoint для загрузки изображения к посту в виде файла multipart-запроса.
+     * Контейнер сохраняет часть запроса во временный файл, откуда содержимое передаётся в хранилище частями.
+     * @param postId идентификатор поста, к которому прикрепляется изображение.
+     * @param file загружаемый файл изображения.
+     * @return прикреплённое изображение.
+     * @throws IOException выбрасывает, если содержимое файла не удалось прочитать.
+     */
+    @PostMapping(value = "/{postId}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Загрузка изображения к посту",
+            description = "Позволяет прикрепить изображение к посту, передавая его файлом в поле file multipart-запроса"
+    )
+    public ResponseEntity<Image> uploadImageToPost(@PathVariable Long postId, @RequestPart("file") MultipartFile file) throws IOException {
+        try (InputStream data = file.getInputStream()) {
+            return ResponseEntity.ok(postService.addImage(postId, data, file.getSize(), file.getContentType()));
+        }
+    }
+
+    /**
+     * API-endpoint для загрузки изображения к посту в теле запроса.
+     * Содержимое передаётся в хранилище по мере получения, не накапливаясь в памяти.
+     * @param postId идентификатор поста, к которому прикрепляется изображение.
+     * @param data тело запроса.
+     * @param contentType MIME-тип изображения.
+     * @param contentLength размер изображения, если он известен.
+     * @return прикреплённое изображение.
+     */
+    @PostMapping(value = "/{postId}/images", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "image/*"})
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Загрузка изображения к посту",
+            description = "Позволяет прикрепить изображение к посту, передавая его содержимое в теле запроса"
+    )
+    public ResponseEntity<Image> streamImageToPost(
+            @PathVariable Long postId,
+            InputStream data,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, defaultValue = "-1") long contentLength
+    ) {
+        return ResponseEntity.ok(postService.addImage(postId, data, contentLength, contentType));
+    }
+
+    /**
+     * API-endpoint для получения содержимого изображения, прикреплённого к посту.
+     * Поддерживаются запросы части содержимого (Range, If-Range) и условные запросы (If-None-Match).
+     * Если указана ширина, отдаётся наименьшая уменьшенная копия не уже запрошенной, а при её отсутствии - исходное изображение.
+     * @param postId идентификатор поста.
+     * @param imageId идентификатор изображения.
+     * @param width требуемая ширина изображения.
+     * @param webRequest текущий запрос.
+     * @return содержимое изображения или его часть.
+     */
+    @GetMapping("/{postId}/images/{imageId}")
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Получение изображения поста",
+            description = "Позволяет получить содержимое изображения или его уменьшенной копии целиком или по диапазону байт. ETag содержит хэш содержимого"
+    )
+    public ResponseEntity<StreamingResponseBody> getImage(
+            @PathVariable Long postId,
+            @PathVariable Long imageId,
+            @Parameter(name = "width", description = "Требуемая ширина изображения в пикселях") @RequestParam(value = "width", required = false) Integer width,
+            ServletWebRequest webRequest
+    ) {
+        Image image = postService.getImage(postId, imageId);
+        ImageDerivative rendition = imageDerivativeService.findRendition(imageId, width);
+        if (rendition != null) {
+            return ImageResponseWriter.response(rendition.getBlobKey(), rendition.getSize(), rendition.getMimeType(), webRequest, imageStorageService);
+        }
+        return ImageResponseWriter.response(image.getBlobKey(), image.getSize(), image.getMimeType(), webRequest, imageStorageService);
+    }
+
     /**
      * API-endpoint для открепления изображения от поста.
      * @param postID идентификатор поста
@@ -138,9 +239,10 @@ public class PostController {
 
     /**
      * API-endpoint для получения списка всех постов отсортированных по дате создания.
+     * Первые страницы выдаются из памяти.
      * @param page номер отображаемой страницы.
      * @param pageSize количество отображаемых постов на странице.
-     * @return список объектов Post.
+     * @return список объектов PostDTO.
      */
     @GetMapping("/all")
     @SecurityRequirement(name = "JWT")
@@ -157,4 +259,84 @@ public class PostController {
         }
         return ResponseEntity.status(HttpStatus.OK).body(postService.getAllPostByCreateAt(PageRequest.of(page, pageSize)));
     }
+
+    /**
+     * API-endpoint для полнотекстового поиска постов по заголовку и тексту.
+     * Недавние изменения постов становятся видны поиску с задержкой обновления поискового индекса.
+     * @param query текст запроса.
+     * @param page номер отображаемой страницы.
+     * @param pageSize количество отображаемых постов на странице.
+     * @return список объектов PostDTO, отсортированных по релевантности.
+     */
+    @GetMapping("/search")
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Поиск постов",
+            description = "Позволяет найти посты по словам из заголовка и текста. Поддерживаются фразы в кавычках, исключение слов знаком минус и поиск по префиксу со звёздочкой"
+    )
+    public ResponseEntity<List<PostDTO>> searchPosts(
+            @Parameter(name = "q", description = "Текст запроса") @RequestParam("q") String query,
+            @Parameter(name = "page", description = "Номер отображаемой страницы") @RequestParam(value = "page", defaultValue = "0") int page,
+            @Parameter(name = "pageSize", description = "Количество отображаемых элементов на странице") @RequestParam(value = "pageSize", defaultValue = "20") int pageSize
+    ) {
+        return ResponseEntity.status(HttpStatus.OK).body(postService.searchPosts(query, PageRequest.of(page, pageSize)));
+    }
+
+    /**
+     * API-endpoint для потоковой выгрузки всех постов аутентифицированного пользователя.
+     * Посты читаются из базы данных и записываются в ответ по мере чтения, не накапливаясь в памяти.
+     * @param accept формат ответа: NDJSON или JSON-массив.
+     * @return потоковое тело ответа.
+     */
+    @GetMapping(params = "stream=true", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Потоковая выгрузка постов пользователя",
+            description = "Позволяет получить все посты текущего пользователя в формате NDJSON или JSON-массива без пагинации"
+    )
+    public ResponseEntity<StreamingResponseBody> streamAllPostsByUser(
+            @Parameter(name = "Accept", description = "application/x-ndjson - по одному объекту на строку, иначе JSON-массив") @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        return JsonStreamWriter.response(postService.streamAllPostsByUser(), JsonStreamWriter.isNdjson(accept), objectMapper);
+    }
+
+    /**
+     * API-endpoint для потоковой выгрузки всех постов, отсортированных по дате создания.
+     * Посты читаются из базы данных и записываются в ответ по мере чтения, не накапливаясь в памяти.
+     * @param accept формат ответа: NDJSON или JSON-массив.
+     * @return потоковое тело ответа.
+     */
+    @GetMapping(value = "/all", params = "stream=true", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Потоковая выгрузка всех постов",
+            description = "Позволяет получить все посты, отсортированные по дате создания, в формате NDJSON или JSON-массива без пагинации"
+    )
+    public ResponseEntity<StreamingResponseBody> streamAllPosts(
+            @Parameter(name = "Accept", description = "application/x-ndjson - по одному объекту на строку, иначе JSON-массив") @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        return JsonStreamWriter.response(postService.streamAllPostByCreateAt(), JsonStreamWriter.isNdjson(accept), objectMapper);
+    }
+
+    /**
+     * API-endpoint для массового импорта постов аутентифицированного пользователя.
+     * Тело запроса читается построчно в формате JSONL: по одному посту с изображениями на строку.
+     * Посты сохраняются пакетами, а результат каждой строки записывается в ответ после сохранения её пакета.
+     * @param data поток строк с постами.
+     * @param accept формат ответа: NDJSON или JSON-массив.
+     * @return потоковое тело ответа с результатами импорта по строкам.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "application/jsonl"},
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @SecurityRequirement(name = "JWT")
+    @Operation(
+            summary = "Массовый импорт постов",
+            description = "Позволяет создать посты текущего пользователя из потока JSONL и получить результат по каждой строке"
+    )
+    public ResponseEntity<StreamingResponseBody> importPosts(
+            InputStream data,
+            @Parameter(name = "Accept", description = "application/x-ndjson - по одному объекту на строку, иначе JSON-массив") @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        return JsonStreamWriter.response(postImportService.importPosts(data), JsonStreamWriter.isNdjson(accept), objectMapper);
+    }
 }
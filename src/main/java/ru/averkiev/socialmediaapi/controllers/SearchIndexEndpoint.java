@@ -0,0 +1,32 @@
+package ru.averkiev.socialmediaapi.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import ru.averkiev.socialmediaapi.services.impl.SearchServiceImpl;
+
+import java.util.Map;
+
+/**
+ * Класс представляет собой служебный endpoint Actuator для перестроения поискового индекса по данным из базы данных.
+ * Endpoint доступен по адресу POST /actuator/search-index, если он добавлен в management.endpoints.web.exposure.include.
+ * @author mrGreenNV
+ */
+@Component
+@Endpoint(id = "search-index")
+@RequiredArgsConstructor
+public class SearchIndexEndpoint {
+
+    /** Сервис полнотекстового поиска. */
+    private final SearchServiceImpl searchService;
+
+    /**
+     * Перестраивает поисковый индекс и дожидается завершения перестроения.
+     * @return количество проиндексированных постов и сообщений.
+     */
+    @WriteOperation
+    public Map<String, Long> rebuild() {
+        return Map.of("indexed", searchService.rebuild());
+    }
+}
@@ -1,17 +1,23 @@
 package ru.averkiev.socialmediaapi.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.averkiev.socialmediaapi.models.UserCreateDTO;
 import ru.averkiev.socialmediaapi.models.UserFriendDTO;
 import ru.averkiev.socialmediaapi.services.impl.UserServiceImpl;
+import ru.averkiev.socialmediaapi.utils.JsonStreamWriter;
 
 import java.util.List;
 
@@ -36,6 +42,9 @@ public class UserController {
     /** ModelMapper для преобразования моделей с DTO */
     private final ModelMapper modelMapper;
 
+    /** Объект для сериализации элементов потокового ответа. */
+    private final ObjectMapper objectMapper;
+
     /**
      * API-endpoint для регистрации нового пользователя.
      * @param userCreateDTO данные для регистрации нового пользователя.
@@ -66,4 +75,22 @@ public class UserController {
                 .toList();
         return ResponseEntity.status(HttpStatus.OK).body(userFriendDTOList);
     }
+
+    /**
+     * API-endpoint для потоковой выгрузки информации о всех пользователях, зарегистрированных в системе.
+     * Данные читаются из базы данных и записываются в ответ по мере чтения, не накапливаясь в памяти.
+     * @param accept формат ответа: NDJSON или JSON-массив.
+     * @return потоковое тело ответа.
+     */
+    @GetMapping(params = "stream=true", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(
+            summary = "Потоковая выгрузка списка пользователей",
+            description = "Позволяет получить имена и электронные почты всех пользователей в формате NDJSON или JSON-массива"
+    )
+    @SecurityRequirement(name = "JWT")
+    public ResponseEntity<StreamingResponseBody> streamAllUser(
+            @Parameter(name = "Accept", description = "application/x-ndjson - по одному объекту на строку, иначе JSON-массив") @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        return JsonStreamWriter.response(userService.streamAllUsers(), JsonStreamWriter.isNdjson(accept), objectMapper);
+    }
 }
@@ -0,0 +1,25 @@
+package ru.averkiev.socialmediaapi.exceptions;
+
+/**
+ * Исключение, выбрасываемое в случае ошибки чтения или записи данных в хранилище содержимого изображений.
+ * @author mrGreenNV
+ */
+public class BlobStoreException extends RuntimeException {
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке.
+     * @param msg - сообщение об ошибке.
+     */
+    public BlobStoreException(String msg) {
+        super(msg);
+    }
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке и причиной.
+     * @param msg - сообщение об ошибке.
+     * @param cause - причина исключения.
+     */
+    public BlobStoreException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
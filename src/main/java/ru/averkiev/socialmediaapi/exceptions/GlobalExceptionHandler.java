@@ -1,6 +1,7 @@
 package ru.averkiev.socialmediaapi.exceptions;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -8,6 +9,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import ru.averkiev.socialmediaapi.utils.ErrorResponse;
 
 import java.util.List;
@@ -330,4 +332,112 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(response.getStatus()).body(response);
     }
+
+    /**
+     * Позволяет обработать ошибки хранилища содержимого изображений.
+     * @param bsEx ошибка хранилища.
+     * @param request HTTP запрос.
+     * @return ResponseEntity, содержащий информацию об ошибке.
+     */
+    @ExceptionHandler(BlobStoreException.class)
+    public ResponseEntity<ErrorResponse> handleBlobStoreException(BlobStoreException bsEx, HttpServletRequest request) {
+
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.INTERNAL_SERVER_ERROR,
+                bsEx.getMessage(),
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(response.getStatus()).body(response);
+    }
+
+    /**
+     * Позволяет обработать ошибки связанные с превышением размера загружаемого изображения.
+     * @param itlEx ошибка при загрузке изображения.
+     * @param request HTTP запрос.
+     * @return ResponseEntity, содержащий информацию об ошибке.
+     */
+    @ExceptionHandler(ImageTooLargeException.class)
+    public ResponseEntity<ErrorResponse> handleImageTooLargeException(ImageTooLargeException itlEx, HttpServletRequest request) {
+
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.PAYLOAD_TOO_LARGE,
+                itlEx.getMessage(),
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(response.getStatus()).body(response);
+    }
+
+    /**
+     * Позволяет обработать ошибки связанные с превышением размера multipart-запроса.
+     * @param musEx ошибка при разборе multipart-запроса.
+     * @param request HTTP запрос.
+     * @return ResponseEntity, содержащий информацию об ошибке.
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ErrorResponse> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException musEx, HttpServletRequest request) {
+
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.PAYLOAD_TOO_LARGE,
+                "Размер загружаемого файла превышает допустимый",
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(response.getStatus()).body(response);
+    }
+
+    /**
+     * Позволяет обработать ошибки связанные с поисковым индексом.
+     * @param sEx ошибка поискового индекса.
+     * @param request HTTP запрос.
+     * @return ResponseEntity, содержащий информацию об ошибке.
+     */
+    @ExceptionHandler(SearchException.class)
+    public ResponseEntity<ErrorResponse> handleSearchException(SearchException sEx, HttpServletRequest request) {
+
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                sEx.getMessage(),
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(response.getStatus()).body(response);
+    }
+
+    /**
+     * Позволяет обработать ошибки изменения поста или сообщения по устаревшей версии.
+     * @param vcEx ошибка устаревшей версии.
+     * @param request HTTP запрос.
+     * @return ResponseEntity, содержащий информацию об ошибке.
+     */
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<ErrorResponse> handleVersionConflictException(VersionConflictException vcEx, HttpServletRequest request) {
+
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.CONFLICT,
+                vcEx.getMessage(),
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(response.getStatus()).body(response);
+    }
+
+    /**
+     * Позволяет обработать ошибки сохранения сущности, изменённой другим запросом после её чтения.
+     * @param olfEx ошибка оптимистичной блокировки.
+     * @param request HTTP запрос.
+     * @return ResponseEntity, содержащий информацию об ошибке.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException olfEx, HttpServletRequest request) {
+
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.CONFLICT,
+                "Данные были изменены другим запросом, повторите операцию",
+                request.getRequestURI()
+        );
+
+        return ResponseEntity.status(response.getStatus()).body(response);
+    }
 }
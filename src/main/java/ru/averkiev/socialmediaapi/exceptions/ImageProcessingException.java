@@ -0,0 +1,26 @@
+package ru.averkiev.socialmediaapi.exceptions;
+
+/**
+ * Исключение, выбрасываемое в случае, если из содержимого изображения невозможно сформировать уменьшенные копии,
+ * например при неподдерживаемом формате или слишком большом разрешении.
+ * @author mrGreenNV
+ */
+public class ImageProcessingException extends RuntimeException {
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке.
+     * @param msg - сообщение об ошибке.
+     */
+    public ImageProcessingException(String msg) {
+        super(msg);
+    }
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке и причиной.
+     * @param msg - сообщение об ошибке.
+     * @param cause - причина исключения.
+     */
+    public ImageProcessingException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.averkiev.socialmediaapi.exceptions;
+
+/**
+ * Исключение, выбрасываемое в случае превышения допустимого размера загружаемого изображения.
+ * @author mrGreenNV
+ */
+public class ImageTooLargeException extends RuntimeException {
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке.
+     * @param msg - сообщение об ошибке.
+     */
+    public ImageTooLargeException(String msg) {
+        super(msg);
+    }
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке и причиной.
+     * @param msg - сообщение об ошибке.
+     * @param cause - причина исключения.
+     */
+    public ImageTooLargeException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.averkiev.socialmediaapi.exceptions;
+
+/**
+ * Исключение, выбрасываемое в случае ошибки чтения или записи поискового индекса.
+ * @author mrGreenNV
+ */
+public class SearchException extends RuntimeException {
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке.
+     * @param msg - сообщение об ошибке.
+     */
+    public SearchException(String msg) {
+        super(msg);
+    }
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке и причиной.
+     * @param msg - сообщение об ошибке.
+     * @param cause - причина исключения.
+     */
+    public SearchException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
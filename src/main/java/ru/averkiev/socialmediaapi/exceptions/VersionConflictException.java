@@ -0,0 +1,25 @@
+package ru.averkiev.socialmediaapi.exceptions;
+
+/**
+ * Исключение, выбрасываемое в случае изменения поста или сообщения по устаревшей версии.
+ * @author mrGreenNV
+ */
+public class VersionConflictException extends RuntimeException {
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке.
+     * @param msg - сообщение об ошибке.
+     */
+    public VersionConflictException(String msg) {
+        super(msg);
+    }
+
+    /**
+     * Создаёт экземпляр исключения с указанным сообщением об ошибке и причиной.
+     * @param msg - сообщение об ошибке.
+     * @param cause - причина исключения.
+     */
+    public VersionConflictException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
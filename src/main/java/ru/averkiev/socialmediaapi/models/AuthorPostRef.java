@@ -0,0 +1,14 @@
+package ru.averkiev.socialmediaapi.models;
+
+/**
+ * Проекция поста, дополнительно содержащая идентификатор автора.
+ * @author mrGreenNV
+ */
+public interface AuthorPostRef extends PostRef {
+
+    /**
+     * Возвращает идентификатор автора поста.
+     * @return идентификатор автора.
+     */
+    Long getUserId();
+}
@@ -18,10 +18,10 @@ import java.util.Date;
 @Schema(description = "Сущность основных полей всех классов")
 public abstract class BaseEntity {
 
-    /** Идентификатор сущности. */
+    /** Идентификатор сущности. Выдаётся из последовательности таблицы сущности диапазонами по 50 значений. */
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     @Schema(description = "Идентификатор сущности", example = "321654")
     private Long id;
 
@@ -0,0 +1,19 @@
+package ru.averkiev.socialmediaapi.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Сведения о содержимом, сохранённом в хранилище.
+ * @author mrGreenNV
+ */
+@Getter
+@AllArgsConstructor
+public class BlobInfo {
+
+    /** Ключ содержимого - SHA-256 содержимого в шестнадцатеричном виде. */
+    private final String key;
+
+    /** Размер содержимого в байтах. */
+    private final long size;
+}
@@ -0,0 +1,45 @@
+package ru.averkiev.socialmediaapi.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * Счётчик ссылок на содержимое в хранилище. Одинаковое содержимое хранится в одном экземпляре, а каждое изображение
+ * и каждая его копия, ссылающиеся на содержимое, увеличивают счётчик на единицу.
+ * @author mrGreenNV
+ */
+@Entity
+@Table(name = "blob_refs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class BlobReference {
+
+    /** Ключ содержимого - SHA-256 содержимого в шестнадцатеричном виде. */
+    @Id
+    @Column(name = "blob_key")
+    private String key;
+
+    /** Количество ссылок на содержимое. */
+    @Column(name = "ref_count")
+    private int refCount;
+
+    /** Размер содержимого в байтах. */
+    @Column(name = "size_bytes")
+    private long size;
+
+    /** Время сохранения содержимого. */
+    @Column(name = "created_at")
+    private Date createdAt;
+
+    /** Время, когда была освобождена последняя ссылка на содержимое, или null, если ссылки есть. */
+    @Column(name = "released_at")
+    private Date releasedAt;
+}
@@ -0,0 +1,20 @@
+package ru.averkiev.socialmediaapi.models;
+
+/**
+ * Проекция, содержащая объём содержимого в хранилище с учётом и без учёта повторяющегося содержимого.
+ * @author mrGreenNV
+ */
+public interface BlobUsage {
+
+    /**
+     * Возвращает объём содержимого, фактически занятый в хранилище.
+     * @return объём в байтах.
+     */
+    Long getStoredBytes();
+
+    /**
+     * Возвращает объём, который занимало бы содержимое, если бы каждая ссылка хранила свою копию.
+     * @return объём в байтах.
+     */
+    Long getReferencedBytes();
+}
@@ -0,0 +1,23 @@
+package ru.averkiev.socialmediaapi.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Пост-кандидат ленты активности, передаваемый на ранжирование.
+ * Содержит только данные, необходимые для вычисления оценок.
+ * @author mrGreenNV
+ */
+@Getter
+@AllArgsConstructor
+public class FeedCandidate {
+
+    /** Идентификатор поста. */
+    private final long postId;
+
+    /** Идентификатор автора поста. */
+    private final long authorId;
+
+    /** Дата создания поста в микросекундах. */
+    private final long createdAt;
+}
@@ -0,0 +1,100 @@
+package ru.averkiev.socialmediaapi.models;
+
+import ru.averkiev.socialmediaapi.exceptions.ActivityFeedException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Курсор ленты активности, указывающий на последний отданный клиенту пост.
+ * Позиция задаётся парой (дата создания, идентификатор поста), поэтому чтение следующей страницы не зависит
+ * от количества уже просмотренных постов и от постов, опубликованных во время прокрутки ленты.
+ * Клиенту курсор передаётся в виде непрозрачной строки.
+ * @author mrGreenNV
+ */
+public final class FeedCursor {
+
+    /** Идентификатор последнего отданного поста. */
+    private final long postId;
+
+    /** Дата создания последнего отданного поста в микросекундах. */
+    private final long createdAt;
+
+    /**
+     * Позволяет создать курсор с заданными параметрами.
+     * @param postId идентификатор поста.
+     * @param createdAt дата создания поста в микросекундах.
+     */
+    public FeedCursor(long postId, long createdAt) {
+        this.postId = postId;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Возвращает идентификатор поста.
+     * @return идентификатор поста.
+     */
+    public long getPostId() {
+        return postId;
+    }
+
+    /**
+     * Возвращает дату создания поста в микросекундах.
+     * @return дата создания поста.
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Возвращает дату создания поста для передачи в запрос к базе данных.
+     * @return дата создания поста.
+     */
+    public Timestamp getCreatedAtTimestamp() {
+        Timestamp timestamp = new Timestamp(Math.floorDiv(createdAt, 1000));
+        timestamp.setNanos((int) Math.floorMod(createdAt, 1_000_000) * 1000);
+        return timestamp;
+    }
+
+    /**
+     * Преобразует курсор к строке, передаваемой клиенту.
+     * @return строковое представление курсора.
+     */
+    public String encode() {
+        String value = createdAt + ":" + postId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Восстанавливает курсор из строки, полученной от клиента.
+     * @param value строковое представление курсора.
+     * @return объект FeedCursor.
+     * @throws ActivityFeedException выбрасывает, если строка не является корректным курсором.
+     */
+    public static FeedCursor decode(String value) throws ActivityFeedException {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new FeedCursor(
+                    Long.parseLong(decoded.substring(separator + 1)),
+                    Long.parseLong(decoded.substring(0, separator))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new ActivityFeedException("Некорректный курсор ленты активности", ex);
+        }
+    }
+
+    /**
+     * Преобразует дату к количеству микросекунд, сохраняя точность, с которой дата хранится в базе данных.
+     * @param date дата.
+     * @return количество микросекунд с начала эпохи.
+     */
+    public static long toMicros(Date date) {
+        if (date instanceof Timestamp timestamp) {
+            return Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000 + timestamp.getNanos() / 1000;
+        }
+        return date.getTime() * 1000;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.averkiev.socialmediaapi.models;
+
+/**
+ * Режим доставки постов в ленты активности пользователей.
+ * @author mrGreenNV
+ */
+public enum FeedDeliveryMode {
+
+    /** Посты всех авторов добавляются в ленты подписчиков при публикации. */
+    PUSH,
+
+    /**
+     * Посты авторов с количеством подписчиков выше порогового значения читаются при запросе ленты,
+     * посты остальных авторов добавляются в ленты подписчиков при публикации.
+     */
+    HYBRID
+}
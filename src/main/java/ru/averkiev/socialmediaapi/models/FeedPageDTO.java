@@ -0,0 +1,20 @@
+package ru.averkiev.socialmediaapi.models;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO страницы ленты активности, получаемой по курсору.
+ * @author mrGreenNV
+ */
+@Data
+public class FeedPageDTO {
+
+    /** Посты страницы ленты. */
+    private List<PostDTO> posts = new ArrayList<>();
+
+    /** Курсор для получения следующей страницы, null - если лента прочитана до конца. */
+    private String next;
+}
@@ -0,0 +1,29 @@
+package ru.averkiev.socialmediaapi.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Строка проекции поста для отображения в ленте активности.
+ * Каждая строка соответствует одному изображению поста, для постов без изображений идентификатор изображения равен null.
+ * @author mrGreenNV
+ */
+@Getter
+@AllArgsConstructor
+public class FeedPostRow {
+
+    /** Идентификатор поста. */
+    private Long postId;
+
+    /** Заголовок поста. */
+    private String title;
+
+    /** Текстовая часть поста. */
+    private String text;
+
+    /** Имя создателя поста. */
+    private String username;
+
+    /** Идентификатор изображения к посту. */
+    private Long imageId;
+}
@@ -1,19 +1,27 @@
 package ru.averkiev.socialmediaapi.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Where;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Сущность изображения для поста
+ * Сущность изображения для поста.
+ * Изображения, помеченные на удаление, не читаются из базы данных и удаляются фоновой очисткой.
  * @author mrGreenNV
  */
 @Entity
 @Table(name = "images")
+@Where(clause = "status <> 'DELETED'")
 @Getter
 @Setter
 @AllArgsConstructor
@@ -21,12 +29,35 @@ import lombok.Setter;
 @Schema(description = "Сущность изображения для поста")
 public class Image extends BaseEntity {
 
-    /** Данные изображения. */
-    @Lob
-    @Column(name = "image_data")
-    @Schema(description = "Данные изображения, представленные в массиве байт")
+    /** Данные изображения, полученные от клиента. В базе данных не хранятся и в ответах не возвращаются. */
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @Schema(description = "Данные изображения, представленные в массиве байт", accessMode = Schema.AccessMode.WRITE_ONLY)
     private byte[] imageData;
 
+    /** Ключ содержимого изображения в хранилище - SHA-256 содержимого. */
+    @Column(name = "blob_key")
+    @Schema(description = "Ключ содержимого изображения (SHA-256)", accessMode = Schema.AccessMode.READ_ONLY)
+    private String blobKey;
+
+    /** Размер изображения в байтах. */
+    @Column(name = "size_bytes")
+    @Schema(description = "Размер изображения в байтах", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long size;
+
+    /** MIME-тип изображения. */
+    @Column(name = "mime_type")
+    @Schema(description = "MIME-тип изображения", example = "image/png")
+    private String mimeType;
+
+    /** Уменьшенные копии изображения по возрастанию ширины; формируются в фоне после загрузки изображения. */
+    @OneToMany(mappedBy = "image")
+    @OrderBy("width")
+    @BatchSize(size = 100)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(description = "Уменьшенные копии изображения, доступные по параметру width запроса изображения", accessMode = Schema.AccessMode.READ_ONLY)
+    private List<ImageDerivative> derivatives = new ArrayList<>();
+
     /** Пост, к которому относится данное изображение. */
     @JsonIgnore
     @ManyToOne()
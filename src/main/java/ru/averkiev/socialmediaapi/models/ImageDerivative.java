@@ -0,0 +1,85 @@
+package ru.averkiev.socialmediaapi.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+
+/**
+ * Уменьшенная копия изображения заданной ширины. Содержимое копии хранится в хранилище содержимого изображений.
+ * @author mrGreenNV
+ */
+@Entity
+@Table(name = "image_derivatives")
+@Getter
+@Setter
+@NoArgsConstructor
+@Schema(description = "Уменьшенная копия изображения")
+public class ImageDerivative {
+
+    /** Идентификатор копии. */
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @JsonIgnore
+    private Long id;
+
+    /** Исходное изображение. */
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "image_id")
+    private Image image;
+
+    /** Ширина копии в пикселях. */
+    @Column(name = "width")
+    @Schema(description = "Ширина копии в пикселях", example = "480")
+    private int width;
+
+    /** Высота копии в пикселях. */
+    @Column(name = "height")
+    @Schema(description = "Высота копии в пикселях", example = "320")
+    private int height;
+
+    /** Ключ содержимого копии в хранилище. */
+    @Column(name = "blob_key")
+    @Schema(description = "Ключ содержимого копии (SHA-256)")
+    private String blobKey;
+
+    /** Размер копии в байтах. */
+    @Column(name = "size_bytes")
+    @Schema(description = "Размер копии в байтах")
+    private long size;
+
+    /** MIME-тип копии. */
+    @Column(name = "mime_type")
+    @Schema(description = "MIME-тип копии", example = "image/jpeg")
+    private String mimeType;
+
+    /** Время создания копии. */
+    @Column(name = "created_at")
+    @CreationTimestamp
+    @JsonIgnore
+    private Date createdAt;
+
+    /**
+     * Позволяет создать копию изображения с заданными параметрами.
+     * @param image исходное изображение.
+     * @param width ширина копии.
+     * @param height высота копии.
+     * @param blob ключ и размер содержимого копии.
+     * @param mimeType MIME-тип копии.
+     */
+    public ImageDerivative(Image image, int width, int height, BlobInfo blob, String mimeType) {
+        this.image = image;
+        this.width = width;
+        this.height = height;
+        this.blobKey = blob.getKey();
+        this.size = blob.getSize();
+        this.mimeType = mimeType;
+    }
+}
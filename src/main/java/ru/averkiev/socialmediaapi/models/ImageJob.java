@@ -0,0 +1,65 @@
+package ru.averkiev.socialmediaapi.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+
+/**
+ * Задача формирования уменьшенных копий изображения в очереди, хранящейся в базе данных.
+ * @author mrGreenNV
+ */
+@Entity
+@Table(name = "image_jobs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImageJob {
+
+    /** Идентификатор задачи. */
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    /** Идентификатор изображения. */
+    @Column(name = "image_id")
+    private Long imageId;
+
+    /** Состояние задачи. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private ImageJobStatus status = ImageJobStatus.PENDING;
+
+    /** Количество попыток выполнения задачи. */
+    @Column(name = "attempts")
+    private int attempts;
+
+    /** Время, начиная с которого задача может быть выполнена. */
+    @Column(name = "available_at")
+    private Date availableAt = new Date();
+
+    /** Время захвата задачи обработчиком. */
+    @Column(name = "locked_at")
+    private Date lockedAt;
+
+    /** Описание последней ошибки выполнения задачи. */
+    @Column(name = "last_error")
+    private String lastError;
+
+    /** Время создания задачи. */
+    @Column(name = "created_at")
+    @CreationTimestamp
+    private Date createdAt;
+
+    /**
+     * Позволяет создать задачу формирования уменьшенных копий изображения.
+     * @param imageId идентификатор изображения.
+     */
+    public ImageJob(Long imageId) {
+        this.imageId = imageId;
+    }
+}
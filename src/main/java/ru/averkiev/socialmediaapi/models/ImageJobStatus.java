@@ -0,0 +1,12 @@
+package ru.averkiev.socialmediaapi.models;
+
+/**
+ * Перечисление состояний задачи формирования уменьшенных копий изображения.
+ * Выполненные задачи удаляются из очереди.
+ * @author mrGreenNV
+ */
+public enum ImageJobStatus {
+    PENDING,
+    PROCESSING,
+    FAILED
+}
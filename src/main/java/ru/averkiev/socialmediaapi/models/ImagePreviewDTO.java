@@ -0,0 +1,25 @@
+package ru.averkiev.socialmediaapi.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO изображения поста для отображения в ленте, ссылающееся на наименьшую подходящую копию изображения.
+ * @author mrGreenNV
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Изображение поста для отображения в ленте")
+public class ImagePreviewDTO {
+
+    /** Идентификатор изображения. */
+    @Schema(description = "Идентификатор изображения")
+    private Long imageId;
+
+    /** Ширина копии, передаваемая параметром width при получении изображения, либо null для исходного изображения. */
+    @Schema(description = "Ширина копии для параметра width запроса изображения; null - исходное изображение", example = "480")
+    private Integer width;
+}
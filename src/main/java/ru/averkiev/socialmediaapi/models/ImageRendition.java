@@ -0,0 +1,20 @@
+package ru.averkiev.socialmediaapi.models;
+
+/**
+ * Проекция уменьшенной копии изображения, содержащая только её ширину.
+ * @author mrGreenNV
+ */
+public interface ImageRendition {
+
+    /**
+     * Возвращает идентификатор исходного изображения.
+     * @return идентификатор изображения.
+     */
+    Long getImageId();
+
+    /**
+     * Возвращает ширину копии в пикселях.
+     * @return ширина копии.
+     */
+    Integer getWidth();
+}
@@ -28,4 +28,9 @@ public class Message extends BaseEntity {
     /** Текст сообщения. */
     @Column(name = "content")
     private String content;
+
+    /** Версия сообщения, увеличивающаяся при каждом изменении. */
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
@@ -1,13 +1,17 @@
 package ru.averkiev.socialmediaapi.models;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * DTO для передачи данных о сообщении.
  * @author mrGreenNV
  */
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 @Schema(description = "DTO сущности сообщения")
 public class MessageDTO {
 
@@ -26,4 +30,8 @@ public class MessageDTO {
     /** Текст сообщения. */
     @Schema(description = "Контент сообщения")
     private String content;
+
+    /** Версия сообщения. */
+    @Schema(description = "Версия сообщения, передаваемая при редактировании")
+    private Long version;
 }
@@ -14,4 +14,8 @@ public class MessageEditDTO {
     /** Контент сообщения. */
     @Schema(description = "Отредактированный контент сообщения")
     private String content;
+
+    /** Версия сообщения, по которой выполнено редактирование. */
+    @Schema(description = "Версия сообщения, полученная вместе с ним. Если не указана, используется текущая версия")
+    private Long version;
 }
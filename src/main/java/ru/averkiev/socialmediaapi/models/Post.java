@@ -7,16 +7,19 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Where;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Класс представляет собой пост, написанный пользователем.
+ * Посты, помеченные на удаление, не читаются из базы данных и удаляются фоновой очисткой вместе с изображениями.
  * @author mrGreenNV
  */
 @Entity
 @Table(name = "posts")
+@Where(clause = "status <> 'DELETED'")
 @Getter
 @Setter
 @AllArgsConstructor
@@ -44,4 +47,10 @@ public class Post extends BaseEntity {
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
+
+    /** Версия поста, увеличивающаяся при каждом изменении. */
+    @Version
+    @Column(name = "version")
+    @Schema(description = "Версия поста. Передаётся при обновлении, чтобы не перезаписать изменения, сделанные после её получения")
+    private Long version;
 }
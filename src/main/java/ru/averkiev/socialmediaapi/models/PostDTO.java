@@ -12,14 +12,20 @@ import java.util.List;
 @Data
 public class PostDTO {
 
+    /** Идентификатор поста. */
+    private Long id;
+
     /** Заголовок поста. */
     private String title;
 
     /** Текстовая часть поста. */
     private String text;
 
-    /** Список изображений к посту. */
-    private List<Image> images = new ArrayList<>();
+    /** Список идентификаторов изображений к посту. */
+    private List<Long> imageIds = new ArrayList<>();
+
+    /** Список изображений к посту, ссылающихся на уменьшенные копии для отображения в ленте. */
+    private List<ImagePreviewDTO> imagePreviews = new ArrayList<>();
 
     /** Имя создателя поста. */
     private String username;
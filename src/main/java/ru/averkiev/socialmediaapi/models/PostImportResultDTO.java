@@ -0,0 +1,33 @@
+package ru.averkiev.socialmediaapi.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO результата импорта одного поста из строки потока импорта.
+ * @author mrGreenNV
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Результат импорта одного поста")
+public class PostImportResultDTO {
+
+    /** Номер строки потока импорта, начиная с 1. */
+    @Schema(description = "Номер строки потока импорта", example = "1")
+    private long line;
+
+    /** Результат импорта. */
+    @Schema(description = "Результат импорта", exampleClasses = PostImportStatus.class)
+    private PostImportStatus status;
+
+    /** Идентификатор созданного поста или null, если пост не создан. */
+    @Schema(description = "Идентификатор созданного поста", example = "321654")
+    private Long postId;
+
+    /** Описание ошибки или null, если пост создан. */
+    @Schema(description = "Описание ошибки")
+    private String error;
+}
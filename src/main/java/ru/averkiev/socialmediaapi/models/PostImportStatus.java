@@ -0,0 +1,10 @@
+package ru.averkiev.socialmediaapi.models;
+
+/**
+ * Перечисление результатов импорта одного поста.
+ * @author mrGreenNV
+ */
+public enum PostImportStatus {
+    CREATED,
+    FAILED
+}
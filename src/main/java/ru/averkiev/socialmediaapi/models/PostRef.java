@@ -0,0 +1,22 @@
+package ru.averkiev.socialmediaapi.models;
+
+import java.util.Date;
+
+/**
+ * Проекция поста, содержащая только данные, необходимые для упорядочивания ленты активности.
+ * @author mrGreenNV
+ */
+public interface PostRef {
+
+    /**
+     * Возвращает идентификатор поста.
+     * @return идентификатор поста.
+     */
+    Long getId();
+
+    /**
+     * Возвращает дату создания поста.
+     * @return дата создания поста.
+     */
+    Date getCreatedAt();
+}
@@ -0,0 +1,26 @@
+package ru.averkiev.socialmediaapi.models;
+
+/**
+ * Проекция поста, содержащая только текстовые данные, необходимые для поискового индекса.
+ * @author mrGreenNV
+ */
+public interface PostText {
+
+    /**
+     * Возвращает идентификатор поста.
+     * @return идентификатор поста.
+     */
+    Long getId();
+
+    /**
+     * Возвращает заголовок поста.
+     * @return заголовок поста.
+     */
+    String getTitle();
+
+    /**
+     * Возвращает текстовую часть поста.
+     * @return текстовая часть поста.
+     */
+    String getText();
+}
@@ -0,0 +1,32 @@
+package ru.averkiev.socialmediaapi.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * Класс представляет собой автора, посты которого читаются при запросе ленты и не записываются в ленты подписчиков.
+ * Запись удаляется только после того, как последние посты автора записаны в ленты его подписчиков.
+ * @author mrGreenNV
+ */
+@Entity
+@Table(name = "pulled_authors")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PulledAuthor {
+
+    /** Идентификатор автора. */
+    @Id
+    @Column(name = "author_id")
+    private Long authorId;
+
+    /** Дата, начиная с которой посты автора читаются при запросе ленты. */
+    @Column(name = "pulled_at")
+    private Date pulledAt;
+}
@@ -0,0 +1,44 @@
+package ru.averkiev.socialmediaapi.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+
+/**
+ * Содержимое, хранящееся в базе данных при использовании хранилища в базе данных.
+ * @author mrGreenNV
+ */
+@Entity
+@Table(name = "blobs")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredBlob {
+
+    /** Ключ содержимого - SHA-256 содержимого в шестнадцатеричном виде. */
+    @Id
+    @Column(name = "blob_key")
+    private String key;
+
+    /** Содержимое. */
+    @Column(name = "data")
+    private byte[] data;
+
+    /** Размер содержимого в байтах. */
+    @Column(name = "size_bytes")
+    private long size;
+
+    /** Время сохранения содержимого. */
+    @Column(name = "created_at")
+    @CreationTimestamp
+    private Date createdAt;
+}
@@ -0,0 +1,43 @@
+package ru.averkiev.socialmediaapi.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Date;
+
+/**
+ * Класс представляет собой запись материализованной ленты активности пользователя.
+ * Запись создаётся для каждого подписчика в момент публикации поста автором.
+ * @author mrGreenNV
+ */
+@Entity
+@Table(name = "timeline_entries")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TimelineEntry {
+
+    /** Идентификатор записи. */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    @Column(name = "id")
+    private Long id;
+
+    /** Идентификатор пользователя, которому принадлежит лента. */
+    @Column(name = "user_id")
+    private Long userId;
+
+    /** Идентификатор поста. */
+    @Column(name = "post_id")
+    private Long postId;
+
+    /** Идентификатор автора поста. */
+    @Column(name = "author_id")
+    private Long authorId;
+
+    /** Дата создания поста. */
+    @Column(name = "post_created_at")
+    private Date postCreatedAt;
+}
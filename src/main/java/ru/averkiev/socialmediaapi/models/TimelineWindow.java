@@ -0,0 +1,219 @@
+package ru.averkiev.socialmediaapi.models;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемое окно последних записей ленты активности пользователя.
+ * Записи хранятся в примитивных массивах и отсортированы по дате создания поста и идентификатору в порядке убывания.
+ * @author mrGreenNV
+ */
+public final class TimelineWindow {
+
+    /** Идентификаторы постов. */
+    private final long[] postIds;
+
+    /** Даты создания постов в микросекундах. */
+    private final long[] createdAt;
+
+    /** Признак того, что окно содержит ленту целиком, а не только её начало. */
+    private final boolean complete;
+
+    /**
+     * Позволяет создать окно с заданными параметрами.
+     * @param postIds идентификаторы постов.
+     * @param createdAt даты создания постов в микросекундах.
+     * @param complete true, если окно содержит ленту целиком.
+     */
+    public TimelineWindow(long[] postIds, long[] createdAt, boolean complete) {
+        this.postIds = postIds;
+        this.createdAt = createdAt;
+        this.complete = complete;
+    }
+
+    /**
+     * Возвращает количество записей в окне.
+     * @return количество записей.
+     */
+    public int size() {
+        return postIds.length;
+    }
+
+    /**
+     * Возвращает признак того, что окно содержит последовательность записей целиком.
+     * @return true, если за пределами окна записей нет.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Возвращает идентификатор поста по позиции в окне.
+     * @param index позиция записи.
+     * @return идентификатор поста.
+     */
+    public long postIdAt(int index) {
+        return postIds[index];
+    }
+
+    /**
+     * Возвращает дату создания поста по позиции в окне.
+     * @param index позиция записи.
+     * @return дата создания в микросекундах.
+     */
+    public long createdAtAt(int index) {
+        return createdAt[index];
+    }
+
+    /**
+     * Проверяет наличие поста в окне.
+     * @param postId идентификатор поста.
+     * @return true, если пост содержится в окне.
+     */
+    public boolean contains(long postId) {
+        for (long id : postIds) {
+            if (id == postId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Проверяет, можно ли получить запрошенный диапазон записей из окна без обращения к базе данных.
+     * @param offset смещение от начала ленты.
+     * @param limit количество записей.
+     * @return true, если диапазон полностью покрывается окном.
+     */
+    public boolean covers(long offset, int limit) {
+        return complete || offset + limit <= postIds.length;
+    }
+
+    /**
+     * Возвращает идентификаторы постов из заданного диапазона.
+     * @param offset смещение от начала окна.
+     * @param limit количество записей.
+     * @return массив идентификаторов постов.
+     */
+    public long[] slice(long offset, int limit) {
+        int from = (int) Math.min(offset, postIds.length);
+        int to = (int) Math.min(offset + limit, postIds.length);
+        return Arrays.copyOfRange(postIds, from, to);
+    }
+
+    /**
+     * Возвращает позицию первой записи, расположенной в ленте после заданного поста (то есть старше него).
+     * @param postId идентификатор поста.
+     * @param postCreatedAt дата создания поста в микросекундах.
+     * @return позиция записи или размер окна, если таких записей в окне нет.
+     */
+    public int indexAfter(long postId, long postCreatedAt) {
+        int low = 0;
+        int high = postIds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (isAfter(postIds[middle], createdAt[middle], postId, postCreatedAt) || postIds[middle] == postId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Возвращает окно, содержащее записи из заданного диапазона.
+     * @param from позиция первой записи.
+     * @param limit количество записей.
+     * @return новое окно.
+     */
+    public TimelineWindow window(int from, int limit) {
+        int start = Math.min(from, postIds.length);
+        int end = (int) Math.min((long) start + limit, postIds.length);
+        return new TimelineWindow(
+                Arrays.copyOfRange(postIds, start, end),
+                Arrays.copyOfRange(createdAt, start, end),
+                complete && end == postIds.length
+        );
+    }
+
+    /**
+     * Возвращает новое окно с добавленной записью, сохраняя порядок сортировки и ограничение по размеру.
+     * @param postId идентификатор поста.
+     * @param postCreatedAt дата создания поста в микросекундах.
+     * @param capacity максимальное количество записей в окне.
+     * @return новое окно.
+     */
+    public TimelineWindow insert(long postId, long postCreatedAt, int capacity) {
+        int position = 0;
+        while (position < postIds.length && isAfter(postIds[position], createdAt[position], postId, postCreatedAt)) {
+            position++;
+        }
+        if (position < postIds.length && postIds[position] == postId) {
+            return this;
+        }
+
+        int newSize = postIds.length + 1;
+        long[] newPostIds = new long[newSize];
+        long[] newCreatedAt = new long[newSize];
+        System.arraycopy(postIds, 0, newPostIds, 0, position);
+        System.arraycopy(createdAt, 0, newCreatedAt, 0, position);
+        newPostIds[position] = postId;
+        newCreatedAt[position] = postCreatedAt;
+        System.arraycopy(postIds, position, newPostIds, position + 1, postIds.length - position);
+        System.arraycopy(createdAt, position, newCreatedAt, position + 1, createdAt.length - position);
+
+        if (newSize > capacity) {
+            return new TimelineWindow(
+                    Arrays.copyOf(newPostIds, capacity),
+                    Arrays.copyOf(newCreatedAt, capacity),
+                    false
+            );
+        }
+        return new TimelineWindow(newPostIds, newCreatedAt, complete);
+    }
+
+    /**
+     * Объединяет две отсортированные последовательности записей в одну, исключая повторяющиеся посты.
+     * @param other окно, с которым выполняется объединение.
+     * @param limit максимальное количество записей в результате.
+     * @return новое окно, содержащее не более limit записей.
+     */
+    public TimelineWindow merge(TimelineWindow other, int limit) {
+        int capacity = Math.min(limit, postIds.length + other.postIds.length);
+        long[] newPostIds = new long[capacity];
+        long[] newCreatedAt = new long[capacity];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (size < capacity && (i < postIds.length || j < other.postIds.length)) {
+            boolean takeFirst = j >= other.postIds.length || (i < postIds.length
+                    && !isAfter(other.postIds[j], other.createdAt[j], postIds[i], createdAt[i]));
+            long postId = takeFirst ? postIds[i] : other.postIds[j];
+            long postCreatedAt = takeFirst ? createdAt[i++] : other.createdAt[j++];
+            if (size > 0 && newPostIds[size - 1] == postId) {
+                continue;
+            }
+            newPostIds[size] = postId;
+            newCreatedAt[size] = postCreatedAt;
+            size++;
+        }
+        boolean exhausted = i == postIds.length && j == other.postIds.length;
+        return new TimelineWindow(
+                Arrays.copyOf(newPostIds, size),
+                Arrays.copyOf(newCreatedAt, size),
+                complete && other.complete && exhausted
+        );
+    }
+
+    /**
+     * Проверяет, что первая запись расположена в ленте раньше второй (то есть новее).
+     * @param firstId идентификатор первого поста.
+     * @param firstCreatedAt дата создания первого поста.
+     * @param secondId идентификатор второго поста.
+     * @param secondCreatedAt дата создания второго поста.
+     * @return true, если первая запись новее второй.
+     */
+    public static boolean isAfter(long firstId, long firstCreatedAt, long secondId, long secondCreatedAt) {
+        return firstCreatedAt > secondCreatedAt || (firstCreatedAt == secondCreatedAt && firstId > secondId);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.averkiev.socialmediaapi.models;
+
+/**
+ * Проекция количества записей, сгруппированных по пользователю.
+ * @author mrGreenNV
+ */
+public interface UserCount {
+
+    /**
+     * Возвращает идентификатор пользователя.
+     * @return идентификатор пользователя.
+     */
+    Long getUserId();
+
+    /**
+     * Возвращает количество записей, относящихся к пользователю.
+     * @return количество записей.
+     */
+    Long getCount();
+}
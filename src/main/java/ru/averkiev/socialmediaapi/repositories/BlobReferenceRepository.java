@@ -0,0 +1,89 @@
+package ru.averkiev.socialmediaapi.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.averkiev.socialmediaapi.models.BlobReference;
+import ru.averkiev.socialmediaapi.models.BlobUsage;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Интерфейс представляет собой функциональность подсчёта ссылок на содержимое в хранилище.
+ * Счётчики изменяются одним запросом без предварительного чтения, поэтому одновременные загрузки и удаления
+ * одинакового содержимого не теряют изменений.
+ * @author mrGreenNV
+ */
+@Repository
+public interface BlobReferenceRepository extends JpaRepository<BlobReference, String> {
+
+    /**
+     * Добавляет ссылку на содержимое, создавая счётчик, если содержимое ещё не учтено.
+     * @param key ключ содержимого.
+     * @param size размер содержимого в байтах.
+     * @return количество ссылок после добавления.
+     */
+    @Transactional
+    @Query(value = "INSERT INTO blob_refs (blob_key, ref_count, size_bytes, created_at) VALUES (:key, 1, :size, now()) " +
+            "ON CONFLICT (blob_key) DO UPDATE SET ref_count = blob_refs.ref_count + 1, released_at = NULL " +
+            "RETURNING ref_count", nativeQuery = true)
+    Integer acquire(@Param("key") String key, @Param("size") long size);
+
+    /**
+     * Добавляет ссылку на содержимое, только если оно уже учтено. Позволяет не записывать содержимое повторно.
+     * @param key ключ содержимого.
+     * @return количество ссылок после добавления или null, если содержимое не учтено.
+     */
+    @Transactional
+    @Query(value = "UPDATE blob_refs SET ref_count = ref_count + 1, released_at = NULL WHERE blob_key = :key " +
+            "RETURNING ref_count", nativeQuery = true)
+    Integer acquireExisting(@Param("key") String key);
+
+    /**
+     * Освобождает ссылку на содержимое. При освобождении последней ссылки запоминается время освобождения,
+     * по которому содержимое затем удаляется из хранилища.
+     * @param key ключ содержимого.
+     * @return количество оставшихся ссылок или null, если содержимое не учтено.
+     */
+    @Transactional
+    @Query(value = "UPDATE blob_refs SET ref_count = ref_count - 1, " +
+            "released_at = CASE WHEN ref_count = 1 THEN now() ELSE released_at END " +
+            "WHERE blob_key = :key AND ref_count > 0 RETURNING ref_count", nativeQuery = true)
+    Integer release(@Param("key") String key);
+
+    /**
+     * Выполняет поиск содержимого, последняя ссылка на которое освобождена раньше указанного времени.
+     * @param releasedBefore время освобождения последней ссылки.
+     * @param limit максимальное количество ключей.
+     * @return список ключей содержимого.
+     */
+    @Query(value = "SELECT blob_key FROM blob_refs WHERE ref_count = 0 AND released_at < :releasedBefore " +
+            "ORDER BY released_at LIMIT :limit", nativeQuery = true)
+    List<String> findUnreferenced(@Param("releasedBefore") Date releasedBefore, @Param("limit") int limit);
+
+    /**
+     * Удаляет счётчик содержимого, если на содержимое по-прежнему нет ссылок. Строка остаётся заблокированной до
+     * завершения транзакции, поэтому одновременная загрузка того же содержимого дожидается удаления содержимого
+     * из хранилища.
+     * @param key ключ содержимого.
+     * @param releasedBefore время освобождения последней ссылки.
+     * @return количество удалённых строк.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM blob_refs WHERE blob_key = :key AND ref_count = 0 AND released_at < :releasedBefore",
+            nativeQuery = true)
+    int deleteUnreferenced(@Param("key") String key, @Param("releasedBefore") Date releasedBefore);
+
+    /**
+     * Возвращает объём содержимого в хранилище с учётом и без учёта повторяющегося содержимого.
+     * @return объём содержимого.
+     */
+    @Query(value = "SELECT COALESCE(SUM(size_bytes), 0) AS storedBytes, " +
+            "COALESCE(SUM(size_bytes * ref_count), 0) AS referencedBytes FROM blob_refs", nativeQuery = true)
+    BlobUsage getUsage();
+}
@@ -0,0 +1,43 @@
+package ru.averkiev.socialmediaapi.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.averkiev.socialmediaapi.models.ImageDerivative;
+import ru.averkiev.socialmediaapi.models.ImageRendition;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Интерфейс представляет собой функциональность взаимодействия объекта ImageDerivative с базой данных.
+ * @author mrGreenNV
+ */
+@Repository
+public interface ImageDerivativeRepository extends JpaRepository<ImageDerivative, Long> {
+
+    /**
+     * Выполняет поиск наименьшей копии изображения, ширина которой не меньше заданной.
+     * @param imageId идентификатор изображения.
+     * @param width минимальная ширина копии.
+     * @return копия изображения или null.
+     */
+    ImageDerivative findFirstByImage_IdAndWidthGreaterThanEqualOrderByWidthAsc(Long imageId, int width);
+
+    /**
+     * Выполняет поиск ширин уже сформированных копий изображения.
+     * @param imageId идентификатор изображения.
+     * @return список ширин копий.
+     */
+    @Query("SELECT d.width FROM ImageDerivative d WHERE d.image.id = :imageId")
+    List<Integer> findWidthsByImageId(@Param("imageId") Long imageId);
+
+    /**
+     * Выполняет поиск ширин копий для списка изображений.
+     * @param imageIds идентификаторы изображений.
+     * @return список проекций копий.
+     */
+    @Query("SELECT d.image.id AS imageId, d.width AS width FROM ImageDerivative d WHERE d.image.id IN :imageIds")
+    List<ImageRendition> findRenditionsByImageIdIn(@Param("imageIds") Collection<Long> imageIds);
+}
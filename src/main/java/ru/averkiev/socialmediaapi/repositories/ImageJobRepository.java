@@ -0,0 +1,74 @@
+package ru.averkiev.socialmediaapi.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.averkiev.socialmediaapi.models.ImageJob;
+import ru.averkiev.socialmediaapi.models.ImageJobStatus;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Интерфейс представляет собой функциональность очереди задач формирования уменьшенных копий изображений.
+ * @author mrGreenNV
+ */
+@Repository
+public interface ImageJobRepository extends JpaRepository<ImageJob, Long> {
+
+    /**
+     * Захватывает готовые к выполнению задачи, переводя их в состояние PROCESSING.
+     * Строки, уже заблокированные другим экземпляром приложения, пропускаются (SKIP LOCKED), поэтому несколько
+     * экземпляров разбирают очередь параллельно, не получая одну задачу дважды. Задачи изображений, содержимое которых
+     * ещё не перенесено в хранилище, и изображений, помеченных на удаление, не захватываются.
+     * @param limit максимальное количество задач.
+     * @return захваченные задачи.
+     */
+    @Transactional
+    @Query(value = "UPDATE image_jobs SET status = 'PROCESSING', locked_at = now(), attempts = attempts + 1 " +
+            "WHERE id IN (SELECT j.id FROM image_jobs j " +
+            "WHERE j.status = 'PENDING' AND j.available_at <= now() " +
+            "AND EXISTS (SELECT 1 FROM images i WHERE i.id = j.image_id AND i.blob_key IS NOT NULL AND i.status <> 'DELETED') " +
+            "ORDER BY j.id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *", nativeQuery = true)
+    List<ImageJob> claim(@Param("limit") int limit);
+
+    /**
+     * Возвращает в очередь задачи, обработка которых не завершилась за отведённое время, например из-за остановки
+     * экземпляра приложения.
+     * @param lockedBefore время захвата, раньше которого задача считается зависшей.
+     * @return количество возвращённых задач.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE image_jobs SET status = 'PENDING', locked_at = NULL " +
+            "WHERE status = 'PROCESSING' AND locked_at < :lockedBefore", nativeQuery = true)
+    int releaseStale(@Param("lockedBefore") Date lockedBefore);
+
+    /**
+     * Изменяет состояние задачи после неудачной попытки выполнения.
+     * @param id идентификатор задачи.
+     * @param status новое состояние: PENDING для повторной попытки или FAILED.
+     * @param availableAt время следующей попытки.
+     * @param lastError описание ошибки.
+     * @return количество изменённых строк.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE image_jobs SET status = :status, available_at = :availableAt, last_error = :lastError, " +
+            "locked_at = NULL WHERE id = :id", nativeQuery = true)
+    int reschedule(@Param("id") Long id,
+                   @Param("status") String status,
+                   @Param("availableAt") Date availableAt,
+                   @Param("lastError") String lastError);
+
+    /**
+     * Возвращает количество задач в указанном состоянии.
+     * @param status состояние задачи.
+     * @return количество задач.
+     */
+    long countByStatus(ImageJobStatus status);
+}
@@ -1,13 +1,105 @@
 package ru.averkiev.socialmediaapi.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.averkiev.socialmediaapi.models.Image;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Интерфейс представляет собой функциональность взаимодействия объекта Image с базой данных.
  * @author mrGreenNV
  */
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
+
+    /**
+     * Выполняет поиск идентификаторов изображений, содержимое которых ещё хранится в столбце image_data.
+     * @param afterId идентификатор, после которого выполняется поиск.
+     * @param limit максимальное количество идентификаторов.
+     * @return список идентификаторов изображений по возрастанию.
+     */
+    @Query(value = "SELECT id FROM images WHERE image_data IS NOT NULL AND status <> 'DELETED' AND id > :afterId ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findInlineImageIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * Выполняет чтение содержимого изображения из столбца image_data.
+     * @param id идентификатор изображения.
+     * @return содержимое изображения или null.
+     */
+    @Query(value = "SELECT image_data FROM images WHERE id = :id", nativeQuery = true)
+    byte[] findInlineImageDataById(@Param("id") Long id);
+
+    /**
+     * Заменяет содержимое изображения в столбце image_data ссылкой на содержимое в хранилище.
+     * @param id идентификатор изображения.
+     * @param blobKey ключ содержимого.
+     * @param size размер содержимого в байтах.
+     * @param mimeType MIME-тип изображения.
+     * @return количество изменённых строк.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE images SET blob_key = :blobKey, size_bytes = :size, mime_type = :mimeType, image_data = NULL " +
+            "WHERE id = :id AND image_data IS NOT NULL", nativeQuery = true)
+    int moveInlineImageData(@Param("id") Long id,
+                            @Param("blobKey") String blobKey,
+                            @Param("size") long size,
+                            @Param("mimeType") String mimeType);
+
+    /**
+     * Помечает изображение на удаление. Строка и содержимое изображения удаляются фоновой очисткой.
+     * @param id идентификатор изображения.
+     * @return количество изменённых строк.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE images SET status = 'DELETED', updated_at = now() WHERE id = :id AND status <> 'DELETED'",
+            nativeQuery = true)
+    int markDeleted(@Param("id") Long id);
+
+    /**
+     * Блокирует изображения, помеченные на удаление. Строки, уже заблокированные другим экземпляром приложения,
+     * пропускаются (SKIP LOCKED). Выполняется в транзакции очистки.
+     * @param limit максимальное количество изображений.
+     * @return список идентификаторов изображений.
+     */
+    @Query(value = "SELECT id FROM images WHERE status = 'DELETED' ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDeletedIds(@Param("limit") int limit);
+
+    /**
+     * Выполняет поиск ключей содержимого изображений и их уменьшенных копий.
+     * @param ids идентификаторы изображений.
+     * @return список ключей содержимого, по одному на каждую ссылку.
+     */
+    @Query(value = "SELECT blob_key FROM images WHERE id IN (:ids) AND blob_key IS NOT NULL " +
+            "UNION ALL SELECT blob_key FROM image_derivatives WHERE image_id IN (:ids)",
+            nativeQuery = true)
+    List<String> findBlobKeysByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Выполняет поиск ключей содержимого всех изображений постов и их уменьшенных копий.
+     * @param postIds идентификаторы постов.
+     * @return список ключей содержимого, по одному на каждую ссылку.
+     */
+    @Query(value = "SELECT blob_key FROM images WHERE post_id IN (:postIds) AND blob_key IS NOT NULL " +
+            "UNION ALL SELECT d.blob_key FROM image_derivatives d JOIN images i ON i.id = d.image_id WHERE i.post_id IN (:postIds)",
+            nativeQuery = true)
+    List<String> findBlobKeysByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    /**
+     * Удаляет изображения, помеченные на удаление, вместе с их уменьшенными копиями и задачами их формирования.
+     * @param ids идентификаторы изображений.
+     * @return количество удалённых изображений.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM images WHERE id IN (:ids) AND status = 'DELETED'", nativeQuery = true)
+    int purgeByIdIn(@Param("ids") Collection<Long> ids);
 }
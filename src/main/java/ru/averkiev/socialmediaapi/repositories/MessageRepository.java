@@ -1,11 +1,23 @@
 package ru.averkiev.socialmediaapi.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.averkiev.socialmediaapi.models.Message;
+import ru.averkiev.socialmediaapi.models.MessageDTO;
 import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.models.UserCount;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс представляет собой функциональность взаимодействия объекта Message с базой данных.
@@ -37,4 +49,74 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
      * @return список объектов Message с данными сообщений.
      */
     List<Message> findAllByReceiverOrderByCreatedAtDesc(User receiver);
+
+    /**
+     * Выполняет потоковое чтение переписки пользователя с собеседником в порядке отправки сообщений
+     * без загрузки сущностей сообщений и пользователей.
+     * Поток должен читаться и закрываться внутри транзакции.
+     * @param userId идентификатор пользователя.
+     * @param interlocutorId идентификатор собеседника.
+     * @return поток объектов MessageDTO.
+     */
+    @Query("SELECT new ru.averkiev.socialmediaapi.models.MessageDTO(m.id, m.sender.id, m.receiver.id, m.content, m.version) " +
+            "FROM Message m " +
+            "WHERE (m.sender.id = :userId AND m.receiver.id = :interlocutorId) " +
+            "OR (m.sender.id = :interlocutorId AND m.receiver.id = :userId) " +
+            "ORDER BY m.createdAt")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResultStreamer.FETCH_SIZE))
+    Stream<MessageDTO> streamMessageDTOsBetweenUsers(@Param("userId") Long userId, @Param("interlocutorId") Long interlocutorId);
+
+    /**
+     * Выполняет поиск сообщений по идентификаторам, возвращая DTO без загрузки сущностей сообщений и пользователей.
+     * @param messageIds идентификаторы сообщений.
+     * @return список объектов MessageDTO.
+     */
+    @Query("SELECT new ru.averkiev.socialmediaapi.models.MessageDTO(m.id, m.sender.id, m.receiver.id, m.content, m.version) " +
+            "FROM Message m WHERE m.id IN :messageIds")
+    List<MessageDTO> findMessageDTOsByIdIn(@Param("messageIds") Collection<Long> messageIds);
+
+    /**
+     * Выполняет потоковое чтение всех сообщений для построения поискового индекса.
+     * Поток должен читаться и закрываться внутри транзакции.
+     * @return поток объектов MessageDTO.
+     */
+    @Query("SELECT new ru.averkiev.socialmediaapi.models.MessageDTO(m.id, m.sender.id, m.receiver.id, m.content, m.version) " +
+            "FROM Message m")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResultStreamer.FETCH_SIZE))
+    Stream<MessageDTO> streamAllMessageDTOs();
+
+    /**
+     * Выполняет подсчёт сообщений, отправленных пользователем каждому из указанных собеседников.
+     * @param userId идентификатор отправителя.
+     * @param interlocutorIds идентификаторы получателей.
+     * @return список количеств сообщений по получателям.
+     */
+    @Query("SELECT m.receiver.id AS userId, COUNT(m) AS count FROM Message m " +
+            "WHERE m.sender.id = :userId AND m.receiver.id IN :interlocutorIds GROUP BY m.receiver.id")
+    List<UserCount> countSentByUserIdAndReceiverIdIn(@Param("userId") Long userId, @Param("interlocutorIds") Collection<Long> interlocutorIds);
+
+    /**
+     * Выполняет подсчёт сообщений, полученных пользователем от каждого из указанных собеседников.
+     * @param userId идентификатор получателя.
+     * @param interlocutorIds идентификаторы отправителей.
+     * @return список количеств сообщений по отправителям.
+     */
+    @Query("SELECT m.sender.id AS userId, COUNT(m) AS count FROM Message m " +
+            "WHERE m.receiver.id = :userId AND m.sender.id IN :interlocutorIds GROUP BY m.sender.id")
+    List<UserCount> countReceivedByUserIdAndSenderIdIn(@Param("userId") Long userId, @Param("interlocutorIds") Collection<Long> interlocutorIds);
+
+    /**
+     * Изменяет текст сообщения одним запросом, если версия сообщения совпадает с ожидаемой, и увеличивает версию.
+     * @param id идентификатор сообщения.
+     * @param content новый текст сообщения.
+     * @param version ожидаемая версия сообщения.
+     * @return количество изменённых строк: 0, если сообщение удалено или изменено после получения версии.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Message m SET m.content = :content, m.version = m.version + 1, m.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE m.id = :id AND m.version = :version")
+    int updateContentIfVersion(@Param("id") Long id,
+                               @Param("content") String content,
+                               @Param("version") Long version);
 }
@@ -1,11 +1,27 @@
 package ru.averkiev.socialmediaapi.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.averkiev.socialmediaapi.models.AuthorPostRef;
+import ru.averkiev.socialmediaapi.models.FeedPostRow;
 import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostRef;
+import ru.averkiev.socialmediaapi.models.PostText;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс представляет собой функциональность взаимодействия объекта Post с базой данных.
@@ -42,6 +58,46 @@ public interface PostRepository extends JpaRepository<Post, Long> {
      */
     List<Post> findAllByOrderByCreatedAtDesc();
 
+    /**
+     * Выполняет поиск идентификаторов постов сортируя от новых к старым с пагинацией страниц.
+     * @param pageable пагинация запроса.
+     * @return список идентификаторов постов.
+     */
+    @Query("SELECT p.id FROM Post p ORDER BY p.createdAt DESC, p.id DESC")
+    List<Long> findIdsByOrderByCreatedAtDesc(Pageable pageable);
+
+    /**
+     * Выполняет потоковое чтение всех постов пользователя с указанным идентификатором.
+     * Поток должен читаться и закрываться внутри транзакции.
+     * @param userId идентификатор пользователя.
+     * @return поток объектов Post.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResultStreamer.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Post> streamAllByUserId(Long userId);
+
+    /**
+     * Выполняет потоковое чтение всех постов из базы данных сортируя по дате создания.
+     * Поток должен читаться и закрываться внутри транзакции.
+     * @return поток объектов Post.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResultStreamer.FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Post> streamAllByOrderByCreatedAtDesc();
+
+    /**
+     * Выполняет потоковое чтение текстовых данных всех постов для построения поискового индекса.
+     * Поток должен читаться и закрываться внутри транзакции.
+     * @return поток проекций PostText.
+     */
+    @Query("SELECT p.id AS id, p.title AS title, p.text AS text FROM Post p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResultStreamer.FETCH_SIZE))
+    Stream<PostText> streamAllPostTexts();
+
     /**
      * Выполняет поиск постов по идентификаторам их создателей сортируя по дате с пагинацией страниц.
      * @param userIds список идентификаторов создателей постов.
@@ -56,4 +112,124 @@ public interface PostRepository extends JpaRepository<Post, Long> {
      * @return список объектов Post.
      */
     List<Post> findByUserIdInOrderByCreatedAtDesc(List<Long> userIds);
+
+    /**
+     * Выполняет поиск идентификаторов и дат создания постов заданных авторов, сортируя от новых к старым.
+     * @param userIds список идентификаторов авторов.
+     * @param pageable пагинация запроса.
+     * @return список проекций PostRef.
+     */
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt FROM Post p WHERE p.user.id IN :userIds " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostRef> findPostRefsByUserIdIn(@Param("userIds") List<Long> userIds, Pageable pageable);
+
+    /**
+     * Выполняет поиск идентификаторов и дат создания всех постов заданных авторов, сортируя от новых к старым.
+     * @param userIds список идентификаторов авторов.
+     * @return список проекций PostRef.
+     */
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt FROM Post p WHERE p.user.id IN :userIds " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostRef> findPostRefsByUserIdIn(@Param("userIds") List<Long> userIds);
+
+    /**
+     * Выполняет поиск идентификаторов и дат создания постов заданных авторов, расположенных после заданного поста,
+     * сортируя от новых к старым.
+     * @param userIds список идентификаторов авторов.
+     * @param createdAt дата создания последнего прочитанного поста.
+     * @param postId идентификатор последнего прочитанного поста.
+     * @param limit максимальное количество постов.
+     * @return список проекций PostRef.
+     */
+    @Query(value = "SELECT p.id AS \"id\", p.created_at AS \"createdAt\" FROM posts p WHERE p.user_id IN (:userIds) " +
+            "AND (p.created_at, p.id) < (:createdAt, :postId) AND p.status <> 'DELETED' " +
+            "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<PostRef> findPostRefPageByUserIdInAfter(@Param("userIds") List<Long> userIds,
+                                                 @Param("createdAt") Date createdAt,
+                                                 @Param("postId") Long postId,
+                                                 @Param("limit") int limit);
+
+    /**
+     * Выполняет поиск последних постов каждого из заданных авторов одним запросом.
+     * Для каждого автора читается не более limit записей из индекса по дате создания.
+     * @param userIds список идентификаторов авторов.
+     * @param limit максимальное количество постов одного автора.
+     * @return список проекций AuthorPostRef.
+     */
+    @Query(value = "SELECT p.id AS \"id\", p.user_id AS \"userId\", p.created_at AS \"createdAt\" FROM users u " +
+            "CROSS JOIN LATERAL (SELECT lp.id, lp.user_id, lp.created_at FROM posts lp WHERE lp.user_id = u.id AND lp.status <> 'DELETED' " +
+            "ORDER BY lp.created_at DESC, lp.id DESC LIMIT :limit) p WHERE u.id IN (:userIds)",
+            nativeQuery = true)
+    List<AuthorPostRef> findRecentPostRefsByUserIdIn(@Param("userIds") Collection<Long> userIds, @Param("limit") int limit);
+
+    /**
+     * Выполняет поиск данных постов для отображения в ленте активности одним запросом.
+     * Возвращаются только заголовок, текст, имя автора и идентификаторы изображений, данные изображений не читаются.
+     * @param postIds список идентификаторов постов.
+     * @return список строк FeedPostRow, по одной на каждое изображение поста.
+     */
+    @Query("SELECT new ru.averkiev.socialmediaapi.models.FeedPostRow(p.id, p.title, p.text, u.username, i.id) " +
+            "FROM Post p JOIN p.user u LEFT JOIN p.images i WHERE p.id IN :postIds ORDER BY p.id, i.id")
+    List<FeedPostRow> findFeedPostRowsByIdIn(@Param("postIds") Collection<Long> postIds);
+
+    /**
+     * Выполняет поиск проекций постов с идентификаторами авторов по идентификаторам постов.
+     * @param ids идентификаторы постов.
+     * @return список проекций постов в произвольном порядке.
+     */
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt, p.user.id AS userId FROM Post p WHERE p.id IN :ids")
+    List<AuthorPostRef> findAuthorPostRefsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Изменяет заголовок и текст поста одним запросом, если версия поста совпадает с ожидаемой, и увеличивает версию.
+     * Незаданные заголовок и текст не изменяются. Контекст персистентности очищается, чтобы последующее чтение
+     * вернуло пост с новыми данными.
+     * @param id идентификатор поста.
+     * @param title новый заголовок поста или null.
+     * @param text новая текстовая часть поста или null.
+     * @param version ожидаемая версия поста.
+     * @return количество изменённых строк: 0, если пост удалён или изменён после получения версии.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Post p SET p.title = COALESCE(:title, p.title), p.text = COALESCE(:text, p.text), " +
+            "p.version = p.version + 1, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id AND p.version = :version")
+    int updateIfVersion(@Param("id") Long id,
+                        @Param("title") String title,
+                        @Param("text") String text,
+                        @Param("version") Long version);
+
+    /**
+     * Помечает пост и все его изображения на удаление одним запросом и увеличивает версию поста.
+     * Строки и содержимое изображений удаляются фоновой очисткой.
+     * @param id идентификатор поста.
+     * @return количество помеченных изображений поста.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "WITH deleted AS (UPDATE posts SET status = 'DELETED', version = version + 1, updated_at = now() " +
+            "WHERE id = :id AND status <> 'DELETED' RETURNING id) " +
+            "UPDATE images SET status = 'DELETED', updated_at = now() WHERE post_id IN (SELECT id FROM deleted)",
+            nativeQuery = true)
+    int markDeleted(@Param("id") Long id);
+
+    /**
+     * Блокирует посты, помеченные на удаление. Строки, уже заблокированные другим экземпляром приложения,
+     * пропускаются (SKIP LOCKED). Выполняется в транзакции очистки.
+     * @param limit максимальное количество постов.
+     * @return список идентификаторов постов.
+     */
+    @Query(value = "SELECT id FROM posts WHERE status = 'DELETED' ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDeletedIds(@Param("limit") int limit);
+
+    /**
+     * Удаляет посты, помеченные на удаление, вместе с оставшимися изображениями и записями лент.
+     * @param ids идентификаторы постов.
+     * @return количество удалённых постов.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM posts WHERE id IN (:ids) AND status = 'DELETED'", nativeQuery = true)
+    int purgeByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,23 @@
+package ru.averkiev.socialmediaapi.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.averkiev.socialmediaapi.models.PulledAuthor;
+
+import java.util.List;
+
+/**
+ * Интерфейс представляет собой функциональность взаимодействия объекта PulledAuthor с базой данных.
+ * @author mrGreenNV
+ */
+@Repository
+public interface PulledAuthorRepository extends JpaRepository<PulledAuthor, Long> {
+
+    /**
+     * Выполняет поиск идентификаторов всех авторов, посты которых читаются при запросе ленты.
+     * @return список идентификаторов авторов.
+     */
+    @Query("SELECT a.authorId FROM PulledAuthor a")
+    List<Long> findAllAuthorIds();
+}
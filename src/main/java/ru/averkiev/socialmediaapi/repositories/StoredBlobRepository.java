@@ -0,0 +1,13 @@
+package ru.averkiev.socialmediaapi.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.averkiev.socialmediaapi.models.StoredBlob;
+
+/**
+ * Интерфейс представляет собой функциональность взаимодействия объекта StoredBlob с базой данных.
+ * @author mrGreenNV
+ */
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+}
@@ -1,10 +1,14 @@
 package ru.averkiev.socialmediaapi.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.averkiev.socialmediaapi.models.Subscription;
 import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.models.UserCount;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,4 +33,65 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
      * @return список подписок.
      */
     List<Subscription> findAllByUser(User user);
+
+    /**
+     * Проверяет наличие подписок у пользователя.
+     * @param userId идентификатор пользователя.
+     * @return true, если у пользователя есть хотя бы одна подписка.
+     */
+    boolean existsByUserId(Long userId);
+
+    /**
+     * Выполняет поиск идентификаторов пользователей, подписанных на заданного пользователя.
+     * @param subscriptionUserId идентификатор пользователя, на которого осуществлена подписка.
+     * @return список идентификаторов подписчиков.
+     */
+    @Query("SELECT s.user.id FROM Subscription s WHERE s.subscriptionUser.id = :subscriptionUserId")
+    List<Long> findUserIdsBySubscriptionUserId(@Param("subscriptionUserId") Long subscriptionUserId);
+
+    /**
+     * Подсчитывает количество подписчиков пользователя.
+     * @param subscriptionUserId идентификатор пользователя, на которого осуществлена подписка.
+     * @return количество подписчиков.
+     */
+    long countBySubscriptionUserId(Long subscriptionUserId);
+
+    /**
+     * Выполняет поиск идентификаторов пользователей, количество подписчиков которых превышает заданное значение.
+     * @param threshold пороговое количество подписчиков.
+     * @return список идентификаторов пользователей.
+     */
+    @Query("SELECT s.subscriptionUser.id FROM Subscription s GROUP BY s.subscriptionUser.id HAVING COUNT(s) > :threshold")
+    List<Long> findSubscriptionUserIdsWithFollowersAbove(@Param("threshold") long threshold);
+
+    /**
+     * Выполняет поиск идентификаторов пользователей из заданного списка, на которых подписан пользователь.
+     * @param userId идентификатор подписчика.
+     * @param subscriptionUserIds список идентификаторов пользователей.
+     * @return список идентификаторов пользователей, на которых осуществлена подписка.
+     */
+    @Query("SELECT DISTINCT s.subscriptionUser.id FROM Subscription s " +
+            "WHERE s.user.id = :userId AND s.subscriptionUser.id IN :subscriptionUserIds")
+    List<Long> findSubscriptionUserIdsByUserIdAndSubscriptionUserIdIn(
+            @Param("userId") Long userId,
+            @Param("subscriptionUserIds") Collection<Long> subscriptionUserIds
+    );
+
+    /**
+     * Выполняет поиск идентификаторов пользователей, на которых подписан пользователь.
+     * @param userId идентификатор подписчика.
+     * @return список идентификаторов пользователей, на которых осуществлена подписка.
+     */
+    @Query("SELECT DISTINCT s.subscriptionUser.id FROM Subscription s WHERE s.user.id = :userId")
+    List<Long> findSubscriptionUserIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Выполняет подсчёт подписчиков для каждого из указанных пользователей.
+     * Пользователи без подписчиков в результат не попадают.
+     * @param subscriptionUserIds идентификаторы пользователей.
+     * @return список количеств подписчиков.
+     */
+    @Query("SELECT s.subscriptionUser.id AS userId, COUNT(s) AS count FROM Subscription s " +
+            "WHERE s.subscriptionUser.id IN :subscriptionUserIds GROUP BY s.subscriptionUser.id")
+    List<UserCount> countUsersBySubscriptionUserIdIn(@Param("subscriptionUserIds") Collection<Long> subscriptionUserIds);
 }
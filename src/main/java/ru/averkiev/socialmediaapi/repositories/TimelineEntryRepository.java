@@ -0,0 +1,144 @@
+package ru.averkiev.socialmediaapi.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.averkiev.socialmediaapi.models.TimelineEntry;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Интерфейс представляет собой функциональность взаимодействия объекта TimelineEntry с базой данных.
+ * @author mrGreenNV
+ */
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    /**
+     * Выполняет поиск записей ленты пользователя, сортируя по дате создания поста с пагинацией.
+     * @param userId идентификатор владельца ленты.
+     * @param pageable пагинация запроса.
+     * @return список объектов TimelineEntry.
+     */
+    List<TimelineEntry> findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(Long userId, Pageable pageable);
+
+    /**
+     * Выполняет поиск всех записей ленты пользователя, сортируя по дате создания поста.
+     * @param userId идентификатор владельца ленты.
+     * @return список объектов TimelineEntry.
+     */
+    List<TimelineEntry> findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(Long userId);
+
+    /**
+     * Выполняет поиск записей ленты пользователя, расположенных после заданного поста, сортируя по дате создания.
+     * Условие по паре (дата создания, идентификатор) позволяет начать чтение с позиции в индексе,
+     * не просматривая предыдущие записи ленты.
+     * @param userId идентификатор владельца ленты.
+     * @param postCreatedAt дата создания последнего прочитанного поста.
+     * @param postId идентификатор последнего прочитанного поста.
+     * @param limit максимальное количество записей.
+     * @return список объектов TimelineEntry.
+     */
+    @Query(value = "SELECT * FROM timeline_entries t WHERE t.user_id = :userId " +
+            "AND (t.post_created_at, t.post_id) < (:postCreatedAt, :postId) " +
+            "ORDER BY t.post_created_at DESC, t.post_id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<TimelineEntry> findPageByUserIdAfter(@Param("userId") Long userId,
+                                              @Param("postCreatedAt") Date postCreatedAt,
+                                              @Param("postId") Long postId,
+                                              @Param("limit") int limit);
+
+    /**
+     * Добавляет пост в ленты всех подписчиков автора одним запросом.
+     * @param postId идентификатор поста.
+     * @param authorId идентификатор автора поста.
+     * @param postCreatedAt дата создания поста.
+     * @return количество созданных записей.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO timeline_entries (user_id, post_id, author_id, post_created_at) " +
+            "SELECT DISTINCT s.user_id, :postId, :authorId, :postCreatedAt FROM subscriptions s WHERE s.target_user_id = :authorId " +
+            "ON CONFLICT (user_id, post_id) DO NOTHING",
+            nativeQuery = true)
+    int fanOut(@Param("postId") Long postId, @Param("authorId") Long authorId, @Param("postCreatedAt") Date postCreatedAt);
+
+    /**
+     * Добавляет несколько постов в ленты всех подписчиков их авторов одним запросом.
+     * @param postIds идентификаторы постов.
+     * @return количество созданных записей.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO timeline_entries (user_id, post_id, author_id, post_created_at) " +
+            "SELECT DISTINCT s.user_id, p.id, p.user_id, p.created_at FROM posts p " +
+            "JOIN subscriptions s ON s.target_user_id = p.user_id WHERE p.id IN (:postIds) " +
+            "ON CONFLICT (user_id, post_id) DO NOTHING",
+            nativeQuery = true)
+    int fanOutAll(@Param("postIds") List<Long> postIds);
+
+    /**
+     * Добавляет в ленту пользователя последние посты автора, на которого осуществлена подписка.
+     * @param userId идентификатор владельца ленты.
+     * @param authorId идентификатор автора.
+     * @param limit максимальное количество добавляемых постов.
+     * @return количество созданных записей.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO timeline_entries (user_id, post_id, author_id, post_created_at) " +
+            "SELECT :userId, p.id, p.user_id, p.created_at FROM posts p WHERE p.user_id = :authorId AND p.status <> 'DELETED' " +
+            "AND NOT EXISTS (SELECT 1 FROM timeline_entries t WHERE t.user_id = :userId AND t.post_id = p.id) " +
+            "ORDER BY p.created_at DESC, p.id DESC LIMIT :limit " +
+            "ON CONFLICT (user_id, post_id) DO NOTHING",
+            nativeQuery = true)
+    int backfill(@Param("userId") Long userId, @Param("authorId") Long authorId, @Param("limit") int limit);
+
+    /**
+     * Добавляет последние посты автора в ленты всех его подписчиков одним запросом.
+     * Используется, когда посты автора перестают читаться при запросе ленты и снова записываются в ленты подписчиков.
+     * Посты, уже находящиеся в ленте, пропускаются, поэтому повторное выполнение безопасно.
+     * @param authorId идентификатор автора.
+     * @param createdFrom дата, начиная с которой добавляются посты.
+     * @param limit максимальное количество постов, добавляемых в ленту одного подписчика.
+     * @return количество созданных записей.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO timeline_entries (user_id, post_id, author_id, post_created_at) " +
+            "SELECT DISTINCT s.user_id, p.id, p.user_id, p.created_at FROM subscriptions s " +
+            "CROSS JOIN (SELECT id, user_id, created_at FROM posts WHERE user_id = :authorId AND status <> 'DELETED' " +
+            "AND created_at >= :createdFrom ORDER BY created_at DESC, id DESC LIMIT :limit) p " +
+            "WHERE s.target_user_id = :authorId " +
+            "ON CONFLICT (user_id, post_id) DO NOTHING",
+            nativeQuery = true)
+    int backfillFollowers(@Param("authorId") Long authorId,
+                          @Param("createdFrom") Date createdFrom,
+                          @Param("limit") int limit);
+
+    /**
+     * Удаляет пост из лент всех пользователей.
+     * @param postId идентификатор поста.
+     * @return количество удалённых записей.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TimelineEntry t WHERE t.postId = :postId")
+    int deleteAllByPostId(@Param("postId") Long postId);
+
+    /**
+     * Удаляет из ленты пользователя все посты заданного автора.
+     * @param userId идентификатор владельца ленты.
+     * @param authorId идентификатор автора.
+     * @return количество удалённых записей.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TimelineEntry t WHERE t.userId = :userId AND t.authorId = :authorId")
+    int deleteAllByUserIdAndAuthorId(@Param("userId") Long userId, @Param("authorId") Long authorId);
+}
@@ -1,10 +1,14 @@
 package ru.averkiev.socialmediaapi.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.averkiev.socialmediaapi.models.User;
 import ru.averkiev.socialmediaapi.models.UserFriend;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,4 +26,12 @@ public interface UserFriendRepository extends JpaRepository<UserFriend, Long> {
      */
     Optional<UserFriend> findUserFriendByUserAndFriend(User user, User friend);
 
+    /**
+     * Выполняет поиск друзей пользователя среди указанных пользователей.
+     * @param userId идентификатор пользователя.
+     * @param friendIds идентификаторы проверяемых пользователей.
+     * @return список идентификаторов друзей пользователя.
+     */
+    @Query("SELECT f.friend.id FROM UserFriend f WHERE f.user.id = :userId AND f.friend.id IN :friendIds")
+    List<Long> findFriendIdsByUserIdAndFriendIdIn(@Param("userId") Long userId, @Param("friendIds") Collection<Long> friendIds);
 }
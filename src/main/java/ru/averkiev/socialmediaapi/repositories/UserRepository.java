@@ -1,10 +1,17 @@
 package ru.averkiev.socialmediaapi.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.models.UserFriendDTO;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс представляет собой функциональность взаимодействия объекта User с базой данных.
@@ -26,4 +33,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return Optional, содержащий найденного пользователя или пустой.
      */
     Optional<User> findUserByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Выполняет потоковое чтение имён и электронных почт всех пользователей без загрузки сущностей.
+     * Поток должен читаться и закрываться внутри транзакции.
+     * @return поток объектов UserFriendDTO.
+     */
+    @Query("SELECT new ru.averkiev.socialmediaapi.models.UserFriendDTO(u.username, u.email) FROM User u ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ResultStreamer.FETCH_SIZE))
+    Stream<UserFriendDTO> streamAllUserFriendDTOs();
+}
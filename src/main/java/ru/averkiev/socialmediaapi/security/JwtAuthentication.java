@@ -4,6 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import ru.averkiev.socialmediaapi.models.EntityStatus;
 
 import java.util.Collection;
 
@@ -21,6 +22,12 @@ public class JwtAuthentication implements Authentication {
     /** Имя пользователя в системе. */
     private String username;
 
+    /** Идентификатор пользователя из токена, либо null для токенов, выданных без него. */
+    private Long userId;
+
+    /** Статус пользователя на момент создания токена. */
+    private EntityStatus status;
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return null;
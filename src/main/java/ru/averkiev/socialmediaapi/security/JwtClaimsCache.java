@@ -0,0 +1,149 @@
+package ru.averkiev.socialmediaapi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.constraints.NotNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.averkiev.socialmediaapi.exceptions.AuthException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс хранит в памяти приложения утверждения проверенных access токенов, чтобы повторные запросы
+ * с тем же токеном не разбирали его и не проверяли подпись заново.
+ * Ключом записи служит хэш SHA-256 токена, поэтому сами токены в памяти не хранятся.
+ * Запись удаляется по истечении срока действия токена, при выходе пользователя из системы
+ * или при превышении максимального количества записей.
+ * @author mrGreenNV
+ */
+@Slf4j
+@Component
+public class JwtClaimsCache {
+
+    /** Сервис для проверки токенов. */
+    private final JwtProvider jwtProvider;
+
+    /** Утверждения проверенных токенов по хэшу токена. */
+    private final Cache<String, VerifiedToken> claims;
+
+    /** Количество запросов утверждений, найденных в кэше. */
+    private final Counter hits;
+
+    /** Количество запросов утверждений, отсутствующих в кэше. */
+    private final Counter misses;
+
+    /**
+     * Позволяет создать объект JwtClaimsCache с заданными параметрами.
+     * @param jwtProvider сервис для проверки токенов.
+     * @param meterRegistry реестр метрик.
+     * @param maxTokens максимальное количество токенов, утверждения которых хранятся в кэше.
+     */
+    @Autowired
+    public JwtClaimsCache(JwtProvider jwtProvider,
+                          MeterRegistry meterRegistry,
+                          @Value("${jwt.claims-cache.max-tokens:100000}") long maxTokens
+    ) {
+        this.jwtProvider = jwtProvider;
+        this.claims = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        long millis = value.expiration().toEpochMilli() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        this.hits = Counter.builder("jwt.claims.cache.requests")
+                .description("Запросы утверждений access токенов к кэшу")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("jwt.claims.cache.requests")
+                .description("Запросы утверждений access токенов к кэшу")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("jwt.claims.cache.hit.ratio", this, JwtClaimsCache::hitRatio)
+                .description("Доля запросов утверждений access токенов, найденных в кэше")
+                .register(meterRegistry);
+        Gauge.builder("jwt.claims.cache.tokens", claims, Cache::estimatedSize)
+                .description("Access токены, утверждения которых хранятся в кэше")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Позволяет получить утверждения access токена из кэша, либо проверить токен и поместить их в кэш.
+     * Недействительные токены и токены без срока действия не кэшируются.
+     * @param accessToken access токен.
+     * @return проверенный токен и его утверждения.
+     * @throws AuthException выбрасывает, если токен недействителен.
+     */
+    public VerifiedToken verifyAccessToken(@NotNull String accessToken) throws AuthException {
+        String key = digest(accessToken);
+        VerifiedToken cached = claims.getIfPresent(key);
+        if (cached != null && cached.expiration().toEpochMilli() > System.currentTimeMillis()) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        VerifiedToken verified = jwtProvider.verifyAccessToken(accessToken);
+        if (verified.expiration() != null) {
+            claims.put(key, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * Удаляет утверждения access токена из кэша.
+     * @param accessToken access токен.
+     */
+    public void evict(@NotNull String accessToken) {
+        claims.invalidate(digest(accessToken));
+        log.info("IN evict - утверждения access токена удалены из кэша");
+    }
+
+    /**
+     * Вычисляет долю запросов утверждений, найденных в кэше.
+     * @return доля попаданий в кэш от 0 до 1.
+     */
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    /**
+     * Вычисляет хэш SHA-256 токена.
+     * @param token токен.
+     * @return хэш токена в кодировке Base64.
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", ex);
+        }
+    }
+}
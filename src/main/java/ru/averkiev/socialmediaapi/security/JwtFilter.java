@@ -1,6 +1,5 @@
 package ru.averkiev.socialmediaapi.security;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
@@ -22,7 +21,8 @@ import java.time.LocalDateTime;
 /**
  * Класс JwtFilter является фильтром Spring Security, который обрабатывает HTTP-запросы,
  * содержащие JSON Web Token (JWT).
- * Фильтр извлекает токен из заголовка Authorization, проверяет его с использованием JwtProvider,
+ * Фильтр извлекает токен из заголовка Authorization, проверяет его с использованием JwtProvider
+ * (повторные запросы с тем же токеном используют утверждения из JwtClaimsCache без повторной проверки подписи),
  * и если токен действительный, создает объект JwtAuthentication, представляющий информацию о пользователе из JWT,
  * и устанавливает его в контекст безопасности.
  * @author mrGreenNV
@@ -34,13 +34,14 @@ public class JwtFilter extends GenericFilterBean {
     /** Константа для извлечения токена из заголовка запроса. */
     private static final String AUTHORIZATION = "Authorization";
 
-    /** Сервис для взаимодействия с токеном. */
-    private final JwtProvider jwtProvider;
+    /** Кэш утверждений проверенных access токенов. */
+    private final JwtClaimsCache jwtClaimsCache;
 
     /**
      * Метод doFilter обрабатывает HTTP-запросы, проходящие через данный фильтр.
      * Он извлекает JSON Web Token (JWT) из заголовка Authorization HTTP-запроса,
-     * сравнивает его с помощью JwtProvider, и если токен действителен,
+     * проверяет его с помощью JwtProvider, либо находит утверждения ранее проверенного токена в JwtClaimsCache,
+     * и если токен действителен,
      * создает объект JwtAuthentication с помощью JwtUtils.generate и устанавливает его в контекст безопасности
      * с помощью SecurityContextHolder.getContext().setAuthentication(jwtInfoToken).
      * После успешной обработки, запрос передается на следующий фильтр или обработчик.
@@ -57,10 +58,10 @@ public class JwtFilter extends GenericFilterBean {
 
         try {
 
-            if (token != null && jwtProvider.validateAccessToken(token)) {
+            if (token != null) {
 
-                final Claims claims = jwtProvider.getAccessClaims(token);
-                final JwtAuthentication jwtInfoToken = JwtUtils.generate(claims);
+                final VerifiedToken verifiedToken = jwtClaimsCache.verifyAccessToken(token);
+                final JwtAuthentication jwtInfoToken = JwtUtils.generate(verifiedToken);
                 jwtInfoToken.setAuthenticated(true);
                 SecurityContextHolder.getContext().setAuthentication(jwtInfoToken);
             }
@@ -2,6 +2,7 @@ package ru.averkiev.socialmediaapi.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Serializer;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import jakarta.validation.constraints.NotNull;
@@ -13,10 +14,14 @@ import ru.averkiev.socialmediaapi.exceptions.AuthException;
 
 import javax.crypto.SecretKey;
 import java.security.Key;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.Map;
+import java.util.ServiceLoader;
 
 /**
  * Класс предоставляет функциональность для создания, проверки и валидации JWT токенов.
@@ -32,6 +37,15 @@ public class JwtProvider {
     /** Секретный ключ для подписи токенов обновления. */
     private final SecretKey jwtRefreshSecret;
 
+    /** Парсер токенов доступа. Потокобезопасен и используется повторно для всех проверок. */
+    private final JwtParser accessParser;
+
+    /** Парсер токенов обновления. Потокобезопасен и используется повторно для всех проверок. */
+    private final JwtParser refreshParser;
+
+    /** Сериализатор утверждений при подписи токенов. Загружается один раз, а не при создании каждого токена. */
+    private final Serializer<Map<String, ?>> serializer;
+
     /** Срок действия access токена. */
     private final long expirationAccessTokenInMinutes;
 
@@ -53,6 +67,9 @@ public class JwtProvider {
     ) {
         this.jwtAccessSecret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtAccessSecret));
         this.jwtRefreshSecret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtRefreshSecret));
+        this.serializer = loadSerializer();
+        this.accessParser = Jwts.parserBuilder().setSigningKey(this.jwtAccessSecret).build();
+        this.refreshParser = Jwts.parserBuilder().setSigningKey(this.jwtRefreshSecret).build();
         this.expirationAccessTokenInMinutes = expirationAccessTokenInMinutes;
         this.expirationRefreshTokenInDays = expirationRefreshTokenInDays;
     }
@@ -65,15 +82,7 @@ public class JwtProvider {
      * @return строка, содержащая токен доступа.
      */
     public String generateAccessToken(@NotNull JwtUser jwtUser) {
-        final LocalDateTime now = LocalDateTime.now();
-        final Instant accessExpirationInstance = now.plusMinutes(expirationAccessTokenInMinutes).atZone(ZoneId.systemDefault()).toInstant();
-        final Date accessExpiration = Date.from(accessExpirationInstance);
-        return Jwts.builder()
-                .setSubject(jwtUser.getUsername())
-                .setExpiration(accessExpiration)
-                .setIssuedAt(Date.from(now.atZone(ZoneId.systemDefault()).toInstant()))
-                .signWith(jwtAccessSecret)
-                .compact();
+        return issueAccessToken(jwtUser).token();
     }
 
     /**
@@ -84,30 +93,62 @@ public class JwtProvider {
      * @return строка, содержащая токен обновления.
      */
     public String generateRefreshToken(@NotNull JwtUser jwtUser) {
-        final LocalDateTime now = LocalDateTime.now();
-        final Instant refreshExpirationInstant = now.plusDays(expirationRefreshTokenInDays).atZone(ZoneId.systemDefault()).toInstant();
-        final Date refreshExpiration = Date.from(refreshExpirationInstant);
-        return Jwts.builder()
+        return issueRefreshToken(jwtUser).token();
+    }
+
+    /**
+     * Создаёт токен доступа для переданного объекта JwtUser и возвращает его вместе с записанными в него утверждениями,
+     * поэтому созданный токен не требуется разбирать для получения времени создания и окончания действия.
+     * @param jwtUser передаваемый объект, для которого создаётся токен доступа.
+     * @return подписанный токен доступа и его утверждения.
+     */
+    public VerifiedToken issueAccessToken(@NotNull JwtUser jwtUser) {
+        return issueToken(jwtUser, Duration.ofMinutes(expirationAccessTokenInMinutes), jwtAccessSecret);
+    }
+
+    /**
+     * Создаёт токен обновления для переданного объекта JwtUser и возвращает его вместе с записанными в него утверждениями.
+     * @param jwtUser передаваемый объект, для которого создаётся токен обновления.
+     * @return подписанный токен обновления и его утверждения.
+     */
+    public VerifiedToken issueRefreshToken(@NotNull JwtUser jwtUser) {
+        return issueToken(jwtUser, Duration.ofDays(expirationRefreshTokenInDays), jwtRefreshSecret);
+    }
+
+    /**
+     * Создаёт и подписывает токен с именем, идентификатором и статусом пользователя. Время хранится в токене
+     * с точностью до секунды, поэтому оно округляется заранее, чтобы возвращаемые утверждения совпадали
+     * с утверждениями, получаемыми при проверке токена.
+     * @param jwtUser объект, для которого создаётся токен.
+     * @param lifetime срок действия токена.
+     * @param secret секретный ключ для подписи токена.
+     * @return подписанный токен и его утверждения.
+     */
+    private VerifiedToken issueToken(JwtUser jwtUser, Duration lifetime, Key secret) {
+        final Instant issuedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        final Instant expiration = issuedAt.plus(lifetime);
+        final String token = Jwts.builder()
                 .setSubject(jwtUser.getUsername())
-                .setExpiration(refreshExpiration)
-                .setIssuedAt(Date.from(now.atZone(ZoneId.systemDefault()).toInstant()))
-                .signWith(jwtRefreshSecret)
+                .claim(VerifiedToken.USER_ID_CLAIM, jwtUser.getId())
+                .claim(VerifiedToken.STATUS_CLAIM, jwtUser.getStatus() == null ? null : jwtUser.getStatus().name())
+                .setExpiration(Date.from(expiration))
+                .setIssuedAt(Date.from(issuedAt))
+                .serializeToJsonWith(serializer)
+                .signWith(secret)
                 .compact();
+        return new VerifiedToken(token, jwtUser.getUsername(), jwtUser.getId(), jwtUser.getStatus(), issuedAt, expiration);
     }
 
     /**
-     * Проверяет и возвращает результат проверки токена.
+     * Разбирает токен, проверяя его подпись и срок действия, и возвращает его утверждения.
      * @param token переданный токен, который необходимо проверить.
-     * @param secret секретный ключ для разбора токена и проверки его целостности.
-     * @return возвращает результат проверки токена.
+     * @param parser парсер с секретным ключом для проверки целостности токена.
+     * @return проверенный токен и его утверждения.
+     * @throws AuthException выбрасывает, если токен недействителен.
      */
-    public boolean validateToken(@NotNull String token, @NotNull Key secret) throws AuthException {
+    private VerifiedToken verifyToken(@NotNull String token, @NotNull JwtParser parser) throws AuthException {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(secret)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return VerifiedToken.of(token, parser.parseClaimsJws(token).getBody());
         } catch (ExpiredJwtException expEx) {
             log.error("Истек срок действия токена");
             throw new AuthException("The token expired");
@@ -123,13 +164,34 @@ public class JwtProvider {
         }
     }
 
+    /**
+     * Проверяет токен доступа за один разбор и возвращает его утверждения.
+     * @param accessToken передаваемый токен доступа, который необходимо проверить.
+     * @return проверенный токен доступа и его утверждения.
+     * @throws AuthException выбрасывает, если токен недействителен.
+     */
+    public VerifiedToken verifyAccessToken(@NotNull String accessToken) throws AuthException {
+        return verifyToken(accessToken, accessParser);
+    }
+
+    /**
+     * Проверяет токен обновления за один разбор и возвращает его утверждения.
+     * @param refreshToken передаваемый токен обновления, который необходимо проверить.
+     * @return проверенный токен обновления и его утверждения.
+     * @throws AuthException выбрасывает, если токен недействителен.
+     */
+    public VerifiedToken verifyRefreshToken(@NotNull String refreshToken) throws AuthException {
+        return verifyToken(refreshToken, refreshParser);
+    }
+
     /**
      * Проверяет и возвращает результат проверки токена доступа.
      * @param accessToken передаваемый токен доступа, который необходимо проверить.
      * @return возвращает результат проверки токена доступа.
      */
     public boolean validateAccessToken(@NotNull String accessToken) {
-        return validateToken(accessToken, jwtAccessSecret);
+        verifyAccessToken(accessToken);
+        return true;
     }
 
     /**
@@ -138,40 +200,26 @@ public class JwtProvider {
      * @return возвращает результат проверки токена обновления.
      */
     public boolean validateRefreshToken(@NotNull String refreshToken) {
-        return validateToken(refreshToken, jwtRefreshSecret);
+        verifyRefreshToken(refreshToken);
+        return true;
     }
 
     /**
-     * Извлекает и возвращает объект Claims из разобранного токена. Метод использует парсер для разбора токена и
-     * извлечения полезной нагрузки (payload) токена.
-     * @param token передаваемый токен, из которого необходимо извлечь объект Claims.
-     * @param secret секретный ключ для разбора передаваемого токена.
-     * @return объект Claims, содержащий body переданного токена.
-     */
-    private Claims getClaims(@NotNull String token, @NotNull Key secret) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    /**
-     * Извлекает и возвращает объект Claims из разобранного access токена, с помощью вызова метода getClaims.
+     * Извлекает и возвращает объект Claims из разобранного access токена.
      * @param AccessToken - токен, из которого извлекаются Claims.
      * @return объект Claims, содержащий body переданного токена.
      */
     public Claims getAccessClaims(@NotNull String AccessToken) {
-        return getClaims(AccessToken, jwtAccessSecret);
+        return accessParser.parseClaimsJws(AccessToken).getBody();
     }
 
     /**
-     * Извлекает и возвращает объект Claims из разобранного refresh токена, с помощью вызова метода getClaims.
+     * Извлекает и возвращает объект Claims из разобранного refresh токена.
      * @param refreshToken - токен, из которого извлекаются Claims.
      * @return объект Claims, содержащий body переданного токена.
      */
     public Claims getRefreshClaims(@NotNull String refreshToken) {
-        return getClaims(refreshToken, jwtRefreshSecret);
+        return refreshParser.parseClaimsJws(refreshToken).getBody();
     }
 
     /**
@@ -210,4 +258,14 @@ public class JwtProvider {
         return (currentRefreshExpiration.getTime() - currentDate.getTime()) <= (0.5 * expirationRefreshTokenInDays * 24 * 60 * 60 * 1000);
     }
 
+    /**
+     * Загружает реализацию сериализатора JSON, подключённую к приложению.
+     * @return сериализатор утверждений токена.
+     */
+    @SuppressWarnings("unchecked")
+    private static Serializer<Map<String, ?>> loadSerializer() {
+        return ServiceLoader.load(Serializer.class).findFirst()
+                .map(serializer -> (Serializer<Map<String, ?>>) serializer)
+                .orElseThrow(() -> new IllegalStateException("Не найдена реализация сериализатора JWT"));
+    }
 }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import ru.averkiev.socialmediaapi.models.EntityStatus;
 
 import java.util.Collection;
 
@@ -27,8 +28,8 @@ public class JwtUser implements UserDetails {
     /** Электронная почта пользователя. */
     private final String email;
 
-    /** Доступность пользователя. */
-    private final boolean enabled;
+    /** Статус пользователя. */
+    private final EntityStatus status;
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -87,6 +88,6 @@ public class JwtUser implements UserDetails {
      */
     @Override
     public boolean isEnabled() {
-        return this.enabled;
+        return this.status == EntityStatus.ACTIVE;
     }
 }
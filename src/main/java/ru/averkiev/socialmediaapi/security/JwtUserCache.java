@@ -0,0 +1,142 @@
+package ru.averkiev.socialmediaapi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.averkiev.socialmediaapi.models.User;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Класс хранит в памяти приложения снимки JwtUser, чтобы вход в систему, обновление токенов и выход из системы
+ * не загружали пользователя из базы данных при каждом обращении.
+ * Снимки хранятся отдельно по имени пользователя и по идентификатору, количество снимков ограничено,
+ * а каждый снимок хранится не дольше заданного времени. Снимки пользователя удаляются при сохранении пользователя,
+ * поэтому изменение статуса, пароля или имени учитывается при следующем обращении.
+ * JwtUser неизменяем, поэтому один снимок безопасно используется несколькими потоками.
+ * @author mrGreenNV
+ */
+@Slf4j
+@Component
+public class JwtUserCache {
+
+    /** Снимки пользователей по имени пользователя. */
+    private final Cache<String, JwtUser> byUsername;
+
+    /** Снимки пользователей по идентификатору. */
+    private final Cache<Long, JwtUser> byId;
+
+    /** Количество запросов пользователей, найденных в кэше. */
+    private final Counter hits;
+
+    /** Количество запросов пользователей, отсутствующих в кэше. */
+    private final Counter misses;
+
+    /**
+     * Позволяет создать объект JwtUserCache с заданными параметрами.
+     * @param meterRegistry реестр метрик.
+     * @param maxUsers максимальное количество снимков пользователей в каждом из индексов кэша.
+     * @param ttlSeconds время жизни снимка пользователя в секундах.
+     */
+    @Autowired
+    public JwtUserCache(MeterRegistry meterRegistry,
+                        @Value("${jwt.user-cache.max-users:100000}") long maxUsers,
+                        @Value("${jwt.user-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        Counter evictions = Counter.builder("jwt.users.cache.evictions")
+                .description("Снимки пользователей, вытесненные из кэша по размеру или времени жизни")
+                .register(meterRegistry);
+        this.byUsername = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .<String, JwtUser>removalListener((key, value, cause) -> countEviction(evictions, cause))
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .<Long, JwtUser>removalListener((key, value, cause) -> countEviction(evictions, cause))
+                .build();
+
+        this.hits = Counter.builder("jwt.users.cache.requests")
+                .description("Запросы пользователей к кэшу")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("jwt.users.cache.requests")
+                .description("Запросы пользователей к кэшу")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("jwt.users.cache.users", this, cache -> cache.byUsername.estimatedSize() + cache.byId.estimatedSize())
+                .description("Снимки пользователей, хранящиеся в кэше")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Позволяет получить снимок пользователя по имени из кэша, либо загрузить его и поместить в кэш.
+     * Исключения, возникшие при загрузке, не кэшируются.
+     * @param username имя пользователя.
+     * @param loader функция загрузки пользователя.
+     * @return снимок пользователя.
+     */
+    public JwtUser getByUsername(String username, Function<String, JwtUser> loader) {
+        return get(byUsername, username, loader);
+    }
+
+    /**
+     * Позволяет получить снимок пользователя по идентификатору из кэша, либо загрузить его и поместить в кэш.
+     * Исключения, возникшие при загрузке, не кэшируются.
+     * @param userId идентификатор пользователя.
+     * @param loader функция загрузки пользователя.
+     * @return снимок пользователя.
+     */
+    public JwtUser getById(Long userId, Function<Long, JwtUser> loader) {
+        return get(byId, userId, loader);
+    }
+
+    /**
+     * Удаляет снимки пользователя из кэша, в том числе снимок под прежним именем, если имя было изменено.
+     * @param user сохранённый пользователь.
+     */
+    public void invalidate(User user) {
+        byId.invalidate(user.getId());
+        byUsername.invalidate(user.getUsername());
+        byUsername.asMap().values().removeIf(jwtUser -> jwtUser.getId().equals(user.getId()));
+        log.info("IN invalidate - снимки пользователя с идентификатором: {} удалены из кэша", user.getId());
+    }
+
+    /**
+     * Позволяет получить значение из кэша, либо загрузить его, учитывая попадания и промахи.
+     * @param cache кэш.
+     * @param key ключ.
+     * @param loader функция загрузки значения.
+     * @param <K> тип ключа.
+     * @return снимок пользователя.
+     */
+    private <K> JwtUser get(Cache<K, JwtUser> cache, K key, Function<K, JwtUser> loader) {
+        JwtUser cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        return cache.get(key, loader);
+    }
+
+    /**
+     * Учитывает вытеснение снимка из кэша. Удаление при сохранении пользователя вытеснением не считается.
+     * @param evictions счётчик вытеснений.
+     * @param cause причина удаления снимка.
+     */
+    private static void countEviction(Counter evictions, RemovalCause cause) {
+        if (cause.wasEvicted()) {
+            evictions.increment();
+        }
+    }
+}
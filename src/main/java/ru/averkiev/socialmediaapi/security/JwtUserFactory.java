@@ -1,6 +1,5 @@
 package ru.averkiev.socialmediaapi.security;
 
-import ru.averkiev.socialmediaapi.models.EntityStatus;
 import ru.averkiev.socialmediaapi.models.User;
 
 /**
@@ -29,7 +28,7 @@ public class JwtUserFactory {
                 user.getUsername(),
                 user.getPassword(),
                 user.getEmail(),
-                user.getEntityStatus().equals(EntityStatus.ACTIVE)
+                user.getEntityStatus()
         );
     }
 }
@@ -34,7 +34,7 @@ public class RefreshToken {
 
     /** Идентификатор токена. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     @Column(name = "id")
     private Long id;
 
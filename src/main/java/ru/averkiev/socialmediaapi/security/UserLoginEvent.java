@@ -0,0 +1,16 @@
+package ru.averkiev.socialmediaapi.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Событие успешного входа пользователя в систему.
+ * @author mrGreenNV
+ */
+@Getter
+@AllArgsConstructor
+public class UserLoginEvent {
+
+    /** Идентификатор вошедшего пользователя. */
+    private final Long userId;
+}
@@ -0,0 +1,67 @@
+package ru.averkiev.socialmediaapi.security;
+
+import io.jsonwebtoken.Claims;
+import ru.averkiev.socialmediaapi.models.EntityStatus;
+
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Неизменяемое представление токена, подпись и срок действия которого проверены, либо который только что подписан.
+ * Содержит строку токена и утверждения, необходимые приложению, поэтому после проверки или создания токен
+ * не требуется разбирать повторно. Идентификатор и статус пользователя записываются в токен при его создании
+ * и отсутствуют в токенах, выданных до их добавления.
+ * @param token строковое представление токена.
+ * @param subject имя пользователя, которому выдан токен.
+ * @param userId идентификатор пользователя, которому выдан токен.
+ * @param status статус пользователя на момент создания токена.
+ * @param issuedAt время создания токена.
+ * @param expiration время окончания действия токена.
+ * @author mrGreenNV
+ */
+public record VerifiedToken(String token, String subject, Long userId, EntityStatus status, Instant issuedAt, Instant expiration) {
+
+    /** Название утверждения с идентификатором пользователя. */
+    static final String USER_ID_CLAIM = "uid";
+
+    /** Название утверждения со статусом пользователя. */
+    static final String STATUS_CLAIM = "status";
+
+    /**
+     * Позволяет создать объект VerifiedToken по утверждениям разобранного токена.
+     * @param token строковое представление токена.
+     * @param claims утверждения токена.
+     * @return проверенный токен.
+     */
+    static VerifiedToken of(String token, Claims claims) {
+        final String status = claims.get(STATUS_CLAIM, String.class);
+        return new VerifiedToken(token, claims.getSubject(), claims.get(USER_ID_CLAIM, Long.class),
+                status == null ? null : EntityStatus.valueOf(status),
+                toInstant(claims.getIssuedAt()), toInstant(claims.getExpiration()));
+    }
+
+    /**
+     * Возвращает время создания токена в виде даты.
+     * @return дата создания токена.
+     */
+    public Date issuedAtDate() {
+        return issuedAt == null ? null : Date.from(issuedAt);
+    }
+
+    /**
+     * Возвращает время окончания действия токена в виде даты.
+     * @return дата окончания действия токена.
+     */
+    public Date expirationDate() {
+        return expiration == null ? null : Date.from(expiration);
+    }
+
+    /**
+     * Преобразует дату в момент времени.
+     * @param date дата.
+     * @return момент времени или null, если дата не задана.
+     */
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
+    }
+}
@@ -1,7 +1,10 @@
 package ru.averkiev.socialmediaapi.services;
 
+import ru.averkiev.socialmediaapi.exceptions.ActivityFeedException;
 import ru.averkiev.socialmediaapi.exceptions.AuthException;
+import ru.averkiev.socialmediaapi.models.FeedPageDTO;
 import ru.averkiev.socialmediaapi.models.PostDTO;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
 
 import java.util.List;
 
@@ -26,4 +29,30 @@ public interface ActivityFeedService {
      * @throws AuthException выбрасывает, если возникает ошибка связанная с аутентификацией пользователя.
      */
     List<PostDTO> getActivityFeedForUser() throws AuthException;
+
+    /**
+     * Позволяет получить ленту активности для аутентифицированного пользователя в виде последовательности,
+     * данные постов которой читаются из базы данных по мере отправки ответа.
+     * @return последовательность PostDTO содержащих данные постов.
+     * @throws AuthException выбрасывает, если возникает ошибка связанная с аутентификацией пользователя.
+     */
+    ResultStream<PostDTO> streamActivityFeedForUser() throws AuthException;
+
+    /**
+     * Позволяет заранее сформировать первую страницу ленты активности пользователя по курсору и поместить её в кэш.
+     * @param userId идентификатор пользователя.
+     * @param limit количество постов на странице.
+     * @throws ActivityFeedException выбрасывает, если у пользователя нет подписок.
+     */
+    void prewarmActivityFeedForUser(Long userId, int limit) throws ActivityFeedException;
+
+    /**
+     * Позволяет получить страницу ленты активности для аутентифицированного пользователя по курсору.
+     * @param cursor курсор, полученный вместе с предыдущей страницей, или null для первой страницы.
+     * @param limit количество отображаемых постов на странице.
+     * @return страница ленты, содержащая посты и курсор следующей страницы.
+     * @throws AuthException выбрасывает, если возникает ошибка связанная с аутентификацией пользователя.
+     * @throws ActivityFeedException выбрасывает, если курсор или количество постов некорректны.
+     */
+    FeedPageDTO getActivityFeedPageForUser(String cursor, Integer limit) throws AuthException, ActivityFeedException;
 }
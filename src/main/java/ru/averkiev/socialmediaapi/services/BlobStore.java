@@ -0,0 +1,68 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.exceptions.BlobStoreException;
+import ru.averkiev.socialmediaapi.exceptions.ImageNotFoundException;
+import ru.averkiev.socialmediaapi.models.BlobInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Интерфейс определяет хранилище содержимого изображений, адресуемого по хэшу содержимого.
+ * Одинаковое содержимое хранится в одном экземпляре под одним ключом.
+ * @author mrGreenNV
+ */
+public interface BlobStore {
+
+    /**
+     * Сохраняет содержимое, читая его из потока.
+     * @param data поток содержимого.
+     * @return ключ и размер сохранённого содержимого.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось сохранить.
+     */
+    BlobInfo put(InputStream data) throws BlobStoreException;
+
+    /**
+     * Открывает поток чтения содержимого.
+     * @param key ключ содержимого.
+     * @return поток содержимого, который должен быть закрыт вызывающей стороной.
+     * @throws ImageNotFoundException выбрасывает, если содержимое с указанным ключом отсутствует.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось прочитать.
+     */
+    InputStream open(String key) throws ImageNotFoundException, BlobStoreException;
+
+    /**
+     * Передаёт часть содержимого в канал без промежуточного чтения содержимого целиком.
+     * @param key ключ содержимого.
+     * @param position позиция первого передаваемого байта.
+     * @param count количество передаваемых байт.
+     * @param target канал, в который передаётся содержимое.
+     * @throws ImageNotFoundException выбрасывает, если содержимое с указанным ключом отсутствует.
+     * @throws IOException выбрасывает, если содержимое не удалось прочитать или записать в канал.
+     */
+    void transferTo(String key, long position, long count, WritableByteChannel target) throws ImageNotFoundException, IOException;
+
+    /**
+     * Возвращает путь к файлу содержимого, если хранилище размещает содержимое в локальной файловой системе.
+     * @param key ключ содержимого.
+     * @return путь к файлу содержимого или null, если содержимое хранится не в файле.
+     * @throws ImageNotFoundException выбрасывает, если ключ имеет недопустимый вид.
+     */
+    Path locate(String key) throws ImageNotFoundException;
+
+    /**
+     * Проверяет наличие содержимого в хранилище.
+     * @param key ключ содержимого.
+     * @return true, если содержимое присутствует.
+     */
+    boolean exists(String key);
+
+    /**
+     * Удаляет содержимое из хранилища, если оно присутствует.
+     * @param key ключ содержимого.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось удалить.
+     */
+    void delete(String key) throws BlobStoreException;
+}
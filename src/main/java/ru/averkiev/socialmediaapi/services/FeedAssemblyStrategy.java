@@ -0,0 +1,46 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.models.FeedCursor;
+import ru.averkiev.socialmediaapi.models.TimelineWindow;
+
+import java.util.List;
+
+/**
+ * Интерфейс определяет способ формирования ленты активности пользователя.
+ * Стратегия возвращает только идентификаторы и даты создания постов, загрузка самих постов
+ * выполняется после того, как страница ленты определена.
+ * @author mrGreenNV
+ */
+public interface FeedAssemblyStrategy {
+
+    /**
+     * Возвращает наименование стратегии, по которому она выбирается в настройках приложения.
+     * @return наименование стратегии.
+     */
+    String getName();
+
+    /**
+     * Позволяет получить идентификаторы постов ленты пользователя с пагинацией страниц.
+     * @param userId идентификатор владельца ленты.
+     * @param page номер страницы.
+     * @param pageSize количество постов на странице.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    List<Long> getFeedPostIds(Long userId, int page, int pageSize);
+
+    /**
+     * Позволяет получить идентификаторы всех постов ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    List<Long> getFeedPostIds(Long userId);
+
+    /**
+     * Позволяет получить страницу ленты пользователя, расположенную после заданного курсора.
+     * @param userId идентификатор владельца ленты.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество постов на странице.
+     * @return окно записей ленты, отсортированное по дате создания.
+     */
+    TimelineWindow getFeedPage(Long userId, FeedCursor cursor, int limit);
+}
@@ -0,0 +1,50 @@
+package ru.averkiev.socialmediaapi.services;
+
+import java.util.function.Supplier;
+
+/**
+ * Интерфейс определяет функциональность кэширования сформированных страниц ленты активности пользователей
+ * и других данных, отображаемых пользователю сразу после входа в систему.
+ * @author mrGreenNV
+ */
+public interface FeedCacheService {
+
+    /**
+     * Позволяет получить страницу ленты пользователя из кэша, либо сформировать её и поместить в кэш.
+     * @param userId идентификатор владельца ленты.
+     * @param pageKey ключ страницы ленты.
+     * @param loader функция формирования страницы.
+     * @param <T> тип страницы ленты.
+     * @return страница ленты.
+     */
+    <T> T get(Long userId, String pageKey, Supplier<T> loader);
+
+    /**
+     * Позволяет заранее сформировать страницу ленты пользователя и поместить её в кэш,
+     * если актуальная страница в кэше отсутствует.
+     * @param userId идентификатор владельца ленты.
+     * @param pageKey ключ страницы ленты.
+     * @param loader функция формирования страницы.
+     * @param <T> тип страницы ленты.
+     */
+    <T> void prewarm(Long userId, String pageKey, Supplier<T> loader);
+
+    /**
+     * Позволяет удалить из кэша одну страницу пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @param pageKey ключ страницы.
+     */
+    void invalidatePage(Long userId, String pageKey);
+
+    /**
+     * Позволяет удалить из кэша все страницы ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     */
+    void invalidate(Long userId);
+
+    /**
+     * Позволяет удалить из кэша все страницы лент подписчиков автора.
+     * @param authorId идентификатор автора.
+     */
+    void invalidateFollowers(Long authorId);
+}
@@ -0,0 +1,15 @@
+package ru.averkiev.socialmediaapi.services;
+
+/**
+ * Интерфейс предоставляет функционал заблаговременного формирования данных,
+ * которые пользователь запрашивает сразу после входа в систему.
+ * @author mrGreenNV
+ */
+public interface FeedPrewarmService {
+
+    /**
+     * Позволяет поставить в очередь формирование первой страницы ленты и списка собеседников пользователя.
+     * @param userId идентификатор пользователя.
+     */
+    void prewarm(Long userId);
+}
@@ -0,0 +1,19 @@
+package ru.averkiev.socialmediaapi.services;
+
+import java.util.List;
+
+/**
+ * Интерфейс предоставляет функционал ранжирования постов ленты активности после их отбора стратегией ленты.
+ * @author mrGreenNV
+ */
+public interface FeedRankingService {
+
+    /**
+     * Упорядочивает посты ленты пользователя по убыванию рейтинга.
+     * @param userId идентификатор владельца ленты.
+     * @param postIds идентификаторы постов, отсортированные по дате создания.
+     * @return идентификаторы постов в порядке убывания рейтинга, либо в исходном порядке,
+     * если ранжирование не уложилось в отведённое время.
+     */
+    List<Long> rank(Long userId, List<Long> postIds);
+}
@@ -0,0 +1,33 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.models.FeedCandidate;
+
+import java.util.List;
+
+/**
+ * Интерфейс определяет оценку постов-кандидатов ленты активности по одному признаку.
+ * Итоговый рейтинг поста складывается из оценок всех признаков с учётом их весов.
+ * @author mrGreenNV
+ */
+public interface FeedScorer {
+
+    /**
+     * Возвращает наименование признака, используемое в настройках и метриках.
+     * @return наименование признака.
+     */
+    String getName();
+
+    /**
+     * Возвращает вес оценки признака в итоговом рейтинге поста.
+     * @return вес признака.
+     */
+    double getWeight();
+
+    /**
+     * Вычисляет оценки постов-кандидатов ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @param candidates посты-кандидаты, отсортированные по дате создания.
+     * @return оценки в диапазоне от 0 до 1 в порядке следования кандидатов.
+     */
+    double[] score(Long userId, List<FeedCandidate> candidates);
+}
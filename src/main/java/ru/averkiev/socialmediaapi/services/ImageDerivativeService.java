@@ -0,0 +1,43 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.models.Image;
+import ru.averkiev.socialmediaapi.models.ImageDerivative;
+import ru.averkiev.socialmediaapi.models.ImagePreviewDTO;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Интерфейс определяет функциональность фонового формирования уменьшенных копий изображений и выбора копии
+ * для отображения.
+ * @author mrGreenNV
+ */
+public interface ImageDerivativeService {
+
+    /**
+     * Ставит в очередь формирование уменьшенных копий изображения.
+     * @param image сохранённое изображение.
+     */
+    void enqueue(Image image);
+
+    /**
+     * Ставит в очередь формирование уменьшенных копий изображений одним пакетом вставок.
+     * @param images сохранённые изображения.
+     */
+    void enqueueAll(Collection<Image> images);
+
+    /**
+     * Возвращает наименьшую копию изображения, ширина которой не меньше запрошенной.
+     * @param imageId идентификатор изображения.
+     * @param width запрошенная ширина или null.
+     * @return копия изображения или null, если следует отдать исходное изображение.
+     */
+    ImageDerivative findRendition(Long imageId, Integer width);
+
+    /**
+     * Возвращает изображения для отображения в ленте, ссылающиеся на наименьшие подходящие копии.
+     * @param imageIds идентификаторы изображений.
+     * @return изображения для отображения в ленте по идентификаторам изображений.
+     */
+    Map<Long, ImagePreviewDTO> getPreviews(Collection<Long> imageIds);
+}
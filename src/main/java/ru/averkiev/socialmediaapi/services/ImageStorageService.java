@@ -0,0 +1,88 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.exceptions.BlobStoreException;
+import ru.averkiev.socialmediaapi.exceptions.ImageNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.ImageTooLargeException;
+import ru.averkiev.socialmediaapi.models.BlobInfo;
+import ru.averkiev.socialmediaapi.models.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Интерфейс предоставляет функционал размещения содержимого изображений в хранилище.
+ * @author mrGreenNV
+ */
+public interface ImageStorageService {
+
+    /**
+     * Сохраняет полученное от клиента содержимое изображения в хранилище и заменяет его ссылкой на содержимое.
+     * @param image изображение с заполненными данными.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось сохранить.
+     */
+    void store(Image image) throws BlobStoreException, ImageTooLargeException;
+
+    /**
+     * Сохраняет содержимое изображения, читая его из потока, и заполняет в изображении ссылку на содержимое.
+     * @param image изображение.
+     * @param data поток содержимого.
+     * @param declaredSize размер содержимого, заявленный клиентом, или -1, если он неизвестен.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось сохранить.
+     * @throws ImageTooLargeException выбрасывает, если размер содержимого превышает допустимый.
+     */
+    void store(Image image, InputStream data, long declaredSize) throws BlobStoreException, ImageTooLargeException;
+
+    /**
+     * Сохраняет содержимое в хранилище и добавляет ссылку на него.
+     * @param data поток содержимого.
+     * @return ключ и размер сохранённого содержимого.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось сохранить.
+     */
+    BlobInfo storeBlob(InputStream data) throws BlobStoreException;
+
+    /**
+     * Записывает часть содержимого изображения в поток.
+     * @param blobKey ключ содержимого.
+     * @param position позиция первого записываемого байта.
+     * @param count количество записываемых байт.
+     * @param out поток, в который записывается содержимое.
+     * @throws ImageNotFoundException выбрасывает, если содержимое отсутствует в хранилище.
+     * @throws IOException выбрасывает, если содержимое не удалось прочитать или записать.
+     */
+    void transferTo(String blobKey, long position, long count, OutputStream out) throws ImageNotFoundException, IOException;
+
+    /**
+     * Возвращает путь к файлу содержимого изображения, если хранилище размещает содержимое в файловой системе.
+     * @param blobKey ключ содержимого.
+     * @return путь к файлу содержимого или null.
+     */
+    Path locate(String blobKey);
+
+    /**
+     * Возвращает ключи содержимого изображения и всех его уменьшенных копий.
+     * @param image изображение.
+     * @return список ключей содержимого.
+     */
+    List<String> blobKeysOf(Image image);
+
+    /**
+     * Освобождает ссылку на содержимое. Содержимое, на которое не осталось ссылок, удаляется из хранилища.
+     * @param blobKey ключ содержимого или null.
+     */
+    void release(String blobKey);
+
+    /**
+     * Удаляет из хранилища содержимое, на которое не осталось ссылок.
+     * @return количество удалённых единиц содержимого.
+     */
+    int purgeUnreferenced();
+
+    /**
+     * Переносит содержимое изображений из столбца image_data таблицы images в хранилище.
+     * @return количество перенесённых изображений.
+     */
+    int migrateInlineImages();
+}
@@ -1,10 +1,14 @@
 package ru.averkiev.socialmediaapi.services;
 
+import org.springframework.data.domain.PageRequest;
 import ru.averkiev.socialmediaapi.exceptions.AuthException;
 import ru.averkiev.socialmediaapi.exceptions.MessageNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.SearchException;
 import ru.averkiev.socialmediaapi.exceptions.UserNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.VersionConflictException;
 import ru.averkiev.socialmediaapi.models.MessageDTO;
 import ru.averkiev.socialmediaapi.models.UserDTO;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
 
 import java.util.List;
 
@@ -24,14 +28,16 @@ public interface MessageService {
     MessageDTO createMessage(MessageDTO messageDTO) throws UserNotFoundException;
 
     /**
-     * Позволяет отредактировать текст сообщения.
+     * Позволяет отредактировать текст сообщения, если оно не изменено после получения переданной версии.
      * @param messageId идентификатор сообщения.
      * @param editContent отредактированный контент сообщения.
+     * @param version версия сообщения, по которой выполнено редактирование, или null.
      * @return DTO отредактированного сообщения.
      * @throws MessageNotFoundException выбрасывает, если сообщение не найдено.
      * @throws AuthException выбрасывает, если недостаточно прав для редактирования сообщения.
+     * @throws VersionConflictException выбрасывает, если сообщение изменено после получения версии.
      */
-    MessageDTO editMessage(Long messageId, String editContent) throws MessageNotFoundException, AuthException;
+    MessageDTO editMessage(Long messageId, String editContent, Long version) throws MessageNotFoundException, AuthException, VersionConflictException;
 
     /**
      * Позволяет удалить сообщение между пользователями.
@@ -50,10 +56,39 @@ public interface MessageService {
      */
     List<MessageDTO> getMessagesBetweenUsers(Long interlocutorId) throws UserNotFoundException, AuthException;
 
+    /**
+     * Позволяет получить переписку между авторизованным пользователем и конкретным собеседником в виде последовательности,
+     * читаемой из базы данных по мере отправки ответа.
+     * @param interlocutorId идентификатор собеседника.
+     * @return последовательность DTO объектов сообщений между пользователями.
+     * @throws UserNotFoundException выбрасывает, если пользователь не найден.
+     * @throws AuthException выбрасывает, если возникнет ошибка аутентификации пользователя в системе.
+     */
+    ResultStream<MessageDTO> streamMessagesBetweenUsers(Long interlocutorId) throws UserNotFoundException, AuthException;
+
+    /**
+     * Позволяет найти сообщения авторизованного пользователя по тексту запроса с пагинацией страниц.
+     * Поиск выполняется только по перепискам, в которых участвует пользователь.
+     * @param query текст запроса.
+     * @param interlocutorId идентификатор собеседника для поиска в одной переписке или null.
+     * @param pageRequest пагинация запроса.
+     * @return список DTO объектов сообщений, отсортированных по релевантности.
+     * @throws AuthException выбрасывает, если возникнет ошибка аутентификации пользователя в системе.
+     * @throws SearchException выбрасывает, если поисковый индекс недоступен.
+     */
+    List<MessageDTO> searchMessages(String query, Long interlocutorId, PageRequest pageRequest) throws AuthException, SearchException;
+
     /**
      * Позволяет получить список собеседников пользователя.
      * @return список DTO объектов содержащих данные на собеседников.
      * @throws AuthException выбрасывает если при аутентификации пользователя возникает ошибка.
      */
     List<UserDTO> getConversationsForUser() throws AuthException;
+
+    /**
+     * Позволяет заранее сформировать список собеседников пользователя и поместить его в кэш.
+     * @param userId идентификатор пользователя.
+     * @throws UserNotFoundException выбрасывает, если пользователь не найден.
+     */
+    void prewarmConversationsForUser(Long userId) throws UserNotFoundException;
 }
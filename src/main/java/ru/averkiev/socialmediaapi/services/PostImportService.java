@@ -0,0 +1,22 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.exceptions.AuthException;
+import ru.averkiev.socialmediaapi.models.PostImportResultDTO;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
+
+import java.io.InputStream;
+
+/**
+ * Интерфейс предоставляет функционал массового импорта постов пользователя.
+ * @author mrGreenNV
+ */
+public interface PostImportService {
+
+    /**
+     * Позволяет импортировать посты текущего пользователя из потока в формате JSONL: по одному посту на строку.
+     * @param data поток строк с постами.
+     * @return последовательность результатов импорта по одному на каждую непустую строку.
+     * @throws AuthException выбрасывает, если произошла ошибка при получении данных из аутентификации пользователя.
+     */
+    ResultStream<PostImportResultDTO> importPosts(InputStream data) throws AuthException;
+}
@@ -0,0 +1,24 @@
+package ru.averkiev.socialmediaapi.services;
+
+import java.time.LocalTime;
+
+/**
+ * Интерфейс определяет функциональность фоновой очистки постов и изображений, помеченных на удаление.
+ * @author mrGreenNV
+ */
+public interface PostPurgeService {
+
+    /**
+     * Удаляет из базы данных одну порцию изображений и одну порцию постов, помеченных на удаление,
+     * и освобождает ссылки на их содержимое.
+     * @return количество удалённых строк постов и изображений.
+     */
+    int purgeBatch();
+
+    /**
+     * Проверяет, попадает ли время во временное окно очистки.
+     * @param time время суток.
+     * @return true, если очистка в это время разрешена.
+     */
+    boolean isPurgeWindow(LocalTime time);
+}
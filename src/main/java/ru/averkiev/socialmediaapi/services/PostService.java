@@ -3,11 +3,17 @@ package ru.averkiev.socialmediaapi.services;
 import org.springframework.data.domain.PageRequest;
 import ru.averkiev.socialmediaapi.exceptions.AuthException;
 import ru.averkiev.socialmediaapi.exceptions.ImageNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.ImageTooLargeException;
 import ru.averkiev.socialmediaapi.exceptions.PostCreationException;
 import ru.averkiev.socialmediaapi.exceptions.PostNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.SearchException;
+import ru.averkiev.socialmediaapi.exceptions.VersionConflictException;
 import ru.averkiev.socialmediaapi.models.Image;
 import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostDTO;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -33,6 +39,19 @@ public interface PostService {
      */
     void addImage(Long postId, Image image) throws AuthException, PostNotFoundException;
 
+    /**
+     * Позволяет прикрепить к посту изображение, содержимое которого читается из потока.
+     * @param postId идентификатор поста к которому добавляется изображение.
+     * @param data поток содержимого изображения.
+     * @param declaredSize размер содержимого, заявленный клиентом, или -1, если он неизвестен.
+     * @param mimeType MIME-тип изображения, указанный клиентом, или null.
+     * @return прикреплённое изображение.
+     * @throws AuthException выбрасывает если недостаточно прав для редактирования поста.
+     * @throws PostNotFoundException выбрасывает если пост с заданным идентификатором не удалось найти в базе данных.
+     * @throws ImageTooLargeException выбрасывает, если размер изображения превышает допустимый.
+     */
+    Image addImage(Long postId, InputStream data, long declaredSize, String mimeType) throws AuthException, PostNotFoundException, ImageTooLargeException;
+
     /**
      * Позволяет открепить изображение от поста.
      * @param postId идентификатор поста.
@@ -44,12 +63,24 @@ public interface PostService {
     void deleteImage(Long postId, Long imageId) throws PostNotFoundException, AuthException, ImageNotFoundException;
 
     /**
-     * Позволяет обновить пост.
+     * Позволяет получить изображение, прикреплённое к посту, для выдачи его содержимого.
+     * @param postId идентификатор поста.
+     * @param imageId идентификатор изображения.
+     * @return изображение со ссылкой на содержимое в хранилище.
+     * @throws ImageNotFoundException выбрасывает, если изображение не найдено или не прикреплено к посту.
+     */
+    Image getImage(Long postId, Long imageId) throws ImageNotFoundException;
+
+    /**
+     * Позволяет обновить пост, если он не изменён после получения переданной версии.
      * @param postId идентификатор обновляемого поста.
-     * @param updatedPost пост с новыми данными.
-     * @return обновленный пост.
+     * @param updatedPost пост с новыми данными и версией, по которой они подготовлены.
+     * @return объект Post с обновленными данными.
+     * @throws PostNotFoundException выбрасывает, если пост не найден в базе данных.
+     * @throws AuthException выбрасывает, если недостаточно прав.
+     * @throws VersionConflictException выбрасывает, если пост изменён после получения версии.
      */
-    Post updatePost(Long postId, Post updatedPost) throws PostNotFoundException, AuthException;
+    Post updatePost(Long postId, Post updatedPost) throws PostNotFoundException, AuthException, VersionConflictException;
 
     /**
      * Позволяет пользователю удалить свой пост.
@@ -77,15 +108,38 @@ public interface PostService {
     /**
      * Позволяет получить список всех постов отсортированных по дате создания с пагинацией страниц.
      * @param pageRequest пагинация запроса.
-     * @return список объектов Post.
+     * @return список объектов PostDTO.
      */
-    List<Post> getAllPostByCreateAt(PageRequest pageRequest);
+    List<PostDTO> getAllPostByCreateAt(PageRequest pageRequest);
 
     /**
      * Позволяет получить список всех постов отсортированных по дате создания.
-     * @return список объектов Post.
+     * @return список объектов PostDTO.
      */
-    List<Post> getAllPostByCreateAt();
+    List<PostDTO> getAllPostByCreateAt();
+
+    /**
+     * Позволяет найти посты по тексту запроса с пагинацией страниц.
+     * @param query текст запроса.
+     * @param pageRequest пагинация запроса.
+     * @return список объектов PostDTO, отсортированных по релевантности.
+     * @throws SearchException выбрасывает, если поисковый индекс недоступен.
+     */
+    List<PostDTO> searchPosts(String query, PageRequest pageRequest) throws SearchException;
+
+    /**
+     * Позволяет получить все посты пользователя в виде последовательности, читаемой из базы данных по мере отправки ответа.
+     * @return последовательность постов.
+     * @throws AuthException выбрасывает, если произошла ошибка при получении данных из аутентификации пользователя.
+     */
+    ResultStream<Post> streamAllPostsByUser() throws AuthException;
+
+    /**
+     * Позволяет получить все посты, отсортированные по дате создания, в виде последовательности,
+     * читаемой из базы данных по мере отправки ответа.
+     * @return последовательность постов.
+     */
+    ResultStream<Post> streamAllPostByCreateAt();
 
     /**
      * Позволяет получить список постов по идентификаторам их создателей сортируя по дате с пагинацией страниц.
@@ -101,4 +155,11 @@ public interface PostService {
      * @return список объектов Post.
      */
     List<Post> getPostByUserIds(List<Long> userIds);
+
+    /**
+     * Позволяет получить данные постов для отображения в ленте по их идентификаторам, сохраняя порядок идентификаторов.
+     * @param postIds список идентификаторов постов.
+     * @return список объектов PostDTO.
+     */
+    List<PostDTO> getPostDTOsByIds(List<Long> postIds);
 }
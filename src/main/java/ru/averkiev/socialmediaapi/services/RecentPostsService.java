@@ -0,0 +1,68 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostDTO;
+
+import java.util.List;
+
+/**
+ * Интерфейс определяет функциональность хранения в памяти последних опубликованных постов
+ * для выдачи первых страниц общей ленты без обращения к таблице постов.
+ * @author mrGreenNV
+ */
+public interface RecentPostsService {
+
+    /**
+     * Позволяет получить страницу последних постов из памяти.
+     * @param offset количество пропускаемых постов.
+     * @param limit количество постов на странице.
+     * @return список объектов PostDTO, отсортированный от новых к старым, или null, если страница выходит
+     * за пределы постов, хранящихся в памяти.
+     */
+    List<PostDTO> getPage(long offset, int limit);
+
+    /**
+     * Позволяет получить все посты из памяти, если в памяти хранятся все опубликованные посты.
+     * @return список объектов PostDTO, отсортированный от новых к старым, или null, если часть постов
+     * в памяти не хранится.
+     */
+    List<PostDTO> getAll();
+
+    /**
+     * Возвращает максимальное количество постов, хранящихся в памяти.
+     * @return количество постов.
+     */
+    int getCapacity();
+
+    /**
+     * Позволяет добавить опубликованный пост в начало последовательности.
+     * @param post опубликованный пост.
+     */
+    void onPostCreated(Post post);
+
+    /**
+     * Позволяет обновить заголовок, текст и изображения поста, если он хранится в памяти.
+     * @param post обновлённый пост.
+     */
+    void onPostUpdated(Post post);
+
+    /**
+     * Позволяет добавить изображение к посту, если он хранится в памяти.
+     * @param postId идентификатор поста.
+     * @param imageId идентификатор изображения.
+     */
+    void onImageAdded(Long postId, Long imageId);
+
+    /**
+     * Позволяет открепить изображение от поста, если он хранится в памяти.
+     * @param postId идентификатор поста.
+     * @param imageId идентификатор изображения.
+     */
+    void onImageDeleted(Long postId, Long imageId);
+
+    /**
+     * Позволяет исключить удалённый пост из последовательности.
+     * @param postId идентификатор удалённого поста.
+     */
+    void onPostDeleted(Long postId);
+}
@@ -0,0 +1,70 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.exceptions.SearchException;
+import ru.averkiev.socialmediaapi.models.Message;
+import ru.averkiev.socialmediaapi.models.Post;
+
+import java.util.List;
+
+/**
+ * Интерфейс определяет функциональность полнотекстового поиска по постам и сообщениям.
+ * Изменения индекса применяются асинхронно и становятся видны поиску после очередного обновления снимка индекса.
+ * @author mrGreenNV
+ */
+public interface SearchService {
+
+    /**
+     * Позволяет поставить в очередь добавление или обновление поста в индексе.
+     * @param post сохранённый пост.
+     */
+    void indexPost(Post post);
+
+    /**
+     * Позволяет поставить в очередь удаление поста из индекса.
+     * @param postId идентификатор поста.
+     */
+    void deletePost(Long postId);
+
+    /**
+     * Позволяет поставить в очередь добавление или обновление сообщения в индексе.
+     * @param message сохранённое сообщение.
+     */
+    void indexMessage(Message message);
+
+    /**
+     * Позволяет поставить в очередь удаление сообщения из индекса.
+     * @param messageId идентификатор сообщения.
+     */
+    void deleteMessage(Long messageId);
+
+    /**
+     * Позволяет найти посты по тексту запроса.
+     * @param query текст запроса.
+     * @param offset количество пропускаемых результатов.
+     * @param limit максимальное количество результатов.
+     * @return идентификаторы постов, отсортированные по релевантности.
+     * @throws SearchException выбрасывает, если индекс не удалось прочитать.
+     */
+    List<Long> searchPosts(String query, int offset, int limit) throws SearchException;
+
+    /**
+     * Позволяет найти сообщения пользователя по тексту запроса.
+     * Поиск выполняется только по перепискам, в которых участвует пользователь.
+     * @param userId идентификатор пользователя.
+     * @param interlocutorId идентификатор собеседника для поиска в одной переписке или null.
+     * @param query текст запроса.
+     * @param offset количество пропускаемых результатов.
+     * @param limit максимальное количество результатов.
+     * @return идентификаторы сообщений, отсортированные по релевантности.
+     * @throws SearchException выбрасывает, если индекс не удалось прочитать.
+     */
+    List<Long> searchMessages(Long userId, Long interlocutorId, String query, int offset, int limit) throws SearchException;
+
+    /**
+     * Позволяет перестроить индекс по данным из базы данных.
+     * До завершения перестроения поиск выполняется по прежнему снимку индекса.
+     * @return количество проиндексированных постов и сообщений.
+     * @throws SearchException выбрасывает, если индекс не удалось перестроить.
+     */
+    long rebuild() throws SearchException;
+}
@@ -36,6 +36,13 @@ public interface SubscriptionService {
      */
     List<Subscription> findAllByUser(User user);
 
+    /**
+     * Позволяет проверить наличие подписок у пользователя.
+     * @param userId идентификатор пользователя.
+     * @return true, если у пользователя есть хотя бы одна подписка.
+     */
+    boolean hasSubscriptions(Long userId);
+
     /**
      * Позволяет удалить подписку пользователя.
      * @param subscription удаляемая подписка пользователя.
@@ -0,0 +1,79 @@
+package ru.averkiev.socialmediaapi.services;
+
+import ru.averkiev.socialmediaapi.models.FeedCursor;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.TimelineWindow;
+
+import java.util.List;
+
+/**
+ * Интерфейс определяет функциональность материализованной ленты активности пользователей.
+ * Посты добавляются в ленты подписчиков при публикации и удаляются из них при удалении поста.
+ * @author mrGreenNV
+ */
+public interface TimelineService {
+
+    /**
+     * Позволяет добавить опубликованный пост в ленты всех подписчиков его автора.
+     * @param post опубликованный пост.
+     */
+    void fanOut(Post post);
+
+    /**
+     * Позволяет добавить несколько опубликованных постов одного автора в ленты всех его подписчиков.
+     * @param authorId идентификатор автора.
+     * @param posts опубликованные посты.
+     */
+    void fanOutAll(Long authorId, List<Post> posts);
+
+    /**
+     * Позволяет удалить пост из лент всех пользователей.
+     * @param post удаляемый пост.
+     */
+    void retract(Post post);
+
+    /**
+     * Позволяет добавить в ленту пользователя последние посты автора, на которого осуществлена подписка.
+     * @param userId идентификатор владельца ленты.
+     * @param authorId идентификатор автора.
+     */
+    void follow(Long userId, Long authorId);
+
+    /**
+     * Позволяет удалить из ленты пользователя все посты автора, подписка на которого отменена.
+     * @param userId идентификатор владельца ленты.
+     * @param authorId идентификатор автора.
+     */
+    void unfollow(Long userId, Long authorId);
+
+    /**
+     * Позволяет пересчитать список авторов, посты которых читаются при запросе ленты,
+     * и записать в ленты подписчиков посты авторов, исключённых из этого списка.
+     */
+    void refreshPulledAuthors();
+
+    /**
+     * Позволяет получить идентификаторы постов из ленты пользователя с пагинацией страниц.
+     * @param userId идентификатор владельца ленты.
+     * @param page номер страницы.
+     * @param pageSize количество постов на странице.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    List<Long> getTimelinePostIds(Long userId, int page, int pageSize);
+
+    /**
+     * Позволяет получить страницу ленты пользователя, расположенную после заданного курсора.
+     * @param userId идентификатор владельца ленты.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество постов на странице.
+     * @return окно записей ленты, отсортированное по дате создания.
+     */
+    TimelineWindow getTimelinePage(Long userId, FeedCursor cursor, int limit);
+
+    /**
+     * Позволяет получить идентификаторы всех постов из ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    List<Long> getTimelinePostIds(Long userId);
+}
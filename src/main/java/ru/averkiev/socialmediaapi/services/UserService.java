@@ -4,6 +4,8 @@ import ru.averkiev.socialmediaapi.exceptions.UserRegistrationException;
 import ru.averkiev.socialmediaapi.exceptions.UserNotFoundException;
 import ru.averkiev.socialmediaapi.models.User;
 import ru.averkiev.socialmediaapi.models.UserCreateDTO;
+import ru.averkiev.socialmediaapi.models.UserFriendDTO;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
 
 import java.util.List;
 
@@ -49,4 +51,11 @@ public interface UserService {
      * @return список пользователей.
      */
     List<User> getAllUsers();
+
+    /**
+     * Возвращает имена и электронные почты всех пользователей в виде последовательности,
+     * читаемой из базы данных по мере отправки ответа.
+     * @return последовательность объектов UserFriendDTO.
+     */
+    ResultStream<UserFriendDTO> streamAllUsers();
 }
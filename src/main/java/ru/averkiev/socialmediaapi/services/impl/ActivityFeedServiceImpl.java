@@ -1,17 +1,21 @@
 package ru.averkiev.socialmediaapi.services.impl;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.averkiev.socialmediaapi.exceptions.ActivityFeedException;
 import ru.averkiev.socialmediaapi.exceptions.AuthException;
 import ru.averkiev.socialmediaapi.models.*;
 import ru.averkiev.socialmediaapi.services.ActivityFeedService;
+import ru.averkiev.socialmediaapi.services.FeedAssemblyStrategy;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * Класс представляет собой сервис реализующий функционал для управления отображением пользователю ленты активности.
@@ -19,21 +23,66 @@ import java.util.stream.Collectors;
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class ActivityFeedServiceImpl implements ActivityFeedService {
 
+    /** Количество постов, данные которых читаются одним запросом при потоковой отправке ленты. */
+    private static final int STREAM_CHUNK_SIZE = Integer.parseInt(ResultStreamer.FETCH_SIZE);
+
     /** Сервис для взаимодействия с аутентификацией пользователя. */
     private final AuthServiceImpl authService;
 
-    /** Сервис для взаимодействия с пользователями. */
-    private final UserServiceImpl userService;
-
     /** Сервис для взаимодействия с подписками пользователя. */
     private final SubscriptionServiceImpl subscriptionService;
 
     /** Сервис для взаимодействия с постами пользователей. */
     private final PostServiceImpl postService;
 
+    /** Сервис для кэширования страниц ленты активности. */
+    private final FeedCacheServiceImpl feedCacheService;
+
+    /** Сервис для ранжирования постов ленты активности. */
+    private final FeedRankingServiceImpl feedRankingService;
+
+    /** Стратегия формирования ленты активности. */
+    private final FeedAssemblyStrategy feedStrategy;
+
+    /** Компонент для потокового чтения результатов запросов. */
+    private final ResultStreamer resultStreamer;
+
+    /**
+     * Позволяет создать объект ActivityFeedServiceImpl с заданными параметрами.
+     * @param authService сервис аутентификации.
+     * @param subscriptionService сервис подписок.
+     * @param postService сервис постов.
+     * @param feedCacheService сервис кэширования страниц ленты.
+     * @param feedRankingService сервис ранжирования постов ленты.
+     * @param resultStreamer компонент потокового чтения результатов.
+     * @param strategies доступные стратегии формирования ленты.
+     * @param strategyName наименование используемой стратегии.
+     */
+    @Autowired
+    public ActivityFeedServiceImpl(AuthServiceImpl authService,
+                                   SubscriptionServiceImpl subscriptionService,
+                                   PostServiceImpl postService,
+                                   FeedCacheServiceImpl feedCacheService,
+                                   FeedRankingServiceImpl feedRankingService,
+                                   ResultStreamer resultStreamer,
+                                   List<FeedAssemblyStrategy> strategies,
+                                   @Value("${feed.strategy:" + TimelineServiceImpl.STRATEGY_NAME + "}") String strategyName
+    ) {
+        this.authService = authService;
+        this.subscriptionService = subscriptionService;
+        this.postService = postService;
+        this.feedCacheService = feedCacheService;
+        this.feedRankingService = feedRankingService;
+        this.resultStreamer = resultStreamer;
+        this.feedStrategy = strategies.stream()
+                .filter(strategy -> strategy.getName().equals(strategyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестная стратегия формирования ленты: " + strategyName));
+        log.info("IN ActivityFeedServiceImpl - используется стратегия формирования ленты: {}", strategyName);
+    }
+
     /**
      * Позволяет получить ленту активности для аутентифицированного пользователя с пагинацией страниц.
      * @param page номер отображаемой страницы.
@@ -44,91 +93,154 @@ public class ActivityFeedServiceImpl implements ActivityFeedService {
     @Override
     public List<PostDTO> getActivityFeedForUser(Integer page, Integer pageSize) throws AuthException {
 
-        // Получение пользователя из аутентификации.
-        User user = userService.getUserById(authService.getUserIdFromAuthentication());
-        // Получение списка подписок пользователя.
-        List<Subscription> subscriptions = subscriptionService.findAllByUser(user);
-
-        // Если нет подписок - выброс исключения.
-        if (subscriptions.isEmpty()) {
-            log.error("IN getActivityFeedForUser - нет возможности отобразить ленту активности для пользователя: {}", user.getUsername());
-            throw new ActivityFeedException("Пользователь не имеет подписок");
-        }
-
-        // Получение постов исходя из подписок пользователя.
-        List<Post> posts = postService.getPostByUserIds(
-                subscriptions.stream()
-                    .map(subscriber -> subscriber.getUser().getId())
-                    .collect(Collectors.toList()),
-                PageRequest.of(page, pageSize)
-        );
+        // Получение идентификатора пользователя из аутентификации.
+        Long userId = authService.getUserIdFromAuthentication();
 
-        List<PostDTO> postDTOs = getPostDTOList(posts);
+        // Получение страницы из кэша, либо формирование по идентификаторам постов ленты пользователя.
+        List<PostDTO> postDTOs = feedCacheService.get(userId, "page:" + page + ":" + pageSize, () -> {
+            List<Long> postIds = feedStrategy.getFeedPostIds(userId, page, pageSize);
+            checkSubscriptions(userId, postIds);
+            return postService.getPostDTOsByIds(feedRankingService.rank(userId, postIds));
+        });
 
-        log.info("IN getActivityFeedForUser - лента активности для пользователя: {} успешно получена", user.getUsername());
+        log.info("IN getActivityFeedForUser - лента активности для пользователя с идентификатором: {} успешно получена", userId);
         return postDTOs;
     }
 
     /**
      * Позволяет получить ленту активности для аутентифицированного пользователя.
+     * Размер ленты не ограничен, поэтому результат не кэшируется: в кэше хранятся только страницы ленты.
      * @return список PostDTO содержащих данные постов.
      * @throws AuthException выбрасывает, если возникает ошибка связанная с аутентификацией пользователя.
      */
     @Override
     public List<PostDTO> getActivityFeedForUser() throws AuthException {
 
-        // Получение пользователя из аутентификации.
-        User user = userService.getUserById(authService.getUserIdFromAuthentication());
+        // Получение идентификатора пользователя из аутентификации.
+        Long userId = authService.getUserIdFromAuthentication();
 
+        // Формирование ленты по идентификаторам постов ленты пользователя.
+        List<Long> postIds = feedStrategy.getFeedPostIds(userId);
+        checkSubscriptions(userId, postIds);
+        List<PostDTO> postDTOs = postService.getPostDTOsByIds(feedRankingService.rank(userId, postIds));
 
-        System.out.println(user.getUsername());
-
+        log.info("IN getActivityFeedForUser - лента активности для пользователя с идентификатором: {} успешно получена", userId);
+        return postDTOs;
+    }
 
-        // Получение списка подписок пользователя.
-        List<Subscription> subscriptions = subscriptionService.findAllByUser(user);
+    /**
+     * Позволяет получить ленту активности для аутентифицированного пользователя в виде последовательности.
+     * Идентификаторы постов ленты определяются сразу, а данные постов читаются частями по мере отправки ответа,
+     * поэтому потребление памяти не зависит от длины ленты. Результат не кэшируется.
+     * @return последовательность PostDTO содержащих данные постов.
+     * @throws AuthException выбрасывает, если возникает ошибка связанная с аутентификацией пользователя.
+     */
+    @Override
+    public ResultStream<PostDTO> streamActivityFeedForUser() throws AuthException {
+
+        // Получение идентификатора пользователя из аутентификации.
+        Long userId = authService.getUserIdFromAuthentication();
+
+        List<Long> feedPostIds = feedStrategy.getFeedPostIds(userId);
+        checkSubscriptions(userId, feedPostIds);
+        List<Long> postIds = feedRankingService.rank(userId, feedPostIds);
+
+        log.info("IN streamActivityFeedForUser - потоковое чтение ленты активности для пользователя с идентификатором: {}", userId);
+        return consumer -> resultStreamer.stream(
+                () -> IntStream.iterate(0, from -> from < postIds.size(), from -> from + STREAM_CHUNK_SIZE)
+                        .mapToObj(from -> postIds.subList(from, Math.min(from + STREAM_CHUNK_SIZE, postIds.size())))
+                        .flatMap(chunk -> postService.getPostDTOsByIds(chunk).stream()),
+                Function.identity(),
+                consumer
+        );
+    }
 
+    /**
+     * Позволяет получить страницу ленты активности для аутентифицированного пользователя по курсору.
+     * @param cursor курсор, полученный вместе с предыдущей страницей, или null для первой страницы.
+     * @param limit количество отображаемых постов на странице.
+     * @return страница ленты, содержащая посты и курсор следующей страницы.
+     * @throws AuthException выбрасывает, если возникает ошибка связанная с аутентификацией пользователя.
+     * @throws ActivityFeedException выбрасывает, если курсор или количество постов некорректны.
+     */
+    @Override
+    public FeedPageDTO getActivityFeedPageForUser(String cursor, Integer limit) throws AuthException, ActivityFeedException {
 
-        for (Subscription subscription: subscriptions) {
-            System.out.println(subscription.getUser().getUsername());
-            System.out.println(subscription.getSubscriptionUser().getUsername());
+        if (limit == null || limit <= 0) {
+            log.error("IN getActivityFeedPageForUser - некорректное количество постов на странице: {}", limit);
+            throw new ActivityFeedException("Количество постов на странице должно быть больше нуля");
         }
+        FeedCursor feedCursor = cursor == null || cursor.isBlank() ? null : FeedCursor.decode(cursor);
 
+        // Получение идентификатора пользователя из аутентификации.
+        Long userId = authService.getUserIdFromAuthentication();
 
+        // Получение страницы из кэша, либо формирование страницы ленты, расположенной после курсора.
+        FeedPageDTO feedPageDTO = feedCacheService.get(userId, cursorPageKey(feedCursor, limit),
+                () -> getFeedPage(userId, feedCursor, limit));
 
-        // Если нет подписок - выброс исключения.
-        if (subscriptions.isEmpty()) {
-            log.error("IN getActivityFeedForUser - нет возможности отобразить ленту активности для пользователя: {}", user.getUsername());
-            throw new ActivityFeedException("Пользователь не имеет подписок");
-        }
+        log.info("IN getActivityFeedPageForUser - страница ленты активности для пользователя с идентификатором: {} успешно получена", userId);
+        return feedPageDTO;
+    }
 
-        // Получение постов исходя из подписок пользователя.
-        List<Post> posts = postService.getPostByUserIds(
-                subscriptions.stream()
-                        .map(subscriber -> subscriber.getUser().getId())
-                        .collect(Collectors.toList())
-        );
+    /**
+     * Позволяет заранее сформировать первую страницу ленты активности пользователя по курсору и поместить её в кэш.
+     * @param userId идентификатор пользователя.
+     * @param limit количество постов на странице.
+     * @throws ActivityFeedException выбрасывает, если у пользователя нет подписок.
+     */
+    @Override
+    public void prewarmActivityFeedForUser(Long userId, int limit) throws ActivityFeedException {
+        feedCacheService.prewarm(userId, cursorPageKey(null, limit), () -> getFeedPage(userId, null, limit));
+        log.info("IN prewarmActivityFeedForUser - первая страница ленты активности для пользователя с идентификатором: {} сформирована заранее", userId);
+    }
 
-        List<PostDTO> postDTOs = getPostDTOList(posts);
+    /**
+     * Возвращает ключ страницы ленты по курсору в кэше.
+     * @param feedCursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество постов на странице.
+     * @return ключ страницы.
+     */
+    private String cursorPageKey(FeedCursor feedCursor, int limit) {
+        return "cursor:" + (feedCursor == null ? "" : feedCursor.encode()) + ":" + limit;
+    }
 
-        log.info("IN getActivityFeedForUser - лента активности для пользователя: {} успешно получена", user.getUsername());
-        return postDTOs;
+    /**
+     * Формирует страницу ленты пользователя, расположенную после курсора.
+     * @param userId идентификатор пользователя.
+     * @param feedCursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество постов на странице.
+     * @return страница ленты, содержащая посты и курсор следующей страницы.
+     */
+    private FeedPageDTO getFeedPage(Long userId, FeedCursor feedCursor, int limit) {
+        TimelineWindow window = feedStrategy.getFeedPage(userId, feedCursor, limit);
+        List<Long> postIds = new ArrayList<>(window.size());
+        for (int i = 0; i < window.size(); i++) {
+            postIds.add(window.postIdAt(i));
+        }
+        if (feedCursor == null) {
+            checkSubscriptions(userId, postIds);
+        }
+
+        FeedPageDTO feedPageDTO = new FeedPageDTO();
+        feedPageDTO.setPosts(postService.getPostDTOsByIds(feedRankingService.rank(userId, postIds)));
+        if (window.size() == limit) {
+            int last = window.size() - 1;
+            feedPageDTO.setNext(new FeedCursor(window.postIdAt(last), window.createdAtAt(last)).encode());
+        }
+        return feedPageDTO;
     }
 
     /**
-     * Преобразует список объектов Post к PostDTO.
-     * @param posts список постов.
-     * @return список объектов PostDTO.
+     * Проверяет наличие подписок у пользователя, если его лента оказалась пустой.
+     * @param userId идентификатор пользователя.
+     * @param postIds идентификаторы постов ленты.
+     * @throws ActivityFeedException выбрасывает, если у пользователя нет подписок.
      */
-    private List<PostDTO> getPostDTOList(List<Post> posts) {
-        List<PostDTO> postDTOs = new ArrayList<>();
-        for (Post post: posts) {
-            PostDTO postDTO = new PostDTO();
-            postDTO.setTitle(post.getTitle());
-            postDTO.setText(post.getText());
-            postDTO.setImages(post.getImages());
-            postDTO.setUsername(post.getUser().getUsername());
-            postDTOs.add(postDTO);
+    private void checkSubscriptions(Long userId, List<Long> postIds) throws ActivityFeedException {
+        if (postIds.isEmpty() && !subscriptionService.hasSubscriptions(userId)) {
+            log.error("IN getActivityFeedForUser - нет возможности отобразить ленту активности для пользователя с идентификатором: {}", userId);
+            throw new ActivityFeedException("Пользователь не имеет подписок");
         }
-        return postDTOs;
     }
 }
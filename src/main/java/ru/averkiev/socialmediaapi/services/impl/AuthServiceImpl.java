@@ -4,6 +4,7 @@ import io.jsonwebtoken.Claims;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -34,9 +35,15 @@ public class AuthServiceImpl implements AuthService {
     /** Сервис для взаимодействия с токенами, их созданием, валидацией и обновлением. */
     private final JwtProvider jwtProvider;
 
+    /** Кэш утверждений проверенных access токенов. */
+    private final JwtClaimsCache jwtClaimsCache;
+
     /** Сервис для взаимодействия с хэшированными паролями. */
     private final BCryptPasswordEncoder passwordEncoder;
 
+    /** Публикатор событий приложения. */
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Осуществляет вход пользователя в систему
      * @param authRequest запрос аутентификации.
@@ -57,14 +64,15 @@ public class AuthServiceImpl implements AuthService {
         // Сравнение пароля, полученного из запроса аутентификации с паролем, полученным из базы данных.
         if (passwordEncoder.matches(authRequest.getPassword(), jwtUser.getPassword())) {
             // Генерация access токена.
-            final String accessTokenStr = jwtProvider.generateAccessToken(jwtUser);
+            final VerifiedToken issuedAccessToken = jwtProvider.issueAccessToken(jwtUser);
+            final String accessTokenStr = issuedAccessToken.token();
 
             // Создание экземпляра AccessToken.
             final AccessToken accessToken = new AccessToken(
                     jwtUser.getId(),
                     accessTokenStr,
-                    jwtProvider.getAccessClaims(accessTokenStr).getIssuedAt(),
-                    jwtProvider.getAccessClaims(accessTokenStr).getExpiration()
+                    issuedAccessToken.issuedAtDate(),
+                    issuedAccessToken.expirationDate()
             );
 
             // Сохранение access токена в базе данных.
@@ -78,14 +86,15 @@ public class AuthServiceImpl implements AuthService {
             }
 
             // Генерация refresh токена.
-            final String refreshTokenStr = jwtProvider.generateRefreshToken(jwtUser);
+            final VerifiedToken issuedRefreshToken = jwtProvider.issueRefreshToken(jwtUser);
+            final String refreshTokenStr = issuedRefreshToken.token();
 
             // Создание экземпляра RefreshToken.
             final RefreshToken refreshToken = new RefreshToken(
                     jwtUser.getId(),
                     refreshTokenStr,
-                    jwtProvider.getRefreshClaims(refreshTokenStr).getIssuedAt(),
-                    jwtProvider.getRefreshClaims(refreshTokenStr).getExpiration()
+                    issuedRefreshToken.issuedAtDate(),
+                    issuedRefreshToken.expirationDate()
             );
 
             // Сохранение refresh токена в базе данных.
@@ -99,6 +108,7 @@ public class AuthServiceImpl implements AuthService {
             }
 
             log.info("IN login - вход в систему пользователем: {}  успешно осуществлен", jwtUser.getUsername());
+            eventPublisher.publishEvent(new UserLoginEvent(jwtUser.getId()));
             return new JwtResponse(accessToken.getAccessToken(), refreshToken.getRefreshToken());
         } else {
             log.error("IN login - вход в систему пользователем: {}  не осуществлен", jwtUser.getUsername());
@@ -114,33 +124,32 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public JwtResponse getAccessToken(RefreshToken refreshToken) throws AuthException {
 
-        if (jwtProvider.validateRefreshToken(refreshToken.getRefreshToken())) {
-            final Claims claims = jwtProvider.getRefreshClaims(refreshToken.getRefreshToken());
-            final String username = claims.getSubject();
+        final VerifiedToken verifiedRefreshToken = jwtProvider.verifyRefreshToken(refreshToken.getRefreshToken());
+        final String username = verifiedRefreshToken.subject();
 
-            final JwtUser jwtUser = (JwtUser) jwtUserDetailsService.loadUserByUsername(username);
-            try {
-                final RefreshToken saveRefreshToken = refreshTokenService.findByUserId(jwtUser.getId());
-                if (saveRefreshToken.getRefreshToken().equals(refreshToken.getRefreshToken())) {
-                    // Генерация access токена.
-                    final String accessTokenStr = jwtProvider.generateAccessToken(jwtUser);
-
-                    // Создание экземпляра AccessToken.
-                    final AccessToken newAccessToken = new AccessToken(
-                            jwtUser.getId(),
-                            accessTokenStr,
-                            jwtProvider.getAccessClaims(accessTokenStr).getIssuedAt(),
-                            jwtProvider.getAccessClaims(accessTokenStr).getExpiration()
-                    );
-
-                    // Обновление access токена в базе данных.
-                    accessTokenService.updateByUserId(jwtUser.getId(), newAccessToken);
-                    log.info("IN getAccessToken - access токен для пользователя: {} успешно обновлен", username);
-                    return new JwtResponse(accessTokenStr, null);
-                }
-            } catch (TokenNotFoundException tnfEx) {
-                log.error("IN getAccessToken - access токен для пользователя: {} не обновлен", username, tnfEx);
+        final JwtUser jwtUser = loadUser(verifiedRefreshToken);
+        try {
+            final RefreshToken saveRefreshToken = refreshTokenService.findByUserId(jwtUser.getId());
+            if (saveRefreshToken.getRefreshToken().equals(refreshToken.getRefreshToken())) {
+                // Генерация access токена.
+                final VerifiedToken issuedAccessToken = jwtProvider.issueAccessToken(jwtUser);
+                final String accessTokenStr = issuedAccessToken.token();
+
+                // Создание экземпляра AccessToken.
+                final AccessToken newAccessToken = new AccessToken(
+                        jwtUser.getId(),
+                        accessTokenStr,
+                        issuedAccessToken.issuedAtDate(),
+                        issuedAccessToken.expirationDate()
+                );
+
+                // Обновление access токена в базе данных.
+                accessTokenService.updateByUserId(jwtUser.getId(), newAccessToken);
+                log.info("IN getAccessToken - access токен для пользователя: {} успешно обновлен", username);
+                return new JwtResponse(accessTokenStr, null);
             }
+        } catch (TokenNotFoundException tnfEx) {
+            log.error("IN getAccessToken - access токен для пользователя: {} не обновлен", username, tnfEx);
         }
         throw new AuthException("Неизвестный JWT токен");
     }
@@ -152,49 +161,49 @@ public class AuthServiceImpl implements AuthService {
      */
     @Override
     public JwtResponse refresh(RefreshToken refreshToken) {
-        if (jwtProvider.validateRefreshToken(refreshToken.getRefreshToken())) {
-            final Claims claims = jwtProvider.getRefreshClaims(refreshToken.getRefreshToken());
-            final String username = claims.getSubject();
+        final VerifiedToken verifiedRefreshToken = jwtProvider.verifyRefreshToken(refreshToken.getRefreshToken());
+        final String username = verifiedRefreshToken.subject();
 
-            final JwtUser jwtUser = (JwtUser) jwtUserDetailsService.loadUserByUsername(username);
-            try {
-                final RefreshToken saveRefreshToken = refreshTokenService.findByUserId(jwtUser.getId());
-                if (saveRefreshToken.getRefreshToken().equals(refreshToken.getRefreshToken())) {
-                    // Генерация access токена.
-                    final String accessTokenStr = jwtProvider.generateAccessToken(jwtUser);
-
-                    // Создание экземпляра AccessToken.
-                    final AccessToken newAccessToken = new AccessToken(
-                            jwtUser.getId(),
-                            accessTokenStr,
-                            jwtProvider.getAccessClaims(accessTokenStr).getIssuedAt(),
-                            jwtProvider.getAccessClaims(accessTokenStr).getExpiration()
-                    );
-
-                    // Генерация refresh токена.
-                    final String refreshTokenStr = jwtProvider.generateRefreshToken(jwtUser);
-
-                    // Создание экземпляра RefreshToken.
-                    final RefreshToken newRefreshToken = new RefreshToken(
-                            jwtUser.getId(),
-                            refreshTokenStr,
-                            jwtProvider.getRefreshClaims(refreshTokenStr).getIssuedAt(),
-                            jwtProvider.getRefreshClaims(refreshTokenStr).getExpiration()
-                    );
-
-                    // Обновление access токена в базе данных.
-                    accessTokenService.updateByUserId(jwtUser.getId(), newAccessToken);
-                    log.info("IN getAccessToken - access токен для пользователя: {} успешно обновлен", username);
-
-                    // Обновление refresh токена в базе данных.
-                    refreshTokenService.updateByUserId(jwtUser.getId(), newRefreshToken);
-                    log.info("IN getAccessToken - refresh токен для пользователя: {} успешно обновлен", username);
-
-                    return new JwtResponse(accessTokenStr, null);
-                }
-            } catch (TokenNotFoundException tnfEx) {
-                log.error("IN getAccessToken - токены для пользователя: {} не обновлен", username, tnfEx);
+        final JwtUser jwtUser = loadUser(verifiedRefreshToken);
+        try {
+            final RefreshToken saveRefreshToken = refreshTokenService.findByUserId(jwtUser.getId());
+            if (saveRefreshToken.getRefreshToken().equals(refreshToken.getRefreshToken())) {
+                // Генерация access токена.
+                final VerifiedToken issuedAccessToken = jwtProvider.issueAccessToken(jwtUser);
+                final String accessTokenStr = issuedAccessToken.token();
+
+                // Создание экземпляра AccessToken.
+                final AccessToken newAccessToken = new AccessToken(
+                        jwtUser.getId(),
+                        accessTokenStr,
+                        issuedAccessToken.issuedAtDate(),
+                        issuedAccessToken.expirationDate()
+                );
+
+                // Генерация refresh токена.
+                final VerifiedToken issuedRefreshToken = jwtProvider.issueRefreshToken(jwtUser);
+                final String refreshTokenStr = issuedRefreshToken.token();
+
+                // Создание экземпляра RefreshToken.
+                final RefreshToken newRefreshToken = new RefreshToken(
+                        jwtUser.getId(),
+                        refreshTokenStr,
+                        issuedRefreshToken.issuedAtDate(),
+                        issuedRefreshToken.expirationDate()
+                );
+
+                // Обновление access токена в базе данных.
+                accessTokenService.updateByUserId(jwtUser.getId(), newAccessToken);
+                log.info("IN getAccessToken - access токен для пользователя: {} успешно обновлен", username);
+
+                // Обновление refresh токена в базе данных.
+                refreshTokenService.updateByUserId(jwtUser.getId(), newRefreshToken);
+                log.info("IN getAccessToken - refresh токен для пользователя: {} успешно обновлен", username);
+
+                return new JwtResponse(accessTokenStr, null);
             }
+        } catch (TokenNotFoundException tnfEx) {
+            log.error("IN getAccessToken - токены для пользователя: {} не обновлен", username, tnfEx);
         }
         throw new AuthException("Неизвестный JWT токен");
     }
@@ -209,7 +218,8 @@ public class AuthServiceImpl implements AuthService {
     }
 
     /**
-     * Позволяет осуществить выход пользователя из системы, при этом access и refresh токены удаляются.
+     * Позволяет осуществить выход пользователя из системы, при этом access и refresh токены удаляются,
+     * а утверждения access токена удаляются из кэша.
      * @param refreshToken refresh токен.
      * @return true, если выход осуществлен иначе - false.
      */
@@ -217,17 +227,16 @@ public class AuthServiceImpl implements AuthService {
     @Transactional
     public boolean logout(RefreshToken refreshToken) {
 
-        if (jwtProvider.validateRefreshToken(refreshToken.getRefreshToken())) {
-            final Claims claims = jwtProvider.getRefreshClaims(refreshToken.getRefreshToken());
-            final String username = claims.getSubject();
+        final VerifiedToken verifiedRefreshToken = jwtProvider.verifyRefreshToken(refreshToken.getRefreshToken());
+        final String username = verifiedRefreshToken.subject();
 
-            final JwtUser jwtUser = (JwtUser) jwtUserDetailsService.loadUserByUsername(username);
-            refreshTokenService.delete(jwtUser.getId());
-            accessTokenService.delete(jwtUser.getId());
+        final JwtUser jwtUser = loadUser(verifiedRefreshToken);
+        refreshTokenService.delete(jwtUser.getId());
+        final AccessToken accessToken = accessTokenService.findByUserId(jwtUser.getId());
+        accessTokenService.delete(jwtUser.getId());
+        jwtClaimsCache.evict(accessToken.getAccessToken());
 
-            return true;
-        }
-        return false;
+        return true;
     }
 
     /**
@@ -275,10 +284,29 @@ public class AuthServiceImpl implements AuthService {
     public Long getUserIdFromAuthentication() throws AuthException {
         try {
             JwtAuthentication authentication = getAuthInfo();
+
+            // Идентификатор записан в access токен, поэтому обращение к базе данных требуется только для токенов,
+            // выданных без него.
+            if (authentication.getUserId() != null) {
+                return authentication.getUserId();
+            }
             JwtUser jwtUser = (JwtUser) jwtUserDetailsService.loadUserByUsername(authentication.getUsername());
             return jwtUser.getId();
         } catch (Exception ex) {
             throw new AuthException("Ошибка при получении идентификатора пользователя из аутентификации.");
         }
     }
+
+    /**
+     * Загружает пользователя, которому выдан проверенный токен: по идентификатору из токена,
+     * либо по имени для токенов, выданных без идентификатора.
+     * @param verifiedToken проверенный токен.
+     * @return пользователь.
+     */
+    private JwtUser loadUser(VerifiedToken verifiedToken) {
+        if (verifiedToken.userId() != null) {
+            return jwtUserDetailsService.loadUserById(verifiedToken.userId());
+        }
+        return (JwtUser) jwtUserDetailsService.loadUserByUsername(verifiedToken.subject());
+    }
 }
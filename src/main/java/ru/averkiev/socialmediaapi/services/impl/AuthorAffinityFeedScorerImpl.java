@@ -0,0 +1,98 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.averkiev.socialmediaapi.models.FeedCandidate;
+import ru.averkiev.socialmediaapi.models.UserCount;
+import ru.averkiev.socialmediaapi.repositories.MessageRepository;
+import ru.averkiev.socialmediaapi.repositories.UserFriendRepository;
+import ru.averkiev.socialmediaapi.services.FeedScorer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Класс оценивает близость пользователя к авторам постов. Половина оценки начисляется, если автор является
+ * другом пользователя, вторая половина растёт с количеством сообщений в их переписке.
+ * @author mrGreenNV
+ */
+@Component
+public class AuthorAffinityFeedScorerImpl implements FeedScorer {
+
+    /** Наименование признака. */
+    public static final String NAME = "affinity";
+
+    /** Количество сообщений, при котором оценка переписки достигает половины максимальной. */
+    private static final double MESSAGES_HALF_SCORE = 10;
+
+    /** Репозиторий для получения друзей пользователя. */
+    private final UserFriendRepository userFriendRepository;
+
+    /** Репозиторий для подсчёта сообщений пользователя. */
+    private final MessageRepository messageRepository;
+
+    /** Вес признака в итоговом рейтинге. */
+    private final double weight;
+
+    /**
+     * Позволяет создать объект AuthorAffinityFeedScorerImpl с заданными параметрами.
+     * @param userFriendRepository репозиторий друзей.
+     * @param messageRepository репозиторий сообщений.
+     * @param weight вес признака.
+     */
+    @Autowired
+    public AuthorAffinityFeedScorerImpl(UserFriendRepository userFriendRepository,
+                                        MessageRepository messageRepository,
+                                        @Value("${feed.ranking.affinity.weight:1.0}") double weight
+    ) {
+        this.userFriendRepository = userFriendRepository;
+        this.messageRepository = messageRepository;
+        this.weight = weight;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Вычисляет оценки близости пользователя к авторам постов-кандидатов.
+     * @param userId идентификатор владельца ленты.
+     * @param candidates посты-кандидаты, отсортированные по дате создания.
+     * @return оценки в диапазоне от 0 до 1 в порядке следования кандидатов.
+     */
+    @Override
+    public double[] score(Long userId, List<FeedCandidate> candidates) {
+        Set<Long> authorIds = new HashSet<>();
+        for (FeedCandidate candidate : candidates) {
+            authorIds.add(candidate.getAuthorId());
+        }
+
+        Set<Long> friendIds = new HashSet<>(userFriendRepository.findFriendIdsByUserIdAndFriendIdIn(userId, authorIds));
+        Map<Long, Long> messages = new HashMap<>();
+        for (UserCount count : messageRepository.countSentByUserIdAndReceiverIdIn(userId, authorIds)) {
+            messages.merge(count.getUserId(), count.getCount(), Long::sum);
+        }
+        for (UserCount count : messageRepository.countReceivedByUserIdAndSenderIdIn(userId, authorIds)) {
+            messages.merge(count.getUserId(), count.getCount(), Long::sum);
+        }
+
+        double[] scores = new double[candidates.size()];
+        for (int i = 0; i < scores.length; i++) {
+            long authorId = candidates.get(i).getAuthorId();
+            double messageCount = messages.getOrDefault(authorId, 0L);
+            scores[i] = (friendIds.contains(authorId) ? 0.5 : 0)
+                    + 0.5 * messageCount / (messageCount + MESSAGES_HALF_SCORE);
+        }
+        return scores;
+    }
+}
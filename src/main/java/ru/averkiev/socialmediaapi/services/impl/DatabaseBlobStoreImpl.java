@@ -0,0 +1,133 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.exceptions.BlobStoreException;
+import ru.averkiev.socialmediaapi.exceptions.ImageNotFoundException;
+import ru.averkiev.socialmediaapi.models.BlobInfo;
+import ru.averkiev.socialmediaapi.models.StoredBlob;
+import ru.averkiev.socialmediaapi.repositories.StoredBlobRepository;
+import ru.averkiev.socialmediaapi.services.BlobStore;
+import ru.averkiev.socialmediaapi.utils.ContentHash;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Класс реализует хранение содержимого изображений в таблице blobs базы данных.
+ * Используется для совместимости с развёртываниями без общего дискового хранилища;
+ * содержимое при записи и чтении целиком находится в памяти.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "blob.store.type", havingValue = "db")
+public class DatabaseBlobStoreImpl implements BlobStore {
+
+    /** Репозиторий для взаимодействия с содержимым в базе данных. */
+    private final StoredBlobRepository storedBlobRepository;
+
+    /**
+     * Сохраняет содержимое в базе данных, если содержимое с таким ключом ещё не сохранено.
+     * @param data поток содержимого.
+     * @return ключ и размер сохранённого содержимого.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось прочитать.
+     */
+    @Override
+    public BlobInfo put(InputStream data) throws BlobStoreException {
+        byte[] bytes;
+        try {
+            bytes = data.readAllBytes();
+        } catch (IOException ex) {
+            throw new BlobStoreException("Ошибка при сохранении изображения", ex);
+        }
+
+        String key = ContentHash.of(bytes);
+        if (!storedBlobRepository.existsById(key)) {
+            storedBlobRepository.save(new StoredBlob(key, bytes, bytes.length, null));
+        }
+        return new BlobInfo(key, bytes.length);
+    }
+
+    /**
+     * Открывает поток чтения содержимого.
+     * @param key ключ содержимого.
+     * @return поток содержимого.
+     * @throws ImageNotFoundException выбрасывает, если содержимое с указанным ключом отсутствует.
+     */
+    @Override
+    public InputStream open(String key) throws ImageNotFoundException {
+        return new ByteArrayInputStream(load(key).getData());
+    }
+
+    /**
+     * Передаёт часть содержимого в канал. Содержимое предварительно читается из базы данных целиком.
+     * @param key ключ содержимого.
+     * @param position позиция первого передаваемого байта.
+     * @param count количество передаваемых байт.
+     * @param target канал, в который передаётся содержимое.
+     * @throws ImageNotFoundException выбрасывает, если содержимое с указанным ключом отсутствует.
+     * @throws IOException выбрасывает, если содержимое не удалось записать в канал.
+     */
+    @Override
+    public void transferTo(String key, long position, long count, WritableByteChannel target) throws ImageNotFoundException, IOException {
+        byte[] data = load(key).getData();
+        if (position < 0 || count < 0 || position + count > data.length) {
+            throw new IOException("Содержимое изображения с ключом: " + key + " короче запрошенного диапазона");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data, (int) position, (int) count);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    /**
+     * Содержимое хранится в базе данных, поэтому путь к файлу отсутствует.
+     * @param key ключ содержимого.
+     * @return null.
+     */
+    @Override
+    public Path locate(String key) {
+        return null;
+    }
+
+    /**
+     * Проверяет наличие содержимого в хранилище.
+     * @param key ключ содержимого.
+     * @return true, если содержимое присутствует.
+     */
+    @Override
+    public boolean exists(String key) {
+        return storedBlobRepository.existsById(key);
+    }
+
+    /**
+     * Удаляет содержимое из хранилища, если оно присутствует.
+     * @param key ключ содержимого.
+     */
+    @Override
+    public void delete(String key) {
+        storedBlobRepository.deleteById(key);
+    }
+
+    /**
+     * Выполняет чтение содержимого из базы данных.
+     * @param key ключ содержимого.
+     * @return содержимое.
+     * @throws ImageNotFoundException выбрасывает, если содержимое с указанным ключом отсутствует.
+     */
+    private StoredBlob load(String key) throws ImageNotFoundException {
+        StoredBlob blob = storedBlobRepository.findById(key).orElse(null);
+        if (blob == null) {
+            throw new ImageNotFoundException("Содержимое изображения с ключом: " + key + " не найдено");
+        }
+        return blob;
+    }
+}
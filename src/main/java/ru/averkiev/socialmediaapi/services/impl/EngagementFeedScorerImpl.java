@@ -0,0 +1,87 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.averkiev.socialmediaapi.models.FeedCandidate;
+import ru.averkiev.socialmediaapi.models.UserCount;
+import ru.averkiev.socialmediaapi.repositories.SubscriptionRepository;
+import ru.averkiev.socialmediaapi.services.FeedScorer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Класс оценивает вовлечённость аудитории автора поста по количеству его подписчиков.
+ * Оценка растёт логарифмически и нормируется по самому популярному автору среди кандидатов.
+ * @author mrGreenNV
+ */
+@Component
+public class EngagementFeedScorerImpl implements FeedScorer {
+
+    /** Наименование признака. */
+    public static final String NAME = "engagement";
+
+    /** Репозиторий для подсчёта подписчиков авторов. */
+    private final SubscriptionRepository subscriptionRepository;
+
+    /** Вес признака в итоговом рейтинге. */
+    private final double weight;
+
+    /**
+     * Позволяет создать объект EngagementFeedScorerImpl с заданными параметрами.
+     * @param subscriptionRepository репозиторий подписок.
+     * @param weight вес признака.
+     */
+    @Autowired
+    public EngagementFeedScorerImpl(SubscriptionRepository subscriptionRepository,
+                                    @Value("${feed.ranking.engagement.weight:0.5}") double weight
+    ) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.weight = weight;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Вычисляет оценки вовлечённости аудитории авторов постов-кандидатов.
+     * @param userId идентификатор владельца ленты.
+     * @param candidates посты-кандидаты, отсортированные по дате создания.
+     * @return оценки в диапазоне от 0 до 1 в порядке следования кандидатов.
+     */
+    @Override
+    public double[] score(Long userId, List<FeedCandidate> candidates) {
+        Set<Long> authorIds = new HashSet<>();
+        for (FeedCandidate candidate : candidates) {
+            authorIds.add(candidate.getAuthorId());
+        }
+
+        Map<Long, Long> followers = new HashMap<>();
+        long maxFollowers = 0;
+        for (UserCount count : subscriptionRepository.countUsersBySubscriptionUserIdIn(authorIds)) {
+            followers.put(count.getUserId(), count.getCount());
+            maxFollowers = Math.max(maxFollowers, count.getCount());
+        }
+
+        double[] scores = new double[candidates.size()];
+        if (maxFollowers == 0) {
+            return scores;
+        }
+        double norm = Math.log1p(maxFollowers);
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = Math.log1p(followers.getOrDefault(candidates.get(i).getAuthorId(), 0L)) / norm;
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,256 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.repositories.SubscriptionRepository;
+import ru.averkiev.socialmediaapi.services.FeedCacheService;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Класс реализует кэширование сформированных страниц ленты активности пользователей в памяти приложения.
+ * Страницы одного пользователя хранятся в одной записи кэша, что позволяет сбрасывать их одной операцией
+ * при изменении постов авторов, на которых подписан пользователь, или при изменении его подписок.
+ * Количество пользователей в кэше ограничено, а каждая страница хранится не дольше заданного времени.
+ * Страницы, сформированные заранее при входе пользователя в систему, отмечаются, чтобы учитывать в метриках
+ * долю таких страниц, которые действительно были запрошены.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class FeedCacheServiceImpl implements FeedCacheService {
+
+    /** Репозиторий для получения подписчиков автора. */
+    private final SubscriptionRepository subscriptionRepository;
+
+    /** Страницы лент пользователей, хранящиеся в памяти. */
+    private final Cache<Long, UserPages> pages;
+
+    /** Время жизни страницы ленты в миллисекундах. */
+    private final long ttlMillis;
+
+    /** Количество запросов страниц, найденных в кэше. */
+    private final Counter hits;
+
+    /** Количество запросов страниц, отсутствующих в кэше. */
+    private final Counter misses;
+
+    /** Количество сброшенных лент пользователей. */
+    private final Counter invalidations;
+
+    /** Количество страниц, сформированных заранее. */
+    private final Counter prewarmedPages;
+
+    /** Количество заранее сформированных страниц, которые были запрошены пользователем. */
+    private final Counter prewarmedHits;
+
+    /**
+     * Позволяет создать объект FeedCacheServiceImpl с заданными параметрами.
+     * @param subscriptionRepository репозиторий подписок.
+     * @param meterRegistry реестр метрик.
+     * @param maxUsers максимальное количество пользователей, чьи страницы хранятся в кэше.
+     * @param ttlSeconds время жизни страницы ленты в секундах.
+     */
+    @Autowired
+    public FeedCacheServiceImpl(SubscriptionRepository subscriptionRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${feed.cache.max-users:100000}") long maxUsers,
+                                @Value("${feed.cache.ttl-seconds:30}") long ttlSeconds
+    ) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+
+        this.hits = Counter.builder("feed.cache.requests")
+                .description("Запросы страниц ленты к кэшу")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("feed.cache.requests")
+                .description("Запросы страниц ленты к кэшу")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("feed.cache.invalidations")
+                .description("Сброшенные ленты пользователей")
+                .register(meterRegistry);
+        this.prewarmedPages = Counter.builder("feed.prewarm.pages")
+                .description("Страницы, сформированные заранее")
+                .register(meterRegistry);
+        this.prewarmedHits = Counter.builder("feed.prewarm.hits")
+                .description("Заранее сформированные страницы, запрошенные пользователем")
+                .register(meterRegistry);
+        Gauge.builder("feed.cache.users", pages, Cache::estimatedSize)
+                .description("Пользователи, страницы лент которых хранятся в кэше")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Позволяет получить страницу ленты пользователя из кэша, либо сформировать её и поместить в кэш.
+     * Исключения, возникшие при формировании страницы, не кэшируются.
+     * @param userId идентификатор владельца ленты.
+     * @param pageKey ключ страницы ленты.
+     * @param loader функция формирования страницы.
+     * @param <T> тип страницы ленты.
+     * @return страница ленты.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String pageKey, Supplier<T> loader) {
+        long now = System.currentTimeMillis();
+        UserPages userPages = pages.getIfPresent(userId);
+        if (userPages != null) {
+            CachedPage page = userPages.pages().get(pageKey);
+            if (page != null && now - page.cachedAt() < ttlMillis) {
+                hits.increment();
+                // Учитывается только первое обращение к заранее сформированной странице.
+                if (page.unread() != null && page.unread().compareAndSet(true, false)) {
+                    prewarmedHits.increment();
+                }
+                return (T) page.value();
+            }
+        }
+
+        misses.increment();
+        T value = loader.get();
+        put(userId, pageKey, new CachedPage(value, now, null));
+        return value;
+    }
+
+    /**
+     * Позволяет заранее сформировать страницу ленты пользователя и поместить её в кэш,
+     * если актуальная страница в кэше отсутствует. Первое обращение к такой странице учитывается в метриках.
+     * @param userId идентификатор владельца ленты.
+     * @param pageKey ключ страницы ленты.
+     * @param loader функция формирования страницы.
+     * @param <T> тип страницы ленты.
+     */
+    @Override
+    public <T> void prewarm(Long userId, String pageKey, Supplier<T> loader) {
+        long now = System.currentTimeMillis();
+        UserPages userPages = pages.getIfPresent(userId);
+        if (userPages != null) {
+            CachedPage page = userPages.pages().get(pageKey);
+            if (page != null && now - page.cachedAt() < ttlMillis) {
+                return;
+            }
+        }
+
+        T value = loader.get();
+        put(userId, pageKey, new CachedPage(value, System.currentTimeMillis(), new AtomicBoolean(true)));
+        prewarmedPages.increment();
+    }
+
+    /**
+     * Позволяет удалить из кэша одну страницу пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @param pageKey ключ страницы.
+     */
+    @Override
+    public void invalidatePage(Long userId, String pageKey) {
+        pages.asMap().computeIfPresent(userId, (id, current) -> current.without(pageKey));
+    }
+
+    /**
+     * Помещает страницу в набор страниц пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @param pageKey ключ страницы ленты.
+     * @param page страница.
+     */
+    private void put(Long userId, String pageKey, CachedPage page) {
+        pages.asMap().merge(userId, new UserPages(Map.of(pageKey, page)),
+                (current, added) -> current.with(pageKey, page, page.cachedAt(), ttlMillis));
+    }
+
+    /**
+     * Позволяет удалить из кэша все страницы ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     */
+    @Override
+    public void invalidate(Long userId) {
+        if (pages.asMap().remove(userId) != null) {
+            invalidations.increment();
+            log.info("IN invalidate - страницы ленты пользователя с идентификатором: {} удалены из кэша", userId);
+        }
+    }
+
+    /**
+     * Позволяет удалить из кэша все страницы лент подписчиков автора.
+     * @param authorId идентификатор автора.
+     */
+    @Override
+    public void invalidateFollowers(Long authorId) {
+        if (pages.estimatedSize() == 0) {
+            return;
+        }
+        int invalidated = 0;
+        for (Long followerId : subscriptionRepository.findUserIdsBySubscriptionUserId(authorId)) {
+            if (pages.asMap().remove(followerId) != null) {
+                invalidated++;
+            }
+        }
+        invalidations.increment(invalidated);
+        log.info("IN invalidateFollowers - из кэша удалены ленты {} подписчиков автора с идентификатором: {}", invalidated, authorId);
+    }
+
+    /**
+     * Страница ленты и время её помещения в кэш.
+     * @param value страница ленты.
+     * @param cachedAt время помещения в кэш в миллисекундах.
+     * @param unread признак того, что заранее сформированная страница ещё не запрашивалась, либо null.
+     */
+    private record CachedPage(Object value, long cachedAt, AtomicBoolean unread) {
+    }
+
+    /**
+     * Неизменяемый набор страниц ленты одного пользователя.
+     * @param pages страницы ленты по ключам.
+     */
+    private record UserPages(Map<String, CachedPage> pages) {
+
+        /**
+         * Возвращает новый набор страниц с добавленной страницей и без устаревших страниц.
+         * @param pageKey ключ страницы.
+         * @param page страница.
+         * @param now текущее время в миллисекундах.
+         * @param ttlMillis время жизни страницы в миллисекундах.
+         * @return новый набор страниц.
+         */
+        UserPages with(String pageKey, CachedPage page, long now, long ttlMillis) {
+            Map<String, CachedPage> updated = new HashMap<>();
+            pages.forEach((key, value) -> {
+                if (now - value.cachedAt() < ttlMillis) {
+                    updated.put(key, value);
+                }
+            });
+            updated.put(pageKey, page);
+            return new UserPages(updated);
+        }
+
+        /**
+         * Возвращает новый набор страниц без указанной страницы.
+         * @param pageKey ключ страницы.
+         * @return новый набор страниц, либо null, если страниц не осталось.
+         */
+        UserPages without(String pageKey) {
+            if (!pages.containsKey(pageKey)) {
+                return this;
+            }
+            Map<String, CachedPage> updated = new HashMap<>(pages);
+            updated.remove(pageKey);
+            return updated.isEmpty() ? null : new UserPages(updated);
+        }
+    }
+}
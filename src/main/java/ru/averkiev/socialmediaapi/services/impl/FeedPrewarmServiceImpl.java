@@ -0,0 +1,173 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.exceptions.ActivityFeedException;
+import ru.averkiev.socialmediaapi.security.UserLoginEvent;
+import ru.averkiev.socialmediaapi.services.FeedPrewarmService;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс реализует заблаговременное формирование первой страницы ленты активности и списка собеседников
+ * при входе пользователя в систему. Данные формируются в фоновом пуле потоков с ограниченной очередью
+ * и помещаются в кэш, поэтому первый запрос после входа не выполняет запросы к базе данных.
+ * Если очередь заполнена, формирование данных пропускается.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class FeedPrewarmServiceImpl implements FeedPrewarmService {
+
+    /** Сервис для формирования ленты активности. */
+    private final ActivityFeedServiceImpl activityFeedService;
+
+    /** Сервис для формирования списка собеседников. */
+    private final MessageServiceImpl messageService;
+
+    /** Пул потоков для формирования данных. */
+    private final ThreadPoolExecutor executor;
+
+    /** Пользователи, для которых формирование данных уже поставлено в очередь. */
+    private final Set<Long> queuedUsers = ConcurrentHashMap.newKeySet();
+
+    /** Признак включения заблаговременного формирования данных. */
+    private final boolean enabled;
+
+    /** Количество постов на первой странице ленты. */
+    private final int limit;
+
+    /** Реестр метрик. */
+    private final MeterRegistry meterRegistry;
+
+    /** Время формирования данных одного пользователя. */
+    private final Timer prewarmTimer;
+
+    /**
+     * Позволяет создать объект FeedPrewarmServiceImpl с заданными параметрами.
+     * @param activityFeedService сервис ленты активности.
+     * @param messageService сервис сообщений.
+     * @param meterRegistry реестр метрик.
+     * @param enabled признак включения заблаговременного формирования данных.
+     * @param threads количество потоков.
+     * @param queueCapacity максимальное количество пользователей в очереди.
+     * @param limit количество постов на первой странице ленты.
+     */
+    @Autowired
+    public FeedPrewarmServiceImpl(ActivityFeedServiceImpl activityFeedService,
+                                  MessageServiceImpl messageService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${feed.prewarm.enabled:true}") boolean enabled,
+                                  @Value("${feed.prewarm.threads:2}") int threads,
+                                  @Value("${feed.prewarm.queue-capacity:1000}") int queueCapacity,
+                                  @Value("${feed.prewarm.limit:20}") int limit
+    ) {
+        this.activityFeedService = activityFeedService;
+        this.messageService = messageService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.limit = limit;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "feed-prewarm-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.prewarmTimer = Timer.builder("feed.prewarm.latency")
+                .description("Время заблаговременного формирования данных пользователя")
+                .register(meterRegistry);
+        meterRegistry.gauge("feed.prewarm.queue.size", executor, pool -> pool.getQueue().size());
+    }
+
+    /**
+     * Останавливает пул потоков при завершении работы приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Запускает формирование данных пользователя после его входа в систему.
+     * @param event событие входа пользователя в систему.
+     */
+    @EventListener
+    public void onUserLogin(UserLoginEvent event) {
+        prewarm(event.getUserId());
+    }
+
+    /**
+     * Позволяет поставить в очередь формирование первой страницы ленты и списка собеседников пользователя.
+     * Повторный вход пользователя, данные которого ещё формируются, не ставит новую задачу.
+     * @param userId идентификатор пользователя.
+     */
+    @Override
+    public void prewarm(Long userId) {
+        if (!enabled || !queuedUsers.add(userId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    prewarmTimer.record(() -> prewarmUser(userId));
+                } finally {
+                    queuedUsers.remove(userId);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            queuedUsers.remove(userId);
+            count("all", "rejected");
+            log.warn("IN prewarm - очередь заполнена, данные пользователя с идентификатором: {} не сформированы", userId);
+        }
+    }
+
+    /**
+     * Формирует первую страницу ленты и список собеседников пользователя.
+     * Ошибки не прерывают формирование остальных данных и учитываются в метриках.
+     * @param userId идентификатор пользователя.
+     */
+    private void prewarmUser(Long userId) {
+        try {
+            activityFeedService.prewarmActivityFeedForUser(userId, limit);
+            count("feed", "completed");
+        } catch (ActivityFeedException ex) {
+            // У пользователя нет подписок, формировать нечего.
+            count("feed", "skipped");
+        } catch (Exception ex) {
+            count("feed", "failed");
+            log.warn("IN prewarmUser - не удалось сформировать ленту пользователя с идентификатором: {}", userId, ex);
+        }
+
+        try {
+            messageService.prewarmConversationsForUser(userId);
+            count("conversations", "completed");
+        } catch (Exception ex) {
+            count("conversations", "failed");
+            log.warn("IN prewarmUser - не удалось сформировать список собеседников пользователя с идентификатором: {}", userId, ex);
+        }
+    }
+
+    /**
+     * Увеличивает счётчик задач формирования данных.
+     * @param entry вид формируемых данных.
+     * @param result результат формирования.
+     */
+    private void count(String entry, String result) {
+        meterRegistry.counter("feed.prewarm.tasks", "entry", entry, "result", result).increment();
+    }
+}
@@ -0,0 +1,221 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.models.AuthorPostRef;
+import ru.averkiev.socialmediaapi.models.FeedCandidate;
+import ru.averkiev.socialmediaapi.models.FeedCursor;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.services.FeedRankingService;
+import ru.averkiev.socialmediaapi.services.FeedScorer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Класс реализует ранжирование постов ленты активности набором независимых признаков.
+ * Оценки признаков вычисляются параллельно в пуле потоков ограниченного размера, а итоговый рейтинг поста
+ * равен взвешенной сумме оценок. Если оценки не получены за отведённое на запрос время или вычисление
+ * завершилось ошибкой, посты возвращаются в порядке убывания даты создания. Ранжируются только самые новые посты
+ * в пределах заданного количества кандидатов, более старые посты следуют за ними в хронологическом порядке.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class FeedRankingServiceImpl implements FeedRankingService {
+
+    /** Репозиторий для получения авторов и дат создания постов. */
+    private final PostRepository postRepository;
+
+    /** Признаки, по которым оцениваются посты. */
+    private final List<FeedScorer> scorers;
+
+    /** Время вычисления оценок каждым признаком. */
+    private final Map<String, Timer> scorerTimers = new HashMap<>();
+
+    /** Пул потоков для вычисления оценок. */
+    private final ForkJoinPool pool;
+
+    /** Признак включения ранжирования. */
+    private final boolean enabled;
+
+    /** Максимальное количество ранжируемых постов. */
+    private final int maxCandidates;
+
+    /** Время, отведённое на ранжирование одной страницы ленты, в наносекундах. */
+    private final long budgetNanos;
+
+    /** Общее время ранжирования страницы ленты. */
+    private final Timer rankingTimer;
+
+    /** Количество страниц, возвращённых в хронологическом порядке из-за превышения времени. */
+    private final Counter timeoutFallbacks;
+
+    /** Количество страниц, возвращённых в хронологическом порядке из-за ошибки признака. */
+    private final Counter errorFallbacks;
+
+    /**
+     * Позволяет создать объект FeedRankingServiceImpl с заданными параметрами.
+     * @param postRepository репозиторий постов.
+     * @param scorers признаки, по которым оцениваются посты.
+     * @param meterRegistry реестр метрик.
+     * @param enabled признак включения ранжирования.
+     * @param parallelism количество потоков для вычисления оценок.
+     * @param maxCandidates максимальное количество ранжируемых постов.
+     * @param budgetMillis время, отведённое на ранжирование одной страницы ленты, в миллисекундах.
+     */
+    @Autowired
+    public FeedRankingServiceImpl(PostRepository postRepository,
+                                  List<FeedScorer> scorers,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${feed.ranking.enabled:true}") boolean enabled,
+                                  @Value("${feed.ranking.parallelism:4}") int parallelism,
+                                  @Value("${feed.ranking.max-candidates:200}") int maxCandidates,
+                                  @Value("${feed.ranking.budget-millis:50}") long budgetMillis
+    ) {
+        this.postRepository = postRepository;
+        this.scorers = List.copyOf(scorers);
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("feed-ranking-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+
+        for (FeedScorer scorer : this.scorers) {
+            scorerTimers.put(scorer.getName(), Timer.builder("feed.ranking.scorer.latency")
+                    .description("Время вычисления оценок постов признаком")
+                    .tag("scorer", scorer.getName())
+                    .register(meterRegistry));
+        }
+        this.rankingTimer = Timer.builder("feed.ranking.latency")
+                .description("Время ранжирования страницы ленты")
+                .register(meterRegistry);
+        this.timeoutFallbacks = Counter.builder("feed.ranking.fallbacks")
+                .description("Страницы ленты, возвращённые без ранжирования")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+        this.errorFallbacks = Counter.builder("feed.ranking.fallbacks")
+                .description("Страницы ленты, возвращённые без ранжирования")
+                .tag("reason", "error")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Останавливает пул потоков при завершении работы приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Упорядочивает посты ленты пользователя по убыванию взвешенной суммы оценок признаков.
+     * @param userId идентификатор владельца ленты.
+     * @param postIds идентификаторы постов, отсортированные по дате создания.
+     * @return идентификаторы постов в порядке убывания рейтинга, либо в исходном порядке,
+     * если ранжирование не уложилось в отведённое время.
+     */
+    @Override
+    public List<Long> rank(Long userId, List<Long> postIds) {
+        if (!enabled || scorers.isEmpty() || postIds.size() < 2) {
+            return postIds;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            List<FeedCandidate> candidates = getCandidates(postIds.subList(0, Math.min(maxCandidates, postIds.size())));
+
+            // Каждый признак оценивает все посты-кандидаты в отдельной задаче пула.
+            List<CompletableFuture<double[]>> futures = new ArrayList<>(scorers.size());
+            for (FeedScorer scorer : scorers) {
+                Timer timer = scorerTimers.get(scorer.getName());
+                futures.add(CompletableFuture.supplyAsync(() -> timer.record(() -> scorer.score(userId, candidates)), pool));
+            }
+
+            CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+            try {
+                all.get(Math.max(0, startedAt + budgetNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                futures.forEach(future -> future.cancel(true));
+                timeoutFallbacks.increment();
+                log.warn("IN rank - ранжирование ленты пользователя с идентификатором: {} не уложилось в отведённое время", userId);
+                return postIds;
+            } catch (ExecutionException ex) {
+                errorFallbacks.increment();
+                log.error("IN rank - ошибка при ранжировании ленты пользователя с идентификатором: {}", userId, ex.getCause());
+                return postIds;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                errorFallbacks.increment();
+                return postIds;
+            }
+
+            double[] ratings = new double[candidates.size()];
+            for (int i = 0; i < scorers.size(); i++) {
+                double weight = scorers.get(i).getWeight();
+                double[] scores = futures.get(i).join();
+                for (int j = 0; j < ratings.length; j++) {
+                    ratings[j] += weight * scores[j];
+                }
+            }
+
+            // Сортировка устойчива, поэтому посты с одинаковым рейтингом сохраняют хронологический порядок.
+            List<Integer> order = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.comparingDouble((Integer i) -> ratings[i]).reversed());
+
+            List<Long> rankedIds = new ArrayList<>(order.size());
+            for (int i : order) {
+                rankedIds.add(candidates.get(i).getPostId());
+            }
+            if (postIds.size() > maxCandidates) {
+                rankedIds.addAll(postIds.subList(maxCandidates, postIds.size()));
+            }
+            return rankedIds;
+        } finally {
+            rankingTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Загружает авторов и даты создания постов, сохраняя порядок идентификаторов.
+     * Посты, отсутствующие в базе данных, пропускаются.
+     * @param postIds идентификаторы постов.
+     * @return посты-кандидаты.
+     */
+    private List<FeedCandidate> getCandidates(List<Long> postIds) {
+        Map<Long, AuthorPostRef> refs = new HashMap<>();
+        for (AuthorPostRef ref : postRepository.findAuthorPostRefsByIdIn(postIds)) {
+            refs.put(ref.getId(), ref);
+        }
+
+        List<FeedCandidate> candidates = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            AuthorPostRef ref = refs.get(postId);
+            if (ref != null) {
+                candidates.add(new FeedCandidate(postId, ref.getUserId(), FeedCursor.toMicros(ref.getCreatedAt())));
+            }
+        }
+        return candidates;
+    }
+}
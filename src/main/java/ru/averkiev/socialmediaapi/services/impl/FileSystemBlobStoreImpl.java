@@ -0,0 +1,230 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.exceptions.BlobStoreException;
+import ru.averkiev.socialmediaapi.exceptions.ImageNotFoundException;
+import ru.averkiev.socialmediaapi.models.BlobInfo;
+import ru.averkiev.socialmediaapi.services.BlobStore;
+import ru.averkiev.socialmediaapi.utils.ContentHash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+/**
+ * Класс реализует хранение содержимого изображений в локальной файловой системе.
+ * Файл содержимого называется ключом содержимого и размещается в двухуровневом каталоге по первым символам
+ * ключа, например {@code ab/cd/abcd...}, что ограничивает количество файлов в одном каталоге.
+ * Содержимое записывается во временный файл, сбрасывается на диск и атомарно переименовывается,
+ * поэтому по ключу всегда доступен только полностью записанный файл. Повторяющееся содержимое на диск
+ * не сбрасывается: временный файл удаляется, как только по ключу обнаружен уже сохранённый файл.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "blob.store.type", havingValue = "fs", matchIfMissing = true)
+public class FileSystemBlobStoreImpl implements BlobStore {
+
+    /** Размер буфера записи содержимого. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Корневой каталог хранилища. */
+    private final Path root;
+
+    /** Каталог временных файлов. */
+    private final Path tmpDir;
+
+    /**
+     * Позволяет создать объект FileSystemBlobStoreImpl с заданными параметрами.
+     * @param root корневой каталог хранилища.
+     */
+    @Autowired
+    public FileSystemBlobStoreImpl(@Value("${blob.store.fs.root:./data/blobs}") Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        this.tmpDir = this.root.resolve("tmp");
+        log.info("IN FileSystemBlobStoreImpl - содержимое изображений хранится в каталоге: {}", this.root);
+    }
+
+    /**
+     * Сохраняет содержимое, читая его из потока и вычисляя ключ по мере записи.
+     * Если содержимое с таким ключом уже сохранено, временный файл удаляется без сброса на диск.
+     * @param data поток содержимого.
+     * @return ключ и размер сохранённого содержимого.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось сохранить.
+     */
+    @Override
+    public BlobInfo put(InputStream data) throws BlobStoreException {
+        Path tmp = null;
+        try {
+            Files.createDirectories(tmpDir);
+            tmp = Files.createTempFile(tmpDir, "blob-", ".tmp");
+
+            MessageDigest digest = ContentHash.newDigest();
+            long size = 0;
+            String key;
+            Path target;
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = data.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                    size += read;
+                }
+
+                key = ContentHash.toKey(digest.digest());
+                target = resolve(key);
+                if (Files.exists(target)) {
+                    return new BlobInfo(key, size);
+                }
+                channel.force(true);
+            }
+
+            Files.createDirectories(target.getParent());
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+            syncDirectory(target.getParent());
+            return new BlobInfo(key, size);
+        } catch (IOException ex) {
+            log.error("IN put - содержимое не сохранено", ex);
+            throw new BlobStoreException("Ошибка при сохранении изображения", ex);
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    /**
+     * Открывает поток чтения содержимого.
+     * @param key ключ содержимого.
+     * @return поток содержимого.
+     * @throws ImageNotFoundException выбрасывает, если содержимое с указанным ключом отсутствует.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось прочитать.
+     */
+    @Override
+    public InputStream open(String key) throws ImageNotFoundException, BlobStoreException {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException ex) {
+            throw new ImageNotFoundException("Содержимое изображения с ключом: " + key + " не найдено");
+        } catch (IOException ex) {
+            throw new BlobStoreException("Ошибка при чтении изображения", ex);
+        }
+    }
+
+    /**
+     * Передаёт часть файла содержимого в канал с помощью {@link FileChannel#transferTo}, что позволяет ядру
+     * передавать данные без копирования в память приложения, если канал это поддерживает.
+     * @param key ключ содержимого.
+     * @param position позиция первого передаваемого байта.
+     * @param count количество передаваемых байт.
+     * @param target канал, в который передаётся содержимое.
+     * @throws ImageNotFoundException выбрасывает, если содержимое с указанным ключом отсутствует.
+     * @throws IOException выбрасывает, если содержимое не удалось прочитать или записать в канал.
+     */
+    @Override
+    public void transferTo(String key, long position, long count, WritableByteChannel target) throws ImageNotFoundException, IOException {
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("Содержимое изображения с ключом: " + key + " короче запрошенного диапазона");
+                }
+                position += transferred;
+            }
+        } catch (NoSuchFileException ex) {
+            throw new ImageNotFoundException("Содержимое изображения с ключом: " + key + " не найдено");
+        }
+    }
+
+    /**
+     * Возвращает путь к файлу содержимого.
+     * @param key ключ содержимого.
+     * @return путь к файлу содержимого.
+     * @throws ImageNotFoundException выбрасывает, если ключ имеет недопустимый вид.
+     */
+    @Override
+    public Path locate(String key) throws ImageNotFoundException {
+        return resolve(key);
+    }
+
+    /**
+     * Проверяет наличие содержимого в хранилище.
+     * @param key ключ содержимого.
+     * @return true, если содержимое присутствует.
+     */
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    /**
+     * Удаляет содержимое из хранилища, если оно присутствует.
+     * @param key ключ содержимого.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось удалить.
+     */
+    @Override
+    public void delete(String key) throws BlobStoreException {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException ex) {
+            throw new BlobStoreException("Ошибка при удалении изображения", ex);
+        }
+    }
+
+    /**
+     * Возвращает путь к файлу содержимого.
+     * @param key ключ содержимого.
+     * @return путь к файлу.
+     * @throws ImageNotFoundException выбрасывает, если ключ имеет недопустимый вид.
+     */
+    Path resolve(String key) throws ImageNotFoundException {
+        if (!ContentHash.isValidKey(key)) {
+            throw new ImageNotFoundException("Недопустимый ключ содержимого изображения: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    /**
+     * Сбрасывает на диск запись каталога, чтобы переименование файла пережило сбой питания.
+     * Файловые системы, не поддерживающие открытие каталогов, пропускаются.
+     * @param directory каталог.
+     */
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            log.debug("IN syncDirectory - каталог: {} не сброшен на диск", directory);
+        }
+    }
+
+    /**
+     * Удаляет временный файл, не прерывая выполнение при ошибке.
+     * @param tmp временный файл или null.
+     */
+    private void deleteQuietly(Path tmp) {
+        if (tmp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException ex) {
+            log.warn("IN deleteQuietly - временный файл: {} не удалён", tmp);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ru.averkiev.socialmediaapi.services.impl;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -71,6 +72,7 @@ public class FriendshipRequestServiceImpl implements FriendshipRequestService {
      * @param request объект FriendshipRequest, содержащий информацию о запросе.
      */
     @Override
+    @Transactional
     public void acceptFriendshipRequest(FriendshipRequest request) {
 
         if (request.getStatus() != FriendshipRequestStatus.PENDING) {
@@ -90,11 +92,12 @@ public class FriendshipRequestServiceImpl implements FriendshipRequestService {
         friendshipRequestRepository.save(request);
         log.info("IN acceptFriendshipRequest - запрос на дружбу успешно принят");
 
-        // Сохранение подписки.
-        subscriptionService.save(toUser, fromUser);
-
         // Сохранение подписчика.
         subscriberService.save(fromUser, toUser);
+
+        // Сохранение подписки. Заполнение ленты подписчика выполняется запросом к базе данных, перед которым
+        // все предыдущие вставки отправляются одним сбросом изменений.
+        subscriptionService.save(toUser, fromUser);
     }
 
     /**
@@ -0,0 +1,417 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.averkiev.socialmediaapi.exceptions.BlobStoreException;
+import ru.averkiev.socialmediaapi.exceptions.ImageNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.ImageTooLargeException;
+import ru.averkiev.socialmediaapi.models.BlobInfo;
+import ru.averkiev.socialmediaapi.models.BlobUsage;
+import ru.averkiev.socialmediaapi.models.Image;
+import ru.averkiev.socialmediaapi.models.ImageDerivative;
+import ru.averkiev.socialmediaapi.repositories.BlobReferenceRepository;
+import ru.averkiev.socialmediaapi.repositories.ImageRepository;
+import ru.averkiev.socialmediaapi.services.BlobStore;
+import ru.averkiev.socialmediaapi.services.ImageStorageService;
+import ru.averkiev.socialmediaapi.utils.ContentHash;
+import ru.averkiev.socialmediaapi.utils.SizeLimitedInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс реализует размещение содержимого изображений в хранилище, выбранном в настройках приложения.
+ * В таблице images остаются только ключ содержимого, его размер и MIME-тип.
+ * Одинаковое содержимое хранится в одном экземпляре: ссылки на него изображений и их копий подсчитываются в таблице
+ * blob_refs, а содержимое, на которое не осталось ссылок, удаляется фоновой очисткой по истечении заданного времени.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class ImageStorageServiceImpl implements ImageStorageService {
+
+    /** MIME-тип, используемый, если тип содержимого определить не удалось. */
+    private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+    /** Количество изображений, читаемых за один запрос при переносе содержимого. */
+    private static final int MIGRATION_BATCH_SIZE = 100;
+
+    /** Количество единиц содержимого, удаляемых за один проход очистки. */
+    private static final int PURGE_BATCH_SIZE = 100;
+
+    /** Хранилище содержимого изображений. */
+    private final BlobStore blobStore;
+
+    /** Репозиторий для взаимодействия с изображениями в базе данных. */
+    private final ImageRepository imageRepository;
+
+    /** Репозиторий счётчиков ссылок на содержимое. */
+    private final BlobReferenceRepository blobReferenceRepository;
+
+    /** Шаблон транзакции, в которой удаляется содержимое без ссылок. */
+    private final TransactionTemplate transactionTemplate;
+
+    /** Признак переноса содержимого изображений при запуске приложения. */
+    private final boolean migrateOnStartup;
+
+    /** Максимальный размер загружаемого изображения в байтах. */
+    private final long maxBytes;
+
+    /** Время, в течение которого содержимое без ссылок остаётся в хранилище, миллисекунды. */
+    private final long purgeGraceMillis;
+
+    /** Интервал очистки хранилища, секунды. */
+    private final long purgeIntervalSeconds;
+
+    /** Поток очистки хранилища. */
+    private final ScheduledExecutorService purger;
+
+    /** Количество сохранений содержимого, уже находившегося в хранилище. */
+    private final Counter dedupHits;
+
+    /** Объём содержимого, которое не пришлось хранить повторно, в байтах. */
+    private final Counter dedupBytes;
+
+    /** Объём содержимого, фактически занятый в хранилище, по результату последней очистки. */
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    /** Объём содержимого с учётом всех ссылок по результату последней очистки. */
+    private final AtomicLong referencedBytes = new AtomicLong();
+
+    /**
+     * Позволяет создать объект ImageStorageServiceImpl с заданными параметрами.
+     * @param blobStore хранилище содержимого.
+     * @param imageRepository репозиторий изображений.
+     * @param blobReferenceRepository репозиторий счётчиков ссылок на содержимое.
+     * @param transactionTemplate шаблон транзакции.
+     * @param meterRegistry реестр метрик.
+     * @param migrateOnStartup признак переноса содержимого изображений при запуске приложения.
+     * @param maxBytes максимальный размер загружаемого изображения в байтах.
+     * @param purgeGraceSeconds время, в течение которого содержимое без ссылок остаётся в хранилище.
+     * @param purgeIntervalSeconds интервал очистки хранилища.
+     */
+    @Autowired
+    public ImageStorageServiceImpl(BlobStore blobStore,
+                                   ImageRepository imageRepository,
+                                   BlobReferenceRepository blobReferenceRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${blob.store.migrate-on-startup:true}") boolean migrateOnStartup,
+                                   @Value("${image.upload.max-bytes:10485760}") long maxBytes,
+                                   @Value("${blob.store.purge.grace-seconds:600}") long purgeGraceSeconds,
+                                   @Value("${blob.store.purge.interval-seconds:60}") long purgeIntervalSeconds
+    ) {
+        this.blobStore = blobStore;
+        this.imageRepository = imageRepository;
+        this.blobReferenceRepository = blobReferenceRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.migrateOnStartup = migrateOnStartup;
+        this.maxBytes = maxBytes;
+        this.purgeGraceMillis = TimeUnit.SECONDS.toMillis(purgeGraceSeconds);
+        this.purgeIntervalSeconds = purgeIntervalSeconds;
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blob-store-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.dedupHits = Counter.builder("image.blobs.dedup.hits")
+                .description("Количество сохранений содержимого, уже находившегося в хранилище")
+                .register(meterRegistry);
+        this.dedupBytes = Counter.builder("image.blobs.dedup.bytes")
+                .description("Объём содержимого, которое не пришлось хранить повторно")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        meterRegistry.gauge("image.blobs.stored.bytes", storedBytes);
+        meterRegistry.gauge("image.blobs.referenced.bytes", referencedBytes);
+    }
+
+    /**
+     * Сохраняет полученное от клиента содержимое изображения в хранилище и заменяет его ссылкой на содержимое.
+     * Изображения без данных остаются без изменений.
+     * @param image изображение с заполненными данными.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось сохранить.
+     * @throws ImageTooLargeException выбрасывает, если размер содержимого превышает допустимый.
+     */
+    @Override
+    public void store(Image image) throws BlobStoreException, ImageTooLargeException {
+        byte[] data = image.getImageData();
+        if (data == null) {
+            return;
+        }
+
+        // Содержимое уже находится в памяти, поэтому его ключ вычисляется до записи: повторяющееся содержимое
+        // не записывается в хранилище вовсе.
+        if (data.length <= maxBytes) {
+            String key = ContentHash.of(data);
+            if (blobReferenceRepository.acquireExisting(key) != null) {
+                countDuplicate(data.length);
+                if (isUnknownMimeType(image.getMimeType())) {
+                    image.setMimeType(detectMimeType(new ByteArrayInputStream(data)));
+                }
+                image.setBlobKey(key);
+                image.setSize((long) data.length);
+                image.setImageData(null);
+                log.info("IN store - содержимое изображения уже сохранено с ключом: {}", key);
+                return;
+            }
+        }
+
+        store(image, new ByteArrayInputStream(data), data.length);
+        image.setImageData(null);
+    }
+
+    /**
+     * Сохраняет содержимое изображения, читая его из потока, и заполняет в изображении ссылку на содержимое.
+     * Содержимое передаётся в хранилище частями, размер проверяется по мере чтения, а ключ вычисляется хранилищем
+     * при записи, поэтому содержимое целиком в памяти не находится. Если MIME-тип не указан клиентом,
+     * он определяется по сигнатуре в начале потока.
+     * @param image изображение.
+     * @param data поток содержимого.
+     * @param declaredSize размер содержимого, заявленный клиентом, или -1, если он неизвестен.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось сохранить.
+     * @throws ImageTooLargeException выбрасывает, если размер содержимого превышает допустимый.
+     */
+    @Override
+    public void store(Image image, InputStream data, long declaredSize) throws BlobStoreException, ImageTooLargeException {
+        // Заведомо слишком большое содержимое отклоняется до начала чтения.
+        if (declaredSize > maxBytes) {
+            log.error("IN store - размер изображения: {} превышает допустимый", declaredSize);
+            throw new ImageTooLargeException("Размер изображения превышает допустимые " + maxBytes + " байт");
+        }
+
+        InputStream in = new SizeLimitedInputStream(data, maxBytes);
+        if (isUnknownMimeType(image.getMimeType())) {
+            in = new BufferedInputStream(in);
+            image.setMimeType(detectMimeType(in));
+        }
+
+        BlobInfo blob = storeBlob(in);
+        image.setBlobKey(blob.getKey());
+        image.setSize(blob.getSize());
+        log.info("IN store - содержимое изображения сохранено с ключом: {}", blob.getKey());
+    }
+
+    /**
+     * Сохраняет содержимое в хранилище и добавляет ссылку на него. Если такое содержимое уже хранится,
+     * увеличивается только счётчик ссылок.
+     * @param data поток содержимого.
+     * @return ключ и размер сохранённого содержимого.
+     * @throws BlobStoreException выбрасывает, если содержимое не удалось сохранить.
+     */
+    @Override
+    public BlobInfo storeBlob(InputStream data) throws BlobStoreException {
+        BlobInfo blob = blobStore.put(data);
+        int refCount = blobReferenceRepository.acquire(blob.getKey(), blob.getSize());
+        if (refCount > 1) {
+            countDuplicate(blob.getSize());
+        } else if (!blobStore.exists(blob.getKey())) {
+            // Содержимое было удалено очисткой после того, как хранилище сочло его уже сохранённым.
+            release(blob.getKey());
+            log.error("IN storeBlob - содержимое с ключом: {} удалено из хранилища во время сохранения", blob.getKey());
+            throw new BlobStoreException("Ошибка при сохранении изображения, повторите загрузку");
+        }
+        return blob;
+    }
+
+    /**
+     * Записывает часть содержимого изображения в поток.
+     * @param blobKey ключ содержимого.
+     * @param position позиция первого записываемого байта.
+     * @param count количество записываемых байт.
+     * @param out поток, в который записывается содержимое.
+     * @throws ImageNotFoundException выбрасывает, если содержимое отсутствует в хранилище.
+     * @throws IOException выбрасывает, если содержимое не удалось прочитать или записать.
+     */
+    @Override
+    public void transferTo(String blobKey, long position, long count, OutputStream out) throws ImageNotFoundException, IOException {
+        blobStore.transferTo(blobKey, position, count, Channels.newChannel(out));
+    }
+
+    /**
+     * Возвращает путь к файлу содержимого изображения, если хранилище размещает содержимое в файловой системе.
+     * @param blobKey ключ содержимого.
+     * @return путь к файлу содержимого или null.
+     */
+    @Override
+    public Path locate(String blobKey) {
+        return blobStore.locate(blobKey);
+    }
+
+    /**
+     * Возвращает ключи содержимого изображения и всех его уменьшенных копий.
+     * @param image изображение.
+     * @return список ключей содержимого.
+     */
+    @Override
+    public List<String> blobKeysOf(Image image) {
+        List<String> blobKeys = new ArrayList<>();
+        blobKeys.add(image.getBlobKey());
+        for (ImageDerivative derivative : image.getDerivatives()) {
+            blobKeys.add(derivative.getBlobKey());
+        }
+        return blobKeys;
+    }
+
+    /**
+     * Освобождает ссылку на содержимое. Содержимое, на которое не осталось ссылок, не удаляется сразу,
+     * а остаётся в хранилище до очистки, поэтому повторная загрузка того же содержимого не требует записи.
+     * @param blobKey ключ содержимого или null.
+     */
+    @Override
+    public void release(String blobKey) {
+        if (blobKey == null) {
+            return;
+        }
+        Integer refCount = blobReferenceRepository.release(blobKey);
+        if (refCount != null && refCount == 0) {
+            log.info("IN release - освобождена последняя ссылка на содержимое с ключом: {}", blobKey);
+        }
+    }
+
+    /**
+     * Удаляет из хранилища содержимое, последняя ссылка на которое освобождена раньше заданного времени.
+     * Содержимое удаляется в транзакции, удерживающей блокировку счётчика, поэтому одновременная загрузка того же
+     * содержимого не может сослаться на удаляемое содержимое.
+     * @return количество удалённых единиц содержимого.
+     */
+    @Override
+    public int purgeUnreferenced() {
+        Date releasedBefore = new Date(System.currentTimeMillis() - purgeGraceMillis);
+        int purged = 0;
+        List<String> keys;
+        do {
+            keys = blobReferenceRepository.findUnreferenced(releasedBefore, PURGE_BATCH_SIZE);
+            for (String key : keys) {
+                Boolean deleted = transactionTemplate.execute(status -> {
+                    if (blobReferenceRepository.deleteUnreferenced(key, releasedBefore) == 0) {
+                        return false;
+                    }
+                    blobStore.delete(key);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(deleted)) {
+                    purged++;
+                }
+            }
+        } while (keys.size() == PURGE_BATCH_SIZE);
+
+        BlobUsage usage = blobReferenceRepository.getUsage();
+        storedBytes.set(usage.getStoredBytes());
+        referencedBytes.set(usage.getReferencedBytes());
+        if (purged > 0) {
+            log.info("IN purgeUnreferenced - из хранилища удалено {} единиц содержимого без ссылок", purged);
+        }
+        return purged;
+    }
+
+    /**
+     * Запускает перенос содержимого изображений, если он включён в настройках, и периодическую очистку хранилища
+     * после запуска приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrateInlineImages();
+        }
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                purgeUnreferenced();
+            } catch (Exception ex) {
+                log.warn("IN purgeUnreferenced - ошибка при очистке хранилища", ex);
+            }
+        }, purgeIntervalSeconds, purgeIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Останавливает очистку хранилища при завершении работы приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    /**
+     * Переносит содержимое изображений из столбца image_data таблицы images в хранилище.
+     * Изображения обрабатываются по одному, поэтому в памяти находится содержимое не более одного изображения.
+     * Перенос можно безопасно прервать и повторить: уже перенесённые изображения не выбираются повторно.
+     * @return количество перенесённых изображений.
+     */
+    @Override
+    public int migrateInlineImages() {
+        int migrated = 0;
+        long afterId = 0;
+        List<Long> imageIds;
+        while (!(imageIds = imageRepository.findInlineImageIdsAfter(afterId, MIGRATION_BATCH_SIZE)).isEmpty()) {
+            for (Long imageId : imageIds) {
+                byte[] data = imageRepository.findInlineImageDataById(imageId);
+                if (data != null) {
+                    BlobInfo blob = storeBlob(new ByteArrayInputStream(data));
+                    if (imageRepository.moveInlineImageData(imageId, blob.getKey(), blob.getSize(), detectMimeType(new ByteArrayInputStream(data))) > 0) {
+                        migrated++;
+                    } else {
+                        release(blob.getKey());
+                    }
+                }
+                afterId = imageId;
+            }
+        }
+        if (migrated > 0) {
+            log.info("IN migrateInlineImages - содержимое {} изображений перенесено в хранилище", migrated);
+        }
+        return migrated;
+    }
+
+    /**
+     * Учитывает в метриках сохранение содержимого, уже находившегося в хранилище.
+     * @param size размер содержимого в байтах.
+     */
+    private void countDuplicate(long size) {
+        dedupHits.increment();
+        dedupBytes.increment(size);
+    }
+
+    /**
+     * Проверяет, требуется ли определять MIME-тип изображения по содержимому.
+     * @param mimeType MIME-тип, указанный клиентом.
+     * @return true, если тип не указан или не конкретизирован.
+     */
+    private boolean isUnknownMimeType(String mimeType) {
+        return mimeType == null || mimeType.isBlank() || mimeType.startsWith(DEFAULT_MIME_TYPE);
+    }
+
+    /**
+     * Определяет MIME-тип изображения по сигнатуре в начале содержимого, не сдвигая позицию чтения потока.
+     * @param data поток содержимого изображения, поддерживающий метки.
+     * @return MIME-тип изображения.
+     */
+    private String detectMimeType(InputStream data) {
+        try {
+            String mimeType = URLConnection.guessContentTypeFromStream(data);
+            return mimeType == null ? DEFAULT_MIME_TYPE : mimeType;
+        } catch (IOException ex) {
+            return DEFAULT_MIME_TYPE;
+        }
+    }
+}
@@ -6,8 +6,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.exceptions.UserNotFoundException;
 import ru.averkiev.socialmediaapi.models.User;
 import ru.averkiev.socialmediaapi.security.JwtUser;
+import ru.averkiev.socialmediaapi.security.JwtUserCache;
 import ru.averkiev.socialmediaapi.security.JwtUserFactory;
 
 /**
@@ -23,15 +25,43 @@ public class JwtUserDetailsServiceImpl implements UserDetailsService {
     /** Сервис для взаимодействия с пользователями. */
     private final UserServiceImpl userService;
 
+    /** Кэш снимков пользователей. */
+    private final JwtUserCache jwtUserCache;
+
     /**
      * Загружает и возвращает объект UserDetails для пользователя с заданным именем. Использует UserServiceClient для
-     * получения информации о пользователе.
+     * получения информации о пользователе, если снимок пользователя отсутствует в кэше.
      * @param username - имя пользователя, для которого необходимо загрузить и вернуть объект UserDetails.
      * @return - возвращает объект JwtUser с использованием JwtUserFactory.
      * @throws UsernameNotFoundException - выбрасывается в случае, когда по имени не удалось найти пользователя.
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return jwtUserCache.getByUsername(username, this::loadJwtUserByUsername);
+    }
+
+    /**
+     * Загружает и возвращает объект JwtUser для пользователя с заданным идентификатором, если снимок пользователя
+     * отсутствует в кэше.
+     * @param userId идентификатор пользователя.
+     * @return объект JwtUser.
+     * @throws UserNotFoundException выбрасывает, если пользователь с заданным идентификатором не найден.
+     */
+    public JwtUser loadUserById(Long userId) throws UserNotFoundException {
+        return jwtUserCache.getById(userId, id -> {
+            JwtUser jwtUser = JwtUserFactory.created(userService.getUserById(id));
+            log.info("IN loadUserById - пользователь с идентификатором: {} успешно загружен", id);
+            return jwtUser;
+        });
+    }
+
+    /**
+     * Загружает пользователя с заданным именем из базы данных и создаёт его снимок.
+     * @param username имя пользователя.
+     * @return объект JwtUser.
+     * @throws UsernameNotFoundException выбрасывается в случае, когда по имени не удалось найти пользователя.
+     */
+    private JwtUser loadJwtUserByUsername(String username) throws UsernameNotFoundException {
 
         User user;
 
@@ -0,0 +1,352 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.models.AuthorPostRef;
+import ru.averkiev.socialmediaapi.models.FeedCursor;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostRef;
+import ru.averkiev.socialmediaapi.models.TimelineWindow;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.repositories.SubscriptionRepository;
+import ru.averkiev.socialmediaapi.services.FeedAssemblyStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Класс формирует ленту активности слиянием последних постов каждого автора, на которого подписан пользователь.
+ * Для каждого автора в памяти удерживается окно идентификаторов и дат создания его последних постов,
+ * а лента собирается k-путевым слиянием этих окон с помощью двоичной кучи. Слияние выполняется над примитивными
+ * значениями, сущности постов загружаются только для итоговой страницы.
+ * Используется как стратегия формирования ленты с наименованием {@value #STRATEGY_NAME}.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class MergeFeedAssemblyStrategyImpl implements FeedAssemblyStrategy {
+
+    /** Наименование стратегии формирования ленты. */
+    public static final String STRATEGY_NAME = "merge";
+
+    /** Максимальное количество постов автора, дочитываемых из базы данных за один запрос. */
+    private static final int MAX_CHUNK_SIZE = 1000;
+
+    /** Пустое окно для авторов без постов. */
+    private static final TimelineWindow EMPTY_WINDOW = new TimelineWindow(new long[0], new long[0], true);
+
+    /** Порядок постов в ленте: от новых к старым. */
+    private static final Comparator<PostRef> NEWEST_FIRST =
+            Comparator.comparing(PostRef::getCreatedAt).thenComparing(PostRef::getId).reversed();
+
+    /** Репозиторий для чтения постов авторов. */
+    private final PostRepository postRepository;
+
+    /** Репозиторий для получения подписок пользователя. */
+    private final SubscriptionRepository subscriptionRepository;
+
+    /** Окна последних постов авторов, хранящиеся в памяти. */
+    private final Cache<Long, TimelineWindow> authorWindows;
+
+    /** Максимальное количество постов в окне одного автора. */
+    private final int authorWindowSize;
+
+    /**
+     * Позволяет создать объект MergeFeedAssemblyStrategyImpl с заданными параметрами.
+     * @param postRepository репозиторий постов.
+     * @param subscriptionRepository репозиторий подписок.
+     * @param maxAuthors максимальное количество авторов, чьи окна удерживаются в памяти.
+     * @param authorWindowSize максимальное количество постов в окне одного автора.
+     */
+    @Autowired
+    public MergeFeedAssemblyStrategyImpl(PostRepository postRepository,
+                                         SubscriptionRepository subscriptionRepository,
+                                         @Value("${feed.merge.cache.max-authors:50000}") long maxAuthors,
+                                         @Value("${feed.merge.cache.window-size:50}") int authorWindowSize
+    ) {
+        this.postRepository = postRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.authorWindowSize = authorWindowSize;
+        this.authorWindows = Caffeine.newBuilder()
+                .maximumSize(maxAuthors)
+                .build();
+    }
+
+    /**
+     * Возвращает наименование стратегии формирования ленты.
+     * @return наименование стратегии.
+     */
+    @Override
+    public String getName() {
+        return STRATEGY_NAME;
+    }
+
+    /**
+     * Позволяет получить идентификаторы постов ленты пользователя с пагинацией страниц.
+     * @param userId идентификатор владельца ленты.
+     * @param page номер страницы.
+     * @param pageSize количество постов на странице.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    @Override
+    public List<Long> getFeedPostIds(Long userId, int page, int pageSize) {
+        long offset = (long) page * pageSize;
+        int limit = (int) Math.min(offset + pageSize, Integer.MAX_VALUE);
+        TimelineWindow merged = merge(subscriptionRepository.findSubscriptionUserIdsByUserId(userId), null, limit);
+        return toList(merged.slice(offset, pageSize));
+    }
+
+    /**
+     * Позволяет получить идентификаторы всех постов ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    @Override
+    public List<Long> getFeedPostIds(Long userId) {
+        TimelineWindow merged = merge(subscriptionRepository.findSubscriptionUserIdsByUserId(userId), null, Integer.MAX_VALUE);
+        return toList(merged.slice(0, merged.size()));
+    }
+
+    /**
+     * Позволяет получить страницу ленты пользователя, расположенную после заданного курсора.
+     * @param userId идентификатор владельца ленты.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество постов на странице.
+     * @return окно записей ленты, отсортированное по дате создания.
+     */
+    @Override
+    public TimelineWindow getFeedPage(Long userId, FeedCursor cursor, int limit) {
+        return merge(subscriptionRepository.findSubscriptionUserIdsByUserId(userId), cursor, limit);
+    }
+
+    /**
+     * Позволяет добавить опубликованный пост в окно его автора, если окно находится в памяти.
+     * @param post опубликованный пост.
+     */
+    public void onPostCreated(Post post) {
+        long createdAt = FeedCursor.toMicros(post.getCreatedAt());
+        authorWindows.asMap().computeIfPresent(post.getUser().getId(),
+                (authorId, window) -> window.insert(post.getId(), createdAt, authorWindowSize));
+    }
+
+    /**
+     * Позволяет сбросить окно автора удалённого поста.
+     * @param post удалённый пост.
+     */
+    public void onPostDeleted(Post post) {
+        authorWindows.invalidate(post.getUser().getId());
+    }
+
+    /**
+     * Выполняет k-путевое слияние постов заданных авторов, начиная с позиции курсора.
+     * Вершина кучи всегда содержит автора с самым новым непрочитанным постом. Если окно автора исчерпано,
+     * а его посты ещё не закончились, следующие посты дочитываются из базы данных по курсору.
+     * @param authorIds идентификаторы авторов.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit максимальное количество постов в результате.
+     * @return окно постов, отсортированное по дате создания.
+     */
+    private TimelineWindow merge(List<Long> authorIds, FeedCursor cursor, int limit) {
+        if (authorIds.isEmpty() || limit <= 0) {
+            return EMPTY_WINDOW;
+        }
+
+        Map<Long, TimelineWindow> recent = authorWindows.getAll(authorIds, this::loadWindows);
+
+        int sourceCount = authorIds.size();
+        long[] authors = new long[sourceCount];
+        TimelineWindow[] sources = new TimelineWindow[sourceCount];
+        int[] positions = new int[sourceCount];
+        int[] heap = new int[sourceCount];
+        int heapSize = 0;
+
+        for (int source = 0; source < sourceCount; source++) {
+            authors[source] = authorIds.get(source);
+            sources[source] = recent.getOrDefault(authors[source], EMPTY_WINDOW);
+            if (cursor != null) {
+                positions[source] = sources[source].indexAfter(cursor.getPostId(), cursor.getCreatedAt());
+            }
+            if (positions[source] == sources[source].size() && !sources[source].isComplete()) {
+                refill(source, authors, sources, positions, cursor, limit);
+            }
+            if (positions[source] < sources[source].size()) {
+                heap[heapSize++] = source;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, sources, positions);
+        }
+
+        int capacity = Math.min(limit, 1024);
+        long[] postIds = new long[capacity];
+        long[] createdAt = new long[capacity];
+        int size = 0;
+
+        while (size < limit && heapSize > 0) {
+            int source = heap[0];
+            if (size == capacity) {
+                capacity = (int) Math.min((long) capacity * 2, limit);
+                postIds = Arrays.copyOf(postIds, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+            }
+            postIds[size] = sources[source].postIdAt(positions[source]);
+            createdAt[size] = sources[source].createdAtAt(positions[source]);
+            size++;
+            positions[source]++;
+
+            if (positions[source] == sources[source].size() && !sources[source].isComplete()) {
+                refill(source, authors, sources, positions, cursor, limit - size);
+            }
+            if (positions[source] == sources[source].size()) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, sources, positions);
+        }
+
+        return new TimelineWindow(
+                Arrays.copyOf(postIds, size),
+                Arrays.copyOf(createdAt, size),
+                heapSize == 0
+        );
+    }
+
+    /**
+     * Дочитывает из базы данных следующие посты автора, окно которого исчерпано.
+     * @param source позиция автора в слиянии.
+     * @param authors идентификаторы авторов.
+     * @param sources окна постов авторов.
+     * @param positions текущие позиции в окнах.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param remaining количество постов, которое ещё требуется получить.
+     */
+    private void refill(int source, long[] authors, TimelineWindow[] sources, int[] positions,
+                        FeedCursor cursor, int remaining) {
+        TimelineWindow window = sources[source];
+        if (remaining <= 0 || window.size() == 0) {
+            return;
+        }
+
+        // Чтение продолжается с более старой из двух позиций: последнего поста окна или курсора.
+        int last = window.size() - 1;
+        long afterId = window.postIdAt(last);
+        long afterCreatedAt = window.createdAtAt(last);
+        if (cursor != null && TimelineWindow.isAfter(afterId, afterCreatedAt, cursor.getPostId(), cursor.getCreatedAt())) {
+            afterId = cursor.getPostId();
+            afterCreatedAt = cursor.getCreatedAt();
+        }
+
+        int chunkSize = Math.max(authorWindowSize, Math.min(remaining, MAX_CHUNK_SIZE));
+        List<PostRef> posts = postRepository.findPostRefPageByUserIdInAfter(
+                List.of(authors[source]), new FeedCursor(afterId, afterCreatedAt).getCreatedAtTimestamp(), afterId, chunkSize
+        );
+        sources[source] = toWindow(posts, chunkSize);
+        positions[source] = 0;
+    }
+
+    /**
+     * Восстанавливает свойство кучи, опуская элемент с заданной позиции.
+     * @param heap куча позиций авторов.
+     * @param heapSize количество элементов в куче.
+     * @param index позиция опускаемого элемента.
+     * @param sources окна постов авторов.
+     * @param positions текущие позиции в окнах.
+     */
+    private static void siftDown(int[] heap, int heapSize, int index, TimelineWindow[] sources, int[] positions) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int newest = left;
+            int right = left + 1;
+            if (right < heapSize && isNewer(heap[right], heap[left], sources, positions)) {
+                newest = right;
+            }
+            if (!isNewer(heap[newest], heap[index], sources, positions)) {
+                return;
+            }
+            int swap = heap[index];
+            heap[index] = heap[newest];
+            heap[newest] = swap;
+            index = newest;
+        }
+    }
+
+    /**
+     * Проверяет, что текущий пост первого автора новее текущего поста второго автора.
+     * @param first позиция первого автора.
+     * @param second позиция второго автора.
+     * @param sources окна постов авторов.
+     * @param positions текущие позиции в окнах.
+     * @return true, если пост первого автора новее.
+     */
+    private static boolean isNewer(int first, int second, TimelineWindow[] sources, int[] positions) {
+        return TimelineWindow.isAfter(
+                sources[first].postIdAt(positions[first]), sources[first].createdAtAt(positions[first]),
+                sources[second].postIdAt(positions[second]), sources[second].createdAtAt(positions[second])
+        );
+    }
+
+    /**
+     * Загружает из базы данных окна последних постов авторов, отсутствующих в памяти, одним запросом.
+     * @param authorIds идентификаторы авторов.
+     * @return окна постов авторов.
+     */
+    private Map<Long, TimelineWindow> loadWindows(Set<? extends Long> authorIds) {
+        Map<Long, List<PostRef>> postsByAuthor = new HashMap<>();
+        for (AuthorPostRef post : postRepository.findRecentPostRefsByUserIdIn(new ArrayList<>(authorIds), authorWindowSize)) {
+            postsByAuthor.computeIfAbsent(post.getUserId(), authorId -> new ArrayList<>()).add(post);
+        }
+
+        Map<Long, TimelineWindow> result = new HashMap<>();
+        for (Long authorId : authorIds) {
+            List<PostRef> posts = postsByAuthor.get(authorId);
+            if (posts == null) {
+                result.put(authorId, EMPTY_WINDOW);
+                continue;
+            }
+            posts.sort(NEWEST_FIRST);
+            result.put(authorId, toWindow(posts, authorWindowSize));
+        }
+        log.info("IN loadWindows - загружены окна последних постов {} авторов", authorIds.size());
+        return result;
+    }
+
+    /**
+     * Преобразует список проекций постов к окну.
+     * @param posts проекции постов, отсортированные от новых к старым.
+     * @param limit запрошенное количество постов.
+     * @return окно постов.
+     */
+    private TimelineWindow toWindow(List<? extends PostRef> posts, int limit) {
+        long[] postIds = new long[posts.size()];
+        long[] createdAt = new long[posts.size()];
+        for (int i = 0; i < posts.size(); i++) {
+            postIds[i] = posts.get(i).getId();
+            createdAt[i] = FeedCursor.toMicros(posts.get(i).getCreatedAt());
+        }
+        return new TimelineWindow(postIds, createdAt, posts.size() < limit);
+    }
+
+    /**
+     * Преобразует массив идентификаторов к списку.
+     * @param postIds массив идентификаторов.
+     * @return список идентификаторов.
+     */
+    private List<Long> toList(long[] postIds) {
+        List<Long> result = new ArrayList<>(postIds.length);
+        for (long postId : postIds) {
+            result.add(postId);
+        }
+        return result;
+    }
+}
@@ -2,16 +2,21 @@ package ru.averkiev.socialmediaapi.services.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.averkiev.socialmediaapi.exceptions.AuthException;
 import ru.averkiev.socialmediaapi.exceptions.MessageNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.SearchException;
 import ru.averkiev.socialmediaapi.exceptions.UserNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.VersionConflictException;
 import ru.averkiev.socialmediaapi.models.Message;
 import ru.averkiev.socialmediaapi.models.MessageDTO;
 import ru.averkiev.socialmediaapi.models.User;
 import ru.averkiev.socialmediaapi.models.UserDTO;
 import ru.averkiev.socialmediaapi.repositories.MessageRepository;
 import ru.averkiev.socialmediaapi.services.MessageService;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -19,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Класс реализует функциональность для сообщений пользователей, таких как создание, редактирование, удаление и
@@ -30,6 +36,9 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
 
+    /** Ключ списка собеседников пользователя в кэше. */
+    private static final String CONVERSATIONS_KEY = "conversations";
+
     /** Репозиторий для взаимодействия с базой данных. */
     private final MessageRepository messageRepository;
 
@@ -39,6 +48,15 @@ public class MessageServiceImpl implements MessageService {
     /** Сервис для взаимодействия с аутентификацией пользователей. */
     private final AuthServiceImpl authService;
 
+    /** Компонент для потокового чтения результатов запросов. */
+    private final ResultStreamer resultStreamer;
+
+    /** Сервис для кэширования данных, отображаемых пользователю. */
+    private final FeedCacheServiceImpl feedCacheService;
+
+    /** Сервис полнотекстового поиска. */
+    private final SearchServiceImpl searchService;
+
     /**
      * Позволяет создать сообщение.
      * @param messageDTO DTO сообщения с данными о пользователях и контенте.
@@ -54,21 +72,31 @@ public class MessageServiceImpl implements MessageService {
         message.setContent(messageDTO.getContent());
 
         // Сохранение сообщения в базе данных.
-        messageDTO.setContent(messageRepository.save(message).getContent());
+        message = messageRepository.save(message);
+        messageDTO.setId(message.getId());
+        messageDTO.setContent(message.getContent());
+        messageDTO.setVersion(message.getVersion());
+        searchService.indexMessage(message);
+        feedCacheService.invalidatePage(message.getSender().getId(), CONVERSATIONS_KEY);
+        feedCacheService.invalidatePage(message.getReceiver().getId(), CONVERSATIONS_KEY);
         log.info("IN createMessage - сообщение от пользователя: " + message.getSender().getUsername() + " к пользователю " + message.getReceiver().getUsername() + " успешно создано");
         return messageDTO;
     }
 
     /**
-     * Позволяет отредактировать текст сообщения.
+     * Позволяет отредактировать текст сообщения. Текст изменяется одним запросом с условием на версию сообщения:
+     * если сообщение изменено после получения переданной версии, редактирование отклоняется.
+     * Если версия не передана, используется версия, прочитанная при проверке прав.
      * @param messageId идентификатор сообщения.
      * @param editContent отредактированный контент сообщения.
+     * @param version версия сообщения, по которой выполнено редактирование, или null.
      * @return DTO отредактированного сообщения.
      * @throws MessageNotFoundException выбрасывает, если сообщение не найдено.
      * @throws AuthException выбрасывает, если недостаточно прав для редактирования сообщения.
+     * @throws VersionConflictException выбрасывает, если сообщение изменено после получения версии.
      */
     @Override
-    public MessageDTO editMessage(Long messageId, String editContent) throws MessageNotFoundException, AuthException {
+    public MessageDTO editMessage(Long messageId, String editContent, Long version) throws MessageNotFoundException, AuthException, VersionConflictException {
 
         Message message = messageRepository.findById(messageId).orElse(null);
         if (message == null) {
@@ -81,14 +109,23 @@ public class MessageServiceImpl implements MessageService {
             throw new AuthException("Недостаточно прав для редактирования сообщения.");
         }
 
+        Long expectedVersion = version != null ? version : message.getVersion();
+        if (messageRepository.updateContentIfVersion(messageId, editContent, expectedVersion) == 0) {
+            log.error("IN editMessage - версия: {} сообщения с идентификатором: {} устарела", expectedVersion, messageId);
+            throw new VersionConflictException("Сообщение с идентификатором: " + messageId + " было изменено или удалено, получите его снова и повторите изменение");
+        }
+
+        // Прочитанный объект отсоединён от контекста персистентности и дополняется изменёнными данными без повторного чтения.
         message.setContent(editContent);
-        message = messageRepository.save(message);
+        message.setVersion(expectedVersion + 1);
+        searchService.indexMessage(message);
 
         MessageDTO messageDTO = new MessageDTO();
         messageDTO.setId(message.getId());
         messageDTO.setSenderId(message.getSender().getId());
         messageDTO.setReceiverId(message.getReceiver().getId());
         messageDTO.setContent(message.getContent());
+        messageDTO.setVersion(message.getVersion());
         log.info("IN editMessage - сообщение с идентификатором: {} успешно изменено", message.getId());
         return messageDTO;
     }
@@ -114,6 +151,9 @@ public class MessageServiceImpl implements MessageService {
         }
 
         messageRepository.deleteById(messageId);
+        searchService.deleteMessage(messageId);
+        feedCacheService.invalidatePage(message.getSender().getId(), CONVERSATIONS_KEY);
+        feedCacheService.invalidatePage(message.getReceiver().getId(), CONVERSATIONS_KEY);
         log.info("IN deleteMessage - сообщение с идентификатором: {} успешно удалено", messageId);
     }
 
@@ -142,6 +182,7 @@ public class MessageServiceImpl implements MessageService {
             messageDTO.setSenderId(message.getSender().getId());
             messageDTO.setReceiverId(message.getReceiver().getId());
             messageDTO.setContent(message.getContent());
+            messageDTO.setVersion(message.getVersion());
 
             messageDTOList.add(messageDTO);
         }
@@ -150,6 +191,67 @@ public class MessageServiceImpl implements MessageService {
         return messageDTOList;
     }
 
+    /**
+     * Позволяет получить переписку между авторизованным пользователем и конкретным собеседником в виде последовательности,
+     * читаемой из базы данных по мере отправки ответа. Пользователи проверяются сразу, а чтение сообщений
+     * выполняется при обходе последовательности.
+     * @param interlocutorId идентификатор собеседника.
+     * @return последовательность DTO объектов сообщений между пользователями.
+     * @throws UserNotFoundException выбрасывает, если пользователь не найден.
+     * @throws AuthException выбрасывает, если возникнет ошибка аутентификации пользователя в системе.
+     */
+    @Override
+    public ResultStream<MessageDTO> streamMessagesBetweenUsers(Long interlocutorId) throws UserNotFoundException, AuthException {
+
+        User user = userService.getUserById(authService.getUserIdFromAuthentication());
+        User interlocutor = userService.getUserById(interlocutorId);
+
+        log.info("IN streamMessagesBetweenUsers - потоковое чтение переписки пользователя: {} с собеседником: {}", user.getUsername(), interlocutor.getUsername());
+        return consumer -> resultStreamer.stream(
+                () -> messageRepository.streamMessageDTOsBetweenUsers(user.getId(), interlocutor.getId()),
+                Function.identity(),
+                consumer
+        );
+    }
+
+    /**
+     * Позволяет найти сообщения авторизованного пользователя по тексту запроса с пагинацией страниц.
+     * Поиск выполняется только по перепискам, в которых участвует пользователь.
+     * @param query текст запроса.
+     * @param interlocutorId идентификатор собеседника для поиска в одной переписке или null.
+     * @param pageRequest пагинация запроса.
+     * @return список DTO объектов сообщений, отсортированных по релевантности.
+     * @throws AuthException выбрасывает, если возникнет ошибка аутентификации пользователя в системе.
+     * @throws SearchException выбрасывает, если поисковый индекс недоступен.
+     */
+    @Override
+    public List<MessageDTO> searchMessages(String query, Long interlocutorId, PageRequest pageRequest) throws AuthException, SearchException {
+
+        Long userId = authService.getUserIdFromAuthentication();
+        List<Long> messageIds = searchService.searchMessages(userId, interlocutorId, query, (int) pageRequest.getOffset(), pageRequest.getPageSize());
+        if (messageIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Сообщения упорядочиваются по релевантности, участие пользователя в переписке проверяется повторно по базе данных.
+        Map<Long, MessageDTO> messagesById = new HashMap<>();
+        for (MessageDTO messageDTO : messageRepository.findMessageDTOsByIdIn(messageIds)) {
+            if (userId.equals(messageDTO.getSenderId()) || userId.equals(messageDTO.getReceiverId())) {
+                messagesById.put(messageDTO.getId(), messageDTO);
+            }
+        }
+
+        List<MessageDTO> messageDTOList = new ArrayList<>(messagesById.size());
+        for (Long messageId : messageIds) {
+            MessageDTO messageDTO = messagesById.get(messageId);
+            if (messageDTO != null) {
+                messageDTOList.add(messageDTO);
+            }
+        }
+        log.info("IN searchMessages - по запросу пользователя с идентификатором: {} найдено сообщений: {}", userId, messageDTOList.size());
+        return messageDTOList;
+    }
+
     /**
      * Позволяет получить список собеседников пользователя.
      * @return список DTO объектов содержащих данные на собеседников.
@@ -158,14 +260,37 @@ public class MessageServiceImpl implements MessageService {
     @Override
     public List<UserDTO> getConversationsForUser() throws AuthException {
 
-        User user = userService.getUserById(authService.getUserIdFromAuthentication());
+        Long userId = authService.getUserIdFromAuthentication();
+        return feedCacheService.get(userId, CONVERSATIONS_KEY, () -> loadConversations(userId));
+    }
+
+    /**
+     * Позволяет заранее сформировать список собеседников пользователя и поместить его в кэш.
+     * @param userId идентификатор пользователя.
+     * @throws UserNotFoundException выбрасывает, если пользователь не найден.
+     */
+    @Override
+    public void prewarmConversationsForUser(Long userId) throws UserNotFoundException {
+        feedCacheService.prewarm(userId, CONVERSATIONS_KEY, () -> loadConversations(userId));
+        log.info("IN prewarmConversationsForUser - список собеседников пользователя с идентификатором: {} сформирован заранее", userId);
+    }
+
+    /**
+     * Формирует список собеседников пользователя.
+     * @param userId идентификатор пользователя.
+     * @return список DTO объектов содержащих данные на собеседников.
+     * @throws UserNotFoundException выбрасывает, если пользователь не найден.
+     */
+    private List<UserDTO> loadConversations(Long userId) throws UserNotFoundException {
+
+        User user = userService.getUserById(userId);
 
         List<UserDTO> conversations = new ArrayList<>();
 
         // Получаем список сообщений, отправленных пользователем.
-        List<Message> sentMessages = messageRepository.findAllBySenderOrderByCreatedAtDesc(userService.getUserById(user.getId()));
+        List<Message> sentMessages = messageRepository.findAllBySenderOrderByCreatedAtDesc(user);
         // Получаем список сообщений, полученных пользователем.
-        List<Message> receivedMessages = messageRepository.findAllByReceiverOrderByCreatedAtDesc(userService.getUserById(user.getId()));
+        List<Message> receivedMessages = messageRepository.findAllByReceiverOrderByCreatedAtDesc(user);
 
         Map<User, LocalDateTime> lastMessageByUser = new HashMap<>();
 
@@ -191,7 +316,7 @@ public class MessageServiceImpl implements MessageService {
 
             conversations.add(userDTO);
         }
-        log.info("IN getConversationsForUser - список собеседников пользователя: {} успешно получен", user.getUsername());
+        log.info("IN loadConversations - список собеседников пользователя: {} успешно получен", user.getUsername());
         return conversations;
     }
 }
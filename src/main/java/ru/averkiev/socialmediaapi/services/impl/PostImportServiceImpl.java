@@ -0,0 +1,499 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.averkiev.socialmediaapi.exceptions.AuthException;
+import ru.averkiev.socialmediaapi.exceptions.PostCreationException;
+import ru.averkiev.socialmediaapi.models.Image;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostImportResultDTO;
+import ru.averkiev.socialmediaapi.models.PostImportStatus;
+import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.services.PostImportService;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Класс реализует массовый импорт постов из потока JSONL.
+ * Строки читаются и разбираются по одной, содержимое изображений сразу размещается в хранилище, поэтому в памяти
+ * находятся только метаданные одного пакета постов. Пакет сохраняется в отдельной транзакции пакетными вставками,
+ * после чего посты пакета одним запросом добавляются в ленты подписчиков, а результаты строк пакета передаются клиенту.
+ * Пользователь определяется один раз на весь импорт.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class PostImportServiceImpl implements PostImportService {
+
+    /** Размер буфера чтения потока импорта в символах. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Репозиторий для обращения к базе данных. */
+    private final PostRepository postRepository;
+
+    /** Сервис для взаимодействия с аутентификацией пользователей. */
+    private final AuthServiceImpl authService;
+
+    /** Сервис для взаимодействия с пользователями. */
+    private final UserServiceImpl userService;
+
+    /** Сервис для взаимодействия с лентами активности пользователей. */
+    private final TimelineServiceImpl timelineService;
+
+    /** Стратегия формирования лент слиянием последних постов авторов. */
+    private final MergeFeedAssemblyStrategyImpl mergeFeedStrategy;
+
+    /** Сервис для кэширования страниц лент активности. */
+    private final FeedCacheServiceImpl feedCacheService;
+
+    /** Сервис для хранения в памяти последних постов. */
+    private final RecentPostsServiceImpl recentPostsService;
+
+    /** Сервис полнотекстового поиска. */
+    private final SearchServiceImpl searchService;
+
+    /** Сервис для размещения содержимого изображений в хранилище. */
+    private final ImageStorageServiceImpl imageStorageService;
+
+    /** Сервис для формирования уменьшенных копий изображений. */
+    private final ImageDerivativeServiceImpl imageDerivativeService;
+
+    /** Шаблон транзакции, в которой сохраняется пакет постов. */
+    private final TransactionTemplate transactionTemplate;
+
+    /** Объект для разбора постов из строк потока. */
+    private final ObjectReader postReader;
+
+    /** Количество строк в одном пакете. */
+    private final int batchSize;
+
+    /** Максимальная длина строки потока в символах. */
+    private final int maxLineLength;
+
+    /** Количество созданных постов. */
+    private final Counter createdPosts;
+
+    /** Количество строк, пост из которых не создан. */
+    private final Counter failedPosts;
+
+    /** Время сохранения одного пакета. */
+    private final Timer batchTimer;
+
+    /**
+     * Позволяет создать объект PostImportServiceImpl с заданными параметрами.
+     * @param postRepository репозиторий постов.
+     * @param authService сервис аутентификации.
+     * @param userService сервис пользователей.
+     * @param timelineService сервис лент активности.
+     * @param mergeFeedStrategy стратегия формирования лент слиянием.
+     * @param feedCacheService сервис кэширования страниц лент.
+     * @param recentPostsService сервис последних постов.
+     * @param searchService сервис полнотекстового поиска.
+     * @param imageStorageService сервис хранилища содержимого изображений.
+     * @param imageDerivativeService сервис формирования копий изображений.
+     * @param transactionTemplate шаблон транзакции.
+     * @param objectMapper объект для разбора JSON.
+     * @param meterRegistry реестр метрик.
+     * @param batchSize количество строк в одном пакете.
+     * @param maxLineLength максимальная длина строки потока в символах.
+     */
+    @Autowired
+    public PostImportServiceImpl(PostRepository postRepository,
+                                 AuthServiceImpl authService,
+                                 UserServiceImpl userService,
+                                 TimelineServiceImpl timelineService,
+                                 MergeFeedAssemblyStrategyImpl mergeFeedStrategy,
+                                 FeedCacheServiceImpl feedCacheService,
+                                 RecentPostsServiceImpl recentPostsService,
+                                 SearchServiceImpl searchService,
+                                 ImageStorageServiceImpl imageStorageService,
+                                 ImageDerivativeServiceImpl imageDerivativeService,
+                                 TransactionTemplate transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${post.import.batch-size:500}") int batchSize,
+                                 @Value("${post.import.max-line-length:16777216}") int maxLineLength
+    ) {
+        this.postRepository = postRepository;
+        this.authService = authService;
+        this.userService = userService;
+        this.timelineService = timelineService;
+        this.mergeFeedStrategy = mergeFeedStrategy;
+        this.feedCacheService = feedCacheService;
+        this.recentPostsService = recentPostsService;
+        this.searchService = searchService;
+        this.imageStorageService = imageStorageService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.transactionTemplate = transactionTemplate;
+        this.postReader = objectMapper.readerFor(Post.class);
+        this.batchSize = batchSize;
+        this.maxLineLength = maxLineLength;
+
+        this.createdPosts = Counter.builder("post.import.items")
+                .description("Количество строк импорта постов")
+                .tag("result", "created")
+                .register(meterRegistry);
+        this.failedPosts = Counter.builder("post.import.items")
+                .description("Количество строк импорта постов")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("post.import.batch.latency")
+                .description("Время сохранения пакета импортируемых постов")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Позволяет импортировать посты текущего пользователя из потока в формате JSONL: по одному посту на строку.
+     * Пользователь определяется сразу, а чтение и сохранение постов выполняется при обходе последовательности.
+     * Пустые строки пропускаются.
+     * @param data поток строк с постами.
+     * @return последовательность результатов импорта по одному на каждую непустую строку в порядке строк.
+     * @throws AuthException выбрасывает, если произошла ошибка при получении данных из аутентификации пользователя.
+     */
+    @Override
+    public ResultStream<PostImportResultDTO> importPosts(InputStream data) throws AuthException {
+        User user;
+        try {
+            user = userService.getUserById(authService.getUserIdFromAuthentication());
+        } catch (Exception ex) {
+            log.error("IN importPosts - импорт постов начать не удалось");
+            throw new AuthException("Ошибка при получении данных об аутентифицированном пользователе");
+        }
+
+        log.info("IN importPosts - импорт постов пользователя с идентификатором: {}", user.getId());
+        return consumer -> importLines(user, data, consumer);
+    }
+
+    /**
+     * Читает строки потока, собирает их в пакеты и сохраняет пакеты по мере заполнения.
+     * @param user автор импортируемых постов.
+     * @param data поток строк с постами.
+     * @param consumer потребитель результатов импорта.
+     */
+    private void importLines(User user, InputStream data, Consumer<? super PostImportResultDTO> consumer) {
+        LineReader reader = new LineReader(new InputStreamReader(data, StandardCharsets.UTF_8), maxLineLength);
+        List<ImportItem> batch = new ArrayList<>(batchSize);
+        long created = 0;
+        long total = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!reader.isTruncated() && line.isBlank()) {
+                    continue;
+                }
+                batch.add(reader.isTruncated()
+                        ? ImportItem.failed(reader.getLineNumber(), "Строка длиннее " + maxLineLength + " символов")
+                        : parse(reader.getLineNumber(), line, user));
+                if (batch.size() >= batchSize) {
+                    created += flush(user, batch, consumer);
+                    total += batch.size();
+                    batch.clear();
+                }
+            }
+            created += flush(user, batch, consumer);
+            total += batch.size();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        log.info("IN importPosts - импорт постов пользователя с идентификатором: {} завершён, создано: {}, с ошибками: {}",
+                user.getId(), created, total - created);
+    }
+
+    /**
+     * Разбирает пост из строки и размещает содержимое его изображений в хранилище.
+     * @param lineNumber номер строки.
+     * @param line строка с постом в формате JSON.
+     * @param user автор поста.
+     * @return элемент пакета с постом или с описанием ошибки.
+     */
+    private ImportItem parse(long lineNumber, String line, User user) {
+        Post post;
+        try {
+            post = postReader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            return ImportItem.failed(lineNumber, "Некорректный JSON: " + ex.getOriginalMessage());
+        }
+        if (post == null) {
+            return ImportItem.failed(lineNumber, "Строка не содержит поста");
+        }
+
+        // Идентификаторы и версия назначаются при сохранении; переданные клиентом значения не используются.
+        post.setId(null);
+        post.setVersion(null);
+        post.setUser(user);
+        try {
+            for (Image image : post.getImages()) {
+                if (image.getImageData() == null) {
+                    throw new PostCreationException("Изображение поста не содержит данных");
+                }
+                image.setId(null);
+                image.setPost(post);
+                imageStorageService.store(image);
+            }
+        } catch (Exception ex) {
+            releaseImages(post);
+            return ImportItem.failed(lineNumber, ex.getMessage());
+        }
+        return new ImportItem(lineNumber, post, null);
+    }
+
+    /**
+     * Сохраняет посты пакета в одной транзакции и передаёт потребителю результаты строк пакета в порядке строк.
+     * Если транзакция пакета откатывается, посты сохраняются по одному, чтобы определить строки с ошибками.
+     * @param user автор постов.
+     * @param batch элементы пакета.
+     * @param consumer потребитель результатов импорта.
+     * @return количество созданных постов.
+     */
+    private int flush(User user, List<ImportItem> batch, Consumer<? super PostImportResultDTO> consumer) {
+        List<Post> posts = batch.stream().filter(item -> item.post != null).map(item -> item.post).toList();
+        if (!posts.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> postRepository.saveAll(posts));
+            } catch (Exception ex) {
+                log.warn("IN flush - пакет из {} постов не сохранён, посты сохраняются по одному", posts.size(), ex);
+                for (ImportItem item : batch) {
+                    if (item.post != null) {
+                        saveOne(item);
+                    }
+                }
+            }
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            afterCommit(user, batch.stream().filter(item -> item.post != null).map(item -> item.post).toList());
+        }
+
+        int created = 0;
+        for (ImportItem item : batch) {
+            if (item.post != null) {
+                created++;
+                consumer.accept(new PostImportResultDTO(item.line, PostImportStatus.CREATED, item.post.getId(), null));
+            } else {
+                consumer.accept(new PostImportResultDTO(item.line, PostImportStatus.FAILED, null, item.error));
+            }
+        }
+        createdPosts.increment(created);
+        failedPosts.increment(batch.size() - created);
+        return created;
+    }
+
+    /**
+     * Сохраняет пост в отдельной транзакции. При ошибке содержимое изображений поста освобождается,
+     * а элемент пакета помечается ошибкой.
+     * @param item элемент пакета.
+     */
+    private void saveOne(ImportItem item) {
+        // Идентификаторы и версия, выданные в откатившейся транзакции, сбрасываются, чтобы пост сохранялся как новый.
+        item.post.setId(null);
+        item.post.setVersion(null);
+        item.post.getImages().forEach(image -> image.setId(null));
+        try {
+            transactionTemplate.executeWithoutResult(status -> postRepository.save(item.post));
+        } catch (Exception ex) {
+            log.error("IN saveOne - пост из строки: {} не сохранён", item.line, ex);
+            releaseImages(item.post);
+            item.post = null;
+            item.error = "Ошибка при сохранении поста";
+        }
+    }
+
+    /**
+     * Ставит изображения созданных постов в очередь формирования копий, добавляет посты в ленты подписчиков
+     * и сбрасывает кэш лент. Посты уже сохранены, поэтому ошибка на этом шаге не меняет результатов импорта.
+     * @param user автор постов.
+     * @param posts созданные посты.
+     */
+    private void afterCommit(User user, List<Post> posts) {
+        if (posts.isEmpty()) {
+            return;
+        }
+        try {
+            imageDerivativeService.enqueueAll(posts.stream().flatMap(post -> post.getImages().stream()).toList());
+            timelineService.fanOutAll(user.getId(), posts);
+            posts.forEach(mergeFeedStrategy::onPostCreated);
+            posts.forEach(recentPostsService::onPostCreated);
+            posts.forEach(searchService::indexPost);
+            feedCacheService.invalidateFollowers(user.getId());
+        } catch (Exception ex) {
+            log.error("IN afterCommit - посты пользователя с идентификатором: {} не добавлены в ленты", user.getId(), ex);
+        }
+    }
+
+    /**
+     * Освобождает содержимое изображений поста, уже размещённое в хранилище.
+     * @param post пост.
+     */
+    private void releaseImages(Post post) {
+        for (Image image : post.getImages()) {
+            imageStorageService.release(image.getBlobKey());
+        }
+    }
+
+    /**
+     * Элемент пакета импорта: пост, готовый к сохранению, либо описание ошибки.
+     */
+    private static final class ImportItem {
+
+        /** Номер строки потока импорта. */
+        private final long line;
+
+        /** Пост или null, если пост не будет создан. */
+        private Post post;
+
+        /** Описание ошибки или null. */
+        private String error;
+
+        /**
+         * Позволяет создать элемент пакета.
+         * @param line номер строки.
+         * @param post пост или null.
+         * @param error описание ошибки или null.
+         */
+        private ImportItem(long line, Post post, String error) {
+            this.line = line;
+            this.post = post;
+            this.error = error;
+        }
+
+        /**
+         * Создаёт элемент пакета с ошибкой.
+         * @param line номер строки.
+         * @param error описание ошибки.
+         * @return элемент пакета.
+         */
+        private static ImportItem failed(long line, String error) {
+            return new ImportItem(line, null, error);
+        }
+    }
+
+    /**
+     * Чтение строк с ограничением длины. Строка длиннее допустимой не накапливается в памяти: её остаток
+     * пропускается, а строка помечается как обрезанная.
+     */
+    static final class LineReader {
+
+        /** Источник символов. */
+        private final Reader in;
+
+        /** Максимальная длина строки. */
+        private final int maxLength;
+
+        /** Буфер чтения. */
+        private final char[] buffer = new char[BUFFER_SIZE];
+
+        /** Текущая строка. */
+        private final StringBuilder line = new StringBuilder();
+
+        /** Позиция следующего символа в буфере. */
+        private int position;
+
+        /** Количество символов в буфере. */
+        private int limit;
+
+        /** Номер последней прочитанной строки. */
+        private long lineNumber;
+
+        /** Признак того, что последняя прочитанная строка длиннее допустимой. */
+        private boolean truncated;
+
+        /**
+         * Позволяет создать объект LineReader.
+         * @param in источник символов.
+         * @param maxLength максимальная длина строки.
+         */
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Читает следующую строку без символов перевода строки.
+         * @return строка, её начало, если строка длиннее допустимой, или null в конце потока.
+         * @throws IOException выбрасывает, если поток не удалось прочитать.
+         */
+        String readLine() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (!read) {
+                            return null;
+                        }
+                        break;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position);
+                if (position < limit) {
+                    position++;
+                    break;
+                }
+            }
+            lineNumber++;
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(length - 1);
+            }
+            return line.toString();
+        }
+
+        /**
+         * Добавляет часть буфера к текущей строке, не превышая допустимой длины.
+         * @param start начало части.
+         * @param end конец части.
+         */
+        private void append(int start, int end) {
+            int free = maxLength - line.length();
+            if (end - start > free) {
+                truncated = true;
+                end = start + Math.max(free, 0);
+            }
+            line.append(buffer, start, end - start);
+        }
+
+        /**
+         * Возвращает номер последней прочитанной строки, начиная с 1.
+         * @return номер строки.
+         */
+        long getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Проверяет, была ли последняя прочитанная строка длиннее допустимой.
+         * @return true, если строка обрезана.
+         */
+        boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
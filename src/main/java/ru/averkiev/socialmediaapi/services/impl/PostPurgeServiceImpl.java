@@ -0,0 +1,214 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.averkiev.socialmediaapi.repositories.ImageRepository;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.services.PostPurgeService;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс реализует фоновую очистку постов и изображений, помеченных на удаление.
+ * Очистка выполняется только во временном окне наименьшей нагрузки небольшими порциями, каждая в отдельной
+ * короткой транзакции, с паузой между порциями. Строки порции блокируются с пропуском уже заблокированных,
+ * поэтому несколько экземпляров приложения не удаляют одни и те же строки и не освобождают ссылки на содержимое дважды.
+ * Содержимое изображений, на которое не осталось ссылок, удаляется очисткой хранилища.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class PostPurgeServiceImpl implements PostPurgeService {
+
+    /** Репозиторий постов. */
+    private final PostRepository postRepository;
+
+    /** Репозиторий изображений. */
+    private final ImageRepository imageRepository;
+
+    /** Сервис для освобождения ссылок на содержимое изображений. */
+    private final ImageStorageServiceImpl imageStorageService;
+
+    /** Шаблон транзакции, в которой удаляется одна порция строк. */
+    private final TransactionTemplate transactionTemplate;
+
+    /** Начало окна очистки. */
+    private final LocalTime windowStart;
+
+    /** Конец окна очистки. */
+    private final LocalTime windowEnd;
+
+    /** Количество постов или изображений в одной порции. */
+    private final int batchSize;
+
+    /** Пауза между порциями, миллисекунды. */
+    private final long pauseMillis;
+
+    /** Интервал проверки наступления окна очистки, секунды. */
+    private final long intervalSeconds;
+
+    /** Поток очистки. */
+    private final ScheduledExecutorService purger;
+
+    /** Количество удалённых постов. */
+    private final Counter purgedPosts;
+
+    /** Количество удалённых изображений. */
+    private final Counter purgedImages;
+
+    /**
+     * Позволяет создать объект PostPurgeServiceImpl с заданными параметрами.
+     * @param postRepository репозиторий постов.
+     * @param imageRepository репозиторий изображений.
+     * @param imageStorageService сервис хранилища содержимого изображений.
+     * @param transactionTemplate шаблон транзакции.
+     * @param meterRegistry реестр метрик.
+     * @param windowStart начало окна очистки в формате ЧЧ:ММ.
+     * @param windowEnd конец окна очистки в формате ЧЧ:ММ.
+     * @param batchSize количество постов или изображений в одной порции.
+     * @param pauseMillis пауза между порциями, миллисекунды.
+     * @param intervalSeconds интервал проверки наступления окна очистки, секунды.
+     */
+    @Autowired
+    public PostPurgeServiceImpl(PostRepository postRepository,
+                                ImageRepository imageRepository,
+                                ImageStorageServiceImpl imageStorageService,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${post.purge.window-start:01:00}") String windowStart,
+                                @Value("${post.purge.window-end:06:00}") String windowEnd,
+                                @Value("${post.purge.batch-size:100}") int batchSize,
+                                @Value("${post.purge.pause-millis:500}") long pauseMillis,
+                                @Value("${post.purge.interval-seconds:300}") long intervalSeconds
+    ) {
+        this.postRepository = postRepository;
+        this.imageRepository = imageRepository;
+        this.imageStorageService = imageStorageService;
+        this.transactionTemplate = transactionTemplate;
+        this.windowStart = LocalTime.parse(windowStart);
+        this.windowEnd = LocalTime.parse(windowEnd);
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.intervalSeconds = intervalSeconds;
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.purgedPosts = Counter.builder("post.purge.rows")
+                .description("Количество строк, удалённых очисткой")
+                .tag("table", "posts")
+                .register(meterRegistry);
+        this.purgedImages = Counter.builder("post.purge.rows")
+                .description("Количество строк, удалённых очисткой")
+                .tag("table", "images")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Запускает периодическую очистку после запуска приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        purger.scheduleWithFixedDelay(this::purgeDeleted, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Останавливает очистку при завершении работы приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    /**
+     * Удаляет из базы данных одну порцию изображений и одну порцию постов, помеченных на удаление,
+     * и освобождает ссылки на их содержимое и содержимое их уменьшенных копий.
+     * Каждая порция удаляется в отдельной транзакции вместе с освобождением ссылок.
+     * @return количество удалённых строк постов и изображений.
+     */
+    @Override
+    public int purgeBatch() {
+        Integer images = transactionTemplate.execute(status -> {
+            List<Long> ids = imageRepository.lockDeletedIds(batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<String> blobKeys = imageRepository.findBlobKeysByIdIn(ids);
+            int purged = imageRepository.purgeByIdIn(ids);
+            blobKeys.forEach(imageStorageService::release);
+            return purged;
+        });
+
+        // Изображения постов, оставшиеся после очистки изображений, удаляются вместе с постами.
+        Integer posts = transactionTemplate.execute(status -> {
+            List<Long> ids = postRepository.lockDeletedIds(batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            List<String> blobKeys = imageRepository.findBlobKeysByPostIdIn(ids);
+            int purged = postRepository.purgeByIdIn(ids);
+            blobKeys.forEach(imageStorageService::release);
+            return purged;
+        });
+
+        purgedImages.increment(images == null ? 0 : images);
+        purgedPosts.increment(posts == null ? 0 : posts);
+        return (images == null ? 0 : images) + (posts == null ? 0 : posts);
+    }
+
+    /**
+     * Проверяет, попадает ли время во временное окно очистки. Окно может переходить через полночь,
+     * а совпадающие начало и конец означают, что очистка разрешена в любое время.
+     * @param time время суток.
+     * @return true, если очистка в это время разрешена.
+     */
+    @Override
+    public boolean isPurgeWindow(LocalTime time) {
+        if (windowStart.equals(windowEnd)) {
+            return true;
+        }
+        if (windowStart.isBefore(windowEnd)) {
+            return !time.isBefore(windowStart) && time.isBefore(windowEnd);
+        }
+        return !time.isBefore(windowStart) || time.isBefore(windowEnd);
+    }
+
+    /**
+     * Удаляет порции постов и изображений, помеченных на удаление, пока они есть и не закончилось окно очистки.
+     */
+    private void purgeDeleted() {
+        long start = System.currentTimeMillis();
+        int purged = 0;
+        try {
+            while (isPurgeWindow(LocalTime.now())) {
+                int rows = purgeBatch();
+                if (rows == 0) {
+                    break;
+                }
+                purged += rows;
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log.warn("IN purgeDeleted - ошибка при очистке удалённых постов", ex);
+        }
+        if (purged > 0) {
+            log.info("IN purgeDeleted - удалено строк постов и изображений: {}, время: {} мс", purged, System.currentTimeMillis() - start);
+        }
+    }
+}
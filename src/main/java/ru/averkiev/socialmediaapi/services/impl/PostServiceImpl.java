@@ -3,18 +3,33 @@ package ru.averkiev.socialmediaapi.services.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.averkiev.socialmediaapi.exceptions.AuthException;
 import ru.averkiev.socialmediaapi.exceptions.ImageNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.ImageTooLargeException;
 import ru.averkiev.socialmediaapi.exceptions.PostCreationException;
 import ru.averkiev.socialmediaapi.exceptions.PostNotFoundException;
+import ru.averkiev.socialmediaapi.exceptions.SearchException;
+import ru.averkiev.socialmediaapi.exceptions.VersionConflictException;
+import ru.averkiev.socialmediaapi.models.FeedPostRow;
 import ru.averkiev.socialmediaapi.models.Image;
+import ru.averkiev.socialmediaapi.models.ImagePreviewDTO;
 import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostDTO;
 import ru.averkiev.socialmediaapi.repositories.ImageRepository;
 import ru.averkiev.socialmediaapi.repositories.PostRepository;
 import ru.averkiev.socialmediaapi.services.PostService;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
 
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Класс реализует функционал взаимодействия пользователя с постом.
@@ -26,6 +41,9 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
+    /** Количество постов, данные которых читаются одним запросом при выдаче списка всех постов. */
+    private static final int POST_DTO_BATCH_SIZE = 1000;
+
     /** Репозиторий для обращения к базе данных. */
     private final PostRepository postRepository;
 
@@ -38,6 +56,33 @@ public class PostServiceImpl implements PostService {
     /** Сервис для взаимодействия с пользователями. */
     private final UserServiceImpl userService;
 
+    /** Сервис для взаимодействия с лентами активности пользователей. */
+    private final TimelineServiceImpl timelineService;
+
+    /** Стратегия формирования лент слиянием последних постов авторов. */
+    private final MergeFeedAssemblyStrategyImpl mergeFeedStrategy;
+
+    /** Сервис для кэширования страниц лент активности. */
+    private final FeedCacheServiceImpl feedCacheService;
+
+    /** Компонент для потокового чтения результатов запросов. */
+    private final ResultStreamer resultStreamer;
+
+    /** Сервис для размещения содержимого изображений в хранилище. */
+    private final ImageStorageServiceImpl imageStorageService;
+
+    /** Сервис для формирования уменьшенных копий изображений. */
+    private final ImageDerivativeServiceImpl imageDerivativeService;
+
+    /** Сервис для хранения в памяти последних постов. */
+    private final RecentPostsServiceImpl recentPostsService;
+
+    /** Сервис полнотекстового поиска. */
+    private final SearchServiceImpl searchService;
+
+    /** Шаблон транзакции, в которой пост сохраняется вместе с изображениями. */
+    private final TransactionTemplate transactionTemplate;
+
     /**
      * Позволяет создать пост.
      * @param post создаваемый пост.
@@ -48,20 +93,43 @@ public class PostServiceImpl implements PostService {
     @Override
     public Post createPost(Post post) throws PostCreationException, AuthException {
 
+        // Версия нового поста назначается при сохранении, переданное клиентом значение не используется.
         post.setUser(userService.getUserById(authService.getUserIdFromAuthentication()));
+        post.setVersion(null);
+
+        // Привязка изображений к посту и размещение их содержимого в хранилище.
+        for (Image image : post.getImages()) {
+            image.setPost(post);
+        }
+        List<String> blobKeys = storeImages(post.getImages());
 
+        // Пост и изображения сохраняются в одной транзакции: если она откатывается,
+        // ссылки на содержимое изображений освобождаются.
+        Post newPost = post;
         try {
-            post = postRepository.save(post);
+            post = transactionTemplate.execute(status -> {
+                Post saved = postRepository.save(newPost);
+                if (!saved.getImages().isEmpty()) {
+                    imageDerivativeService.enqueueAll(imageRepository.saveAll(saved.getImages()));
+                }
+                return saved;
+            });
             log.info("IN createPost - пост пользователя с идентификатором: {} успешно создан", post.getUser().getId());
-
             if (!post.getImages().isEmpty()) {
-                imageRepository.saveAll(post.getImages());
                 log.info("IN createPost - изображения к посту с идентификатором: {} успешно сохранены", post.getId());
             }
-            return post;
         } catch (Exception ex) {
+            releaseImages(blobKeys);
             throw new PostCreationException("Ошибка при создании поста.");
         }
+
+        // Добавление поста в ленты подписчиков.
+        timelineService.fanOut(post);
+        mergeFeedStrategy.onPostCreated(post);
+        recentPostsService.onPostCreated(post);
+        searchService.indexPost(post);
+        feedCacheService.invalidateFollowers(post.getUser().getId());
+        return post;
     }
 
     /**
@@ -74,6 +142,105 @@ public class PostServiceImpl implements PostService {
     @Override
     public void addImage(Long postId, Image image) throws AuthException, PostNotFoundException {
 
+        // Привязка изображения к конкретному посту и размещение его содержимого в хранилище.
+        Post savePost = getPostForImageUpload(postId);
+        image.setPost(savePost);
+        List<String> blobKeys = storeImages(List.of(image));
+
+        // Сохранение изображения в базе данных и постановка в очередь формирования его копий.
+        try {
+            image = imageRepository.save(image);
+        } catch (RuntimeException ex) {
+            releaseImages(blobKeys);
+            throw ex;
+        }
+        imageDerivativeService.enqueue(image);
+        recentPostsService.onImageAdded(postId, image.getId());
+        feedCacheService.invalidateFollowers(savePost.getUser().getId());
+
+        log.info("IN addImage - изображение к посту с идентификатором: {} успешно добавлено", postId);
+
+    }
+
+    /**
+     * Позволяет прикрепить к посту изображение, содержимое которого читается из потока.
+     * Права проверяются до чтения содержимого, а само содержимое передаётся в хранилище по мере получения.
+     * @param postId идентификатор поста к которому добавляется изображение.
+     * @param data поток содержимого изображения.
+     * @param declaredSize размер содержимого, заявленный клиентом, или -1, если он неизвестен.
+     * @param mimeType MIME-тип изображения, указанный клиентом, или null.
+     * @return прикреплённое изображение.
+     * @throws AuthException выбрасывает если недостаточно прав для редактирования поста.
+     * @throws PostNotFoundException выбрасывает если пост с заданным идентификатором не удалось найти в базе данных.
+     * @throws ImageTooLargeException выбрасывает, если размер изображения превышает допустимый.
+     */
+    @Override
+    public Image addImage(Long postId, InputStream data, long declaredSize, String mimeType) throws AuthException, PostNotFoundException, ImageTooLargeException {
+
+        Post savePost = getPostForImageUpload(postId);
+
+        // Размещение содержимого в хранилище и привязка изображения к посту.
+        Image image = new Image();
+        image.setPost(savePost);
+        image.setMimeType(mimeType);
+        imageStorageService.store(image, data, declaredSize);
+
+        // Сохранение изображения в базе данных и постановка в очередь формирования его копий.
+        try {
+            image = imageRepository.save(image);
+        } catch (RuntimeException ex) {
+            imageStorageService.release(image.getBlobKey());
+            throw ex;
+        }
+        imageDerivativeService.enqueue(image);
+        recentPostsService.onImageAdded(postId, image.getId());
+        feedCacheService.invalidateFollowers(savePost.getUser().getId());
+
+        log.info("IN addImage - изображение размером: {} байт к посту с идентификатором: {} успешно добавлено", image.getSize(), postId);
+        return image;
+    }
+
+    /**
+     * Размещает содержимое изображений в хранилище. Если содержимое одного из изображений не удалось сохранить,
+     * ссылки на содержимое, полученные для предыдущих изображений, освобождаются.
+     * @param images изображения.
+     * @return ключи содержимого, ссылки на которое получены.
+     */
+    private List<String> storeImages(List<Image> images) {
+        List<String> blobKeys = new ArrayList<>();
+        try {
+            for (Image image : images) {
+                if (image.getImageData() != null) {
+                    imageStorageService.store(image);
+                    blobKeys.add(image.getBlobKey());
+                }
+            }
+        } catch (RuntimeException ex) {
+            releaseImages(blobKeys);
+            throw ex;
+        }
+        return blobKeys;
+    }
+
+    /**
+     * Освобождает ссылки на содержимое изображений, которые не удалось сохранить в базе данных.
+     * @param blobKeys ключи содержимого.
+     */
+    private void releaseImages(List<String> blobKeys) {
+        for (String blobKey : blobKeys) {
+            imageStorageService.release(blobKey);
+        }
+    }
+
+    /**
+     * Выполняет поиск поста, к которому аутентифицированный пользователь прикрепляет изображение.
+     * @param postId идентификатор поста.
+     * @return пост.
+     * @throws AuthException выбрасывает если недостаточно прав для редактирования поста.
+     * @throws PostNotFoundException выбрасывает если пост с заданным идентификатором не удалось найти в базе данных.
+     */
+    private Post getPostForImageUpload(Long postId) throws AuthException, PostNotFoundException {
+
         // Поиск поста, в который необходимо добавить изображение.
         Post savePost = postRepository.findById(postId).orElse(null);
 
@@ -88,15 +255,7 @@ public class PostServiceImpl implements PostService {
             log.error("IN addImage - ошибка при добавлении изображения. Недостаточно прав");
             throw new AuthException("Недостаточно прав для добавления изображения к посту");
         }
-
-        // Привязка изображения к конкретному посту.
-        image.setPost(savePost);
-
-        // Сохранение изображения в базе данных.
-        imageRepository.save(image);
-
-        log.info("IN addImage - изображение к посту с идентификатором: {} успешно добавлено", postId);
-
+        return savePost;
     }
 
     /**
@@ -146,21 +305,48 @@ public class PostServiceImpl implements PostService {
             throw new ImageNotFoundException("К посту с идентификатором: " + savePost.getId() + " не прикреплено ни одного изображения");
         }
 
-        imageRepository.delete(saveImage);
+        // Пометка изображения на удаление, строки и содержимое удаляются фоновой очисткой.
+        imageRepository.markDeleted(imageId);
+        recentPostsService.onImageDeleted(savePost.getId(), imageId);
+        feedCacheService.invalidateFollowers(savePost.getUser().getId());
         log.info("IN deleteImage - изображение с идентификатором: {} успешно удалено", imageId);
 
     }
 
     /**
-     * Позволяет обновить пост.
+     * Позволяет получить изображение, прикреплённое к посту, для выдачи его содержимого.
+     * @param postId идентификатор поста.
+     * @param imageId идентификатор изображения.
+     * @return изображение со ссылкой на содержимое в хранилище.
+     * @throws ImageNotFoundException выбрасывает, если изображение не найдено или не прикреплено к посту.
+     */
+    @Override
+    public Image getImage(Long postId, Long imageId) throws ImageNotFoundException {
+
+        Image image = imageRepository.findById(imageId).orElse(null);
+
+        // Изображение должно быть прикреплено к указанному посту, а его содержимое - размещено в хранилище.
+        if (image == null || !postId.equals(image.getPost().getId()) || image.getBlobKey() == null) {
+            log.error("IN getImage - изображение с идентификатором: {} к посту с идентификатором: {} не найдено", imageId, postId);
+            throw new ImageNotFoundException("Изображение с идентификатором: " + imageId + " не найдено");
+        }
+        return image;
+    }
+
+    /**
+     * Позволяет обновить пост. Заголовок и текст изменяются одним запросом с условием на версию поста: если пост
+     * изменён после получения переданной версии, обновление отклоняется, а параллельные изменения не блокируют друг друга.
+     * Если версия не передана, используется версия, прочитанная при проверке прав.
+     * Новые изображения сохраняются в той же транзакции, что и изменение поста.
      * @param postId идентификатор обновляемого поста.
-     * @param updatedPost пост с новыми данными.
+     * @param updatedPost пост с новыми данными и версией, по которой они подготовлены.
      * @return объект Post с обновленными данными.
      * @throws PostNotFoundException выбрасывает, если пост не найден в базе данных.
      * @throws AuthException выбрасывает, если недостаточно прав.
+     * @throws VersionConflictException выбрасывает, если пост изменён после получения версии.
      */
     @Override
-    public Post updatePost(Long postId, Post updatedPost) throws PostNotFoundException, AuthException {
+    public Post updatePost(Long postId, Post updatedPost) throws PostNotFoundException, AuthException, VersionConflictException {
 
         // Поиск поста в базе данных, для которого требуется обновление.
         Post savePost = postRepository.findById(postId).orElse(null);
@@ -177,21 +363,43 @@ public class PostServiceImpl implements PostService {
             throw new AuthException("Недостаточно прав для редактировании поста");
         }
 
-        if (updatedPost.getTitle() != null) {
-            savePost.setTitle(updatedPost.getTitle());
+        // Содержимое новых изображений размещается в хранилище до изменения поста,
+        // чтобы изменение и сохранение изображений выполнялись в одной транзакции.
+        for (Image image : updatedPost.getImages()) {
+            image.setPost(savePost);
         }
+        List<String> blobKeys = storeImages(updatedPost.getImages());
 
-        if (updatedPost.getText() != null) {
-            savePost.setText(updatedPost.getText());
+        // Изменение поста с проверкой версии и сохранение новых изображений с постановкой их в очередь
+        // формирования копий. Если пост не изменён или транзакция откатывается, ссылки на содержимое освобождаются.
+        Long version = updatedPost.getVersion() != null ? updatedPost.getVersion() : savePost.getVersion();
+        Boolean updated;
+        try {
+            updated = transactionTemplate.execute(status -> {
+                if (postRepository.updateIfVersion(postId, updatedPost.getTitle(), updatedPost.getText(), version) == 0) {
+                    return false;
+                }
+                if (!updatedPost.getImages().isEmpty()) {
+                    imageDerivativeService.enqueueAll(imageRepository.saveAll(updatedPost.getImages()));
+                }
+                return true;
+            });
+        } catch (RuntimeException ex) {
+            releaseImages(blobKeys);
+            throw ex;
         }
-
-        if (!updatedPost.getImages().isEmpty()) {
-            savePost.getImages().addAll(updatedPost.getImages());
+        if (!Boolean.TRUE.equals(updated)) {
+            releaseImages(blobKeys);
+            log.error("IN updatePost - ошибка при редактировании поста. Версия: {} поста с идентификатором: {} устарела", version, postId);
+            throw new VersionConflictException("Пост с идентификатором: " + postId + " был изменён или удалён, получите его снова и повторите изменение");
         }
 
-        // Сохранение обновленного поста в базе данных.
-        savePost = postRepository.save(savePost);
-        log.info("IN updatePost - пост с идентификатором: {} успешно обновлен", postId);
+        savePost = postRepository.findById(postId).orElseThrow(
+                () -> new PostNotFoundException("Пост с идентификатором: " + postId + " не найден"));
+        recentPostsService.onPostUpdated(savePost);
+        searchService.indexPost(savePost);
+        feedCacheService.invalidateFollowers(savePost.getUser().getId());
+        log.info("IN updatePost - пост с идентификатором: {} успешно обновлен до версии: {}", postId, savePost.getVersion());
 
         return savePost;
     }
@@ -220,8 +428,15 @@ public class PostServiceImpl implements PostService {
             throw new AuthException("Недостаточно прав для удаления поста");
         }
 
-        // Удаление объект Post и связанных с ним изображений.
-        postRepository.delete(savePost);
+        // Удаление поста из лент подписчиков.
+        timelineService.retract(savePost);
+
+        // Пометка поста и его изображений на удаление, строки и содержимое удаляются фоновой очисткой.
+        postRepository.markDeleted(savePost.getId());
+        mergeFeedStrategy.onPostDeleted(savePost);
+        recentPostsService.onPostDeleted(savePost.getId());
+        searchService.deletePost(savePost.getId());
+        feedCacheService.invalidateFollowers(savePost.getUser().getId());
         log.info("IN deletePost - пост успешно удален");
 
     }
@@ -269,21 +484,68 @@ public class PostServiceImpl implements PostService {
 
     /**
      * Позволяет получить список всех постов отсортированных по дате создания с пагинацией страниц.
+     * Страницы, целиком попадающие в буфер последних постов, выдаются из памяти, остальные читаются из базы данных.
      * @param pageRequest пагинация запроса.
-     * @return список объектов Post.
+     * @return список объектов PostDTO.
      */
     @Override
-    public List<Post> getAllPostByCreateAt(PageRequest pageRequest) {
-        return postRepository.findAllByOrderByCreatedAtDesc(pageRequest);
+    public List<PostDTO> getAllPostByCreateAt(PageRequest pageRequest) {
+        List<PostDTO> postDTOs = recentPostsService.getPage(pageRequest.getOffset(), pageRequest.getPageSize());
+        if (postDTOs != null) {
+            return postDTOs;
+        }
+        return getPostDTOsByIds(postRepository.findIdsByOrderByCreatedAtDesc(pageRequest));
     }
 
     /**
      * Позволяет получить список всех постов отсортированных по дате создания.
-     * @return список объектов Post.
+     * Если все посты помещаются в буфер последних постов, список выдаётся из памяти, иначе читается из базы данных
+     * частями по {@value #POST_DTO_BATCH_SIZE} постов.
+     * @return список объектов PostDTO.
      */
     @Override
-    public List<Post> getAllPostByCreateAt() {
-        return postRepository.findAllByOrderByCreatedAtDesc();
+    public List<PostDTO> getAllPostByCreateAt() {
+        List<PostDTO> postDTOs = recentPostsService.getAll();
+        if (postDTOs != null) {
+            return postDTOs;
+        }
+
+        List<Long> postIds = postRepository.findIdsByOrderByCreatedAtDesc(Pageable.unpaged());
+        postDTOs = new ArrayList<>(postIds.size());
+        for (int from = 0; from < postIds.size(); from += POST_DTO_BATCH_SIZE) {
+            postDTOs.addAll(getPostDTOsByIds(postIds.subList(from, Math.min(from + POST_DTO_BATCH_SIZE, postIds.size()))));
+        }
+        return postDTOs;
+    }
+
+    /**
+     * Позволяет получить все посты пользователя в виде последовательности, читаемой из базы данных по мере отправки ответа.
+     * Пользователь определяется сразу, а чтение постов выполняется при обходе последовательности.
+     * @return последовательность постов.
+     * @throws AuthException выбрасывает, если произошла ошибка при получении данных из аутентификации пользователя.
+     */
+    @Override
+    public ResultStream<Post> streamAllPostsByUser() throws AuthException {
+        Long userId;
+        try {
+            userId = authService.getUserIdFromAuthentication();
+        } catch (Exception ex) {
+            log.error("IN streamAllPostsByUser - список постов получить не удалось");
+            throw new AuthException("Ошибка при получении данных об аутентифицированном пользователе");
+        }
+
+        log.info("IN streamAllPostsByUser - потоковое чтение постов пользователя с идентификатором: {}", userId);
+        return consumer -> resultStreamer.stream(() -> postRepository.streamAllByUserId(userId), Function.identity(), consumer);
+    }
+
+    /**
+     * Позволяет получить все посты, отсортированные по дате создания, в виде последовательности,
+     * читаемой из базы данных по мере отправки ответа.
+     * @return последовательность постов.
+     */
+    @Override
+    public ResultStream<Post> streamAllPostByCreateAt() {
+        return consumer -> resultStreamer.stream(postRepository::streamAllByOrderByCreatedAtDesc, Function.identity(), consumer);
     }
 
     /**
@@ -306,4 +568,61 @@ public class PostServiceImpl implements PostService {
     public List<Post> getPostByUserIds(List<Long> userIds) {
         return postRepository.findByUserIdInOrderByCreatedAtDesc(userIds);
     }
+
+    /**
+     * Позволяет найти посты по тексту запроса с пагинацией страниц.
+     * @param query текст запроса.
+     * @param pageRequest пагинация запроса.
+     * @return список объектов PostDTO, отсортированных по релевантности.
+     * @throws SearchException выбрасывает, если поисковый индекс недоступен.
+     */
+    @Override
+    public List<PostDTO> searchPosts(String query, PageRequest pageRequest) throws SearchException {
+        List<Long> postIds = searchService.searchPosts(query, (int) pageRequest.getOffset(), pageRequest.getPageSize());
+        log.info("IN searchPosts - по запросу найдено постов: {}", postIds.size());
+        return getPostDTOsByIds(postIds);
+    }
+
+    /**
+     * Позволяет получить данные постов для отображения в ленте по их идентификаторам, сохраняя порядок идентификаторов.
+     * Данные читаются одним запросом проекции без загрузки сущностей постов, пользователей и изображений.
+     * @param postIds список идентификаторов постов.
+     * @return список объектов PostDTO.
+     */
+    @Override
+    public List<PostDTO> getPostDTOsByIds(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Группировка строк проекции по постам, каждая строка содержит одно изображение.
+        Map<Long, PostDTO> postDTOsById = new HashMap<>();
+        for (FeedPostRow row : postRepository.findFeedPostRowsByIdIn(postIds)) {
+            PostDTO postDTO = postDTOsById.computeIfAbsent(row.getPostId(), postId -> {
+                PostDTO dto = new PostDTO();
+                dto.setId(postId);
+                dto.setTitle(row.getTitle());
+                dto.setText(row.getText());
+                dto.setUsername(row.getUsername());
+                return dto;
+            });
+            if (row.getImageId() != null) {
+                postDTO.getImageIds().add(row.getImageId());
+            }
+        }
+
+        // Ссылки на уменьшенные копии изображений, полученные одним запросом для всех постов.
+        Map<Long, ImagePreviewDTO> previews = imageDerivativeService.getPreviews(
+                postDTOsById.values().stream().flatMap(postDTO -> postDTO.getImageIds().stream()).toList());
+
+        List<PostDTO> postDTOs = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            PostDTO postDTO = postDTOsById.get(postId);
+            if (postDTO != null) {
+                postDTO.getImageIds().forEach(imageId -> postDTO.getImagePreviews().add(previews.get(imageId)));
+                postDTOs.add(postDTO);
+            }
+        }
+        return postDTOs;
+    }
 }
@@ -0,0 +1,67 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.averkiev.socialmediaapi.models.FeedCandidate;
+import ru.averkiev.socialmediaapi.services.FeedScorer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс оценивает свежесть постов: оценка поста уменьшается вдвое за каждый период полураспада.
+ * @author mrGreenNV
+ */
+@Component
+public class RecencyFeedScorerImpl implements FeedScorer {
+
+    /** Наименование признака. */
+    public static final String NAME = "recency";
+
+    /** Вес признака в итоговом рейтинге. */
+    private final double weight;
+
+    /** Период полураспада оценки в микросекундах. */
+    private final double halfLifeMicros;
+
+    /**
+     * Позволяет создать объект RecencyFeedScorerImpl с заданными параметрами.
+     * @param weight вес признака.
+     * @param halfLifeMinutes период полураспада оценки в минутах.
+     */
+    @Autowired
+    public RecencyFeedScorerImpl(@Value("${feed.ranking.recency.weight:1.0}") double weight,
+                                 @Value("${feed.ranking.recency.half-life-minutes:360}") long halfLifeMinutes
+    ) {
+        this.weight = weight;
+        this.halfLifeMicros = TimeUnit.MINUTES.toMicros(halfLifeMinutes);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * Вычисляет оценки свежести постов-кандидатов.
+     * @param userId идентификатор владельца ленты.
+     * @param candidates посты-кандидаты, отсортированные по дате создания.
+     * @return оценки в диапазоне от 0 до 1 в порядке следования кандидатов.
+     */
+    @Override
+    public double[] score(Long userId, List<FeedCandidate> candidates) {
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        double[] scores = new double[candidates.size()];
+        for (int i = 0; i < scores.length; i++) {
+            long age = Math.max(0, now - candidates.get(i).getCreatedAt());
+            scores[i] = Math.pow(0.5, age / halfLifeMicros);
+        }
+        return scores;
+    }
+}
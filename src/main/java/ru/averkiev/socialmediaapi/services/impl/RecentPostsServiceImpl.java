@@ -0,0 +1,461 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.models.FeedPostRow;
+import ru.averkiev.socialmediaapi.models.Image;
+import ru.averkiev.socialmediaapi.models.ImagePreviewDTO;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostDTO;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.services.RecentPostsService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+/**
+ * Класс хранит в памяти кольцевой буфер последних опубликованных постов.
+ * Буфер заполняется после запуска приложения и обновляется при создании, изменении и удалении постов.
+ * Чтение и запись выполняются без блокировок: позиция записи выдаётся атомарным счётчиком, а ячейки буфера
+ * заменяются сравнением с обменом. Удалённые посты остаются в буфере пустыми ячейками, поэтому посты буфера всегда
+ * совпадают с началом общей ленты, и страница, целиком попадающая в буфер, выдаётся без обращения к базе данных.
+ * Буфер хранится в памяти одного экземпляра приложения.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class RecentPostsServiceImpl implements RecentPostsService {
+
+    /** Максимальное количество попыток заполнения буфера, если во время заполнения менялись посты. */
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    /** Репозиторий для чтения последних постов. */
+    private final PostRepository postRepository;
+
+    /** Сервис для выбора уменьшенных копий изображений. */
+    private final ImageDerivativeServiceImpl imageDerivativeService;
+
+    /** Максимальное количество постов в буфере. */
+    private final int capacity;
+
+    /** Буфер последних постов или null, пока буфер не заполнен. */
+    private final AtomicReference<Ring> ring = new AtomicReference<>();
+
+    /** Количество изменений постов, используемое для обнаружения изменений во время заполнения буфера. */
+    private final AtomicLong modifications = new AtomicLong();
+
+    /** Количество страниц, выданных из памяти. */
+    private final Counter memoryReads;
+
+    /** Количество страниц, не попавших в буфер. */
+    private final Counter databaseReads;
+
+    /**
+     * Позволяет создать объект RecentPostsServiceImpl с заданными параметрами.
+     * @param postRepository репозиторий постов.
+     * @param imageDerivativeService сервис копий изображений.
+     * @param meterRegistry реестр метрик.
+     * @param capacity максимальное количество постов в буфере.
+     */
+    @Autowired
+    public RecentPostsServiceImpl(PostRepository postRepository,
+                                  ImageDerivativeServiceImpl imageDerivativeService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${post.recent.buffer-size:1000}") int capacity
+    ) {
+        this.postRepository = postRepository;
+        this.imageDerivativeService = imageDerivativeService;
+        this.capacity = capacity;
+        this.memoryReads = Counter.builder("post.recent.reads")
+                .description("Количество страниц общей ленты")
+                .tag("source", "memory")
+                .register(meterRegistry);
+        this.databaseReads = Counter.builder("post.recent.reads")
+                .description("Количество страниц общей ленты")
+                .tag("source", "database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Заполняет буфер последними постами после запуска приложения. Если во время чтения посты создавались
+     * или удалялись, буфер заполняется повторно.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (int attempt = 1; attempt <= MAX_LOAD_ATTEMPTS; attempt++) {
+            long observed = modifications.get();
+            List<Entry> entries = readLatest();
+            Ring loaded = new Ring(capacity, entries.size() < capacity);
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                loaded.append(entries.get(i));
+            }
+            ring.set(loaded);
+            if (modifications.get() == observed) {
+                log.info("IN load - в буфер последних постов загружено постов: {}", entries.size());
+                return;
+            }
+        }
+        log.warn("IN load - посты менялись во время заполнения буфера последних постов");
+    }
+
+    /**
+     * Позволяет получить страницу последних постов из памяти.
+     * @param offset количество пропускаемых постов.
+     * @param limit количество постов на странице.
+     * @return список объектов PostDTO, отсортированный от новых к старым, или null, если страница выходит
+     * за пределы постов, хранящихся в памяти.
+     */
+    @Override
+    public List<PostDTO> getPage(long offset, int limit) {
+        Ring current = ring.get();
+        List<Entry> entries = current == null ? null : current.page(offset, limit);
+        if (entries == null) {
+            databaseReads.increment();
+            return null;
+        }
+        memoryReads.increment();
+        return toDTOs(entries);
+    }
+
+    /**
+     * Позволяет получить все посты из буфера, если буфер содержит все опубликованные посты.
+     * Буфер не может содержать больше записей, чем его размер, поэтому страница на одну запись больше
+     * выдаётся из памяти, только если в буфере находятся все посты.
+     * @return список объектов PostDTO, отсортированный от новых к старым, или null.
+     */
+    @Override
+    public List<PostDTO> getAll() {
+        return getPage(0, capacity + 1);
+    }
+
+    /**
+     * Возвращает максимальное количество постов, хранящихся в памяти.
+     * @return количество постов.
+     */
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Позволяет добавить опубликованный пост в начало буфера.
+     * @param post опубликованный пост.
+     */
+    @Override
+    public void onPostCreated(Post post) {
+        modifications.incrementAndGet();
+        Ring current = ring.get();
+        if (current != null) {
+            current.append(Entry.of(post));
+        }
+    }
+
+    /**
+     * Позволяет обновить заголовок, текст и изображения поста, если он хранится в буфере.
+     * @param post обновлённый пост.
+     */
+    @Override
+    public void onPostUpdated(Post post) {
+        Entry updated = Entry.of(post);
+        update(post.getId(), entry -> updated);
+    }
+
+    /**
+     * Позволяет добавить изображение к посту, если он хранится в буфере.
+     * @param postId идентификатор поста.
+     * @param imageId идентификатор изображения.
+     */
+    @Override
+    public void onImageAdded(Long postId, Long imageId) {
+        update(postId, entry -> {
+            List<Long> imageIds = new ArrayList<>(entry.imageIds);
+            imageIds.add(imageId);
+            return entry.withImageIds(imageIds);
+        });
+    }
+
+    /**
+     * Позволяет открепить изображение от поста, если он хранится в буфере.
+     * @param postId идентификатор поста.
+     * @param imageId идентификатор изображения.
+     */
+    @Override
+    public void onImageDeleted(Long postId, Long imageId) {
+        update(postId, entry -> entry.withImageIds(entry.imageIds.stream().filter(id -> !id.equals(imageId)).toList()));
+    }
+
+    /**
+     * Позволяет исключить удалённый пост из буфера.
+     * @param postId идентификатор удалённого поста.
+     */
+    @Override
+    public void onPostDeleted(Long postId) {
+        update(postId, entry -> null);
+    }
+
+    /**
+     * Заменяет запись поста в буфере.
+     * @param postId идентификатор поста.
+     * @param change функция, возвращающая новую запись или null для удаления поста.
+     */
+    private void update(Long postId, UnaryOperator<Entry> change) {
+        modifications.incrementAndGet();
+        Ring current = ring.get();
+        if (current != null) {
+            current.replace(postId, change);
+        }
+    }
+
+    /**
+     * Читает из базы данных последние посты в количестве, равном размеру буфера.
+     * @return записи постов, отсортированные от новых к старым.
+     */
+    private List<Entry> readLatest() {
+        List<Long> postIds = postRepository.findIdsByOrderByCreatedAtDesc(PageRequest.of(0, capacity));
+        if (postIds.isEmpty()) {
+            return List.of();
+        }
+
+        // Группировка строк проекции по постам, каждая строка содержит одно изображение.
+        Map<Long, Entry> entriesById = new LinkedHashMap<>();
+        for (FeedPostRow row : postRepository.findFeedPostRowsByIdIn(postIds)) {
+            Entry entry = entriesById.computeIfAbsent(row.getPostId(),
+                    postId -> new Entry(postId, row.getTitle(), row.getText(), row.getUsername(), new ArrayList<>()));
+            if (row.getImageId() != null) {
+                entry.imageIds.add(row.getImageId());
+            }
+        }
+        return postIds.stream().map(entriesById::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Формирует DTO постов страницы. Ссылки на уменьшенные копии изображений читаются одним запросом.
+     * @param entries записи постов.
+     * @return список объектов PostDTO.
+     */
+    private List<PostDTO> toDTOs(List<Entry> entries) {
+        Map<Long, ImagePreviewDTO> previews = imageDerivativeService.getPreviews(
+                entries.stream().flatMap(entry -> entry.imageIds.stream()).toList());
+
+        List<PostDTO> postDTOs = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            PostDTO postDTO = new PostDTO();
+            postDTO.setId(entry.id);
+            postDTO.setTitle(entry.title);
+            postDTO.setText(entry.text);
+            postDTO.setUsername(entry.username);
+            postDTO.getImageIds().addAll(entry.imageIds);
+            entry.imageIds.forEach(imageId -> postDTO.getImagePreviews().add(previews.get(imageId)));
+            postDTOs.add(postDTO);
+        }
+        return postDTOs;
+    }
+
+    /**
+     * Неизменяемая запись поста в буфере.
+     */
+    private static final class Entry {
+
+        /** Идентификатор поста. */
+        private final long id;
+
+        /** Заголовок поста. */
+        private final String title;
+
+        /** Текстовая часть поста. */
+        private final String text;
+
+        /** Имя создателя поста. */
+        private final String username;
+
+        /** Идентификаторы изображений к посту. */
+        private final List<Long> imageIds;
+
+        /**
+         * Позволяет создать запись поста.
+         * @param id идентификатор поста.
+         * @param title заголовок поста.
+         * @param text текстовая часть поста.
+         * @param username имя создателя поста.
+         * @param imageIds идентификаторы изображений к посту.
+         */
+        private Entry(long id, String title, String text, String username, List<Long> imageIds) {
+            this.id = id;
+            this.title = title;
+            this.text = text;
+            this.username = username;
+            this.imageIds = imageIds;
+        }
+
+        /**
+         * Создаёт запись по сохранённому посту.
+         * @param post пост.
+         * @return запись поста.
+         */
+        private static Entry of(Post post) {
+            return new Entry(post.getId(), post.getTitle(), post.getText(), post.getUser().getUsername(),
+                    post.getImages().stream().map(Image::getId).filter(Objects::nonNull).toList());
+        }
+
+        /**
+         * Создаёт копию записи с другими изображениями.
+         * @param imageIds идентификаторы изображений.
+         * @return запись поста.
+         */
+        private Entry withImageIds(List<Long> imageIds) {
+            return new Entry(id, title, text, username, List.copyOf(imageIds));
+        }
+    }
+
+    /**
+     * Ячейка буфера: запись поста с порядковым номером. Запись удалённого поста равна null.
+     * @param seq порядковый номер записи.
+     * @param entry запись поста или null.
+     */
+    private record Slot(long seq, Entry entry) {
+    }
+
+    /**
+     * Кольцевой буфер записей постов. Запись с порядковым номером seq хранится в ячейке seq % capacity
+     * и вытесняется записью с номером seq + capacity.
+     */
+    private static final class Ring {
+
+        /** Ячейки буфера. */
+        private final AtomicReferenceArray<Slot> slots;
+
+        /** Порядковый номер следующей записи. */
+        private final AtomicLong head = new AtomicLong();
+
+        /** Признак того, что при заполнении в базе данных было меньше постов, чем вмещает буфер. */
+        private final boolean complete;
+
+        /**
+         * Позволяет создать пустой буфер.
+         * @param capacity количество ячеек.
+         * @param complete true, если буфер содержит все посты.
+         */
+        Ring(int capacity, boolean complete) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.complete = complete;
+        }
+
+        /**
+         * Добавляет запись в начало буфера, если записи этого поста в буфере ещё нет.
+         * @param entry запись поста.
+         */
+        void append(Entry entry) {
+            if (find(entry.id) >= 0) {
+                return;
+            }
+            long seq = head.getAndIncrement();
+            int index = index(seq);
+            Slot slot = new Slot(seq, entry);
+            Slot current;
+            do {
+                current = slots.get(index);
+                if (current != null && current.seq() > seq) {
+                    return;
+                }
+            } while (!slots.compareAndSet(index, current, slot));
+        }
+
+        /**
+         * Заменяет запись поста, если она есть в буфере.
+         * @param postId идентификатор поста.
+         * @param change функция, возвращающая новую запись или null для удаления поста.
+         */
+        void replace(long postId, UnaryOperator<Entry> change) {
+            while (true) {
+                long seq = find(postId);
+                if (seq < 0) {
+                    return;
+                }
+                int index = index(seq);
+                Slot current = slots.get(index);
+                if (current == null || current.seq() != seq || current.entry() == null || current.entry().id != postId) {
+                    continue;
+                }
+                if (slots.compareAndSet(index, current, new Slot(seq, change.apply(current.entry())))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Возвращает записи страницы, если страница целиком находится в буфере.
+         * @param offset количество пропускаемых постов.
+         * @param limit количество постов на странице.
+         * @return записи постов от новых к старым или null.
+         */
+        List<Entry> page(long offset, int limit) {
+            long end = head.get();
+            long start = Math.max(0, end - slots.length());
+            List<Entry> entries = new ArrayList<>(limit);
+            long skipped = 0;
+            for (long seq = end - 1; seq >= start && entries.size() < limit; seq--) {
+                Slot slot = slots.get(index(seq));
+                if (slot == null || slot.seq() < seq) {
+                    // Номер выдан, но запись ещё не опубликована.
+                    continue;
+                }
+                if (slot.seq() > seq) {
+                    // Запись вытеснена более новой: начало буфера сдвинулось во время чтения.
+                    break;
+                }
+                if (slot.entry() == null) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                entries.add(slot.entry());
+            }
+            if (entries.size() == limit || (complete && end <= slots.length())) {
+                return entries;
+            }
+            return null;
+        }
+
+        /**
+         * Выполняет поиск записи поста, начиная с новых.
+         * @param postId идентификатор поста.
+         * @return порядковый номер записи или -1.
+         */
+        private long find(long postId) {
+            long end = head.get();
+            long start = Math.max(0, end - slots.length());
+            for (long seq = end - 1; seq >= start; seq--) {
+                Slot slot = slots.get(index(seq));
+                if (slot != null && slot.seq() == seq && slot.entry() != null && slot.entry().id == postId) {
+                    return seq;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Возвращает индекс ячейки для порядкового номера записи.
+         * @param seq порядковый номер.
+         * @return индекс ячейки.
+         */
+        private int index(long seq) {
+            return (int) (seq % slots.length());
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.exceptions.SearchException;
+import ru.averkiev.socialmediaapi.models.Message;
+import ru.averkiev.socialmediaapi.models.MessageDTO;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostText;
+import ru.averkiev.socialmediaapi.repositories.MessageRepository;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.services.SearchService;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс реализует полнотекстовый поиск по постам и сообщениям с помощью индекса Lucene в локальном каталоге.
+ * Изменения постов и сообщений ставятся в очередь и применяются к индексу одним фоновым потоком в порядке поступления.
+ * Поиск выполняется по снимку индекса, который обновляется с заданным интервалом без фиксации изменений на диске
+ * (near-real-time), а фиксация выполняется реже и при остановке приложения. Если индекс пуст при запуске приложения,
+ * он строится по данным из базы данных. Если очередь заполнена, изменение пропускается; расхождение индекса
+ * с базой данных устраняется перестроением.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class SearchServiceImpl implements SearchService {
+
+    /** Поле с ключом документа, по которому документ обновляется и удаляется. */
+    private static final String KEY = "key";
+
+    /** Поле с типом документа. */
+    private static final String TYPE = "type";
+
+    /** Поле с идентификатором поста или сообщения. */
+    private static final String ID = "id";
+
+    /** Поле с заголовком поста. */
+    private static final String TITLE = "title";
+
+    /** Поле с текстом поста или сообщения. */
+    private static final String TEXT = "text";
+
+    /** Поле с идентификатором участника переписки. */
+    private static final String PARTICIPANT = "participant";
+
+    /** Тип документа поста. */
+    private static final String POST = "post";
+
+    /** Тип документа сообщения. */
+    private static final String MESSAGE = "message";
+
+    /** Веса полей поста при поиске. */
+    private static final Map<String, Float> POST_FIELDS = Map.of(TITLE, 2.0f, TEXT, 1.0f);
+
+    /** Веса полей сообщения при поиске. */
+    private static final Map<String, Float> MESSAGE_FIELDS = Map.of(TEXT, 1.0f);
+
+    /** Репозиторий для чтения постов при перестроении индекса. */
+    private final PostRepository postRepository;
+
+    /** Репозиторий для чтения сообщений при перестроении индекса. */
+    private final MessageRepository messageRepository;
+
+    /** Компонент для потокового чтения результатов запросов. */
+    private final ResultStreamer resultStreamer;
+
+    /** Анализатор текста документов и запросов. */
+    private final Analyzer analyzer = new RussianAnalyzer();
+
+    /** Каталог индекса. */
+    private final Directory directory;
+
+    /** Объект записи в индекс. */
+    private final IndexWriter indexWriter;
+
+    /** Менеджер снимков индекса для поиска. */
+    private final SearcherManager searcherManager;
+
+    /** Поток применения изменений к индексу. */
+    private final ThreadPoolExecutor indexer;
+
+    /** Поток обновления снимка индекса и фиксации изменений. */
+    private final ScheduledExecutorService refresher;
+
+    /** Интервал обновления снимка индекса в миллисекундах. */
+    private final long refreshMillis;
+
+    /** Интервал фиксации изменений индекса на диске в секундах. */
+    private final long commitSeconds;
+
+    /** Максимальное количество результатов поиска с учётом пропущенных. */
+    private final int maxResults;
+
+    /** Признак выполнения перестроения индекса, во время которого снимок не обновляется. */
+    private volatile boolean rebuilding;
+
+    /** Количество изменений, пропущенных из-за заполненной очереди. */
+    private final Counter rejectedUpdates;
+
+    /** Время выполнения поискового запроса. */
+    private final Timer queryTimer;
+
+    /**
+     * Позволяет создать объект SearchServiceImpl с заданными параметрами.
+     * @param postRepository репозиторий постов.
+     * @param messageRepository репозиторий сообщений.
+     * @param resultStreamer компонент потокового чтения.
+     * @param meterRegistry реестр метрик.
+     * @param indexDir каталог индекса.
+     * @param queueCapacity максимальное количество изменений в очереди.
+     * @param refreshMillis интервал обновления снимка индекса в миллисекундах.
+     * @param commitSeconds интервал фиксации изменений индекса на диске в секундах.
+     * @param maxResults максимальное количество результатов поиска с учётом пропущенных.
+     * @throws SearchException выбрасывает, если индекс не удалось открыть.
+     */
+    @Autowired
+    public SearchServiceImpl(PostRepository postRepository,
+                             MessageRepository messageRepository,
+                             ResultStreamer resultStreamer,
+                             MeterRegistry meterRegistry,
+                             @Value("${search.index.dir:search-index}") Path indexDir,
+                             @Value("${search.index.queue-capacity:10000}") int queueCapacity,
+                             @Value("${search.index.refresh-millis:1000}") long refreshMillis,
+                             @Value("${search.index.commit-seconds:30}") long commitSeconds,
+                             @Value("${search.max-results:1000}") int maxResults
+    ) throws SearchException {
+        this.postRepository = postRepository;
+        this.messageRepository = messageRepository;
+        this.resultStreamer = resultStreamer;
+        this.refreshMillis = refreshMillis;
+        this.commitSeconds = commitSeconds;
+        this.maxResults = maxResults;
+
+        try {
+            this.directory = FSDirectory.open(indexDir);
+            this.indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(indexWriter, null);
+        } catch (IOException ex) {
+            throw new SearchException("Ошибка при открытии поискового индекса в каталоге: " + indexDir, ex);
+        }
+
+        this.indexer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "search-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.rejectedUpdates = Counter.builder("search.index.rejected")
+                .description("Количество изменений индекса, пропущенных из-за заполненной очереди")
+                .register(meterRegistry);
+        this.queryTimer = Timer.builder("search.query.latency")
+                .description("Время выполнения поискового запроса")
+                .register(meterRegistry);
+        meterRegistry.gauge("search.index.queue.size", indexer, pool -> pool.getQueue().size());
+    }
+
+    /**
+     * Запускает обновление снимка и фиксацию индекса после запуска приложения.
+     * Если индекс пуст, ставит в очередь его построение по данным из базы данных.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refresher.scheduleWithFixedDelay(this::maybeRefresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        refresher.scheduleWithFixedDelay(this::commit, commitSeconds, commitSeconds, TimeUnit.SECONDS);
+        if (indexWriter.getDocStats().numDocs == 0) {
+            submit(this::rebuildIndex);
+        }
+    }
+
+    /**
+     * Применяет изменения, оставшиеся в очереди, фиксирует их на диске и закрывает индекс
+     * при завершении работы приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+        indexer.shutdown();
+        try {
+            indexer.awaitTermination(10, TimeUnit.SECONDS);
+            searcherManager.close();
+            indexWriter.close();
+            directory.close();
+        } catch (IOException ex) {
+            log.error("IN shutdown - ошибка при закрытии поискового индекса", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Позволяет поставить в очередь добавление или обновление поста в индексе.
+     * @param post сохранённый пост.
+     */
+    @Override
+    public void indexPost(Post post) {
+        Document document = postDocument(post.getId(), post.getTitle(), post.getText());
+        submit(() -> indexWriter.updateDocument(new Term(KEY, key(POST, post.getId())), document));
+    }
+
+    /**
+     * Позволяет поставить в очередь удаление поста из индекса.
+     * @param postId идентификатор поста.
+     */
+    @Override
+    public void deletePost(Long postId) {
+        submit(() -> indexWriter.deleteDocuments(new Term(KEY, key(POST, postId))));
+    }
+
+    /**
+     * Позволяет поставить в очередь добавление или обновление сообщения в индексе.
+     * @param message сохранённое сообщение.
+     */
+    @Override
+    public void indexMessage(Message message) {
+        Document document = messageDocument(message.getId(), message.getSender().getId(),
+                message.getReceiver().getId(), message.getContent());
+        submit(() -> indexWriter.updateDocument(new Term(KEY, key(MESSAGE, message.getId())), document));
+    }
+
+    /**
+     * Позволяет поставить в очередь удаление сообщения из индекса.
+     * @param messageId идентификатор сообщения.
+     */
+    @Override
+    public void deleteMessage(Long messageId) {
+        submit(() -> indexWriter.deleteDocuments(new Term(KEY, key(MESSAGE, messageId))));
+    }
+
+    /**
+     * Позволяет найти посты по тексту запроса. Совпадение в заголовке весит больше совпадения в тексте.
+     * @param query текст запроса.
+     * @param offset количество пропускаемых результатов.
+     * @param limit максимальное количество результатов.
+     * @return идентификаторы постов, отсортированные по релевантности.
+     * @throws SearchException выбрасывает, если индекс не удалось прочитать.
+     */
+    @Override
+    public List<Long> searchPosts(String query, int offset, int limit) throws SearchException {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(parse(query, POST_FIELDS), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(TYPE, POST)), BooleanClause.Occur.FILTER);
+        return search(builder.build(), offset, limit);
+    }
+
+    /**
+     * Позволяет найти сообщения пользователя по тексту запроса.
+     * Поиск выполняется только по перепискам, в которых участвует пользователь.
+     * @param userId идентификатор пользователя.
+     * @param interlocutorId идентификатор собеседника для поиска в одной переписке или null.
+     * @param query текст запроса.
+     * @param offset количество пропускаемых результатов.
+     * @param limit максимальное количество результатов.
+     * @return идентификаторы сообщений, отсортированные по релевантности.
+     * @throws SearchException выбрасывает, если индекс не удалось прочитать.
+     */
+    @Override
+    public List<Long> searchMessages(Long userId, Long interlocutorId, String query, int offset, int limit) throws SearchException {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                .add(parse(query, MESSAGE_FIELDS), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(TYPE, MESSAGE)), BooleanClause.Occur.FILTER)
+                .add(new TermQuery(new Term(PARTICIPANT, userId.toString())), BooleanClause.Occur.FILTER);
+        if (interlocutorId != null) {
+            builder.add(new TermQuery(new Term(PARTICIPANT, interlocutorId.toString())), BooleanClause.Occur.FILTER);
+        }
+        return search(builder.build(), offset, limit);
+    }
+
+    /**
+     * Позволяет перестроить индекс по данным из базы данных. Перестроение выполняется в потоке применения изменений,
+     * поэтому изменения, поставленные в очередь во время перестроения, применяются после него.
+     * @return количество проиндексированных постов и сообщений.
+     * @throws SearchException выбрасывает, если индекс не удалось перестроить.
+     */
+    @Override
+    public long rebuild() throws SearchException {
+        AtomicLong indexed = new AtomicLong();
+        Future<?> task;
+        try {
+            task = indexer.submit(() -> {
+                indexed.set(rebuildIndex());
+                return null;
+            });
+        } catch (RejectedExecutionException ex) {
+            throw new SearchException("Очередь изменений поискового индекса заполнена", ex);
+        }
+        await(task);
+        refresh();
+        return indexed.get();
+    }
+
+    /**
+     * Дожидается применения изменений, поставленных в очередь, и открывает новый снимок индекса для поиска.
+     * @throws SearchException выбрасывает, если снимок индекса не удалось обновить.
+     */
+    public void refresh() throws SearchException {
+        try {
+            await(indexer.submit(() -> { }));
+            searcherManager.maybeRefreshBlocking();
+        } catch (RejectedExecutionException | IOException ex) {
+            throw new SearchException("Ошибка при обновлении поискового индекса", ex);
+        }
+    }
+
+    /**
+     * Удаляет все документы индекса и добавляет посты и сообщения из базы данных, после чего фиксирует индекс.
+     * @return количество проиндексированных постов и сообщений.
+     * @throws IOException выбрасывает, если индекс не удалось записать.
+     */
+    private long rebuildIndex() throws IOException {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            indexWriter.deleteAll();
+            long[] indexed = new long[1];
+            resultStreamer.stream(postRepository::streamAllPostTexts, (PostText post) -> postDocument(post.getId(), post.getTitle(), post.getText()),
+                    document -> add(document, indexed));
+            resultStreamer.stream(messageRepository::streamAllMessageDTOs,
+                    (MessageDTO message) -> messageDocument(message.getId(), message.getSenderId(), message.getReceiverId(), message.getContent()),
+                    document -> add(document, indexed));
+            indexWriter.commit();
+            log.info("IN rebuild - поисковый индекс перестроен, документов: {}, время: {} мс", indexed[0], System.currentTimeMillis() - start);
+            return indexed[0];
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    /**
+     * Добавляет документ в индекс при перестроении.
+     * @param document документ.
+     * @param indexed счётчик добавленных документов.
+     */
+    private void add(Document document, long[] indexed) {
+        try {
+            indexWriter.addDocument(document);
+            indexed[0]++;
+        } catch (IOException ex) {
+            throw new SearchException("Ошибка при перестроении поискового индекса", ex);
+        }
+    }
+
+    /**
+     * Ставит изменение индекса в очередь. Если очередь заполнена, изменение пропускается.
+     * @param update изменение индекса.
+     */
+    private void submit(IndexUpdate update) {
+        try {
+            indexer.execute(() -> {
+                try {
+                    update.apply();
+                } catch (Exception ex) {
+                    log.error("IN submit - ошибка при изменении поискового индекса", ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejectedUpdates.increment();
+            log.warn("IN submit - очередь изменений поискового индекса заполнена, изменение пропущено");
+        }
+    }
+
+    /**
+     * Выполняет поиск и возвращает идентификаторы документов страницы результатов.
+     * @param query запрос.
+     * @param offset количество пропускаемых результатов.
+     * @param limit максимальное количество результатов.
+     * @return идентификаторы постов или сообщений.
+     * @throws SearchException выбрасывает, если индекс не удалось прочитать.
+     */
+    private List<Long> search(Query query, int offset, int limit) throws SearchException {
+        int count = Math.min(offset + limit, maxResults);
+        if (limit <= 0 || offset >= count) {
+            return List.of();
+        }
+        return queryTimer.record(() -> {
+            IndexSearcher searcher = null;
+            try {
+                searcher = searcherManager.acquire();
+                TopDocs topDocs = searcher.search(query, count);
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(limit);
+                ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+                for (int i = offset; i < scoreDocs.length; i++) {
+                    ids.add(storedFields.document(scoreDocs[i].doc).getField(ID).numericValue().longValue());
+                }
+                return ids;
+            } catch (IOException ex) {
+                throw new SearchException("Ошибка при выполнении поиска", ex);
+            } finally {
+                release(searcher);
+            }
+        });
+    }
+
+    /**
+     * Разбирает текст запроса. Слова запроса должны встречаться в документе все, поддерживаются фразы в кавычках,
+     * исключение слов знаком минус и поиск по префиксу со звёздочкой; синтаксические ошибки не приводят к исключению.
+     * @param query текст запроса.
+     * @param fields поля поиска с весами.
+     * @return запрос.
+     */
+    private Query parse(String query, Map<String, Float> fields) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, fields);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        return parser.parse(query);
+    }
+
+    /**
+     * Открывает новый снимок индекса, если в индексе есть изменения и не выполняется перестроение.
+     */
+    private void maybeRefresh() {
+        if (rebuilding) {
+            return;
+        }
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException ex) {
+            log.warn("IN maybeRefresh - ошибка при обновлении снимка поискового индекса", ex);
+        }
+    }
+
+    /**
+     * Фиксирует изменения индекса на диске, если они есть и не выполняется перестроение.
+     */
+    private void commit() {
+        if (rebuilding || !indexWriter.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            indexWriter.commit();
+        } catch (IOException ex) {
+            log.warn("IN commit - ошибка при фиксации поискового индекса", ex);
+        }
+    }
+
+    /**
+     * Освобождает снимок индекса.
+     * @param searcher снимок индекса или null.
+     */
+    private void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException ex) {
+            log.warn("IN release - ошибка при освобождении снимка поискового индекса", ex);
+        }
+    }
+
+    /**
+     * Дожидается выполнения задачи в потоке применения изменений.
+     * @param task задача.
+     * @throws SearchException выбрасывает, если задача завершилась ошибкой.
+     */
+    private void await(Future<?> task) throws SearchException {
+        try {
+            task.get();
+        } catch (ExecutionException ex) {
+            throw new SearchException("Ошибка при изменении поискового индекса", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SearchException("Ожидание изменения поискового индекса прервано", ex);
+        }
+    }
+
+    /**
+     * Формирует документ поста.
+     * @param postId идентификатор поста.
+     * @param title заголовок поста.
+     * @param text текстовая часть поста.
+     * @return документ.
+     */
+    private static Document postDocument(Long postId, String title, String text) {
+        Document document = document(POST, postId);
+        if (title != null) {
+            document.add(new TextField(TITLE, title, Field.Store.NO));
+        }
+        if (text != null) {
+            document.add(new TextField(TEXT, text, Field.Store.NO));
+        }
+        return document;
+    }
+
+    /**
+     * Формирует документ сообщения.
+     * @param messageId идентификатор сообщения.
+     * @param senderId идентификатор отправителя.
+     * @param receiverId идентификатор получателя.
+     * @param content текст сообщения.
+     * @return документ.
+     */
+    private static Document messageDocument(Long messageId, Long senderId, Long receiverId, String content) {
+        Document document = document(MESSAGE, messageId);
+        document.add(new StringField(PARTICIPANT, senderId.toString(), Field.Store.NO));
+        document.add(new StringField(PARTICIPANT, receiverId.toString(), Field.Store.NO));
+        if (content != null) {
+            document.add(new TextField(TEXT, content, Field.Store.NO));
+        }
+        return document;
+    }
+
+    /**
+     * Формирует документ с ключом, типом и идентификатором.
+     * @param type тип документа.
+     * @param id идентификатор поста или сообщения.
+     * @return документ.
+     */
+    private static Document document(String type, Long id) {
+        Document document = new Document();
+        document.add(new StringField(KEY, key(type, id), Field.Store.NO));
+        document.add(new StringField(TYPE, type, Field.Store.NO));
+        document.add(new StoredField(ID, id));
+        return document;
+    }
+
+    /**
+     * Возвращает ключ документа.
+     * @param type тип документа.
+     * @param id идентификатор поста или сообщения.
+     * @return ключ документа.
+     */
+    private static String key(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    /**
+     * Изменение индекса, применяемое в потоке применения изменений.
+     */
+    @FunctionalInterface
+    private interface IndexUpdate {
+
+        /**
+         * Применяет изменение к индексу.
+         * @throws IOException выбрасывает, если индекс не удалось записать.
+         */
+        void apply() throws IOException;
+    }
+}
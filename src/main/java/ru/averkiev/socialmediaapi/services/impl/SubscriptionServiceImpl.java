@@ -23,6 +23,12 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     /** Репозиторий для обращения к базе данных. */
     private final SubscriptionRepository subscriptionRepository;
 
+    /** Сервис для взаимодействия с лентами активности пользователей. */
+    private final TimelineServiceImpl timelineService;
+
+    /** Сервис для кэширования страниц лент активности. */
+    private final FeedCacheServiceImpl feedCacheService;
+
     /**
      * Позволяет создать подписку пользователя.
      * @param user пользователь.
@@ -33,6 +39,8 @@ public class SubscriptionServiceImpl implements SubscriptionService {
     public Subscription save(User user, User subscriptionUser) {
         Subscription subscription = new Subscription(user, subscriptionUser);
         subscription = subscriptionRepository.save(subscription);
+        timelineService.follow(user.getId(), subscriptionUser.getId());
+        feedCacheService.invalidate(user.getId());
         log.info("IN save - подписка пользователя: {} на пользователя: {} успешно сохранена", user.getUsername(), subscriptionUser.getUsername());
         return subscription;
     }
@@ -67,6 +75,16 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         return subscriptions;
     }
 
+    /**
+     * Позволяет проверить наличие подписок у пользователя.
+     * @param userId идентификатор пользователя.
+     * @return true, если у пользователя есть хотя бы одна подписка.
+     */
+    @Override
+    public boolean hasSubscriptions(Long userId) {
+        return subscriptionRepository.existsByUserId(userId);
+    }
+
     /**
      * Позволяет удалить подписку пользователя.
      * @param subscription удаляемая подписка пользователя.
@@ -81,6 +99,8 @@ public class SubscriptionServiceImpl implements SubscriptionService {
         }
 
         subscriptionRepository.delete(subscription);
+        timelineService.unfollow(subscription.getUser().getId(), subscription.getSubscriptionUser().getId());
+        feedCacheService.invalidate(subscription.getUser().getId());
         log.info("IN delete - подписка пользователя: {} на подписчика: {} успешно удалена", subscription.getSubscriptionUser().getUsername(), subscription.getUser().getUsername());
     }
 
@@ -0,0 +1,706 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import ru.averkiev.socialmediaapi.models.FeedCursor;
+import ru.averkiev.socialmediaapi.models.FeedDeliveryMode;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostRef;
+import ru.averkiev.socialmediaapi.models.PulledAuthor;
+import ru.averkiev.socialmediaapi.models.TimelineEntry;
+import ru.averkiev.socialmediaapi.models.TimelineWindow;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.repositories.PulledAuthorRepository;
+import ru.averkiev.socialmediaapi.repositories.SubscriptionRepository;
+import ru.averkiev.socialmediaapi.repositories.TimelineEntryRepository;
+import ru.averkiev.socialmediaapi.services.FeedAssemblyStrategy;
+import ru.averkiev.socialmediaapi.services.TimelineService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс реализует материализованную ленту активности пользователей (fan-out on write).
+ * Ленты хранятся в таблице timeline_entries, а начало ленты активных пользователей дополнительно удерживается
+ * в памяти, что позволяет отдавать первые страницы без обращения к базе данных.
+ * В гибридном режиме посты авторов с большим количеством подписчиков в ленты не записываются,
+ * а читаются при запросе ленты и объединяются с её материализованной частью. Список таких авторов хранится
+ * в таблице pulled_authors и периодически пересчитывается в фоновом потоке. Когда количество подписчиков автора
+ * опускается ниже порога, его последние посты записываются в ленты подписчиков, и только после этого
+ * автор исключается из списка.
+ * Используется как стратегия формирования ленты с наименованием {@value #STRATEGY_NAME}.
+ * @author mrGreenNV
+ */
+@Service
+@Slf4j
+public class TimelineServiceImpl implements TimelineService, FeedAssemblyStrategy {
+
+    /** Наименование стратегии формирования ленты. */
+    public static final String STRATEGY_NAME = "timeline";
+
+    /** Репозиторий для обращения к записям лент в базе данных. */
+    private final TimelineEntryRepository timelineEntryRepository;
+
+    /** Репозиторий для получения подписчиков автора. */
+    private final SubscriptionRepository subscriptionRepository;
+
+    /** Репозиторий для чтения постов авторов, не попадающих в материализованные ленты. */
+    private final PostRepository postRepository;
+
+    /** Репозиторий для хранения списка авторов, посты которых читаются при запросе ленты. */
+    private final PulledAuthorRepository pulledAuthorRepository;
+
+    /** Окна последних записей лент пользователей, хранящиеся в памяти. */
+    private final Cache<Long, TimelineWindow> windows;
+
+    /** Максимальное количество записей в окне ленты одного пользователя. */
+    private final int windowSize;
+
+    /** Режим доставки постов в ленты. */
+    private final FeedDeliveryMode deliveryMode;
+
+    /** Количество подписчиков, начиная с которого посты автора читаются при запросе ленты. */
+    private final long followerThreshold;
+
+    /** Период обновления списка авторов, посты которых читаются при запросе ленты, в миллисекундах. */
+    private final long pulledAuthorsRefreshMillis;
+
+    /** Последний опубликованный список авторов, посты которых читаются при запросе ленты. */
+    private volatile Set<Long> pulledAuthorIds;
+
+    /** Поток обновления списка авторов, посты которых читаются при запросе ленты. */
+    private final ScheduledExecutorService pulledAuthorsRefresher;
+
+    /** Количество постов, добавленных в ленты подписчиков при публикации. */
+    private final Counter pushedPosts;
+
+    /** Количество постов, которые будут прочитаны при запросе ленты. */
+    private final Counter pulledPosts;
+
+    /** Количество записей, созданных в лентах при публикации постов. */
+    private final Counter fanOutWrites;
+
+    /** Количество записей, прочитанных из материализованных лент в базе данных. */
+    private final DistributionSummary inboxReadRows;
+
+    /** Количество постов, прочитанных при запросе ленты. */
+    private final DistributionSummary pulledReadRows;
+
+    /** Количество авторов, посты которых прочитаны при запросе ленты. */
+    private final DistributionSummary pulledReadAuthors;
+
+    /**
+     * Позволяет создать объект TimelineServiceImpl с заданными параметрами.
+     * @param timelineEntryRepository репозиторий записей лент.
+     * @param subscriptionRepository репозиторий подписок.
+     * @param postRepository репозиторий постов.
+     * @param pulledAuthorRepository репозиторий авторов, посты которых читаются при запросе ленты.
+     * @param meterRegistry реестр метрик.
+     * @param maxUsers максимальное количество пользователей, чьи ленты удерживаются в памяти.
+     * @param windowSize максимальное количество записей в окне ленты одного пользователя.
+     * @param deliveryMode режим доставки постов в ленты.
+     * @param followerThreshold количество подписчиков, начиная с которого посты автора читаются при запросе ленты.
+     * @param pulledAuthorsRefreshMillis период обновления списка таких авторов в миллисекундах.
+     */
+    @Autowired
+    public TimelineServiceImpl(TimelineEntryRepository timelineEntryRepository,
+                               SubscriptionRepository subscriptionRepository,
+                               PostRepository postRepository,
+                               PulledAuthorRepository pulledAuthorRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${feed.timeline.cache.max-users:10000}") long maxUsers,
+                               @Value("${feed.timeline.cache.window-size:200}") int windowSize,
+                               @Value("${feed.delivery.mode:PUSH}") FeedDeliveryMode deliveryMode,
+                               @Value("${feed.delivery.hybrid.follower-threshold:10000}") long followerThreshold,
+                               @Value("${feed.delivery.hybrid.refresh-millis:60000}") long pulledAuthorsRefreshMillis
+    ) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.postRepository = postRepository;
+        this.pulledAuthorRepository = pulledAuthorRepository;
+        this.windowSize = windowSize;
+        this.deliveryMode = deliveryMode;
+        this.followerThreshold = followerThreshold;
+        this.pulledAuthorsRefreshMillis = pulledAuthorsRefreshMillis;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .build();
+        this.pulledAuthorsRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pulled-authors-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.pushedPosts = Counter.builder("feed.fanout.posts")
+                .description("Посты, обработанные при публикации")
+                .tag("delivery", "push")
+                .register(meterRegistry);
+        this.pulledPosts = Counter.builder("feed.fanout.posts")
+                .description("Посты, обработанные при публикации")
+                .tag("delivery", "pull")
+                .register(meterRegistry);
+        this.fanOutWrites = Counter.builder("feed.fanout.writes")
+                .description("Записи, созданные в лентах подписчиков при публикации постов")
+                .register(meterRegistry);
+        this.inboxReadRows = DistributionSummary.builder("feed.read.rows")
+                .description("Строки, прочитанные из базы данных при запросе ленты")
+                .tag("source", "inbox")
+                .register(meterRegistry);
+        this.pulledReadRows = DistributionSummary.builder("feed.read.rows")
+                .description("Строки, прочитанные из базы данных при запросе ленты")
+                .tag("source", "pull")
+                .register(meterRegistry);
+        this.pulledReadAuthors = DistributionSummary.builder("feed.read.pulled.authors")
+                .description("Авторы, посты которых прочитаны при запросе ленты")
+                .register(meterRegistry);
+        Gauge.builder("feed.delivery.pulled.authors", this, service -> service.pulledAuthorsCount())
+                .description("Авторы, посты которых не записываются в ленты подписчиков")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Запускает периодическое обновление списка авторов, посты которых читаются при запросе ленты,
+     * после запуска приложения.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pulledAuthorsRefresher.scheduleWithFixedDelay(this::refreshPulledAuthorsQuietly,
+                0, pulledAuthorsRefreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает обновление списка авторов при завершении работы приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pulledAuthorsRefresher.shutdownNow();
+    }
+
+    /**
+     * Позволяет пересчитать список авторов, посты которых читаются при запросе ленты.
+     * Новые авторы сохраняются в таблицу pulled_authors до публикации списка. Авторы, количество подписчиков
+     * которых опустилось ниже порога, определяются по этой таблице, поэтому не теряются при перезапуске.
+     * Их последние посты записываются в ленты подписчиков до исключения автора из списка; если запись не удалась,
+     * автор остаётся в списке и обрабатывается при следующем обновлении.
+     */
+    @Override
+    public void refreshPulledAuthors() {
+        Set<Long> current = deliveryMode == FeedDeliveryMode.HYBRID
+                ? new HashSet<>(subscriptionRepository.findSubscriptionUserIdsWithFollowersAbove(followerThreshold))
+                : new HashSet<>();
+        Set<Long> persisted = new HashSet<>(pulledAuthorRepository.findAllAuthorIds());
+
+        Date now = new Date();
+        List<PulledAuthor> promoted = current.stream()
+                .filter(authorId -> !persisted.contains(authorId))
+                .map(authorId -> new PulledAuthor(authorId, now))
+                .toList();
+        if (!promoted.isEmpty()) {
+            pulledAuthorRepository.saveAll(promoted);
+        }
+
+        // Исключаемые авторы остаются в опубликованном списке, пока их посты не записаны в ленты подписчиков.
+        Set<Long> demoted = new HashSet<>(persisted);
+        Set<Long> previous = pulledAuthorIds;
+        if (previous != null) {
+            demoted.addAll(previous);
+        }
+        demoted.removeAll(current);
+        Set<Long> snapshot = new HashSet<>(current);
+        snapshot.addAll(demoted);
+        publishPulledAuthors(snapshot);
+
+        for (Long authorId : demoted) {
+            try {
+                pushAuthor(authorId, snapshot);
+            } catch (Exception ex) {
+                log.warn("IN refreshPulledAuthors - ошибка при записи постов автора с идентификатором: {} в ленты подписчиков",
+                        authorId, ex);
+            }
+        }
+        log.info("IN refreshPulledAuthors - загружено {} авторов с количеством подписчиков более {}",
+                current.size(), followerThreshold);
+    }
+
+    /**
+     * Позволяет добавить опубликованный пост в ленты всех подписчиков его автора.
+     * В гибридном режиме посты авторов с большим количеством подписчиков в ленты не добавляются.
+     * @param post опубликованный пост.
+     */
+    @Override
+    public void fanOut(Post post) {
+        Long authorId = post.getUser().getId();
+        if (isPulledAuthor(authorId)) {
+            pulledPosts.increment();
+            log.info("IN fanOut - пост с идентификатором: {} будет прочитан при запросе ленты", post.getId());
+            return;
+        }
+
+        int inserted = timelineEntryRepository.fanOut(post.getId(), authorId, post.getCreatedAt());
+        pushedPosts.increment();
+        fanOutWrites.increment(inserted);
+
+        // Обновление окон подписчиков, ленты которых находятся в памяти.
+        if (inserted > 0 && windows.estimatedSize() > 0) {
+            long createdAt = FeedCursor.toMicros(post.getCreatedAt());
+            for (Long followerId : subscriptionRepository.findUserIdsBySubscriptionUserId(authorId)) {
+                windows.asMap().computeIfPresent(followerId,
+                        (userId, window) -> window.insert(post.getId(), createdAt, windowSize));
+            }
+        }
+        log.info("IN fanOut - пост с идентификатором: {} добавлен в ленты {} подписчиков", post.getId(), inserted);
+    }
+
+    /**
+     * Позволяет добавить несколько опубликованных постов одного автора в ленты всех его подписчиков одним запросом.
+     * Используется при массовом импорте постов.
+     * @param authorId идентификатор автора.
+     * @param posts опубликованные посты.
+     */
+    @Override
+    public void fanOutAll(Long authorId, List<Post> posts) {
+        if (posts.isEmpty()) {
+            return;
+        }
+        if (isPulledAuthor(authorId)) {
+            pulledPosts.increment(posts.size());
+            log.info("IN fanOutAll - {} постов будут прочитаны при запросе ленты", posts.size());
+            return;
+        }
+
+        int inserted = timelineEntryRepository.fanOutAll(posts.stream().map(Post::getId).toList());
+        pushedPosts.increment(posts.size());
+        fanOutWrites.increment(inserted);
+
+        // Обновление окон подписчиков, ленты которых находятся в памяти.
+        if (inserted > 0 && windows.estimatedSize() > 0) {
+            for (Long followerId : subscriptionRepository.findUserIdsBySubscriptionUserId(authorId)) {
+                windows.asMap().computeIfPresent(followerId, (userId, window) -> {
+                    TimelineWindow updated = window;
+                    for (Post post : posts) {
+                        updated = updated.insert(post.getId(), FeedCursor.toMicros(post.getCreatedAt()), windowSize);
+                    }
+                    return updated;
+                });
+            }
+        }
+        log.info("IN fanOutAll - {} постов добавлены в ленты подписчиков, создано записей: {}", posts.size(), inserted);
+    }
+
+    /**
+     * Позволяет удалить пост из лент всех пользователей.
+     * @param post удаляемый пост.
+     */
+    @Override
+    public void retract(Post post) {
+        // Окна подписчиков сбрасываются, чтобы не отдавать удалённый пост из памяти.
+        // Подписчиков популярных авторов слишком много, поэтому их окна не сбрасываются: идентификатор поста,
+        // оставшийся в окне, отбрасывается при чтении постов, так как удалённые посты не загружаются.
+        if (!isPulledAuthor(post.getUser().getId())) {
+            windows.invalidateAll(subscriptionRepository.findUserIdsBySubscriptionUserId(post.getUser().getId()));
+        }
+        int deleted = timelineEntryRepository.deleteAllByPostId(post.getId());
+        log.info("IN retract - пост с идентификатором: {} удалён из {} лент", post.getId(), deleted);
+    }
+
+    /**
+     * Позволяет добавить в ленту пользователя последние посты автора, на которого осуществлена подписка.
+     * Посты авторов, читаемых при запросе ленты, не добавляются: они будут записаны в ленту,
+     * когда количество подписчиков автора опустится ниже порога.
+     * @param userId идентификатор владельца ленты.
+     * @param authorId идентификатор автора.
+     */
+    @Override
+    public void follow(Long userId, Long authorId) {
+        int inserted = isPulledAuthor(authorId) ? 0 : timelineEntryRepository.backfill(userId, authorId, windowSize);
+        windows.invalidate(userId);
+        log.info("IN follow - в ленту пользователя с идентификатором: {} добавлено {} постов", userId, inserted);
+    }
+
+    /**
+     * Позволяет удалить из ленты пользователя все посты автора, подписка на которого отменена.
+     * @param userId идентификатор владельца ленты.
+     * @param authorId идентификатор автора.
+     */
+    @Override
+    public void unfollow(Long userId, Long authorId) {
+        int deleted = timelineEntryRepository.deleteAllByUserIdAndAuthorId(userId, authorId);
+        windows.invalidate(userId);
+        log.info("IN unfollow - из ленты пользователя с идентификатором: {} удалено {} постов", userId, deleted);
+    }
+
+    /**
+     * Позволяет получить идентификаторы постов из ленты пользователя с пагинацией страниц.
+     * Если запрошенная страница покрывается окном в памяти, обращения к базе данных не происходит.
+     * @param userId идентификатор владельца ленты.
+     * @param page номер страницы.
+     * @param pageSize количество постов на странице.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    @Override
+    public List<Long> getTimelinePostIds(Long userId, int page, int pageSize) {
+        long offset = (long) page * pageSize;
+        List<Long> pulledAuthorIds = findPulledAuthorIds(userId);
+
+        if (pulledAuthorIds.isEmpty()) {
+            if (offset + pageSize <= windowSize) {
+                TimelineWindow window = windows.get(userId, this::loadWindow);
+                if (window.covers(offset, pageSize)) {
+                    return toList(window.slice(offset, pageSize));
+                }
+            }
+
+            List<TimelineEntry> entries = timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(
+                    userId, PageRequest.of(page, pageSize)
+            );
+            inboxReadRows.record(entries.size());
+            return toPostIds(entries);
+        }
+
+        // Объединение начала ленты с постами популярных авторов до конца запрошенной страницы.
+        int limit = (int) Math.min(offset + pageSize, Integer.MAX_VALUE);
+        TimelineWindow inbox = readInbox(userId, limit);
+        TimelineWindow pulled = readPulled(pulledAuthorIds, limit);
+        return toList(inbox.merge(pulled, limit).slice(offset, pageSize));
+    }
+
+    /**
+     * Позволяет получить страницу ленты пользователя, расположенную после заданного курсора.
+     * Стоимость чтения не зависит от глубины прокрутки: страница читается из окна в памяти или
+     * одним диапазонным сканированием индекса, начиная с позиции курсора.
+     * @param userId идентификатор владельца ленты.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество постов на странице.
+     * @return окно записей ленты, отсортированное по дате создания.
+     */
+    @Override
+    public TimelineWindow getTimelinePage(Long userId, FeedCursor cursor, int limit) {
+        TimelineWindow inbox = readInboxAfter(userId, cursor, limit);
+        List<Long> pulledAuthorIds = findPulledAuthorIds(userId);
+        if (pulledAuthorIds.isEmpty()) {
+            return inbox;
+        }
+        return inbox.merge(readPulledAfter(pulledAuthorIds, cursor, limit), limit);
+    }
+
+    /**
+     * Позволяет получить идентификаторы всех постов из ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    @Override
+    public List<Long> getTimelinePostIds(Long userId) {
+        List<TimelineEntry> entries = timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(userId);
+        inboxReadRows.record(entries.size());
+
+        List<Long> pulledAuthorIds = findPulledAuthorIds(userId);
+        if (pulledAuthorIds.isEmpty()) {
+            return toPostIds(entries);
+        }
+
+        List<PostRef> posts = postRepository.findPostRefsByUserIdIn(pulledAuthorIds);
+        pulledReadRows.record(posts.size());
+        TimelineWindow merged = toWindow(entries, Integer.MAX_VALUE).merge(toWindow(posts), Integer.MAX_VALUE);
+        return toList(merged.slice(0, merged.size()));
+    }
+
+    /**
+     * Возвращает наименование стратегии формирования ленты.
+     * @return наименование стратегии.
+     */
+    @Override
+    public String getName() {
+        return STRATEGY_NAME;
+    }
+
+    /**
+     * Позволяет получить идентификаторы постов материализованной ленты пользователя с пагинацией страниц.
+     * @param userId идентификатор владельца ленты.
+     * @param page номер страницы.
+     * @param pageSize количество постов на странице.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    @Override
+    public List<Long> getFeedPostIds(Long userId, int page, int pageSize) {
+        return getTimelinePostIds(userId, page, pageSize);
+    }
+
+    /**
+     * Позволяет получить идентификаторы всех постов материализованной ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @return список идентификаторов постов, отсортированный по дате создания.
+     */
+    @Override
+    public List<Long> getFeedPostIds(Long userId) {
+        return getTimelinePostIds(userId);
+    }
+
+    /**
+     * Позволяет получить страницу материализованной ленты пользователя, расположенную после заданного курсора.
+     * @param userId идентификатор владельца ленты.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество постов на странице.
+     * @return окно записей ленты, отсортированное по дате создания.
+     */
+    @Override
+    public TimelineWindow getFeedPage(Long userId, FeedCursor cursor, int limit) {
+        return getTimelinePage(userId, cursor, limit);
+    }
+
+    /**
+     * Читает начало материализованной ленты пользователя из памяти или из базы данных.
+     * @param userId идентификатор владельца ленты.
+     * @param limit количество записей.
+     * @return окно записей ленты.
+     */
+    private TimelineWindow readInbox(Long userId, int limit) {
+        if (limit <= windowSize) {
+            TimelineWindow window = windows.get(userId, this::loadWindow);
+            if (window.covers(0, limit)) {
+                return window;
+            }
+        }
+        List<TimelineEntry> entries = timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(
+                userId, PageRequest.of(0, limit)
+        );
+        inboxReadRows.record(entries.size());
+        return toWindow(entries, limit);
+    }
+
+    /**
+     * Читает страницу материализованной ленты пользователя, расположенную после курсора, из памяти или из базы данных.
+     * @param userId идентификатор владельца ленты.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество записей.
+     * @return окно записей ленты.
+     */
+    private TimelineWindow readInboxAfter(Long userId, FeedCursor cursor, int limit) {
+        if (cursor == null) {
+            return readInbox(userId, limit).window(0, limit);
+        }
+        if (limit <= windowSize) {
+            TimelineWindow window = windows.get(userId, this::loadWindow);
+            int from = window.indexAfter(cursor.getPostId(), cursor.getCreatedAt());
+            if (window.covers(from, limit)) {
+                return window.window(from, limit);
+            }
+        }
+        List<TimelineEntry> entries = timelineEntryRepository.findPageByUserIdAfter(
+                userId, cursor.getCreatedAtTimestamp(), cursor.getPostId(), limit
+        );
+        inboxReadRows.record(entries.size());
+        return toWindow(entries, limit);
+    }
+
+    /**
+     * Читает посты авторов, не попадающих в материализованные ленты, расположенные после курсора.
+     * @param authorIds идентификаторы авторов.
+     * @param cursor курсор последнего прочитанного поста или null для первой страницы.
+     * @param limit количество постов.
+     * @return окно постов.
+     */
+    private TimelineWindow readPulledAfter(List<Long> authorIds, FeedCursor cursor, int limit) {
+        if (cursor == null) {
+            return readPulled(authorIds, limit);
+        }
+        List<PostRef> posts = postRepository.findPostRefPageByUserIdInAfter(
+                authorIds, cursor.getCreatedAtTimestamp(), cursor.getPostId(), limit
+        );
+        pulledReadAuthors.record(authorIds.size());
+        pulledReadRows.record(posts.size());
+        return toWindow(posts);
+    }
+
+    /**
+     * Читает последние посты авторов, не попадающих в материализованные ленты.
+     * @param authorIds идентификаторы авторов.
+     * @param limit количество постов.
+     * @return окно постов.
+     */
+    private TimelineWindow readPulled(List<Long> authorIds, int limit) {
+        List<PostRef> posts = postRepository.findPostRefsByUserIdIn(authorIds, PageRequest.of(0, limit));
+        pulledReadAuthors.record(authorIds.size());
+        pulledReadRows.record(posts.size());
+        return toWindow(posts);
+    }
+
+    /**
+     * Загружает из базы данных окно последних записей ленты пользователя.
+     * @param userId идентификатор владельца ленты.
+     * @return окно последних записей.
+     */
+    private TimelineWindow loadWindow(Long userId) {
+        List<TimelineEntry> entries = timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(
+                userId, PageRequest.of(0, windowSize)
+        );
+        inboxReadRows.record(entries.size());
+        return toWindow(entries, windowSize);
+    }
+
+    /**
+     * Возвращает идентификаторы авторов, на которых подписан пользователь и посты которых читаются при запросе ленты.
+     * @param userId идентификатор владельца ленты.
+     * @return список идентификаторов авторов.
+     */
+    private List<Long> findPulledAuthorIds(Long userId) {
+        Set<Long> authorIds = getPulledAuthorIds();
+        if (authorIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return subscriptionRepository.findSubscriptionUserIdsByUserIdAndSubscriptionUserIdIn(userId, authorIds);
+    }
+
+    /**
+     * Проверяет, что посты автора читаются при запросе ленты, а не записываются в ленты подписчиков.
+     * @param authorId идентификатор автора.
+     * @return true, если посты автора не записываются в ленты подписчиков.
+     */
+    private boolean isPulledAuthor(Long authorId) {
+        return getPulledAuthorIds().contains(authorId);
+    }
+
+    /**
+     * Возвращает опубликованный список авторов, посты которых читаются при запросе ленты.
+     * До первого обновления список загружается из таблицы pulled_authors.
+     * @return список авторов.
+     */
+    private Set<Long> getPulledAuthorIds() {
+        Set<Long> snapshot = pulledAuthorIds;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (pulledAuthorIds == null) {
+                pulledAuthorIds = Set.copyOf(pulledAuthorRepository.findAllAuthorIds());
+            }
+            return pulledAuthorIds;
+        }
+    }
+
+    /**
+     * Публикует новый список авторов, посты которых читаются при запросе ленты.
+     * @param authorIds идентификаторы авторов.
+     */
+    private synchronized void publishPulledAuthors(Set<Long> authorIds) {
+        pulledAuthorIds = Set.copyOf(authorIds);
+    }
+
+    /**
+     * Обновляет список авторов, посты которых читаются при запросе ленты, записывая ошибку в журнал.
+     */
+    private void refreshPulledAuthorsQuietly() {
+        try {
+            refreshPulledAuthors();
+        } catch (Exception ex) {
+            log.warn("IN refreshPulledAuthors - ошибка при обновлении списка авторов", ex);
+        }
+    }
+
+    /**
+     * Добавляет последние посты автора, которые читались при запросе ленты, в ленты всех его подписчиков
+     * и исключает автора из списка. Посты, опубликованные между первой записью и публикацией нового списка,
+     * не были записаны в ленты при публикации, поэтому после публикации записываются повторно.
+     * Запись идемпотентна, поэтому безопасна при повторе и при одновременной работе нескольких экземпляров.
+     * @param authorId идентификатор автора.
+     * @param snapshot опубликованный список авторов, из которого исключается автор.
+     */
+    private void pushAuthor(Long authorId, Set<Long> snapshot) {
+        Date since = new Date(System.currentTimeMillis() - pulledAuthorsRefreshMillis);
+        int inserted = timelineEntryRepository.backfillFollowers(authorId, new Date(0), windowSize);
+
+        snapshot.remove(authorId);
+        publishPulledAuthors(snapshot);
+        inserted += timelineEntryRepository.backfillFollowers(authorId, since, windowSize);
+        pulledAuthorRepository.deleteById(authorId);
+
+        fanOutWrites.increment(inserted);
+        windows.invalidateAll(subscriptionRepository.findUserIdsBySubscriptionUserId(authorId));
+        log.info("IN pushAuthor - посты автора с идентификатором: {} добавлены в ленты подписчиков, создано записей: {}",
+                authorId, inserted);
+    }
+
+    /**
+     * Возвращает количество авторов, посты которых читаются при запросе ленты.
+     * @return количество авторов.
+     */
+    private double pulledAuthorsCount() {
+        Set<Long> snapshot = pulledAuthorIds;
+        return snapshot == null ? 0 : snapshot.size();
+    }
+
+    /**
+     * Преобразует список записей ленты к окну.
+     * @param entries записи ленты, отсортированные от новых к старым.
+     * @param limit запрошенное количество записей.
+     * @return окно записей.
+     */
+    private TimelineWindow toWindow(List<TimelineEntry> entries, int limit) {
+        long[] postIds = new long[entries.size()];
+        long[] createdAt = new long[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            postIds[i] = entries.get(i).getPostId();
+            createdAt[i] = FeedCursor.toMicros(entries.get(i).getPostCreatedAt());
+        }
+        return new TimelineWindow(postIds, createdAt, entries.size() < limit);
+    }
+
+    /**
+     * Преобразует список проекций постов к окну.
+     * @param posts проекции постов, отсортированные от новых к старым.
+     * @return окно записей.
+     */
+    private TimelineWindow toWindow(List<PostRef> posts) {
+        long[] postIds = new long[posts.size()];
+        long[] createdAt = new long[posts.size()];
+        for (int i = 0; i < posts.size(); i++) {
+            postIds[i] = posts.get(i).getId();
+            createdAt[i] = FeedCursor.toMicros(posts.get(i).getCreatedAt());
+        }
+        return new TimelineWindow(postIds, createdAt, true);
+    }
+
+    /**
+     * Преобразует список записей ленты к списку идентификаторов постов.
+     * @param entries записи ленты.
+     * @return список идентификаторов постов.
+     */
+    private List<Long> toPostIds(List<TimelineEntry> entries) {
+        List<Long> postIds = new ArrayList<>(entries.size());
+        for (TimelineEntry entry : entries) {
+            postIds.add(entry.getPostId());
+        }
+        return postIds;
+    }
+
+    /**
+     * Преобразует массив идентификаторов к списку.
+     * @param postIds массив идентификаторов.
+     * @return список идентификаторов.
+     */
+    private List<Long> toList(long[] postIds) {
+        List<Long> result = new ArrayList<>(postIds.length);
+        for (long postId : postIds) {
+            result.add(postId);
+        }
+        return result;
+    }
+}
@@ -9,10 +9,16 @@ import ru.averkiev.socialmediaapi.exceptions.UserRegistrationException;
 import ru.averkiev.socialmediaapi.exceptions.UserNotFoundException;
 import ru.averkiev.socialmediaapi.models.User;
 import ru.averkiev.socialmediaapi.models.UserCreateDTO;
+import ru.averkiev.socialmediaapi.models.UserFriendDTO;
 import ru.averkiev.socialmediaapi.repositories.UserRepository;
+import ru.averkiev.socialmediaapi.security.JwtUserCache;
 import ru.averkiev.socialmediaapi.services.UserService;
+import ru.averkiev.socialmediaapi.utils.RequestIdentityMap;
+import ru.averkiev.socialmediaapi.utils.ResultStream;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Класс реализует функционал взаимодействия User с базой данных.
@@ -32,6 +38,15 @@ public class UserServiceImpl implements UserService {
     /** Сервис для взаимодействия с хэшированными паролями. */
     private final BCryptPasswordEncoder bCryptPasswordEncoder;
 
+    /** Компонент для потокового чтения результатов запросов. */
+    private final ResultStreamer resultStreamer;
+
+    /** Кэш снимков пользователей, используемых при аутентификации. */
+    private final JwtUserCache jwtUserCache;
+
+    /** Пользователи, загруженные в рамках текущего запроса. */
+    private final RequestIdentityMap requestIdentityMap;
+
     /**
      * Регистрирует нового пользователя в системе.
      * @param userCreateDTO DTO данные нового пользователя.
@@ -83,26 +98,31 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Создаёт нового пользователя в системе
+     * Создаёт нового пользователя в системе, либо сохраняет изменения пользователя.
+     * Снимки пользователя удаляются из кэша аутентификации, чтобы изменения статуса, пароля или имени
+     * учитывались при следующем обращении, а сохранённый пользователь заменяет загруженного ранее в рамках текущего запроса.
      * @param user новый пользователь.
      * @return созданный пользователь.
      */
     @Override
     public User saveUser(User user) {
         user = userRepository.save(user);
+        jwtUserCache.invalidate(user);
+        requestIdentityMap.put(User.class, user.getId(), user);
         log.info("IN saveUser - пользователь с логином '{}' успешно сохранен", user.getUsername());
         return user;
     }
 
     /**
      * Возвращает пользователя по его идентификатору.
+     * В рамках одного запроса пользователь загружается из базы данных не более одного раза.
      * @param userId идентификатор искомого пользователя.
      * @return пользователя.
      * @throws UserNotFoundException выбрасывает если пользователь с заданным именем не был найден.
      */
     @Override
     public User getUserById(Long userId) throws UserNotFoundException {
-        User user = userRepository.findById(userId).orElse(null);
+        User user = requestIdentityMap.get(User.class, userId, () -> userRepository.findById(userId).orElse(null));
 
         if (user == null) {
             log.error("IN getUserById - пользователь с идентификатором: {} не найден", userId);
@@ -142,4 +162,14 @@ public class UserServiceImpl implements UserService {
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
+
+    /**
+     * Возвращает имена и электронные почты всех пользователей в виде последовательности,
+     * читаемой из базы данных по мере отправки ответа.
+     * @return последовательность объектов UserFriendDTO.
+     */
+    @Override
+    public ResultStream<UserFriendDTO> streamAllUsers() {
+        return consumer -> resultStreamer.stream(userRepository::streamAllUserFriendDTOs, Function.identity(), consumer);
+    }
 }
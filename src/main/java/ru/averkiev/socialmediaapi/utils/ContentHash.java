@@ -0,0 +1,65 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Класс позволяет вычислять ключи содержимого, по которым оно адресуется в хранилище.
+ * Ключом является SHA-256 содержимого в шестнадцатеричном виде.
+ * @author mrGreenNV
+ */
+public final class ContentHash {
+
+    /** Алгоритм вычисления ключа. */
+    private static final String ALGORITHM = "SHA-256";
+
+    /** Допустимый вид ключа. */
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Закрытый конструктор утилитного класса.
+     */
+    private ContentHash() {
+    }
+
+    /**
+     * Создаёт объект для вычисления ключа содержимого.
+     * @return объект MessageDigest.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Алгоритм " + ALGORITHM + " не поддерживается", ex);
+        }
+    }
+
+    /**
+     * Вычисляет ключ содержимого.
+     * @param data содержимое.
+     * @return ключ содержимого.
+     */
+    public static String of(byte[] data) {
+        return toKey(newDigest().digest(data));
+    }
+
+    /**
+     * Преобразует результат вычисления хэша в ключ содержимого.
+     * @param digest хэш содержимого.
+     * @return ключ содержимого.
+     */
+    public static String toKey(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    /**
+     * Проверяет, что строка является ключом содержимого.
+     * @param key проверяемая строка.
+     * @return true, если строка является ключом содержимого.
+     */
+    public static boolean isValidKey(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches();
+    }
+}
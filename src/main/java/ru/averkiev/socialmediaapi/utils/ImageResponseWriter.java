@@ -0,0 +1,166 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.averkiev.socialmediaapi.services.ImageStorageService;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Класс позволяет отдавать содержимое изображений с поддержкой условных запросов и запросов диапазона байт.
+ * Содержимое изображения неизменно и адресуется своим хэшем, поэтому хэш используется как ETag,
+ * а ответ разрешается кэшировать на клиенте без повторной проверки.
+ * @author mrGreenNV
+ */
+public final class ImageResponseWriter {
+
+    /** Атрибут запроса, которым Tomcat сообщает о поддержке передачи файлов через sendfile. */
+    static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    /** Атрибут запроса с путём к файлу, передаваемому через sendfile. */
+    static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+    /** Атрибут запроса с позицией первого передаваемого байта файла. */
+    static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+    /** Атрибут запроса с позицией, следующей за последним передаваемым байтом файла. */
+    static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    /** Заголовки кэширования: содержимое по ключу не изменяется, поэтому хранится на клиенте год без проверки. */
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+
+    /**
+     * Закрытый конструктор утилитного класса.
+     */
+    private ImageResponseWriter() {
+    }
+
+    /**
+     * Позволяет сформировать ответ с содержимым изображения.
+     * Если ETag из заголовка If-None-Match совпадает с ключом содержимого, возвращается 304 без тела.
+     * Заголовок Range с одним диапазоном обрабатывается ответом 206, с несколькими диапазонами - игнорируется,
+     * недостижимый диапазон приводит к ответу 416.
+     * Если содержимое хранится в файле, а контейнер поддерживает sendfile, файл передаётся ядром напрямую в сокет,
+     * иначе содержимое передаётся через {@link java.nio.channels.FileChannel#transferTo}.
+     * @param blobKey ключ содержимого изображения в хранилище.
+     * @param length размер содержимого в байтах.
+     * @param mimeType MIME-тип изображения.
+     * @param webRequest текущий запрос.
+     * @param imageStorageService сервис хранилища содержимого изображений.
+     * @return ResponseEntity с содержимым изображения или его частью.
+     */
+    public static ResponseEntity<StreamingResponseBody> response(String blobKey,
+                                                                 long length,
+                                                                 String mimeType,
+                                                                 ServletWebRequest webRequest,
+                                                                 ImageStorageService imageStorageService) {
+        String etag = "\"" + blobKey + "\"";
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(CACHE_CONTROL);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set("X-Content-Type-Options", "nosniff");
+
+        // Определение запрошенного диапазона байт: по умолчанию отдаётся всё содержимое.
+        HttpStatus status = HttpStatus.OK;
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = singleRange(webRequest, etag);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+            status = HttpStatus.PARTIAL_CONTENT;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        headers.setContentType(mediaType(mimeType));
+        headers.setContentLength(count);
+
+        if (count > 0 && sendfile(webRequest.getRequest(), imageStorageService.locate(blobKey), start, end + 1)) {
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+
+        long position = start;
+        StreamingResponseBody body = outputStream -> {
+            if (count > 0) {
+                imageStorageService.transferTo(blobKey, position, count, outputStream);
+            }
+        };
+        return ResponseEntity.status(status).headers(headers).body(body);
+    }
+
+    /**
+     * Возвращает единственный запрошенный диапазон байт.
+     * Некорректный заголовок Range, несколько диапазонов или несовпадение If-Range с ETag приводят к выдаче
+     * всего содержимого.
+     * @param webRequest текущий запрос.
+     * @param etag ETag содержимого.
+     * @return запрошенный диапазон или null.
+     */
+    private static HttpRange singleRange(ServletWebRequest webRequest, String etag) {
+        String rangeHeader = webRequest.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = webRequest.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Поручает контейнеру передать диапазон файла через sendfile, если это возможно.
+     * @param request текущий запрос.
+     * @param file путь к файлу содержимого или null.
+     * @param start позиция первого передаваемого байта.
+     * @param end позиция, следующая за последним передаваемым байтом.
+     * @return true, если передача поручена контейнеру и тело ответа записывать не нужно.
+     */
+    private static boolean sendfile(HttpServletRequest request, Path file, long start, long end) {
+        if (file == null || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.toString());
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, end);
+        return true;
+    }
+
+    /**
+     * Возвращает MIME-тип изображения.
+     * @param mimeType сохранённый MIME-тип или null.
+     * @return MIME-тип изображения или application/octet-stream, если тип неизвестен или некорректен.
+     */
+    private static MediaType mediaType(String mimeType) {
+        try {
+            return mimeType == null ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(mimeType);
+        } catch (IllegalArgumentException ex) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Класс позволяет записывать последовательность результатов в ответ по мере их чтения.
+ * Поддерживаются формат NDJSON (один JSON-объект на строку) и JSON-массив.
+ * @author mrGreenNV
+ */
+public final class JsonStreamWriter {
+
+    /**
+     * Закрытый конструктор утилитного класса.
+     */
+    private JsonStreamWriter() {
+    }
+
+    /**
+     * Проверяет, запросил ли клиент ответ в формате NDJSON.
+     * @param accept значение заголовка Accept.
+     * @return true, если запрошен формат NDJSON.
+     */
+    public static boolean isNdjson(String accept) {
+        return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+    }
+
+    /**
+     * Позволяет сформировать ответ, тело которого записывается по мере чтения последовательности результатов.
+     * @param results последовательность результатов.
+     * @param ndjson true - для формата NDJSON, false - для JSON-массива.
+     * @param objectMapper объект для сериализации элементов.
+     * @param <T> тип элементов последовательности.
+     * @return ResponseEntity с потоковым телом ответа.
+     */
+    public static <T> ResponseEntity<StreamingResponseBody> response(ResultStream<T> results, boolean ndjson, ObjectMapper objectMapper) {
+        // Данные отправляются по мере заполнения буфера ответа, а не после каждого элемента.
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+
+        StreamingResponseBody body = outputStream -> {
+            boolean[] empty = {true};
+            try (SequenceWriter sequenceWriter = ndjson
+                    ? writer.writeValues(outputStream)
+                    : writer.writeValuesAsArray(outputStream)) {
+                results.forEach(result -> {
+                    try {
+                        sequenceWriter.write(result);
+                        empty[0] = false;
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+            // Каждая строка NDJSON, включая последнюю, завершается переводом строки.
+            if (ndjson && !empty[0]) {
+                outputStream.write('\n');
+            }
+        };
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Класс хранит сущности, загруженные по первичному ключу в рамках текущего HTTP-запроса, чтобы сервисы и контроллеры,
+ * обрабатывающие один запрос, не загружали одну и ту же сущность повторно.
+ * Сущности хранятся в атрибутах запроса и освобождаются вместе с ним. Вне HTTP-запроса (фоновые задачи,
+ * потоковая выдача ответа в отдельном потоке) сущности не запоминаются и загружаются при каждом обращении.
+ * Отсутствие сущности не запоминается.
+ * @author mrGreenNV
+ */
+@Component
+public class RequestIdentityMap {
+
+    /** Название атрибута запроса, в котором хранятся загруженные сущности. */
+    private static final String ATTRIBUTE = RequestIdentityMap.class.getName();
+
+    /**
+     * Позволяет получить сущность, загруженную ранее в рамках текущего запроса, либо загрузить и запомнить её.
+     * @param type класс сущности.
+     * @param id первичный ключ сущности.
+     * @param loader функция загрузки сущности.
+     * @param <T> тип сущности.
+     * @return сущность.
+     */
+    public <T> T get(Class<T> type, Object id, Supplier<T> loader) {
+        Map<Key, Object> entities = entities();
+        if (entities == null) {
+            return loader.get();
+        }
+        Key key = new Key(type, id);
+        Object cached = entities.get(key);
+        if (cached != null) {
+            return type.cast(cached);
+        }
+        T entity = loader.get();
+        if (entity != null) {
+            entities.put(key, entity);
+        }
+        return entity;
+    }
+
+    /**
+     * Запоминает сохранённую сущность в рамках текущего запроса вместо загруженной ранее.
+     * @param type класс сущности.
+     * @param id первичный ключ сущности.
+     * @param entity сущность.
+     * @param <T> тип сущности.
+     */
+    public <T> void put(Class<T> type, Object id, T entity) {
+        Map<Key, Object> entities = entities();
+        if (entities != null && id != null) {
+            entities.put(new Key(type, id), entity);
+        }
+    }
+
+    /**
+     * Возвращает сущности текущего запроса, создавая хранилище при первом обращении.
+     * @return сущности текущего запроса или null, если обращение выполняется вне HTTP-запроса.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Key, Object> entities() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<Key, Object> entities = (Map<Key, Object>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (entities == null) {
+            entities = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, entities, RequestAttributes.SCOPE_REQUEST);
+        }
+        return entities;
+    }
+
+    /**
+     * Ключ сущности: класс и первичный ключ.
+     * @param type класс сущности.
+     * @param id первичный ключ сущности.
+     */
+    private record Key(Class<?> type, Object id) {
+    }
+}
@@ -0,0 +1,19 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Подготовленная последовательность результатов, элементы которой передаются потребителю по одному
+ * без накопления всей последовательности в памяти.
+ * @param <T> тип элементов последовательности.
+ * @author mrGreenNV
+ */
+@FunctionalInterface
+public interface ResultStream<T> {
+
+    /**
+     * Передаёт потребителю все элементы последовательности по порядку.
+     * @param consumer потребитель элементов.
+     */
+    void forEach(Consumer<? super T> consumer);
+}
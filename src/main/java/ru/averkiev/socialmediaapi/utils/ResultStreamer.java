@@ -0,0 +1,67 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Класс позволяет читать результаты запросов к базе данных потоком, не загружая их в память целиком.
+ * Чтение выполняется в транзакции только для чтения, прочитанные сущности периодически удаляются
+ * из контекста персистентности, поэтому потребление памяти не зависит от размера результата.
+ * @author mrGreenNV
+ */
+@Component
+public class ResultStreamer {
+
+    /** Количество строк, получаемых драйвером JDBC за одно обращение к базе данных. */
+    public static final String FETCH_SIZE = "500";
+
+    /** Количество прочитанных сущностей, после которого очищается контекст персистентности. */
+    private static final int CLEAR_INTERVAL = Integer.parseInt(FETCH_SIZE);
+
+    /** Менеджер сущностей текущей транзакции. */
+    private final EntityManager entityManager;
+
+    /** Шаблон транзакции только для чтения. */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Позволяет создать объект ResultStreamer с заданными параметрами.
+     * @param entityManager менеджер сущностей.
+     * @param transactionManager менеджер транзакций.
+     */
+    public ResultStreamer(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Позволяет прочитать результат запроса потоком, преобразуя каждый элемент и передавая его потребителю.
+     * Преобразование выполняется внутри транзакции, поэтому допускает обращение к ленивым связям сущности.
+     * @param query функция, открывающая поток результатов запроса.
+     * @param mapper функция преобразования элемента.
+     * @param consumer потребитель преобразованных элементов.
+     * @param <E> тип элементов результата запроса.
+     * @param <D> тип преобразованных элементов.
+     */
+    public <E, D> void stream(Supplier<Stream<E>> query, Function<? super E, ? extends D> mapper, Consumer<? super D> consumer) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<E> results = query.get()) {
+                int[] read = new int[1];
+                results.forEach(result -> {
+                    consumer.accept(mapper.apply(result));
+                    if (++read[0] % CLEAR_INTERVAL == 0) {
+                        entityManager.clear();
+                    }
+                });
+            }
+        });
+    }
+}
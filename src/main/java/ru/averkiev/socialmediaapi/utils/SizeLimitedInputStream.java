@@ -0,0 +1,99 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import ru.averkiev.socialmediaapi.exceptions.ImageTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Класс представляет собой поток, прерывающий чтение, как только из него прочитано больше допустимого количества байт.
+ * Позволяет отклонить слишком большое содержимое по мере его получения, не дочитывая его до конца.
+ * @author mrGreenNV
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+
+    /** Максимально допустимое количество байт. */
+    private final long maxBytes;
+
+    /** Количество прочитанных байт. */
+    private long count;
+
+    /**
+     * Позволяет создать объект SizeLimitedInputStream с заданными параметрами.
+     * @param in исходный поток.
+     * @param maxBytes максимально допустимое количество байт.
+     */
+    public SizeLimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Читает один байт.
+     * @return прочитанный байт или -1 в конце потока.
+     * @throws IOException выбрасывает, если чтение исходного потока завершилось ошибкой.
+     * @throws ImageTooLargeException выбрасывает, если превышено допустимое количество байт.
+     */
+    @Override
+    public int read() throws IOException, ImageTooLargeException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    /**
+     * Читает байты в буфер.
+     * @param b буфер.
+     * @param off позиция в буфере.
+     * @param len максимальное количество читаемых байт.
+     * @return количество прочитанных байт или -1 в конце потока.
+     * @throws IOException выбрасывает, если чтение исходного потока завершилось ошибкой.
+     * @throws ImageTooLargeException выбрасывает, если превышено допустимое количество байт.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException, ImageTooLargeException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    /**
+     * Пропускает байты, учитывая их как прочитанные.
+     * @param n количество пропускаемых байт.
+     * @return количество пропущенных байт.
+     * @throws IOException выбрасывает, если чтение исходного потока завершилось ошибкой.
+     * @throws ImageTooLargeException выбрасывает, если превышено допустимое количество байт.
+     */
+    @Override
+    public long skip(long n) throws IOException, ImageTooLargeException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    /**
+     * Метки не поддерживаются, так как повторное чтение исказило бы подсчёт байт.
+     * @return false.
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Учитывает прочитанные байты.
+     * @param n количество прочитанных байт.
+     * @throws ImageTooLargeException выбрасывает, если превышено допустимое количество байт.
+     */
+    private void count(long n) throws ImageTooLargeException {
+        count += n;
+        if (count > maxBytes) {
+            throw new ImageTooLargeException("Размер изображения превышает допустимые " + maxBytes + " байт");
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ru.averkiev.socialmediaapi.models;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Поставщик подставных JDBC-соединений, подсчитывающих обращения к базе данных.
+ * Позволяет проверять работу Hibernate без базы данных: каждое выполнение запроса или пакета записывается
+ * как одно обращение, а запросы к последовательностям возвращают значения, возрастающие с шагом 50.
+ */
+public class CountingConnectionProvider implements ConnectionProvider {
+
+    /** Обращения к базе данных: запросы и пакеты с количеством строк. */
+    static final List<String> ROUND_TRIPS = new ArrayList<>();
+
+    /** Следующее значение последовательностей и автоинкремента. */
+    private static final AtomicLong NEXT_VALUE = new AtomicLong(1);
+
+    /**
+     * Создаёт фабрику сессий с настройками идентификаторов и пакетной вставки из application.properties,
+     * работающую через подставные соединения.
+     * @param entities классы сущностей.
+     * @return фабрика сессий.
+     */
+    static SessionFactory sessionFactory(Class<?>... entities) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", "false")
+                .applySetting("hibernate.connection.provider_class", CountingConnectionProvider.class.getName())
+                .applySetting("hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName())
+                .applySetting("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+                .applySetting("hibernate.jdbc.batch_size", "50")
+                .applySetting("hibernate.order_inserts", "true")
+                .applySetting("hibernate.order_updates", "true")
+                .build();
+        MetadataSources sources = new MetadataSources(registry);
+        Arrays.stream(entities).forEach(sources::addAnnotatedClass);
+        return sources.buildMetadata().buildSessionFactory();
+    }
+
+    @Override
+    public Connection getConnection() {
+        return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> statement((String) args[0]);
+            case "getMetaData" -> proxy(DatabaseMetaData.class, (p, m, a) -> defaultValue(m.getReturnType()));
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    @Override
+    public void closeConnection(Connection connection) {
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return false;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        return null;
+    }
+
+    /**
+     * Создаёт подставной запрос, записывающий каждое выполнение как обращение к базе данных.
+     * @param sql текст запроса.
+     * @return подставной запрос.
+     */
+    private static PreparedStatement statement(String sql) {
+        String table = sql.startsWith("insert into ") ? sql.split(" ")[2] : sql;
+        int[] batchSize = {0};
+        return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+            case "executeQuery" -> {
+                ROUND_TRIPS.add(sql);
+                yield resultSet();
+            }
+            case "executeUpdate" -> {
+                ROUND_TRIPS.add(sql);
+                yield 1;
+            }
+            case "getGeneratedKeys" -> resultSet();
+            case "addBatch" -> {
+                batchSize[0]++;
+                yield null;
+            }
+            case "executeBatch" -> {
+                ROUND_TRIPS.add("batch(" + batchSize[0] + ") " + table);
+                int[] counts = new int[batchSize[0]];
+                Arrays.fill(counts, 1);
+                batchSize[0] = 0;
+                yield counts;
+            }
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    /**
+     * Создаёт подставной результат запроса из одной строки с очередным значением последовательности.
+     * @return подставной результат запроса.
+     */
+    private static ResultSet resultSet() {
+        boolean[] read = {false};
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> {
+                boolean hasRow = !read[0];
+                read[0] = true;
+                yield hasRow;
+            }
+            case "getLong", "getObject" -> NEXT_VALUE.getAndAdd(50);
+            case "getMetaData" -> proxy(ResultSetMetaData.class, (p, m, a) -> switch (m.getName()) {
+                case "getColumnCount" -> 1;
+                case "getColumnName", "getColumnLabel" -> "id";
+                default -> defaultValue(m.getReturnType());
+            });
+            default -> defaultValue(method.getReturnType());
+        });
+    }
+
+    /**
+     * Создаёт подставной объект JDBC.
+     * @param type интерфейс объекта.
+     * @param handler обработчик вызовов.
+     * @return подставной объект.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(CountingConnectionProvider.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Возвращает значение по умолчанию для типа результата метода.
+     * @param type тип результата.
+     * @return значение по умолчанию.
+     */
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,144 @@
+package ru.averkiev.socialmediaapi.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.averkiev.socialmediaapi.security.AccessToken;
+import ru.averkiev.socialmediaapi.security.RefreshToken;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Класс содержит замеры количества обращений к базе данных при сохранении сущностей.
+ * Hibernate работает через подставное JDBC-соединение {@link CountingConnectionProvider}, которое подсчитывает выполненные запросы и пакеты, поэтому замер
+ * не требует базы данных и не зависит от задержки сети: каждое выполнение запроса или пакета - одно обращение.
+ * Сравниваются сохранение изображений поста с идентификаторами из автоинкремента и из последовательностей
+ * с оптимизатором pooled-lo и пакетной вставкой при настройках из application.properties.
+ * Замеры не входят в обычный запуск тестов и выполняются в профиле benchmark.
+ */
+@Tag("benchmark")
+class IdGenerationBenchmarkTest {
+
+    /** Количество изображений, сохраняемых в одной транзакции. */
+    private static final int IMAGES = 100;
+
+    /** Фабрика сессий с отображением сущностей приложения. */
+    private SessionFactory sessionFactory;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        CountingConnectionProvider.ROUND_TRIPS.clear();
+        sessionFactory = CountingConnectionProvider.sessionFactory(User.class, Post.class, Image.class,
+                ImageDerivative.class, ImageJob.class, Message.class, Subscription.class, Subscriber.class,
+                FriendshipRequest.class, UserFriend.class, TimelineEntry.class, AccessToken.class, RefreshToken.class,
+                IdentityImage.class);
+    }
+
+    /**
+     * Освобождает ресурсы после выполнения тестов.
+     */
+    @AfterEach
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Сравнивает количество обращений к базе данных при сохранении поста со 100 изображениями.
+     * С автоинкрементом каждая вставка выполняется отдельно, чтобы прочитать сгенерированный идентификатор:
+     * 100 обращений. С последовательностями на 100 изображений приходится два получения диапазона и два пакета
+     * по 50 строк, а на пост - одно получение диапазона и один пакет.
+     */
+    @Test
+    public void testBatchedImageInserts() {
+        inTransaction(session -> {
+            for (int i = 0; i < IMAGES; i++) {
+                session.persist(new IdentityImage());
+            }
+        });
+        int identityRoundTrips = CountingConnectionProvider.ROUND_TRIPS.size();
+
+        CountingConnectionProvider.ROUND_TRIPS.clear();
+        inTransaction(session -> {
+            Post post = new Post();
+            session.persist(post);
+            for (int i = 0; i < IMAGES; i++) {
+                Image image = new Image();
+                image.setPost(post);
+                session.persist(image);
+            }
+        });
+        int sequenceRoundTrips = CountingConnectionProvider.ROUND_TRIPS.size();
+
+        assertEquals(IMAGES, identityRoundTrips);
+        assertEquals(List.of(
+                "select nextval('posts_seq')",
+                "select nextval('images_seq')",
+                "select nextval('images_seq')",
+                "batch(1) posts",
+                "batch(50) images",
+                "batch(50) images"
+        ), CountingConnectionProvider.ROUND_TRIPS);
+        assertTrue(sequenceRoundTrips * 10 < identityRoundTrips);
+    }
+
+    /**
+     * Проверяет, что после получения диапазона идентификаторов следующие транзакции обходятся без обращений
+     * к последовательности: при принятии заявок в друзья две связи пользователей сохраняются одним пакетом.
+     */
+    @Test
+    public void testRangeReusedAcrossTransactions() {
+        for (int i = 0; i < 10; i++) {
+            inTransaction(session -> {
+                session.persist(new UserFriend());
+                session.persist(new UserFriend());
+                session.persist(new Subscriber());
+                session.persist(new Subscription());
+            });
+        }
+
+        assertEquals(3, CountingConnectionProvider.ROUND_TRIPS.stream().filter(sql -> sql.contains("nextval")).count());
+        assertEquals(10, CountingConnectionProvider.ROUND_TRIPS.stream().filter(sql -> sql.equals("batch(2) user_friend")).count());
+        assertEquals(10 * 3 + 3, CountingConnectionProvider.ROUND_TRIPS.size());
+    }
+
+    /**
+     * Изображение с идентификатором из автоинкремента, как до перехода на последовательности.
+     */
+    @Entity
+    @Table(name = "images")
+    public static class IdentityImage {
+
+        /** Идентификатор изображения. */
+        @Id
+        @Column(name = "id")
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+    }
+
+    /**
+     * Выполняет действие в транзакции и сбрасывает изменения в базу данных.
+     * @param action действие с сессией.
+     */
+    private void inTransaction(Consumer<Session> action) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            action.accept(session);
+            session.getTransaction().commit();
+        }
+    }
+}
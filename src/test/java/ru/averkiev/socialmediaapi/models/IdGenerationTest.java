@@ -0,0 +1,110 @@
+package ru.averkiev.socialmediaapi.models;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.averkiev.socialmediaapi.security.AccessToken;
+import ru.averkiev.socialmediaapi.security.RefreshToken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Класс содержит тесты для проверки выдачи идентификаторов сущностей из последовательностей.
+ * Hibernate работает через подставное JDBC-соединение {@link CountingConnectionProvider}, поэтому тесты не требуют базы данных.
+ * Тесты охватывают выбор последовательности для каждой таблицы и уникальность и возрастание идентификаторов,
+ * выдаваемых оптимизатором pooled-lo из нескольких диапазонов в разных транзакциях.
+ * Фабрика сессий общая для всех тестов, поэтому тесты сохраняют сущности разных таблиц и не зависят от порядка выполнения.
+ */
+class IdGenerationTest {
+
+    /** Фабрика сессий с отображением сущностей приложения. */
+    private static SessionFactory sessionFactory;
+
+    /**
+     * Создаёт фабрику сессий один раз для всех тестов.
+     */
+    @BeforeAll
+    public static void setUpSessionFactory() {
+        sessionFactory = CountingConnectionProvider.sessionFactory(User.class, Post.class, Image.class,
+                ImageDerivative.class, ImageJob.class, Message.class, Subscription.class, Subscriber.class,
+                FriendshipRequest.class, UserFriend.class, TimelineEntry.class, AccessToken.class, RefreshToken.class);
+    }
+
+    /**
+     * Освобождает ресурсы после выполнения тестов.
+     */
+    @AfterAll
+    public static void tearDownSessionFactory() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        CountingConnectionProvider.ROUND_TRIPS.clear();
+    }
+
+    /**
+     * Проверяет, что идентификаторы всех сущностей выдаются из последовательностей таблиц.
+     */
+    @Test
+    public void testSequencePerTable() {
+        inTransaction(session -> {
+            session.persist(new User());
+            session.persist(new Post());
+            session.persist(new Message());
+            session.persist(new UserFriend());
+        });
+        List<String> sequences = CountingConnectionProvider.ROUND_TRIPS.stream()
+                .filter(sql -> sql.contains("nextval"))
+                .toList();
+
+        assertEquals(List.of("select nextval('users_seq')", "select nextval('posts_seq')",
+                "select nextval('messages_seq')", "select nextval('user_friend_seq')"), sequences);
+    }
+
+    /**
+     * Проверяет, что идентификаторы, выданные из нескольких диапазонов в разных транзакциях, уникальны и возрастают,
+     * а новый диапазон запрашивается только после исчерпания предыдущего.
+     */
+    @Test
+    public void testPooledLoIdsUniqueAndMonotonic() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            inTransaction(session -> {
+                for (int j = 0; j < 40; j++) {
+                    Subscription subscription = new Subscription();
+                    session.persist(subscription);
+                    ids.add(subscription.getId());
+                }
+            });
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i) > ids.get(i - 1));
+        }
+        assertEquals(120, ids.stream().distinct().count());
+        assertEquals(3, CountingConnectionProvider.ROUND_TRIPS.stream().filter(sql -> sql.contains("nextval")).count());
+    }
+
+    /**
+     * Выполняет действие в транзакции и сбрасывает изменения в базу данных.
+     * @param action действие с сессией.
+     */
+    private void inTransaction(Consumer<Session> action) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            action.accept(session);
+            session.getTransaction().commit();
+        }
+    }
+}
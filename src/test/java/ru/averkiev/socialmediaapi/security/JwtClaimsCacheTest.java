@@ -0,0 +1,99 @@
+package ru.averkiev.socialmediaapi.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.averkiev.socialmediaapi.exceptions.AuthException;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link JwtClaimsCache}.
+ * Тесты охватывают повторное использование утверждений проверенного токена, удаление их из кэша
+ * и отказ в кэшировании недействительных и истёкших токенов.
+ * Используется JwtProvider со сгенерированными ключами, за вызовами которого ведётся наблюдение.
+ */
+class JwtClaimsCacheTest {
+
+    /** Секретный ключ для подписи токенов доступа. */
+    private SecretKey accessSecret;
+
+    /** Наблюдаемый сервис для проверки токенов. */
+    private JwtProvider jwtProvider;
+
+    /** Реестр метрик. */
+    private SimpleMeterRegistry meterRegistry;
+
+    /** Тестируемый кэш. */
+    private JwtClaimsCache jwtClaimsCache;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        accessSecret = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        String refreshSecret = Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+        jwtProvider = spy(new JwtProvider(Encoders.BASE64.encode(accessSecret.getEncoded()), refreshSecret, 5L, 1L));
+        meterRegistry = new SimpleMeterRegistry();
+        jwtClaimsCache = new JwtClaimsCache(jwtProvider, meterRegistry, 100);
+    }
+
+    /**
+     * Проверяет, что подпись токена проверяется только при первом запросе, а после удаления из кэша - снова.
+     */
+    @Test
+    public void testVerifyAccessTokenOnce() {
+        String token = token("user", 60_000);
+
+        assertEquals("user", jwtClaimsCache.verifyAccessToken(token).subject());
+        assertEquals("user", jwtClaimsCache.verifyAccessToken(token).subject());
+        verify(jwtProvider, times(1)).verifyAccessToken(token);
+        assertEquals(0.5, meterRegistry.get("jwt.claims.cache.hit.ratio").gauge().value());
+
+        jwtClaimsCache.evict(token);
+        assertEquals("user", jwtClaimsCache.verifyAccessToken(token).subject());
+        verify(jwtProvider, times(2)).verifyAccessToken(token);
+    }
+
+    /**
+     * Проверяет, что недействительные и истёкшие токены отклоняются при каждом запросе.
+     */
+    @Test
+    public void testInvalidTokensAreNotCached() {
+        String foreign = Jwts.builder()
+                .setSubject("user")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS256))
+                .compact();
+        String expired = token("user", -1_000);
+
+        assertThrows(AuthException.class, () -> jwtClaimsCache.verifyAccessToken(foreign));
+        assertThrows(AuthException.class, () -> jwtClaimsCache.verifyAccessToken(foreign));
+        assertThrows(AuthException.class, () -> jwtClaimsCache.verifyAccessToken(expired));
+        verify(jwtProvider, times(2)).verifyAccessToken(foreign);
+        verify(jwtProvider, times(1)).verifyAccessToken(expired);
+    }
+
+    /**
+     * Формирует access токен, подписанный ключом теста.
+     * @param username имя пользователя.
+     * @param ttlMillis время до окончания действия токена, миллисекунды.
+     * @return access токен.
+     */
+    private String token(String username, long ttlMillis) {
+        return Jwts.builder()
+                .setSubject(username)
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMillis))
+                .signWith(accessSecret)
+                .compact();
+    }
+}
@@ -0,0 +1,177 @@
+package ru.averkiev.socialmediaapi.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.averkiev.socialmediaapi.models.EntityStatus;
+
+import javax.crypto.SecretKey;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Класс содержит замеры пропускной способности и объёма выделяемой памяти при работе с токенами.
+ * Сравниваются вход в систему, обновление токенов и проход запроса через фильтр с проверкой за один разбор
+ * общими парсерами и прежний порядок, при котором для каждой проверки и каждого чтения утверждений создавался
+ * новый парсер, а только что подписанные токены разбирались повторно ради времени создания и окончания действия.
+ * Объём памяти измеряется для текущего потока, поэтому замер не зависит от других потоков.
+ * Замеры не входят в обычный запуск тестов и выполняются в профиле benchmark, результаты выводятся в журнал.
+ */
+@Slf4j
+@Tag("benchmark")
+class JwtProviderBenchmarkTest {
+
+    /** Количество операций для прогрева. */
+    private static final int WARMUP = 500;
+
+    /** Количество измеряемых операций. */
+    private static final int OPERATIONS = 1_000;
+
+    /** Секретный ключ для подписи токенов доступа. */
+    private SecretKey accessSecret;
+
+    /** Секретный ключ для подписи токенов обновления. */
+    private SecretKey refreshSecret;
+
+    /** Тестируемый сервис. */
+    private JwtProvider jwtProvider;
+
+    /** Пользователь, для которого выдаются токены. */
+    private JwtUser jwtUser;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        accessSecret = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        refreshSecret = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        jwtProvider = new JwtProvider(Encoders.BASE64.encode(accessSecret.getEncoded()),
+                Encoders.BASE64.encode(refreshSecret.getEncoded()), 5L, 1L);
+        jwtUser = new JwtUser(1L, "user", "password", "user@mail.ru", EntityStatus.ACTIVE);
+    }
+
+    /**
+     * Сравнивает вход в систему: подпись пары токенов с возвратом утверждений
+     * и подпись с четырьмя повторными разборами новыми парсерами.
+     */
+    @Test
+    public void testLogin() {
+        Measurement current = measure(() -> {
+            jwtProvider.issueAccessToken(jwtUser);
+            jwtProvider.issueRefreshToken(jwtUser);
+        });
+        Measurement previous = measure(() -> {
+            String accessToken = jwtProvider.generateAccessToken(jwtUser);
+            parse(accessToken, accessSecret).getIssuedAt();
+            parse(accessToken, accessSecret).getExpiration();
+            String refreshToken = jwtProvider.generateRefreshToken(jwtUser);
+            parse(refreshToken, refreshSecret).getIssuedAt();
+            parse(refreshToken, refreshSecret).getExpiration();
+        });
+
+        report("login", current, previous);
+    }
+
+    /**
+     * Сравнивает обновление токенов: одна проверка токена обновления и подпись пары токенов
+     * против проверки, отдельного чтения утверждений и повторных разборов новыми парсерами.
+     */
+    @Test
+    public void testRefresh() {
+        String refreshToken = jwtProvider.generateRefreshToken(jwtUser);
+        Measurement current = measure(() -> {
+            jwtProvider.verifyRefreshToken(refreshToken);
+            jwtProvider.issueAccessToken(jwtUser);
+            jwtProvider.issueRefreshToken(jwtUser);
+        });
+        Measurement previous = measure(() -> {
+            parse(refreshToken, refreshSecret);
+            parse(refreshToken, refreshSecret).getSubject();
+            String accessToken = jwtProvider.generateAccessToken(jwtUser);
+            parse(accessToken, accessSecret).getIssuedAt();
+            parse(accessToken, accessSecret).getExpiration();
+            String newRefreshToken = jwtProvider.generateRefreshToken(jwtUser);
+            parse(newRefreshToken, refreshSecret).getIssuedAt();
+            parse(newRefreshToken, refreshSecret).getExpiration();
+        });
+
+        report("refresh", current, previous);
+    }
+
+    /**
+     * Сравнивает проход запроса через фильтр без кэша: одна проверка токена доступа общим парсером
+     * против проверки и отдельного чтения утверждений новыми парсерами.
+     */
+    @Test
+    public void testFilterPass() {
+        String accessToken = jwtProvider.generateAccessToken(jwtUser);
+        Measurement current = measure(() -> jwtProvider.verifyAccessToken(accessToken));
+        Measurement previous = measure(() -> {
+            parse(accessToken, accessSecret);
+            parse(accessToken, accessSecret).getSubject();
+        });
+
+        report("filter", current, previous);
+    }
+
+    /**
+     * Разбирает токен новым парсером, как это делалось до перехода на общие парсеры.
+     * @param token токен.
+     * @param secret секретный ключ.
+     * @return утверждения токена.
+     */
+    private Claims parse(String token, SecretKey secret) {
+        return Jwts.parserBuilder()
+                .setSigningKey(secret)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    /**
+     * Выполняет операцию после прогрева и измеряет количество операций в секунду и объём памяти на операцию.
+     * @param operation измеряемая операция.
+     * @return результат замера.
+     */
+    private Measurement measure(Runnable operation) {
+        for (int i = 0; i < WARMUP; i++) {
+            operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new Measurement(OPERATIONS * 1_000_000_000.0 / elapsed, bytes / OPERATIONS);
+    }
+
+    /**
+     * Выводит результаты замера.
+     * @param scenario название сценария.
+     * @param current замер с проверкой за один разбор.
+     * @param previous замер прежнего порядка.
+     */
+    private void report(String scenario, Measurement current, Measurement previous) {
+        log.info("{}: {} ops/s, {} B/op; previously {} ops/s, {} B/op",
+                scenario, Math.round(current.opsPerSecond()), current.bytesPerOp(),
+                Math.round(previous.opsPerSecond()), previous.bytesPerOp());
+    }
+
+    /**
+     * Результат замера.
+     * @param opsPerSecond количество операций в секунду.
+     * @param bytesPerOp объём выделенной памяти на операцию, байты.
+     */
+    private record Measurement(double opsPerSecond, long bytesPerOp) {
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import ru.averkiev.socialmediaapi.exceptions.AuthException;
+import ru.averkiev.socialmediaapi.models.EntityStatus;
 
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
@@ -279,4 +280,22 @@ class JwtProviderTest {
         assertEquals(AuthException.class, result.getClass());
         assertEquals("Unsupported JWT", result.getMessage());
     }
-}
\ No newline at end of file
+
+    /**
+     * Проверяет, что утверждения, возвращаемые при подписи токена, совпадают с утверждениями, получаемыми при его проверке,
+     * включая идентификатор и статус пользователя.
+     */
+    @Test
+    public void testIssuedClaimsMatchVerifiedClaims() {
+        JwtUser user = new JwtUser(1L, "testuser", "password", "testuser@mail.ru", EntityStatus.ACTIVE);
+
+        VerifiedToken issued = jwtProvider.issueAccessToken(user);
+        VerifiedToken verified = jwtProvider.verifyAccessToken(issued.token());
+        assertEquals(issued, verified);
+        assertEquals(1L, verified.userId());
+        assertEquals(EntityStatus.ACTIVE, verified.status());
+
+        VerifiedToken issuedRefresh = jwtProvider.issueRefreshToken(user);
+        assertEquals(issuedRefresh, jwtProvider.verifyRefreshToken(issuedRefresh.token()));
+    }
+}
@@ -0,0 +1,110 @@
+package ru.averkiev.socialmediaapi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.averkiev.socialmediaapi.exceptions.UserNotFoundException;
+import ru.averkiev.socialmediaapi.models.EntityStatus;
+import ru.averkiev.socialmediaapi.models.User;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link JwtUserCache}.
+ * Тесты охватывают повторное использование снимков по имени и идентификатору, удаление снимков
+ * при сохранении пользователя, в том числе после смены имени, и отказ в кэшировании ошибок загрузки.
+ */
+class JwtUserCacheTest {
+
+    /** Реестр метрик. */
+    private SimpleMeterRegistry meterRegistry;
+
+    /** Тестируемый кэш. */
+    private JwtUserCache jwtUserCache;
+
+    /** Количество загрузок пользователя. */
+    private AtomicInteger loads;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUserCache = new JwtUserCache(meterRegistry, 100, 300);
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Проверяет, что пользователь загружается один раз для каждого индекса, а повторные запросы учитываются как попадания.
+     */
+    @Test
+    public void testLoadsOncePerKey() {
+        assertEquals(1L, jwtUserCache.getByUsername("user", username -> load(1L, username, EntityStatus.ACTIVE)).getId());
+        assertEquals(1L, jwtUserCache.getByUsername("user", username -> load(1L, username, EntityStatus.ACTIVE)).getId());
+        assertEquals("user", jwtUserCache.getById(1L, id -> load(id, "user", EntityStatus.ACTIVE)).getUsername());
+        assertEquals("user", jwtUserCache.getById(1L, id -> load(id, "user", EntityStatus.ACTIVE)).getUsername());
+
+        assertEquals(2, loads.get());
+        assertEquals(2, meterRegistry.get("jwt.users.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(2, meterRegistry.get("jwt.users.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    /**
+     * Проверяет, что после сохранения пользователя с новым именем и статусом снимки загружаются заново,
+     * а прежнее имя больше не находит пользователя в кэше.
+     */
+    @Test
+    public void testInvalidateAfterRename() {
+        jwtUserCache.getByUsername("user", username -> load(1L, username, EntityStatus.ACTIVE));
+        jwtUserCache.getById(1L, id -> load(id, "user", EntityStatus.ACTIVE));
+
+        jwtUserCache.invalidate(user(1L, "renamed"));
+
+        assertEquals(EntityStatus.NOT_ACTIVE,
+                jwtUserCache.getById(1L, id -> load(id, "renamed", EntityStatus.NOT_ACTIVE)).getStatus());
+        assertThrows(UserNotFoundException.class, () -> jwtUserCache.getByUsername("user", username -> {
+            throw new UserNotFoundException("Пользователь с именем: " + username + " не найден");
+        }));
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Проверяет, что ошибка загрузки не кэшируется.
+     */
+    @Test
+    public void testFailedLoadIsNotCached() {
+        assertThrows(UserNotFoundException.class, () -> jwtUserCache.getByUsername("user", username -> {
+            throw new UserNotFoundException("Пользователь с именем: " + username + " не найден");
+        }));
+
+        assertEquals(1L, jwtUserCache.getByUsername("user", username -> load(1L, username, EntityStatus.ACTIVE)).getId());
+    }
+
+    /**
+     * Формирует снимок пользователя и учитывает загрузку.
+     * @param id идентификатор пользователя.
+     * @param username имя пользователя.
+     * @param status статус пользователя.
+     * @return снимок пользователя.
+     */
+    private JwtUser load(Long id, String username, EntityStatus status) {
+        loads.incrementAndGet();
+        return new JwtUser(id, username, "password", username + "@mail.ru", status);
+    }
+
+    /**
+     * Формирует сохранённого пользователя.
+     * @param id идентификатор пользователя.
+     * @param username имя пользователя.
+     * @return пользователь.
+     */
+    private User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.context.SecurityContextHolder;
+import ru.averkiev.socialmediaapi.models.EntityStatus;
+import ru.averkiev.socialmediaapi.security.JwtAuthentication;
+import ru.averkiev.socialmediaapi.security.JwtUser;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link AuthServiceImpl}.
+ * Тесты охватывают получение идентификатора пользователя из аутентификации с идентификатором из access токена
+ * и для токенов, выданных без него.
+ * Используются моки сервисов.
+ */
+class AuthServiceImplTest {
+
+    /** Заглушка для {@link JwtUserDetailsServiceImpl} */
+    @Mock
+    private JwtUserDetailsServiceImpl jwtUserDetailsService;
+
+    /** Внедрение заглушек в {@link AuthServiceImpl} */
+    @InjectMocks
+    private AuthServiceImpl authService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Очищает контекст безопасности после выполнения теста.
+     */
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Проверяет, что идентификатор из access токена возвращается без загрузки пользователя.
+     */
+    @Test
+    public void testGetUserIdFromTokenClaims() {
+        authenticate(7L);
+
+        assertEquals(7L, authService.getUserIdFromAuthentication());
+        verifyNoInteractions(jwtUserDetailsService);
+    }
+
+    /**
+     * Проверяет, что для токена без идентификатора пользователь загружается по имени.
+     */
+    @Test
+    public void testGetUserIdFromTokenWithoutClaim() {
+        authenticate(null);
+        when(jwtUserDetailsService.loadUserByUsername("user"))
+                .thenReturn(new JwtUser(7L, "user", "password", "user@mail.ru", EntityStatus.ACTIVE));
+
+        assertEquals(7L, authService.getUserIdFromAuthentication());
+        verify(jwtUserDetailsService).loadUserByUsername("user");
+    }
+
+    /**
+     * Устанавливает аутентификацию пользователя в контекст безопасности.
+     * @param userId идентификатор пользователя из токена.
+     */
+    private void authenticate(Long userId) {
+        JwtAuthentication authentication = new JwtAuthentication();
+        authentication.setUsername("user");
+        authentication.setUserId(userId);
+        authentication.setStatus(EntityStatus.ACTIVE);
+        authentication.setAuthenticated(true);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+}
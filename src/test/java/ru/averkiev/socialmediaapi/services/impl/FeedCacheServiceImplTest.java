@@ -0,0 +1,114 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.averkiev.socialmediaapi.repositories.SubscriptionRepository;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link FeedCacheServiceImpl}.
+ * Тесты охватывают получение страниц ленты из кэша, их заблаговременное формирование
+ * и сброс при изменении постов и подписок.
+ * Используются моки репозиториев для имитации работы с реальными объектами.
+ */
+class FeedCacheServiceImplTest {
+
+    /** Заглушка для {@link SubscriptionRepository} */
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    /** Реестр метрик. */
+    private SimpleMeterRegistry meterRegistry;
+
+    /** Тестируемый сервис. */
+    private FeedCacheServiceImpl feedCacheService;
+
+    /** Количество обращений к функции формирования страницы. */
+    private AtomicInteger loads;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        feedCacheService = new FeedCacheServiceImpl(subscriptionRepository, meterRegistry, 100, 60);
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Проверяет, что повторный запрос страницы отдаётся из кэша, а запросы учитываются в метриках.
+     */
+    @Test
+    public void testGetFromCache() {
+        assertEquals("page-1", feedCacheService.get(1L, "page:0:10", this::load));
+        assertEquals("page-1", feedCacheService.get(1L, "page:0:10", this::load));
+        assertEquals("page-2", feedCacheService.get(1L, "page:1:10", this::load));
+
+        assertEquals(2, loads.get());
+        assertEquals(1.0, meterRegistry.counter("feed.cache.requests", "result", "hit").count());
+        assertEquals(2.0, meterRegistry.counter("feed.cache.requests", "result", "miss").count());
+    }
+
+    /**
+     * Проверяет, что изменение постов автора сбрасывает страницы только его подписчиков.
+     */
+    @Test
+    public void testInvalidateFollowers() {
+        feedCacheService.get(1L, "page:0:10", this::load);
+        feedCacheService.get(2L, "page:0:10", this::load);
+        when(subscriptionRepository.findUserIdsBySubscriptionUserId(7L)).thenReturn(List.of(1L));
+
+        feedCacheService.invalidateFollowers(7L);
+
+        assertEquals("page-3", feedCacheService.get(1L, "page:0:10", this::load));
+        assertEquals("page-2", feedCacheService.get(2L, "page:0:10", this::load));
+    }
+
+    /**
+     * Проверяет, что изменение подписок пользователя сбрасывает все страницы его ленты.
+     */
+    @Test
+    public void testInvalidate() {
+        feedCacheService.get(1L, "page:0:10", this::load);
+        feedCacheService.get(1L, "all", this::load);
+
+        feedCacheService.invalidate(1L);
+
+        assertEquals("page-3", feedCacheService.get(1L, "all", this::load));
+    }
+
+    /**
+     * Проверяет, что заранее сформированная страница не формируется повторно при запросе,
+     * а в метриках учитывается только первое обращение к ней.
+     */
+    @Test
+    public void testPrewarm() {
+        feedCacheService.prewarm(1L, "cursor::20", this::load);
+        feedCacheService.prewarm(1L, "cursor::20", this::load);
+
+        assertEquals("page-1", feedCacheService.get(1L, "cursor::20", this::load));
+        assertEquals("page-1", feedCacheService.get(1L, "cursor::20", this::load));
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.counter("feed.prewarm.pages").count());
+        assertEquals(1.0, meterRegistry.counter("feed.prewarm.hits").count());
+    }
+
+    /**
+     * Формирует новую страницу ленты.
+     * @return страница ленты.
+     */
+    private String load() {
+        return "page-" + loads.incrementAndGet();
+    }
+}
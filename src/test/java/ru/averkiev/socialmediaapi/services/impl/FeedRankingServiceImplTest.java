@@ -0,0 +1,156 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.averkiev.socialmediaapi.models.AuthorPostRef;
+import ru.averkiev.socialmediaapi.models.FeedCandidate;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.services.FeedScorer;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link FeedRankingServiceImpl}.
+ * Тесты охватывают упорядочивание постов по взвешенной сумме оценок признаков и возврат
+ * хронологического порядка при превышении отведённого времени.
+ * Используются моки репозиториев для имитации работы с реальными объектами.
+ */
+class FeedRankingServiceImplTest {
+
+    /** Заглушка для {@link PostRepository} */
+    @Mock
+    private PostRepository postRepository;
+
+    /** Реестр метрик. */
+    private SimpleMeterRegistry meterRegistry;
+
+    /** Тестируемый сервис. */
+    private FeedRankingServiceImpl feedRankingService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(postRepository.findAuthorPostRefsByIdIn(anyCollection()))
+                .thenReturn(List.of(ref(30L, 7L), ref(20L, 8L), ref(10L, 8L)));
+    }
+
+    /**
+     * Освобождает пул потоков тестируемого сервиса.
+     */
+    @AfterEach
+    public void tearDown() {
+        if (feedRankingService != null) {
+            feedRankingService.shutdown();
+        }
+    }
+
+    /**
+     * Проверяет, что посты упорядочиваются по взвешенной сумме оценок, посты с равным рейтингом
+     * сохраняют хронологический порядок, а время работы признаков учитывается в метриках.
+     */
+    @Test
+    public void testRankByWeightedScores() {
+        feedRankingService = service(1000,
+                scorer("author", 2.0, 0, candidate -> candidate.getAuthorId() == 8L ? 1 : 0),
+                scorer("recency", 1.0, 0, candidate -> candidate.getPostId() / 100.0));
+
+        assertEquals(List.of(20L, 10L, 30L), feedRankingService.rank(1L, List.of(30L, 20L, 10L)));
+        assertEquals(1, meterRegistry.timer("feed.ranking.scorer.latency", "scorer", "author").count());
+        assertEquals(1, meterRegistry.timer("feed.ranking.scorer.latency", "scorer", "recency").count());
+    }
+
+    /**
+     * Проверяет, что при превышении отведённого времени посты возвращаются в хронологическом порядке.
+     */
+    @Test
+    public void testFallbackToChronologicalOnTimeout() {
+        feedRankingService = service(20,
+                scorer("author", 1.0, 0, candidate -> candidate.getAuthorId() == 8L ? 1 : 0),
+                scorer("slow", 1.0, 500, candidate -> 0));
+
+        assertEquals(List.of(30L, 20L, 10L), feedRankingService.rank(1L, List.of(30L, 20L, 10L)));
+        assertEquals(1.0, meterRegistry.counter("feed.ranking.fallbacks", "reason", "timeout").count());
+    }
+
+    /**
+     * Создаёт сервис ранжирования с заданными признаками.
+     * @param budgetMillis время, отведённое на ранжирование, в миллисекундах.
+     * @param scorers признаки.
+     * @return объект FeedRankingServiceImpl.
+     */
+    private FeedRankingServiceImpl service(long budgetMillis, FeedScorer... scorers) {
+        return new FeedRankingServiceImpl(postRepository, List.of(scorers), meterRegistry, true, 2, 100, budgetMillis);
+    }
+
+    /**
+     * Создаёт признак, оценивающий каждый пост заданной функцией.
+     * @param name наименование признака.
+     * @param weight вес признака.
+     * @param delayMillis задержка вычисления оценок в миллисекундах.
+     * @param function функция оценки поста.
+     * @return объект FeedScorer.
+     */
+    private FeedScorer scorer(String name, double weight, long delayMillis, ToDoubleFunction<FeedCandidate> function) {
+        return new FeedScorer() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public double getWeight() {
+                return weight;
+            }
+
+            @Override
+            public double[] score(Long userId, List<FeedCandidate> candidates) {
+                if (delayMillis > 0) {
+                    try {
+                        Thread.sleep(delayMillis);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return candidates.stream().mapToDouble(function).toArray();
+            }
+        };
+    }
+
+    /**
+     * Создаёт проекцию поста автора.
+     * @param postId идентификатор поста.
+     * @param authorId идентификатор автора.
+     * @return объект AuthorPostRef.
+     */
+    private AuthorPostRef ref(Long postId, Long authorId) {
+        return new AuthorPostRef() {
+            @Override
+            public Long getUserId() {
+                return authorId;
+            }
+
+            @Override
+            public Long getId() {
+                return postId;
+            }
+
+            @Override
+            public Date getCreatedAt() {
+                return new Date(postId * 1000);
+            }
+        };
+    }
+}
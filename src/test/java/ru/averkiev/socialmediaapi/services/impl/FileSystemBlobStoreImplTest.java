@@ -0,0 +1,91 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.averkiev.socialmediaapi.exceptions.ImageNotFoundException;
+import ru.averkiev.socialmediaapi.models.BlobInfo;
+import ru.averkiev.socialmediaapi.utils.ContentHash;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link FileSystemBlobStoreImpl}.
+ * Тесты охватывают сохранение и чтение содержимого, размещение файлов по ключу и дедупликацию.
+ * Используется временный каталог вместо реального хранилища.
+ */
+class FileSystemBlobStoreImplTest {
+
+    /** Корневой каталог хранилища. */
+    @TempDir
+    Path root;
+
+    /** Тестируемое хранилище. */
+    private FileSystemBlobStoreImpl blobStore;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        blobStore = new FileSystemBlobStoreImpl(root);
+    }
+
+    /**
+     * Проверяет, что сохранённое содержимое читается по ключу, равному SHA-256 содержимого,
+     * и размещается в каталоге по первым символам ключа.
+     */
+    @Test
+    public void testPutAndOpen() throws IOException {
+        byte[] data = "image".getBytes(StandardCharsets.UTF_8);
+
+        BlobInfo info = blobStore.put(new ByteArrayInputStream(data));
+
+        assertEquals(ContentHash.of(data), info.getKey());
+        assertEquals(data.length, info.getSize());
+        assertTrue(blobStore.exists(info.getKey()));
+        assertTrue(Files.isRegularFile(root.resolve(info.getKey().substring(0, 2))
+                .resolve(info.getKey().substring(2, 4)).resolve(info.getKey())));
+        try (InputStream in = blobStore.open(info.getKey())) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+
+    /**
+     * Проверяет, что одинаковое содержимое хранится в одном файле, а временные файлы не остаются.
+     */
+    @Test
+    public void testPutSameContent() throws IOException {
+        byte[] data = "image".getBytes(StandardCharsets.UTF_8);
+
+        BlobInfo first = blobStore.put(new ByteArrayInputStream(data));
+        BlobInfo second = blobStore.put(new ByteArrayInputStream(data));
+
+        assertEquals(first.getKey(), second.getKey());
+        try (Stream<Path> tmp = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, tmp.count());
+        }
+    }
+
+    /**
+     * Проверяет, что удалённое содержимое недоступно, а ключ недопустимого вида отклоняется.
+     */
+    @Test
+    public void testDeleteAndInvalidKey() {
+        BlobInfo info = blobStore.put(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+
+        blobStore.delete(info.getKey());
+
+        assertFalse(blobStore.exists(info.getKey()));
+        assertThrows(ImageNotFoundException.class, () -> blobStore.open(info.getKey()));
+        assertThrows(ImageNotFoundException.class, () -> blobStore.open("../../etc/passwd"));
+    }
+}
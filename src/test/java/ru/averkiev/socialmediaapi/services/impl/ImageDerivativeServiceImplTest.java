@@ -0,0 +1,142 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.averkiev.socialmediaapi.models.Image;
+import ru.averkiev.socialmediaapi.models.ImageDerivative;
+import ru.averkiev.socialmediaapi.models.ImagePreviewDTO;
+import ru.averkiev.socialmediaapi.models.ImageRendition;
+import ru.averkiev.socialmediaapi.repositories.ImageDerivativeRepository;
+import ru.averkiev.socialmediaapi.repositories.ImageJobRepository;
+import ru.averkiev.socialmediaapi.repositories.ImageRepository;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link ImageDerivativeServiceImpl}.
+ * Тесты охватывают формирование уменьшенных копий изображения и выбор копии для отображения в ленте.
+ * Используются хранилище во временном каталоге и моки репозиториев.
+ */
+class ImageDerivativeServiceImplTest {
+
+    /** Заглушка для {@link ImageRepository} */
+    @Mock
+    private ImageRepository imageRepository;
+
+    /** Заглушка для {@link ImageDerivativeRepository} */
+    @Mock
+    private ImageDerivativeRepository imageDerivativeRepository;
+
+    /** Заглушка для {@link ImageJobRepository} */
+    @Mock
+    private ImageJobRepository imageJobRepository;
+
+    /** Заглушка для {@link ImageStorageServiceImpl} */
+    @Mock
+    private ImageStorageServiceImpl imageStorageService;
+
+    /** Корневой каталог хранилища. */
+    @TempDir
+    Path root;
+
+    /** Хранилище содержимого изображений. */
+    private FileSystemBlobStoreImpl blobStore;
+
+    /** Тестируемый сервис. */
+    private ImageDerivativeServiceImpl imageDerivativeService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        blobStore = new FileSystemBlobStoreImpl(root);
+        when(imageStorageService.storeBlob(any())).thenAnswer(invocation -> blobStore.put(invocation.getArgument(0)));
+        imageDerivativeService = new ImageDerivativeServiceImpl(imageRepository, imageDerivativeRepository, imageJobRepository,
+                blobStore, imageStorageService, new SimpleMeterRegistry(), true, 1, List.of(160, 480, 1080), 480, 1000, 5, 300, 40_000_000, 0.85f);
+    }
+
+    /**
+     * Проверяет, что для изображения формируются копии только тех ширин, которые меньше исходной,
+     * с сохранением пропорций и в формате JPEG.
+     */
+    @Test
+    public void testGenerate() throws IOException {
+        Image image = new Image();
+        image.setId(1L);
+        image.setBlobKey(blobStore.put(new ByteArrayInputStream(png(1000, 500))).getKey());
+        when(imageDerivativeRepository.findWidthsByImageId(1L)).thenReturn(List.of());
+
+        imageDerivativeService.generate(image);
+
+        ArgumentCaptor<ImageDerivative> captor = ArgumentCaptor.forClass(ImageDerivative.class);
+        verify(imageDerivativeRepository, times(2)).save(captor.capture());
+        List<ImageDerivative> derivatives = captor.getAllValues();
+        assertEquals(480, derivatives.get(0).getWidth());
+        assertEquals(240, derivatives.get(0).getHeight());
+        assertEquals(160, derivatives.get(1).getWidth());
+        assertEquals(80, derivatives.get(1).getHeight());
+        assertEquals("image/jpeg", derivatives.get(1).getMimeType());
+        try (InputStream in = blobStore.open(derivatives.get(1).getBlobKey())) {
+            assertEquals(160, ImageIO.read(in).getWidth());
+        }
+    }
+
+    /**
+     * Проверяет, что лента ссылается на наименьшую копию не уже заданной ширины,
+     * а при её отсутствии - на исходное изображение.
+     */
+    @Test
+    public void testGetPreviews() {
+        List<ImageRendition> renditions = List.of(rendition(1L, 1080), rendition(1L, 160), rendition(1L, 480), rendition(2L, 160));
+        when(imageDerivativeRepository.findRenditionsByImageIdIn(List.of(1L, 2L))).thenReturn(renditions);
+
+        Map<Long, ImagePreviewDTO> previews = imageDerivativeService.getPreviews(List.of(1L, 2L));
+
+        assertEquals(480, previews.get(1L).getWidth());
+        assertNull(previews.get(2L).getWidth());
+    }
+
+    /**
+     * Формирует изображение PNG без прозрачности.
+     * @param width ширина изображения.
+     * @param height высота изображения.
+     * @return содержимое изображения.
+     */
+    private byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Формирует проекцию копии изображения.
+     * @param imageId идентификатор изображения.
+     * @param width ширина копии.
+     * @return проекция копии.
+     */
+    private ImageRendition rendition(Long imageId, Integer width) {
+        ImageRendition rendition = mock(ImageRendition.class);
+        when(rendition.getImageId()).thenReturn(imageId);
+        when(rendition.getWidth()).thenReturn(width);
+        return rendition;
+    }
+}
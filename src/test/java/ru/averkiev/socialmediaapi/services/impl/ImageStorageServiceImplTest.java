@@ -0,0 +1,153 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.averkiev.socialmediaapi.exceptions.ImageTooLargeException;
+import ru.averkiev.socialmediaapi.models.BlobUsage;
+import ru.averkiev.socialmediaapi.models.Image;
+import ru.averkiev.socialmediaapi.repositories.BlobReferenceRepository;
+import ru.averkiev.socialmediaapi.repositories.ImageRepository;
+import ru.averkiev.socialmediaapi.utils.ContentHash;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link ImageStorageServiceImpl}.
+ * Тесты охватывают потоковое сохранение содержимого изображений, ограничение их размера, хранение
+ * повторяющегося содержимого в одном экземпляре и удаление содержимого без ссылок.
+ * Используется хранилище во временном каталоге и моки репозиториев.
+ */
+class ImageStorageServiceImplTest {
+
+    /** Максимальный размер изображения в тестах. */
+    private static final int MAX_BYTES = 1024;
+
+    /** Заглушка для {@link ImageRepository} */
+    @Mock
+    private ImageRepository imageRepository;
+
+    /** Заглушка для {@link BlobReferenceRepository} */
+    @Mock
+    private BlobReferenceRepository blobReferenceRepository;
+
+    /** Корневой каталог хранилища. */
+    @TempDir
+    Path root;
+
+    /** Хранилище содержимого изображений. */
+    private FileSystemBlobStoreImpl blobStore;
+
+    /** Тестируемый сервис. */
+    private ImageStorageServiceImpl imageStorageService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        blobStore = new FileSystemBlobStoreImpl(root);
+        when(blobReferenceRepository.acquire(anyString(), anyLong())).thenReturn(1);
+        imageStorageService = new ImageStorageServiceImpl(blobStore, imageRepository, blobReferenceRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry(), false, MAX_BYTES, 600, 60);
+    }
+
+    /**
+     * Проверяет, что содержимое из потока сохраняется под своим хэшем, а MIME-тип определяется по сигнатуре.
+     */
+    @Test
+    public void testStoreStream() {
+        byte[] data = new byte[MAX_BYTES];
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+        System.arraycopy(signature, 0, data, 0, signature.length);
+        Image image = new Image();
+
+        imageStorageService.store(image, new ByteArrayInputStream(data), -1);
+
+        assertEquals(ContentHash.of(data), image.getBlobKey());
+        assertEquals(MAX_BYTES, image.getSize());
+        assertEquals("image/png", image.getMimeType());
+    }
+
+    /**
+     * Проверяет, что слишком большое содержимое отклоняется как по заявленному размеру, так и по мере чтения,
+     * а в хранилище не остаётся файлов.
+     */
+    @Test
+    public void testStoreTooLarge() throws IOException {
+        byte[] data = new byte[MAX_BYTES + 1];
+
+        assertThrows(ImageTooLargeException.class,
+                () -> imageStorageService.store(new Image(), new ByteArrayInputStream(data), data.length));
+        assertThrows(ImageTooLargeException.class,
+                () -> imageStorageService.store(new Image(), new ByteArrayInputStream(data), -1));
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    /**
+     * Проверяет, что повторяющееся содержимое, уже учтённое в счётчиках, не записывается в хранилище,
+     * а изображение ссылается на уже сохранённое содержимое.
+     */
+    @Test
+    public void testStoreDuplicate() throws IOException {
+        byte[] data = {1, 2, 3};
+        String key = ContentHash.of(data);
+        when(blobReferenceRepository.acquireExisting(key)).thenReturn(2);
+        Image image = new Image();
+        image.setImageData(data);
+
+        imageStorageService.store(image);
+
+        assertEquals(key, image.getBlobKey());
+        assertEquals(3, image.getSize());
+        assertNull(image.getImageData());
+        verify(blobReferenceRepository, never()).acquire(anyString(), anyLong());
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    /**
+     * Проверяет, что освобождение ссылки не удаляет содержимое сразу, а очистка удаляет только содержимое,
+     * счётчик которого удалён.
+     */
+    @Test
+    public void testPurgeUnreferenced() {
+        String released = imageStorageService.storeBlob(new ByteArrayInputStream(new byte[]{1})).getKey();
+        String reacquired = imageStorageService.storeBlob(new ByteArrayInputStream(new byte[]{2})).getKey();
+
+        imageStorageService.release(released);
+        verify(blobReferenceRepository).release(released);
+        assertTrue(blobStore.exists(released));
+
+        when(blobReferenceRepository.findUnreferenced(any(), eq(100))).thenReturn(List.of(released, reacquired));
+        when(blobReferenceRepository.deleteUnreferenced(eq(released), any())).thenReturn(1);
+        when(blobReferenceRepository.deleteUnreferenced(eq(reacquired), any())).thenReturn(0);
+        when(blobReferenceRepository.getUsage()).thenReturn(mock(BlobUsage.class));
+
+        assertEquals(1, imageStorageService.purgeUnreferenced());
+        assertFalse(blobStore.exists(released));
+        assertTrue(blobStore.exists(reacquired));
+    }
+}
@@ -0,0 +1,110 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.averkiev.socialmediaapi.models.AuthorPostRef;
+import ru.averkiev.socialmediaapi.models.FeedCursor;
+import ru.averkiev.socialmediaapi.models.TimelineWindow;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.repositories.SubscriptionRepository;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link MergeFeedAssemblyStrategyImpl}.
+ * Тесты охватывают слияние окон последних постов авторов и дочитывание постов за пределами окон.
+ * Используются моки репозиториев для имитации работы с реальными объектами.
+ */
+class MergeFeedAssemblyStrategyImplTest {
+
+    /** Заглушка для {@link PostRepository} */
+    @Mock
+    private PostRepository postRepository;
+
+    /** Заглушка для {@link SubscriptionRepository} */
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    /** Тестируемая стратегия. */
+    private MergeFeedAssemblyStrategyImpl mergeFeedStrategy;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mergeFeedStrategy = new MergeFeedAssemblyStrategyImpl(postRepository, subscriptionRepository, 100, 2);
+        when(subscriptionRepository.findSubscriptionUserIdsByUserId(1L)).thenReturn(List.of(7L, 8L, 9L));
+    }
+
+    /**
+     * Проверяет, что посты нескольких авторов сливаются в порядке убывания даты создания,
+     * а окна авторов загружаются из базы данных один раз.
+     */
+    @Test
+    public void testMergeRecentWindows() {
+        when(postRepository.findRecentPostRefsByUserIdIn(anyCollection(), eq(2)))
+                .thenReturn(List.of(ref(8L, 50L), ref(7L, 60L), ref(7L, 30L), ref(8L, 40L)));
+
+        assertEquals(List.of(60L, 50L, 40L), mergeFeedStrategy.getFeedPostIds(1L, 0, 3));
+        assertEquals(List.of(50L), mergeFeedStrategy.getFeedPostIds(1L, 1, 1));
+
+        verify(postRepository, times(1)).findRecentPostRefsByUserIdIn(anyCollection(), eq(2));
+    }
+
+    /**
+     * Проверяет, что при исчерпании окна автора следующие посты дочитываются из базы данных,
+     * а страница по курсору продолжает ленту без пропусков.
+     */
+    @Test
+    public void testMergeRefillsExhaustedWindow() {
+        when(postRepository.findRecentPostRefsByUserIdIn(anyCollection(), eq(2)))
+                .thenReturn(List.of(ref(7L, 60L), ref(7L, 50L), ref(8L, 45L)));
+        when(postRepository.findPostRefPageByUserIdInAfter(eq(List.of(7L)), any(Date.class), anyLong(), anyInt()))
+                .thenReturn(List.of(ref(7L, 40L), ref(7L, 20L)));
+
+        TimelineWindow first = mergeFeedStrategy.getFeedPage(1L, null, 3);
+        assertEquals(60L, first.postIdAt(0));
+        assertEquals(50L, first.postIdAt(1));
+        assertEquals(45L, first.postIdAt(2));
+
+        FeedCursor cursor = new FeedCursor(first.postIdAt(2), first.createdAtAt(2));
+        TimelineWindow second = mergeFeedStrategy.getFeedPage(1L, cursor, 3);
+        assertEquals(2, second.size());
+        assertEquals(40L, second.postIdAt(0));
+        assertEquals(20L, second.postIdAt(1));
+        assertTrue(second.isComplete());
+    }
+
+    /**
+     * Создаёт проекцию поста автора, дата создания которого пропорциональна идентификатору.
+     * @param authorId идентификатор автора.
+     * @param postId идентификатор поста.
+     * @return объект AuthorPostRef.
+     */
+    private AuthorPostRef ref(Long authorId, Long postId) {
+        return new AuthorPostRef() {
+            @Override
+            public Long getUserId() {
+                return authorId;
+            }
+
+            @Override
+            public Long getId() {
+                return postId;
+            }
+
+            @Override
+            public Date getCreatedAt() {
+                return new Date(postId * 1000);
+            }
+        };
+    }
+}
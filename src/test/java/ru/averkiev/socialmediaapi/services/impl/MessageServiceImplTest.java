@@ -0,0 +1,97 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.averkiev.socialmediaapi.exceptions.VersionConflictException;
+import ru.averkiev.socialmediaapi.models.Message;
+import ru.averkiev.socialmediaapi.models.MessageDTO;
+import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.repositories.MessageRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link MessageServiceImpl}.
+ * Тесты охватывают редактирование сообщения с проверкой версии.
+ * Используются моки репозитория и сервисов.
+ */
+class MessageServiceImplTest {
+
+    /** Заглушка для {@link MessageRepository} */
+    @Mock
+    private MessageRepository messageRepository;
+
+    /** Заглушка для {@link AuthServiceImpl} */
+    @Mock
+    private AuthServiceImpl authService;
+
+    /** Заглушка для {@link SearchServiceImpl} */
+    @Mock
+    private SearchServiceImpl searchService;
+
+    /** Внедрение заглушек в {@link MessageServiceImpl} */
+    @InjectMocks
+    private MessageServiceImpl messageService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(authService.getUserIdFromAuthentication()).thenReturn(1L);
+        when(messageRepository.findById(10L)).thenReturn(Optional.of(message()));
+    }
+
+    /**
+     * Проверяет, что сообщение изменяется по переданной версии, а в ответе возвращается следующая версия.
+     */
+    @Test
+    public void testEditMessageWithVersion() {
+        when(messageRepository.updateContentIfVersion(10L, "edited", 3L)).thenReturn(1);
+
+        MessageDTO messageDTO = messageService.editMessage(10L, "edited", 3L);
+
+        assertEquals("edited", messageDTO.getContent());
+        assertEquals(4L, messageDTO.getVersion());
+        verify(messageRepository, never()).save(any(Message.class));
+        verify(searchService).indexMessage(argThat(message -> "edited".equals(message.getContent())));
+    }
+
+    /**
+     * Проверяет, что изменение по устаревшей версии отклоняется, а без версии используется прочитанная версия.
+     */
+    @Test
+    public void testEditMessageWithStaleVersion() {
+        when(messageRepository.updateContentIfVersion(10L, "edited", 5L)).thenReturn(0);
+
+        assertThrows(VersionConflictException.class, () -> messageService.editMessage(10L, "edited", null));
+        verify(messageRepository).updateContentIfVersion(10L, "edited", 5L);
+        verify(searchService, never()).indexMessage(any(Message.class));
+    }
+
+    /**
+     * Формирует сохранённое сообщение версии 5 от пользователя 1 пользователю 2.
+     * @return сообщение.
+     */
+    private Message message() {
+        User sender = new User();
+        sender.setId(1L);
+        User receiver = new User();
+        receiver.setId(2L);
+        Message message = new Message();
+        message.setId(10L);
+        message.setSender(sender);
+        message.setReceiver(receiver);
+        message.setContent("original");
+        message.setVersion(5L);
+        return message;
+    }
+}
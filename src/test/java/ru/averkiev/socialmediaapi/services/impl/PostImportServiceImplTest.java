@@ -0,0 +1,177 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.averkiev.socialmediaapi.models.Image;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostImportResultDTO;
+import ru.averkiev.socialmediaapi.models.PostImportStatus;
+import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link PostImportServiceImpl}.
+ * Тесты охватывают разбиение потока на пакеты, результаты по строкам с ошибками разбора и слишком длинными строками,
+ * а также сохранение постов по одному после отката транзакции пакета.
+ * Используются моки репозитория и сервисов.
+ */
+class PostImportServiceImplTest {
+
+    /** Заглушка для {@link PostRepository} */
+    @Mock
+    private PostRepository postRepository;
+
+    /** Заглушка для {@link AuthServiceImpl} */
+    @Mock
+    private AuthServiceImpl authService;
+
+    /** Заглушка для {@link UserServiceImpl} */
+    @Mock
+    private UserServiceImpl userService;
+
+    /** Заглушка для {@link TimelineServiceImpl} */
+    @Mock
+    private TimelineServiceImpl timelineService;
+
+    /** Заглушка для {@link MergeFeedAssemblyStrategyImpl} */
+    @Mock
+    private MergeFeedAssemblyStrategyImpl mergeFeedStrategy;
+
+    /** Заглушка для {@link FeedCacheServiceImpl} */
+    @Mock
+    private FeedCacheServiceImpl feedCacheService;
+
+    /** Заглушка для {@link RecentPostsServiceImpl} */
+    @Mock
+    private RecentPostsServiceImpl recentPostsService;
+
+    /** Заглушка для {@link SearchServiceImpl} */
+    @Mock
+    private SearchServiceImpl searchService;
+
+    /** Заглушка для {@link ImageStorageServiceImpl} */
+    @Mock
+    private ImageStorageServiceImpl imageStorageService;
+
+    /** Заглушка для {@link ImageDerivativeServiceImpl} */
+    @Mock
+    private ImageDerivativeServiceImpl imageDerivativeService;
+
+    /** Следующий идентификатор сохраняемого поста. */
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /** Тестируемый сервис. */
+    private PostImportServiceImpl postImportService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        User user = new User();
+        user.setId(7L);
+        when(authService.getUserIdFromAuthentication()).thenReturn(7L);
+        when(userService.getUserById(7L)).thenReturn(user);
+        doAnswer(invocation -> {
+            Image image = invocation.getArgument(0);
+            image.setBlobKey("key-" + new String(image.getImageData(), StandardCharsets.UTF_8));
+            return null;
+        }).when(imageStorageService).store(any(Image.class));
+        postImportService = new PostImportServiceImpl(postRepository, authService, userService, timelineService,
+                mergeFeedStrategy, feedCacheService, recentPostsService, searchService, imageStorageService, imageDerivativeService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new ObjectMapper(), new SimpleMeterRegistry(), 2, 200);
+    }
+
+    /**
+     * Проверяет, что строки сохраняются пакетами заданного размера, пустые строки пропускаются,
+     * а результаты выдаются по каждой строке в порядке строк.
+     */
+    @Test
+    public void testImportInBatches() {
+        when(postRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Post> posts = invocation.getArgument(0);
+            posts.forEach(post -> post.setId(nextId.getAndIncrement()));
+            return posts;
+        });
+        String data = """
+                {"title":"first","text":"a"}
+                {"title":
+
+                {"title":"second","text":"b","images":[{"imageData":"aW1n","mimeType":"image/png"}]}
+                {"title":"%s"}
+                {"title":"third","text":"c"}
+                """.formatted("x".repeat(300));
+
+        List<PostImportResultDTO> results = importPosts(data);
+
+        assertEquals(List.of(1L, 2L, 4L, 5L, 6L), results.stream().map(PostImportResultDTO::getLine).toList());
+        assertEquals(List.of(PostImportStatus.CREATED, PostImportStatus.FAILED, PostImportStatus.CREATED,
+                PostImportStatus.FAILED, PostImportStatus.CREATED), results.stream().map(PostImportResultDTO::getStatus).toList());
+        assertEquals(List.of(1L, 2L, 3L), results.stream().map(PostImportResultDTO::getPostId).filter(id -> id != null).toList());
+        verify(postRepository, times(3)).saveAll(anyList());
+        verify(timelineService, times(3)).fanOutAll(eq(7L), anyList());
+        verify(imageDerivativeService).enqueueAll(argThat(images -> images.size() == 1));
+        verify(imageStorageService).store(argThat(image -> "key-img".equals(image.getBlobKey())));
+    }
+
+    /**
+     * Проверяет, что после отката транзакции пакета посты сохраняются по одному, ошибка одного поста
+     * не влияет на остальные, а содержимое изображений несохранённого поста освобождается.
+     */
+    @Test
+    public void testFallbackToSingleSaves() {
+        when(postRepository.saveAll(anyList())).thenThrow(new RuntimeException("batch failed"));
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> {
+            Post post = invocation.getArgument(0);
+            if ("bad".equals(post.getTitle())) {
+                throw new RuntimeException("constraint violation");
+            }
+            post.setId(nextId.getAndIncrement());
+            return post;
+        });
+        String data = """
+                {"title":"good"}
+                {"title":"bad","images":[{"imageData":"aW1n"}]}
+                """;
+
+        List<PostImportResultDTO> results = importPosts(data);
+
+        assertEquals(PostImportStatus.CREATED, results.get(0).getStatus());
+        assertEquals(1L, results.get(0).getPostId());
+        assertEquals(PostImportStatus.FAILED, results.get(1).getStatus());
+        assertNull(results.get(1).getPostId());
+        verify(imageStorageService).release("key-img");
+        verify(timelineService).fanOutAll(eq(7L), argThat(posts -> posts.size() == 1));
+    }
+
+    /**
+     * Выполняет импорт строк и собирает результаты.
+     * @param data строки в формате JSONL.
+     * @return результаты импорта.
+     */
+    private List<PostImportResultDTO> importPosts(String data) {
+        List<PostImportResultDTO> results = new ArrayList<>();
+        postImportService.importPosts(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8))).forEach(results::add);
+        return results;
+    }
+}
@@ -0,0 +1,108 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.averkiev.socialmediaapi.repositories.ImageRepository;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link PostPurgeServiceImpl}.
+ * Тесты охватывают окно очистки, переходящее через полночь, и удаление порций изображений и постов
+ * с освобождением ссылок на содержимое.
+ * Используются моки репозиториев и сервиса хранилища.
+ */
+class PostPurgeServiceImplTest {
+
+    /** Заглушка для {@link PostRepository} */
+    @Mock
+    private PostRepository postRepository;
+
+    /** Заглушка для {@link ImageRepository} */
+    @Mock
+    private ImageRepository imageRepository;
+
+    /** Заглушка для {@link ImageStorageServiceImpl} */
+    @Mock
+    private ImageStorageServiceImpl imageStorageService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Проверяет границы окна очистки внутри суток, через полночь и при совпадающих начале и конце.
+     */
+    @Test
+    public void testIsPurgeWindow() {
+        PostPurgeServiceImpl daytime = purgeService("01:00", "06:00");
+        assertTrue(daytime.isPurgeWindow(LocalTime.of(1, 0)));
+        assertTrue(daytime.isPurgeWindow(LocalTime.of(5, 59)));
+        assertFalse(daytime.isPurgeWindow(LocalTime.of(6, 0)));
+        assertFalse(daytime.isPurgeWindow(LocalTime.of(23, 0)));
+
+        PostPurgeServiceImpl overnight = purgeService("23:00", "04:00");
+        assertTrue(overnight.isPurgeWindow(LocalTime.of(23, 30)));
+        assertTrue(overnight.isPurgeWindow(LocalTime.of(3, 0)));
+        assertFalse(overnight.isPurgeWindow(LocalTime.of(4, 0)));
+        assertFalse(overnight.isPurgeWindow(LocalTime.of(12, 0)));
+
+        assertTrue(purgeService("00:00", "00:00").isPurgeWindow(LocalTime.of(12, 0)));
+    }
+
+    /**
+     * Проверяет, что порция удаляет помеченные изображения и посты и освобождает ссылки на их содержимое,
+     * а при отсутствии помеченных строк ничего не удаляется.
+     */
+    @Test
+    public void testPurgeBatch() {
+        when(imageRepository.lockDeletedIds(2)).thenReturn(List.of(5L, 6L));
+        when(imageRepository.findBlobKeysByIdIn(List.of(5L, 6L))).thenReturn(List.of("a", "a-thumb", "b"));
+        when(imageRepository.purgeByIdIn(List.of(5L, 6L))).thenReturn(2);
+        when(postRepository.lockDeletedIds(2)).thenReturn(List.of(1L));
+        when(imageRepository.findBlobKeysByPostIdIn(List.of(1L))).thenReturn(List.of("c"));
+        when(postRepository.purgeByIdIn(List.of(1L))).thenReturn(1);
+
+        PostPurgeServiceImpl purgeService = purgeService("00:00", "00:00");
+        assertEquals(3, purgeService.purgeBatch());
+        verify(imageStorageService).release("a");
+        verify(imageStorageService).release("a-thumb");
+        verify(imageStorageService).release("b");
+        verify(imageStorageService).release("c");
+
+        when(imageRepository.lockDeletedIds(2)).thenReturn(List.of());
+        when(postRepository.lockDeletedIds(2)).thenReturn(List.of());
+        clearInvocations(imageRepository, postRepository, imageStorageService);
+
+        assertEquals(0, purgeService.purgeBatch());
+        verify(imageRepository, never()).purgeByIdIn(anyList());
+        verify(postRepository, never()).purgeByIdIn(anyList());
+        verifyNoInteractions(imageStorageService);
+    }
+
+    /**
+     * Создаёт сервис очистки с порциями по два элемента и заданным окном.
+     * @param windowStart начало окна очистки.
+     * @param windowEnd конец окна очистки.
+     * @return сервис очистки.
+     */
+    private PostPurgeServiceImpl purgeService(String windowStart, String windowEnd) {
+        return new PostPurgeServiceImpl(postRepository, imageRepository, imageStorageService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry(),
+                windowStart, windowEnd, 2, 0, 300);
+    }
+}
@@ -0,0 +1,175 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import ru.averkiev.socialmediaapi.models.FeedPostRow;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostDTO;
+import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link RecentPostsServiceImpl}.
+ * Тесты охватывают заполнение буфера последних постов, выдачу страниц из памяти, вытеснение старых постов
+ * и обновление буфера при создании, изменении и удалении постов.
+ * Используются моки репозитория и сервиса копий изображений.
+ */
+class RecentPostsServiceImplTest {
+
+    /** Размер буфера в тестах. */
+    private static final int CAPACITY = 4;
+
+    /** Заглушка для {@link PostRepository} */
+    @Mock
+    private PostRepository postRepository;
+
+    /** Заглушка для {@link ImageDerivativeServiceImpl} */
+    @Mock
+    private ImageDerivativeServiceImpl imageDerivativeService;
+
+    /** Тестируемый сервис. */
+    private RecentPostsServiceImpl recentPostsService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(imageDerivativeService.getPreviews(anyCollection())).thenReturn(Map.of());
+        recentPostsService = new RecentPostsServiceImpl(postRepository, imageDerivativeService, new SimpleMeterRegistry(), CAPACITY);
+    }
+
+    /**
+     * Проверяет, что до заполнения буфера страницы не выдаются из памяти, а после заполнения
+     * страницы в пределах буфера выдаются без повторных обращений к базе данных.
+     */
+    @Test
+    public void testLoadAndPage() {
+        assertNull(recentPostsService.getPage(0, 2));
+
+        when(postRepository.findIdsByOrderByCreatedAtDesc(any(Pageable.class))).thenReturn(List.of(4L, 3L, 2L, 1L));
+        when(postRepository.findFeedPostRowsByIdIn(anyCollection())).thenReturn(List.of(
+                row(1L, null), row(2L, 20L), row(2L, 21L), row(3L, null), row(4L, null)));
+        recentPostsService.load();
+
+        List<PostDTO> page = recentPostsService.getPage(2, 2);
+        assertEquals(List.of(2L, 1L), ids(page));
+        assertEquals(List.of(20L, 21L), page.get(0).getImageIds());
+        assertNull(recentPostsService.getPage(3, 2));
+        verify(postRepository, times(1)).findIdsByOrderByCreatedAtDesc(any(Pageable.class));
+    }
+
+    /**
+     * Проверяет, что новые посты вытесняют старые, а страница, не помещающаяся в буфер, не выдаётся из памяти.
+     */
+    @Test
+    public void testCreateAndEvict() {
+        when(postRepository.findIdsByOrderByCreatedAtDesc(any(Pageable.class))).thenReturn(List.of(2L, 1L));
+        when(postRepository.findFeedPostRowsByIdIn(anyCollection())).thenReturn(List.of(row(1L, null), row(2L, null)));
+        recentPostsService.load();
+
+        assertEquals(List.of(2L, 1L), ids(recentPostsService.getPage(0, 10)));
+
+        for (long id = 3; id <= 5; id++) {
+            recentPostsService.onPostCreated(post(id));
+        }
+        recentPostsService.onPostCreated(post(5L));
+
+        assertEquals(List.of(5L, 4L, 3L, 2L), ids(recentPostsService.getPage(0, 4)));
+        assertNull(recentPostsService.getPage(0, 10));
+    }
+
+    /**
+     * Проверяет, что все посты выдаются из памяти, только пока в буфере находятся все опубликованные посты.
+     */
+    @Test
+    public void testGetAll() {
+        assertNull(recentPostsService.getAll());
+
+        when(postRepository.findIdsByOrderByCreatedAtDesc(any(Pageable.class))).thenReturn(List.of(2L, 1L));
+        when(postRepository.findFeedPostRowsByIdIn(anyCollection())).thenReturn(List.of(row(1L, null), row(2L, null)));
+        recentPostsService.load();
+        assertEquals(List.of(2L, 1L), ids(recentPostsService.getAll()));
+
+        for (long id = 3; id <= 4; id++) {
+            recentPostsService.onPostCreated(post(id));
+        }
+        assertEquals(List.of(4L, 3L, 2L, 1L), ids(recentPostsService.getAll()));
+
+        recentPostsService.onPostCreated(post(5L));
+        assertNull(recentPostsService.getAll());
+    }
+
+    /**
+     * Проверяет, что изменённые посты выдаются с новыми данными, а удалённые посты пропускаются.
+     */
+    @Test
+    public void testUpdateAndDelete() {
+        when(postRepository.findIdsByOrderByCreatedAtDesc(any(Pageable.class))).thenReturn(List.of());
+        recentPostsService.load();
+        for (long id = 1; id <= 3; id++) {
+            recentPostsService.onPostCreated(post(id));
+        }
+
+        Post updated = post(2L);
+        updated.setTitle("updated");
+        recentPostsService.onPostUpdated(updated);
+        recentPostsService.onImageAdded(3L, 30L);
+        recentPostsService.onPostDeleted(1L);
+
+        List<PostDTO> page = recentPostsService.getPage(0, 10);
+        assertEquals(List.of(3L, 2L), ids(page));
+        assertEquals(List.of(30L), page.get(0).getImageIds());
+        assertEquals("updated", page.get(1).getTitle());
+
+        recentPostsService.onImageDeleted(3L, 30L);
+        assertTrue(recentPostsService.getPage(0, 1).get(0).getImageIds().isEmpty());
+    }
+
+    /**
+     * Формирует строку проекции поста.
+     * @param postId идентификатор поста.
+     * @param imageId идентификатор изображения или null.
+     * @return строка проекции.
+     */
+    private FeedPostRow row(Long postId, Long imageId) {
+        return new FeedPostRow(postId, "title" + postId, "text", "user", imageId);
+    }
+
+    /**
+     * Формирует сохранённый пост.
+     * @param id идентификатор поста.
+     * @return пост.
+     */
+    private Post post(Long id) {
+        User user = new User();
+        user.setUsername("user");
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle("title" + id);
+        post.setUser(user);
+        return post;
+    }
+
+    /**
+     * Возвращает идентификаторы постов страницы.
+     * @param page страница постов.
+     * @return список идентификаторов.
+     */
+    private List<Long> ids(List<PostDTO> page) {
+        return page.stream().map(PostDTO::getId).toList();
+    }
+}
@@ -0,0 +1,204 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.averkiev.socialmediaapi.models.Message;
+import ru.averkiev.socialmediaapi.models.MessageDTO;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostText;
+import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.repositories.MessageRepository;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.utils.ResultStreamer;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link SearchServiceImpl}.
+ * Тесты охватывают поиск постов с учётом морфологии и веса заголовка, обновление и удаление документов,
+ * ограничение поиска сообщений перепиской пользователя и перестроение индекса по данным из базы данных.
+ * Индекс создаётся во временном каталоге, используются моки репозиториев и компонента потокового чтения.
+ */
+class SearchServiceImplTest {
+
+    /** Заглушка для {@link PostRepository} */
+    @Mock
+    private PostRepository postRepository;
+
+    /** Заглушка для {@link MessageRepository} */
+    @Mock
+    private MessageRepository messageRepository;
+
+    /** Заглушка для {@link ResultStreamer} */
+    @Mock
+    private ResultStreamer resultStreamer;
+
+    /** Временный каталог индекса. */
+    @TempDir
+    private Path indexDir;
+
+    /** Тестируемый сервис. */
+    private SearchServiceImpl searchService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        searchService = new SearchServiceImpl(postRepository, messageRepository, resultStreamer, new SimpleMeterRegistry(),
+                indexDir, 100, 1000, 30, 100);
+    }
+
+    /**
+     * Закрывает индекс после выполнения теста.
+     */
+    @AfterEach
+    public void tearDown() {
+        searchService.shutdown();
+    }
+
+    /**
+     * Проверяет, что посты находятся по разным формам слов, совпадение в заголовке выше совпадения в тексте,
+     * а изменённые и удалённые посты учитываются после обновления снимка индекса.
+     */
+    @Test
+    public void testSearchPosts() {
+        searchService.indexPost(post(1L, "Заметки", "Сегодня была отличная погода"));
+        searchService.indexPost(post(2L, "Погода в городе", "Прогноз на неделю"));
+        searchService.indexPost(post(3L, "Рецепт", "Пирог с яблоками"));
+        searchService.refresh();
+
+        assertEquals(List.of(2L, 1L), searchService.searchPosts("погоды", 0, 10));
+        assertEquals(List.of(1L), searchService.searchPosts("погоды", 1, 10));
+        assertTrue(searchService.searchPosts(" ", 0, 10).isEmpty());
+
+        searchService.indexPost(post(3L, "Рецепт", "Пирог на случай плохой погоды"));
+        searchService.deletePost(2L);
+        searchService.refresh();
+
+        assertEquals(List.of(1L, 3L), searchService.searchPosts("погода", 0, 10).stream().sorted().toList());
+        assertTrue(searchService.searchPosts("яблоки", 0, 10).isEmpty());
+    }
+
+    /**
+     * Проверяет, что сообщения находятся только в переписках пользователя и, при указании собеседника,
+     * только в переписке с ним.
+     */
+    @Test
+    public void testSearchMessagesScopedToParticipant() {
+        searchService.indexMessage(message(1L, 10L, 20L, "встреча завтра"));
+        searchService.indexMessage(message(2L, 30L, 10L, "встреча перенесена"));
+        searchService.indexMessage(message(3L, 20L, 30L, "встреча отменена"));
+        searchService.refresh();
+
+        assertEquals(List.of(1L, 2L), searchService.searchMessages(10L, null, "встреча", 0, 10).stream().sorted().toList());
+        assertEquals(List.of(2L), searchService.searchMessages(10L, 30L, "встреча", 0, 10));
+        assertTrue(searchService.searchMessages(40L, null, "встреча", 0, 10).isEmpty());
+
+        searchService.deleteMessage(2L);
+        searchService.refresh();
+        assertTrue(searchService.searchMessages(10L, 30L, "встреча", 0, 10).isEmpty());
+    }
+
+    /**
+     * Проверяет, что перестроение заменяет содержимое индекса постами и сообщениями из базы данных.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRebuild() {
+        searchService.indexPost(post(9L, "Устаревший пост", "Удалён из базы данных"));
+        searchService.refresh();
+
+        when(postRepository.streamAllPostTexts()).thenReturn(Stream.of(postText(1L, "Новости", "Открытие библиотеки")));
+        when(messageRepository.streamAllMessageDTOs()).thenReturn(Stream.of(new MessageDTO(2L, 10L, 20L, "библиотека открыта", 0L)));
+        doAnswer(invocation -> {
+            Supplier<Stream<Object>> query = invocation.getArgument(0);
+            Function<Object, Object> mapper = invocation.getArgument(1);
+            Consumer<Object> consumer = invocation.getArgument(2);
+            query.get().map(mapper).forEach(consumer);
+            return null;
+        }).when(resultStreamer).stream(any(), any(), any());
+
+        assertEquals(2, searchService.rebuild());
+        assertEquals(List.of(1L), searchService.searchPosts("библиотека", 0, 10));
+        assertEquals(List.of(2L), searchService.searchMessages(20L, null, "библиотека", 0, 10));
+        assertTrue(searchService.searchPosts("устаревший", 0, 10).isEmpty());
+    }
+
+    /**
+     * Формирует сохранённый пост.
+     * @param id идентификатор поста.
+     * @param title заголовок поста.
+     * @param text текст поста.
+     * @return пост.
+     */
+    private Post post(Long id, String title, String text) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle(title);
+        post.setText(text);
+        return post;
+    }
+
+    /**
+     * Формирует сохранённое сообщение.
+     * @param id идентификатор сообщения.
+     * @param senderId идентификатор отправителя.
+     * @param receiverId идентификатор получателя.
+     * @param content текст сообщения.
+     * @return сообщение.
+     */
+    private Message message(Long id, Long senderId, Long receiverId, String content) {
+        User sender = new User();
+        sender.setId(senderId);
+        User receiver = new User();
+        receiver.setId(receiverId);
+        Message message = new Message();
+        message.setId(id);
+        message.setSender(sender);
+        message.setReceiver(receiver);
+        message.setContent(content);
+        return message;
+    }
+
+    /**
+     * Формирует проекцию текста поста.
+     * @param id идентификатор поста.
+     * @param title заголовок поста.
+     * @param text текст поста.
+     * @return проекция текста поста.
+     */
+    private PostText postText(Long id, String title, String text) {
+        return new PostText() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getText() {
+                return text;
+            }
+        };
+    }
+}
@@ -0,0 +1,316 @@
+package ru.averkiev.socialmediaapi.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import ru.averkiev.socialmediaapi.models.FeedCursor;
+import ru.averkiev.socialmediaapi.models.FeedDeliveryMode;
+import ru.averkiev.socialmediaapi.models.Post;
+import ru.averkiev.socialmediaapi.models.PostRef;
+import ru.averkiev.socialmediaapi.models.TimelineEntry;
+import ru.averkiev.socialmediaapi.models.TimelineWindow;
+import ru.averkiev.socialmediaapi.models.User;
+import ru.averkiev.socialmediaapi.repositories.PostRepository;
+import ru.averkiev.socialmediaapi.repositories.PulledAuthorRepository;
+import ru.averkiev.socialmediaapi.repositories.SubscriptionRepository;
+import ru.averkiev.socialmediaapi.repositories.TimelineEntryRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link TimelineServiceImpl}.
+ * Тесты охватывают публикацию постов в ленты подписчиков, чтение лент из памяти и базы данных
+ * и обновление списка авторов, посты которых читаются при запросе ленты.
+ * Используются моки репозиториев для имитации работы с реальными объектами.
+ */
+class TimelineServiceImplTest {
+
+    /** Заглушка для {@link TimelineEntryRepository} */
+    @Mock
+    private TimelineEntryRepository timelineEntryRepository;
+
+    /** Заглушка для {@link SubscriptionRepository} */
+    @Mock
+    private SubscriptionRepository subscriptionRepository;
+
+    /** Заглушка для {@link PostRepository} */
+    @Mock
+    private PostRepository postRepository;
+
+    /** Заглушка для {@link PulledAuthorRepository} */
+    @Mock
+    private PulledAuthorRepository pulledAuthorRepository;
+
+    /** Тестируемый сервис. */
+    private TimelineServiceImpl timelineService;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        timelineService = service(FeedDeliveryMode.PUSH);
+    }
+
+    /**
+     * Проверяет, что первая страница ленты читается из базы данных один раз, а затем отдаётся из памяти.
+     */
+    @Test
+    public void testGetTimelinePostIdsFromWindow() {
+        when(timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(entries(1L, 30L, 20L));
+
+        assertEquals(List.of(30L, 20L), timelineService.getTimelinePostIds(1L, 0, 2));
+        assertEquals(List.of(30L, 20L), timelineService.getTimelinePostIds(1L, 0, 2));
+
+        verify(timelineEntryRepository, times(1))
+                .findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(1L, PageRequest.of(0, 3));
+    }
+
+    /**
+     * Проверяет, что опубликованный пост попадает в окно ленты подписчика без повторного чтения базы данных.
+     */
+    @Test
+    public void testFanOutUpdatesWindow() {
+        when(timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(entries(1L, 20L));
+        timelineService.getTimelinePostIds(1L, 0, 1);
+
+        Post post = post(40L, 7L);
+        when(timelineEntryRepository.fanOut(40L, 7L, post.getCreatedAt())).thenReturn(1);
+        when(subscriptionRepository.findUserIdsBySubscriptionUserId(7L)).thenReturn(List.of(1L));
+
+        timelineService.fanOut(post);
+
+        assertEquals(List.of(40L, 20L), timelineService.getTimelinePostIds(1L, 0, 3));
+        verify(timelineEntryRepository, times(1))
+                .findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class));
+    }
+
+    /**
+     * Проверяет, что страницы за пределами окна читаются из базы данных.
+     */
+    @Test
+    public void testGetTimelinePostIdsBeyondWindow() {
+        when(timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(1L, PageRequest.of(2, 2)))
+                .thenReturn(entries(1L, 5L));
+
+        assertEquals(List.of(5L), timelineService.getTimelinePostIds(1L, 2, 2));
+    }
+
+    /**
+     * Проверяет, что удаление поста сбрасывает окна подписчиков и удаляет записи из базы данных.
+     */
+    @Test
+    public void testRetract() {
+        when(timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(entries(1L, 40L));
+        timelineService.getTimelinePostIds(1L, 0, 1);
+
+        when(subscriptionRepository.findUserIdsBySubscriptionUserId(7L)).thenReturn(List.of(1L));
+        timelineService.retract(post(40L, 7L));
+
+        timelineService.getTimelinePostIds(1L, 0, 1);
+        verify(timelineEntryRepository, times(1)).deleteAllByPostId(40L);
+        verify(timelineEntryRepository, times(2))
+                .findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class));
+    }
+
+    /**
+     * Проверяет, что страница по курсору внутри окна отдаётся из памяти, а за пределами окна
+     * читается из базы данных начиная с позиции курсора.
+     */
+    @Test
+    public void testGetTimelinePageByCursor() {
+        when(timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(entries(1L, 50L, 40L, 30L));
+        when(timelineEntryRepository.findPageByUserIdAfter(eq(1L), any(Date.class), eq(30L), eq(2)))
+                .thenReturn(entries(1L, 20L, 10L));
+
+        TimelineWindow first = timelineService.getTimelinePage(1L, null, 2);
+        assertEquals(2, first.size());
+        assertEquals(50L, first.postIdAt(0));
+
+        FeedCursor cursor = FeedCursor.decode(new FeedCursor(first.postIdAt(1), first.createdAtAt(1)).encode());
+        TimelineWindow second = timelineService.getTimelinePage(1L, cursor, 1);
+        assertEquals(30L, second.postIdAt(0));
+
+        TimelineWindow third = timelineService.getTimelinePage(1L, new FeedCursor(30L, second.createdAtAt(0)), 2);
+        assertEquals(20L, third.postIdAt(0));
+        assertEquals(10L, third.postIdAt(1));
+        verify(timelineEntryRepository, times(1))
+                .findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class));
+    }
+
+    /**
+     * Проверяет, что в гибридном режиме посты популярного автора не записываются в ленты,
+     * а читаются при запросе ленты и объединяются с её материализованной частью.
+     */
+    @Test
+    public void testHybridPullsHighFollowerAuthors() {
+        timelineService = service(FeedDeliveryMode.HYBRID);
+        when(subscriptionRepository.findSubscriptionUserIdsWithFollowersAbove(anyLong())).thenReturn(List.of(9L));
+        when(subscriptionRepository.findSubscriptionUserIdsByUserIdAndSubscriptionUserIdIn(eq(1L), anyCollection()))
+                .thenReturn(List.of(9L));
+        when(timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(entries(1L, 30L, 10L));
+        when(postRepository.findPostRefsByUserIdIn(eq(List.of(9L)), any(Pageable.class)))
+                .thenReturn(List.of(ref(40L), ref(20L)));
+
+        timelineService.refreshPulledAuthors();
+        timelineService.fanOut(post(50L, 9L));
+
+        assertEquals(List.of(40L, 30L), timelineService.getTimelinePostIds(1L, 0, 2));
+        assertEquals(List.of(20L, 10L), timelineService.getTimelinePostIds(1L, 1, 2));
+        verify(pulledAuthorRepository, times(1)).saveAll(anyList());
+        verify(timelineEntryRepository, never()).fanOut(anyLong(), anyLong(), any());
+    }
+
+    /**
+     * Проверяет, что посты автора, количество подписчиков которого опустилось ниже порога,
+     * записываются в ленты подписчиков до исключения автора из списка и остаются в них после того,
+     * как посты автора перестают читаться при запросе ленты.
+     */
+    @Test
+    public void testHybridPushesDemotedAuthorPosts() {
+        timelineService = service(FeedDeliveryMode.HYBRID);
+        List<TimelineEntry> inbox = new ArrayList<>(entries(1L, 30L));
+        when(subscriptionRepository.findSubscriptionUserIdsWithFollowersAbove(anyLong()))
+                .thenReturn(List.of(9L), List.of());
+        when(pulledAuthorRepository.findAllAuthorIds()).thenReturn(List.of(), List.of(9L));
+        when(subscriptionRepository.findSubscriptionUserIdsByUserIdAndSubscriptionUserIdIn(eq(1L), anyCollection()))
+                .thenReturn(List.of(9L));
+        when(subscriptionRepository.findUserIdsBySubscriptionUserId(9L)).thenReturn(List.of(1L));
+        when(timelineEntryRepository.findAllByUserIdOrderByPostCreatedAtDescPostIdDesc(eq(1L), any(Pageable.class)))
+                .thenAnswer(invocation -> new ArrayList<>(inbox));
+        when(postRepository.findPostRefsByUserIdIn(eq(List.of(9L)), any(Pageable.class)))
+                .thenReturn(List.of(ref(50L)));
+        when(timelineEntryRepository.backfillFollowers(eq(9L), any(Date.class), eq(3))).thenAnswer(invocation -> {
+            if (inbox.size() == 1) {
+                inbox.add(0, entries(1L, 50L).get(0));
+                return 1;
+            }
+            return 0;
+        });
+
+        timelineService.refreshPulledAuthors();
+        timelineService.fanOut(post(50L, 9L));
+        assertEquals(List.of(50L, 30L), timelineService.getTimelinePostIds(1L, 0, 2));
+
+        timelineService.refreshPulledAuthors();
+        assertEquals(List.of(50L, 30L), timelineService.getTimelinePostIds(1L, 0, 2));
+        InOrder order = inOrder(timelineEntryRepository, pulledAuthorRepository);
+        order.verify(timelineEntryRepository, times(2)).backfillFollowers(eq(9L), any(Date.class), eq(3));
+        order.verify(pulledAuthorRepository).deleteById(9L);
+        verify(timelineEntryRepository, never()).fanOut(anyLong(), anyLong(), any());
+    }
+
+    /**
+     * Проверяет, что автор, исключённый из списка во время простоя приложения, определяется по сохранённому списку
+     * и его посты записываются в ленты подписчиков после перезапуска.
+     */
+    @Test
+    public void testHybridPushesAuthorDemotedBeforeRestart() {
+        timelineService = service(FeedDeliveryMode.HYBRID);
+        when(subscriptionRepository.findSubscriptionUserIdsWithFollowersAbove(anyLong())).thenReturn(List.of());
+        when(pulledAuthorRepository.findAllAuthorIds()).thenReturn(List.of(9L));
+
+        timelineService.refreshPulledAuthors();
+
+        verify(timelineEntryRepository, times(2)).backfillFollowers(eq(9L), any(Date.class), eq(3));
+        verify(pulledAuthorRepository, times(1)).deleteById(9L);
+    }
+
+    /**
+     * Проверяет, что при ошибке записи постов в ленты подписчиков автор остаётся в списке,
+     * его посты продолжают читаться при запросе ленты и не записываются в ленты при публикации.
+     */
+    @Test
+    public void testHybridKeepsAuthorPulledWhenBackfillFails() {
+        timelineService = service(FeedDeliveryMode.HYBRID);
+        when(subscriptionRepository.findSubscriptionUserIdsWithFollowersAbove(anyLong())).thenReturn(List.of());
+        when(pulledAuthorRepository.findAllAuthorIds()).thenReturn(List.of(9L));
+        when(timelineEntryRepository.backfillFollowers(eq(9L), any(Date.class), eq(3)))
+                .thenThrow(new RuntimeException("connection refused"));
+
+        timelineService.refreshPulledAuthors();
+        timelineService.fanOut(post(50L, 9L));
+
+        verify(pulledAuthorRepository, never()).deleteById(anyLong());
+        verify(timelineEntryRepository, never()).fanOut(anyLong(), anyLong(), any());
+    }
+
+    /**
+     * Создаёт сервис с заданным режимом доставки постов.
+     * @param deliveryMode режим доставки постов.
+     * @return объект TimelineServiceImpl.
+     */
+    private TimelineServiceImpl service(FeedDeliveryMode deliveryMode) {
+        return new TimelineServiceImpl(timelineEntryRepository, subscriptionRepository, postRepository,
+                pulledAuthorRepository, new SimpleMeterRegistry(), 100, 3, deliveryMode, 1000, 60000);
+    }
+
+    /**
+     * Создаёт проекцию поста.
+     * @param postId идентификатор поста.
+     * @return объект PostRef.
+     */
+    private PostRef ref(Long postId) {
+        return new PostRef() {
+            @Override
+            public Long getId() {
+                return postId;
+            }
+
+            @Override
+            public Date getCreatedAt() {
+                return new Date(postId * 1000);
+            }
+        };
+    }
+
+    /**
+     * Создаёт записи ленты пользователя для заданных постов, упорядоченных от новых к старым.
+     * @param userId идентификатор владельца ленты.
+     * @param postIds идентификаторы постов.
+     * @return список записей ленты.
+     */
+    private List<TimelineEntry> entries(Long userId, Long... postIds) {
+        List<TimelineEntry> entries = new ArrayList<>();
+        for (Long postId : postIds) {
+            TimelineEntry entry = new TimelineEntry();
+            entry.setUserId(userId);
+            entry.setPostId(postId);
+            entry.setPostCreatedAt(new Date(postId * 1000));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Создаёт пост с заданным автором.
+     * @param postId идентификатор поста.
+     * @param authorId идентификатор автора.
+     * @return объект Post.
+     */
+    private Post post(Long postId, Long authorId) {
+        User author = new User();
+        author.setId(authorId);
+        Post post = new Post();
+        post.setId(postId);
+        post.setUser(author);
+        post.setCreatedAt(new Date(postId * 1000));
+        return post;
+    }
+}
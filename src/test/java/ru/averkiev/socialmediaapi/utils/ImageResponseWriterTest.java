@@ -0,0 +1,131 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.averkiev.socialmediaapi.services.ImageStorageService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link ImageResponseWriter}.
+ * Тесты охватывают выдачу содержимого целиком и по диапазону, условные запросы и передачу файла через sendfile.
+ * Используется мок сервиса хранилища для имитации работы с реальным содержимым.
+ */
+class ImageResponseWriterTest {
+
+    /** Ключ содержимого изображения. */
+    private static final String BLOB_KEY = "a".repeat(64);
+
+    /** Заглушка для {@link ImageStorageService} */
+    @Mock
+    private ImageStorageService imageStorageService;
+
+    /** Запрос к изображению. */
+    private MockHttpServletRequest request;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        request = new MockHttpServletRequest("GET", "/social-media-api/posts/1/images/1");
+    }
+
+    /**
+     * Проверяет, что без заголовка Range отдаётся всё содержимое с ETag и заголовками кэширования.
+     */
+    @Test
+    public void testFullContent() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = respond();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"" + BLOB_KEY + "\"", response.getHeaders().getETag());
+        assertEquals(100, response.getHeaders().getContentLength());
+        assertEquals(MediaType.IMAGE_PNG, response.getHeaders().getContentType());
+        assertTrue(response.getHeaders().getCacheControl().contains("immutable"));
+
+        response.getBody().writeTo(new ByteArrayOutputStream());
+        verify(imageStorageService).transferTo(eq(BLOB_KEY), eq(0L), eq(100L), any());
+    }
+
+    /**
+     * Проверяет, что один диапазон байт отдаётся ответом 206, а недостижимый диапазон - ответом 416.
+     */
+    @Test
+    public void testRange() throws IOException {
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        ResponseEntity<StreamingResponseBody> response = respond();
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 10-19/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10, response.getHeaders().getContentLength());
+        response.getBody().writeTo(new ByteArrayOutputStream());
+        verify(imageStorageService).transferTo(eq(BLOB_KEY), eq(10L), eq(10L), any());
+
+        request = new MockHttpServletRequest("GET", "/social-media-api/posts/1/images/1");
+        request.addHeader(HttpHeaders.RANGE, "bytes=200-");
+        response = respond();
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    /**
+     * Проверяет, что при совпадении If-None-Match с ETag возвращается 304 без чтения содержимого.
+     */
+    @Test
+    public void testNotModified() throws IOException {
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + BLOB_KEY + "\"");
+
+        ResponseEntity<StreamingResponseBody> response = respond();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(imageStorageService, never()).transferTo(any(), anyLong(), anyLong(), any());
+    }
+
+    /**
+     * Проверяет, что файл содержимого передаётся контейнеру через атрибуты sendfile, если контейнер их поддерживает.
+     */
+    @Test
+    public void testSendfile() {
+        request.setAttribute(ImageResponseWriter.SENDFILE_SUPPORT_ATTRIBUTE, Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=-30");
+        when(imageStorageService.locate(BLOB_KEY)).thenReturn(Path.of("/blobs", BLOB_KEY));
+
+        ResponseEntity<StreamingResponseBody> response = respond();
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(Path.of("/blobs", BLOB_KEY).toString(), request.getAttribute(ImageResponseWriter.SENDFILE_FILENAME_ATTRIBUTE));
+        assertEquals(70L, request.getAttribute(ImageResponseWriter.SENDFILE_START_ATTRIBUTE));
+        assertEquals(100L, request.getAttribute(ImageResponseWriter.SENDFILE_END_ATTRIBUTE));
+    }
+
+    /**
+     * Формирует ответ на текущий запрос к изображению размером 100 байт.
+     * @return ответ с содержимым изображения.
+     */
+    private ResponseEntity<StreamingResponseBody> respond() {
+        return ImageResponseWriter.response(BLOB_KEY, 100, "image/png", new ServletWebRequest(request, new MockHttpServletResponse()), imageStorageService);
+    }
+}
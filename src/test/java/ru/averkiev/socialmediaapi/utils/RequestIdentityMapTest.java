@@ -0,0 +1,125 @@
+package ru.averkiev.socialmediaapi.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.averkiev.socialmediaapi.models.User;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Класс содержит тесты для проверки функциональности {@link RequestIdentityMap}.
+ * Тесты охватывают однократную загрузку сущности в рамках запроса, замену сущности после сохранения,
+ * отказ в запоминании отсутствующей сущности и загрузку при каждом обращении вне HTTP-запроса.
+ */
+class RequestIdentityMapTest {
+
+    /** Тестируемый компонент. */
+    private RequestIdentityMap requestIdentityMap;
+
+    /** Количество загрузок пользователя. */
+    private AtomicInteger loads;
+
+    /**
+     * Инициализирует объекты и ресурсы, необходимые для выполнения тестов.
+     */
+    @BeforeEach
+    public void setUp() {
+        requestIdentityMap = new RequestIdentityMap();
+        loads = new AtomicInteger();
+    }
+
+    /**
+     * Освобождает атрибуты запроса после выполнения теста.
+     */
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    /**
+     * Проверяет, что в рамках запроса пользователь загружается один раз для каждого идентификатора,
+     * а в новом запросе загружается заново.
+     */
+    @Test
+    public void testLoadsOncePerRequest() {
+        startRequest();
+        User user = requestIdentityMap.get(User.class, 1L, () -> load(1L));
+        assertSame(user, requestIdentityMap.get(User.class, 1L, () -> load(1L)));
+        requestIdentityMap.get(User.class, 2L, () -> load(2L));
+        assertEquals(2, loads.get());
+
+        startRequest();
+        assertNotSame(user, requestIdentityMap.get(User.class, 1L, () -> load(1L)));
+        assertEquals(3, loads.get());
+    }
+
+    /**
+     * Проверяет, что сохранённый пользователь заменяет загруженного ранее.
+     */
+    @Test
+    public void testPutReplacesLoaded() {
+        startRequest();
+        requestIdentityMap.get(User.class, 1L, () -> load(1L));
+        User saved = user(1L);
+        requestIdentityMap.put(User.class, 1L, saved);
+
+        assertSame(saved, requestIdentityMap.get(User.class, 1L, () -> load(1L)));
+        assertEquals(1, loads.get());
+    }
+
+    /**
+     * Проверяет, что отсутствие пользователя не запоминается.
+     */
+    @Test
+    public void testMissingIsNotCached() {
+        startRequest();
+        assertNull(requestIdentityMap.get(User.class, 1L, () -> null));
+        assertNotNull(requestIdentityMap.get(User.class, 1L, () -> load(1L)));
+    }
+
+    /**
+     * Проверяет, что вне HTTP-запроса пользователь загружается при каждом обращении.
+     */
+    @Test
+    public void testOutsideRequestLoadsEveryTime() {
+        requestIdentityMap.get(User.class, 1L, () -> load(1L));
+        requestIdentityMap.put(User.class, 1L, user(1L));
+        requestIdentityMap.get(User.class, 1L, () -> load(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Начинает новый HTTP-запрос в текущем потоке.
+     */
+    private void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    /**
+     * Загружает пользователя и учитывает загрузку.
+     * @param id идентификатор пользователя.
+     * @return пользователь.
+     */
+    private User load(Long id) {
+        loads.incrementAndGet();
+        return user(id);
+    }
+
+    /**
+     * Формирует пользователя.
+     * @param id идентификатор пользователя.
+     * @return пользователь.
+     */
+    private User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}